@@ -0,0 +1,74 @@
+package com.strata.capacitor;
+
+import android.view.MotionEvent;
+
+import com.getcapacitor.JSObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StrataPlugin#handleGamepadMotionEvent} with one or more controllers
+ * sending axis events in turn, with the default axis processing or with
+ * radial deadzones, curves and filters on every axis.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GamepadIngestBenchmark {
+
+    // Controllers polled at 250 Hz batch about four samples per frame
+    private static final int BATCHED_SAMPLES = 3;
+
+    @Param({"1", "4"})
+    public int controllers;
+
+    @Param({InputFixtures.SINK_NONE, InputFixtures.SINK_HISTORY, InputFixtures.SINK_BUFFER,
+        InputFixtures.SINK_PREDICTION})
+    public String sink;
+
+    @Param({"default", "filtered"})
+    public String processing;
+
+    private StrataPlugin plugin;
+    private MotionEvent[] events;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        plugin = InputFixtures.newPlugin(sink);
+        if ("filtered".equals(processing)) {
+            JSObject stick = new JSObject()
+                .put("deadzone", 0.1)
+                .put("deadzoneShape", "radial")
+                .put("rescale", true)
+                .put("curve", "power")
+                .put("exponent", 1.6)
+                .put("filter", new JSObject().put("type", "oneEuro"));
+            plugin.setAxisProcessing(InputFixtures.call(new JSObject()
+                .put("leftStick", stick)
+                .put("rightStick", stick)
+                .put("triggers", new JSObject().put("filter", new JSObject().put("type", "lowPass")))));
+        }
+        events = new MotionEvent[controllers * 2];
+        for (int c = 0; c < controllers; c++) {
+            int deviceId = InputFixtures.FIRST_GAMEPAD_ID + c;
+            events[c * 2] = InputFixtures.gamepadEvent(deviceId, BATCHED_SAMPLES, 16, 0.4f);
+            events[c * 2 + 1] = InputFixtures.gamepadEvent(deviceId, BATCHED_SAMPLES, 32, -0.6f);
+        }
+    }
+
+    @Benchmark
+    public void axes() {
+        plugin.handleGamepadMotionEvent(events[next]);
+        next = next + 1 == events.length ? 0 : next + 1;
+    }
+}
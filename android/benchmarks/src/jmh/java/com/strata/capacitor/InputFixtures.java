@@ -0,0 +1,139 @@
+package com.strata.capacitor;
+
+import android.view.InputDevice;
+import android.view.MotionEvent;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+/**
+ * Plugin and event setup shared by the benchmarks.
+ *
+ * The plugin is used without {@code load()}: there is no bridge or context on
+ * the JVM, and the input paths only need a compiled input mapping, which
+ * {@link #newPlugin(String)} installs through {@code setInputMapping}.
+ */
+final class InputFixtures {
+
+    static final int GAMEPAD_SOURCE = InputDevice.SOURCE_GAMEPAD | InputDevice.SOURCE_JOYSTICK;
+    static final int FIRST_GAMEPAD_ID = 7;
+
+    // The plugin's default mapping, in its action order
+    static final String[] ACTIONS = {
+        "moveForward", "moveBackward", "moveLeft", "moveRight",
+        "jump", "action", "cancel"
+    };
+    private static final String[][] DEFAULT_KEYS = {
+        { "KeyW", "ArrowUp" }, { "KeyS", "ArrowDown" }, { "KeyA", "ArrowLeft" }, { "KeyD", "ArrowRight" },
+        { "Space" }, { "KeyE", "Enter" }, { "Escape" }
+    };
+
+    /** No extra output: the slots read by getInputSnapshot are the only writes. */
+    static final String SINK_NONE = "none";
+    /** Batched samples are recorded for the input history. */
+    static final String SINK_HISTORY = "history";
+    /** Every event is also published to the binary input buffer. */
+    static final String SINK_BUFFER = "buffer";
+    /** Touch events also feed the gesture recognizer. */
+    static final String SINK_GESTURES = "gestures";
+    /** Every sample also updates the touch and stick predictor. */
+    static final String SINK_PREDICTION = "prediction";
+
+    private InputFixtures() {
+    }
+
+    static StrataPlugin newPlugin(String sink) {
+        StrataPlugin plugin = new StrataPlugin();
+        plugin.setInputMapping(call(mapping(ACTIONS.length)));
+        if (SINK_HISTORY.equals(sink)) {
+            plugin.configureInputHistory(call(new JSObject().put("enabled", true)));
+        } else if (SINK_BUFFER.equals(sink)) {
+            plugin.setInputBufferEnabled(call(new JSObject().put("enabled", true)));
+        } else if (SINK_GESTURES.equals(sink)) {
+            plugin.setGesturesEnabled(call(new JSObject().put("enabled", true)));
+        } else if (SINK_PREDICTION.equals(sink)) {
+            plugin.configureInputPrediction(call(new JSObject().put("enabled", true)));
+        }
+        return plugin;
+    }
+
+    static PluginCall call(JSObject data) {
+        return new PluginCall("benchmark", data);
+    }
+
+    /**
+     * The default mapping for the first {@code actions} actions, as sent by setInputMapping.
+     */
+    static JSObject mapping(int actions) {
+        JSObject mapping = new JSObject();
+        for (int i = 0; i < actions; i++) {
+            JSArray keys = new JSArray();
+            for (String key : DEFAULT_KEYS[i]) {
+                keys.put(key);
+            }
+            mapping.put(ACTIONS[i], keys);
+        }
+        return mapping;
+    }
+
+    /**
+     * A touch event for pointers 0..{@code pointers - 1}, with {@code batched}
+     * historical samples before the current one. For pointer down and up,
+     * {@code actionIndex} is the pointer that changed.
+     */
+    static MotionEvent touchEvent(int action, int actionIndex, int pointers, int batched,
+                                  long time, float offset) {
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointers];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointers];
+        for (int i = 0; i < pointers; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = i;
+            coords[i] = new MotionEvent.PointerCoords();
+        }
+        int maskedAction = action | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+        long sampleTime = time - batched * 4L;
+        setTouchCoords(coords, 0, offset);
+        MotionEvent event = MotionEvent.obtain(0, sampleTime, maskedAction, pointers, properties, coords,
+            0, 0, 1f, 1f, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+        for (int h = 1; h <= batched; h++) {
+            setTouchCoords(coords, h, offset);
+            event.addBatch(sampleTime + h * 4L, coords, 0);
+        }
+        return event;
+    }
+
+    private static void setTouchCoords(MotionEvent.PointerCoords[] coords, int sample, float offset) {
+        for (int i = 0; i < coords.length; i++) {
+            coords[i].x = 100 + i * 80 + offset + sample;
+            coords[i].y = 400 - i * 40 + offset + sample;
+        }
+    }
+
+    /**
+     * A gamepad axis event with both sticks and triggers set, plus {@code batched}
+     * historical samples.
+     */
+    static MotionEvent gamepadEvent(int deviceId, int batched, long time, float value) {
+        MotionEvent.PointerProperties[] properties = { new MotionEvent.PointerProperties() };
+        MotionEvent.PointerCoords[] coords = { new MotionEvent.PointerCoords() };
+        long sampleTime = time - batched * 4L;
+        setGamepadAxes(coords[0], value);
+        MotionEvent event = MotionEvent.obtain(0, sampleTime, MotionEvent.ACTION_MOVE, 1, properties, coords,
+            0, 0, 1f, 1f, deviceId, 0, GAMEPAD_SOURCE, 0);
+        for (int h = 1; h <= batched; h++) {
+            setGamepadAxes(coords[0], value + h * 0.01f);
+            event.addBatch(sampleTime + h * 4L, coords, 0);
+        }
+        return event;
+    }
+
+    private static void setGamepadAxes(MotionEvent.PointerCoords coords, float value) {
+        coords.setAxisValue(MotionEvent.AXIS_X, value);
+        coords.setAxisValue(MotionEvent.AXIS_Y, -value);
+        coords.setAxisValue(MotionEvent.AXIS_Z, value * 0.5f);
+        coords.setAxisValue(MotionEvent.AXIS_RZ, -value * 0.5f);
+        coords.setAxisValue(MotionEvent.AXIS_LTRIGGER, Math.abs(value));
+        coords.setAxisValue(MotionEvent.AXIS_RTRIGGER, 1 - Math.abs(value));
+    }
+}
@@ -0,0 +1,43 @@
+package com.strata.capacitor;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StrataPlugin#setInputMapping} remapping one action or all of them,
+ * including the recompile of the key lookup table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InputMappingBenchmark {
+
+    @Param({"1", "7"})
+    public int actions;
+
+    private StrataPlugin plugin;
+    private PluginCall call;
+
+    @Setup
+    public void setUp() {
+        plugin = InputFixtures.newPlugin(InputFixtures.SINK_NONE);
+        call = InputFixtures.call(InputFixtures.mapping(actions));
+    }
+
+    @Benchmark
+    public JSObject setInputMapping() {
+        plugin.setInputMapping(call);
+        return call.getResult();
+    }
+}
@@ -0,0 +1,62 @@
+package com.strata.capacitor;
+
+import android.view.InputDevice;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StrataPlugin#getInputSnapshot} with a controller, a held key and
+ * some touches active, up to the object handed to {@code call.resolve}, in
+ * each wire format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InputSnapshotBenchmark {
+
+    @Param({"0", "5"})
+    public int touches;
+
+    @Param({WireFormat.KEYED, WireFormat.COMPACT})
+    public String format;
+
+    private StrataPlugin plugin;
+    private PluginCall call;
+
+    @Setup
+    public void setUp() {
+        plugin = InputFixtures.newPlugin(InputFixtures.SINK_NONE);
+        JSObject wire = new JSObject();
+        wire.put("format", format);
+        wire.put("version", WireFormat.VERSION);
+        plugin.setWireFormat(InputFixtures.call(wire));
+        plugin.handleGamepadMotionEvent(InputFixtures.gamepadEvent(InputFixtures.FIRST_GAMEPAD_ID, 0, 16, 0.5f));
+        plugin.handleKeyEvent(new KeyEvent(0, 16, KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_SPACE, 0, 0,
+            -1, 0, 0, InputDevice.SOURCE_KEYBOARD));
+        for (int i = 0; i < touches; i++) {
+            int action = i == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_POINTER_DOWN;
+            plugin.handleTouchEvent(InputFixtures.touchEvent(action, i, i + 1, 0, 16, 0));
+        }
+        call = InputFixtures.call(new JSObject());
+    }
+
+    @Benchmark
+    public JSObject snapshot() {
+        plugin.getInputSnapshot(call);
+        return call.getResult();
+    }
+}
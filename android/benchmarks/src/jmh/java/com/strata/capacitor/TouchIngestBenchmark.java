@@ -0,0 +1,68 @@
+package com.strata.capacitor;
+
+import android.view.MotionEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StrataPlugin#handleTouchEvent} as called from the UI thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TouchIngestBenchmark {
+
+    // A 120 Hz touch panel delivers two samples per 60 Hz frame
+    private static final int BATCHED_SAMPLES = 1;
+
+    @Param({"1", "5"})
+    public int pointers;
+
+    @Param({InputFixtures.SINK_NONE, InputFixtures.SINK_HISTORY, InputFixtures.SINK_BUFFER,
+        InputFixtures.SINK_GESTURES, InputFixtures.SINK_PREDICTION})
+    public String sink;
+
+    private StrataPlugin plugin;
+    private MotionEvent[] moves;
+    private MotionEvent pointerDown;
+    private MotionEvent pointerUp;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        plugin = InputFixtures.newPlugin(sink);
+        plugin.handleTouchEvent(InputFixtures.touchEvent(MotionEvent.ACTION_DOWN, 0, 1, 0, 0, 0));
+        for (int i = 1; i < pointers; i++) {
+            plugin.handleTouchEvent(InputFixtures.touchEvent(MotionEvent.ACTION_POINTER_DOWN, i, i + 1, 0, 0, 0));
+        }
+        moves = new MotionEvent[] {
+            InputFixtures.touchEvent(MotionEvent.ACTION_MOVE, 0, pointers, BATCHED_SAMPLES, 16, 0),
+            InputFixtures.touchEvent(MotionEvent.ACTION_MOVE, 0, pointers, BATCHED_SAMPLES, 32, 3),
+        };
+        // One more finger tapping while the others are held
+        pointerDown = InputFixtures.touchEvent(MotionEvent.ACTION_POINTER_DOWN, pointers, pointers + 1, 0, 40, 0);
+        pointerUp = InputFixtures.touchEvent(MotionEvent.ACTION_POINTER_UP, pointers, pointers + 1, 0, 48, 0);
+    }
+
+    @Benchmark
+    public void move() {
+        plugin.handleTouchEvent(moves[next++ & 1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void pointerDownUp() {
+        plugin.handleTouchEvent(pointerDown);
+        plugin.handleTouchEvent(pointerUp);
+    }
+}
@@ -0,0 +1,22 @@
+package android.app;
+
+import android.content.Context;
+import android.view.Window;
+import android.view.WindowManager;
+
+public class Activity extends Context {
+    public Window getWindow() {
+        return null;
+    }
+
+    public WindowManager getWindowManager() {
+        return null;
+    }
+
+    public void runOnUiThread(Runnable action) {
+        action.run();
+    }
+
+    public void setRequestedOrientation(int requestedOrientation) {
+    }
+}
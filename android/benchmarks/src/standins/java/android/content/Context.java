@@ -0,0 +1,41 @@
+package android.content;
+
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+
+import java.io.File;
+
+public class Context {
+    public static final String INPUT_SERVICE = "input";
+    public static final String POWER_SERVICE = "power";
+    public static final String VIBRATOR_SERVICE = "vibrator";
+    public static final String VIBRATOR_MANAGER_SERVICE = "vibrator_manager";
+    public static final String WINDOW_SERVICE = "window";
+
+    public Object getSystemService(String name) {
+        return null;
+    }
+
+    public Resources getResources() {
+        return new Resources();
+    }
+
+    public PackageManager getPackageManager() {
+        return new PackageManager();
+    }
+
+    public File getFilesDir() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+        return null;
+    }
+
+    public void unregisterReceiver(BroadcastReceiver receiver) {
+    }
+}
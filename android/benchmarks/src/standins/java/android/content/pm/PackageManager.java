@@ -0,0 +1,7 @@
+package android.content.pm;
+
+public class PackageManager {
+    public boolean hasSystemFeature(String name) {
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package android.content.res;
+
+public class Configuration {
+    public static final int ORIENTATION_PORTRAIT = 1;
+    public static final int ORIENTATION_LANDSCAPE = 2;
+    public static final int SCREENLAYOUT_SIZE_MASK = 0x0f;
+    public static final int SCREENLAYOUT_SIZE_LARGE = 0x03;
+
+    public int densityDpi;
+    public int orientation = ORIENTATION_PORTRAIT;
+    public int screenLayout;
+    public int screenWidthDp;
+    public int screenHeightDp;
+    public int smallestScreenWidthDp;
+}
@@ -0,0 +1,10 @@
+package android.graphics;
+
+public final class Insets {
+    public static final Insets NONE = new Insets();
+
+    public final int left = 0;
+    public final int top = 0;
+    public final int right = 0;
+    public final int bottom = 0;
+}
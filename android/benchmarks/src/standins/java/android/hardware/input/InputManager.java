@@ -0,0 +1,19 @@
+package android.hardware.input;
+
+import android.os.Handler;
+
+public final class InputManager {
+    public interface InputDeviceListener {
+        void onInputDeviceAdded(int deviceId);
+
+        void onInputDeviceRemoved(int deviceId);
+
+        void onInputDeviceChanged(int deviceId);
+    }
+
+    public void registerInputDeviceListener(InputDeviceListener listener, Handler handler) {
+    }
+
+    public void unregisterInputDeviceListener(InputDeviceListener listener) {
+    }
+}
@@ -0,0 +1,23 @@
+package android.os;
+
+public class Build {
+    public static final String MANUFACTURER = "jvm";
+    public static final String MODEL = "benchmark";
+
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.UPSIDE_DOWN_CAKE;
+        public static final String RELEASE = "14";
+    }
+
+    public static class VERSION_CODES {
+        public static final int M = 23;
+        public static final int N = 24;
+        public static final int O = 26;
+        public static final int P = 28;
+        public static final int Q = 29;
+        public static final int R = 30;
+        public static final int S = 31;
+        public static final int TIRAMISU = 33;
+        public static final int UPSIDE_DOWN_CAKE = 34;
+    }
+}
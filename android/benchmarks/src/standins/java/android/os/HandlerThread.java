@@ -0,0 +1,25 @@
+package android.os;
+
+public class HandlerThread extends Thread {
+    private final Looper looper = new Looper(this);
+
+    public HandlerThread(String name) {
+        super(name);
+    }
+
+    public HandlerThread(String name, int priority) {
+        super(name);
+    }
+
+    @Override
+    public synchronized void start() {
+    }
+
+    public Looper getLooper() {
+        return looper;
+    }
+
+    public boolean quitSafely() {
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package android.os;
+
+public final class Looper {
+    private static final Looper MAIN = new Looper(null);
+
+    private final Thread thread;
+
+    Looper(Thread thread) {
+        this.thread = thread;
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public static Looper myLooper() {
+        return null;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+}
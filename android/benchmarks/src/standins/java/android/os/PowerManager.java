@@ -0,0 +1,33 @@
+package android.os;
+
+import java.util.concurrent.Executor;
+
+public final class PowerManager {
+    public static final String ACTION_POWER_SAVE_MODE_CHANGED = "android.os.action.POWER_SAVE_MODE_CHANGED";
+    public static final int THERMAL_STATUS_NONE = 0;
+    public static final int THERMAL_STATUS_LIGHT = 1;
+    public static final int THERMAL_STATUS_MODERATE = 2;
+    public static final int THERMAL_STATUS_SEVERE = 3;
+
+    public interface OnThermalStatusChangedListener {
+        void onThermalStatusChanged(int status);
+    }
+
+    public boolean isPowerSaveMode() {
+        return false;
+    }
+
+    public int getCurrentThermalStatus() {
+        return THERMAL_STATUS_NONE;
+    }
+
+    public float getThermalHeadroom(int forecastSeconds) {
+        return Float.NaN;
+    }
+
+    public void addThermalStatusListener(Executor executor, OnThermalStatusChangedListener listener) {
+    }
+
+    public void removeThermalStatusListener(OnThermalStatusChangedListener listener) {
+    }
+}
@@ -0,0 +1,20 @@
+package android.os;
+
+public final class SystemClock {
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return (System.nanoTime() - ORIGIN_NANOS) / 1_000_000;
+    }
+
+    public static long elapsedRealtime() {
+        return uptimeMillis();
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime() - ORIGIN_NANOS;
+    }
+}
@@ -0,0 +1,51 @@
+package android.os;
+
+public abstract class VibrationEffect {
+    public static final int DEFAULT_AMPLITUDE = -1;
+
+    public static VibrationEffect createOneShot(long milliseconds, int amplitude) {
+        return new Waveform();
+    }
+
+    public static VibrationEffect createWaveform(long[] timings, int repeat) {
+        return new Waveform();
+    }
+
+    public static VibrationEffect createWaveform(long[] timings, int[] amplitudes, int repeat) {
+        return new Waveform();
+    }
+
+    public static Composition startComposition() {
+        return new Composition();
+    }
+
+    private static final class Waveform extends VibrationEffect {
+    }
+
+    public static final class Composition {
+        public static final int PRIMITIVE_CLICK = 1;
+        public static final int PRIMITIVE_THUD = 2;
+        public static final int PRIMITIVE_SPIN = 3;
+        public static final int PRIMITIVE_QUICK_RISE = 4;
+        public static final int PRIMITIVE_SLOW_RISE = 5;
+        public static final int PRIMITIVE_QUICK_FALL = 6;
+        public static final int PRIMITIVE_TICK = 7;
+        public static final int PRIMITIVE_LOW_TICK = 8;
+
+        public Composition addPrimitive(int primitiveId) {
+            return this;
+        }
+
+        public Composition addPrimitive(int primitiveId, float scale) {
+            return this;
+        }
+
+        public Composition addPrimitive(int primitiveId, float scale, int delay) {
+            return this;
+        }
+
+        public VibrationEffect compose() {
+            return new Waveform();
+        }
+    }
+}
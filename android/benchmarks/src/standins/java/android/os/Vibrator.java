@@ -0,0 +1,24 @@
+package android.os;
+
+public abstract class Vibrator {
+    public abstract boolean hasVibrator();
+
+    public boolean hasAmplitudeControl() {
+        return false;
+    }
+
+    public boolean areAllPrimitivesSupported(int... primitiveIds) {
+        return false;
+    }
+
+    public void vibrate(long milliseconds) {
+    }
+
+    public void vibrate(long[] pattern, int repeat) {
+    }
+
+    public void vibrate(VibrationEffect vibe) {
+    }
+
+    public abstract void cancel();
+}
@@ -0,0 +1,20 @@
+package android.util;
+
+public class Base64 {
+    public static final int DEFAULT = 0;
+    public static final int NO_WRAP = 2;
+
+    public static String encodeToString(byte[] input, int flags) {
+        return java.util.Base64.getEncoder().encodeToString(input);
+    }
+
+    public static String encodeToString(byte[] input, int offset, int len, int flags) {
+        byte[] range = new byte[len];
+        System.arraycopy(input, offset, range, 0, len);
+        return encodeToString(range, flags);
+    }
+
+    public static byte[] decode(String str, int flags) {
+        return java.util.Base64.getMimeDecoder().decode(str);
+    }
+}
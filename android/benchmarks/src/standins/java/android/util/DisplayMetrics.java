@@ -0,0 +1,10 @@
+package android.util;
+
+public class DisplayMetrics {
+    public float density = 1f;
+    public int densityDpi = 160;
+    public int widthPixels;
+    public int heightPixels;
+    public float xdpi;
+    public float ydpi;
+}
@@ -0,0 +1,11 @@
+package android.view;
+
+public class Display {
+    public float getRefreshRate() {
+        return 60f;
+    }
+
+    public int getRotation() {
+        return 0;
+    }
+}
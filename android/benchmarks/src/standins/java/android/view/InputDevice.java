@@ -0,0 +1,32 @@
+package android.view;
+
+public final class InputDevice {
+    public static final int SOURCE_CLASS_BUTTON = 0x00000001;
+    public static final int SOURCE_CLASS_POINTER = 0x00000002;
+    public static final int SOURCE_CLASS_JOYSTICK = 0x00000010;
+    public static final int SOURCE_KEYBOARD = 0x00000100 | SOURCE_CLASS_BUTTON;
+    public static final int SOURCE_GAMEPAD = 0x00000400 | SOURCE_CLASS_BUTTON;
+    public static final int SOURCE_TOUCHSCREEN = 0x00001000 | SOURCE_CLASS_POINTER;
+    public static final int SOURCE_MOUSE = 0x00002000 | SOURCE_CLASS_POINTER;
+    public static final int SOURCE_JOYSTICK = 0x01000000 | SOURCE_CLASS_JOYSTICK;
+
+    public static int[] getDeviceIds() {
+        return new int[0];
+    }
+
+    public static InputDevice getDevice(int id) {
+        return null;
+    }
+
+    public int getId() {
+        return 0;
+    }
+
+    public String getName() {
+        return "";
+    }
+
+    public int getSources() {
+        return 0;
+    }
+}
@@ -0,0 +1,12 @@
+package android.view;
+
+public abstract class InputEvent {
+    InputEvent() {
+    }
+
+    public abstract int getDeviceId();
+
+    public abstract int getSource();
+
+    public abstract long getEventTime();
+}
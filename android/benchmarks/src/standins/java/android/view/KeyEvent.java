@@ -0,0 +1,110 @@
+package android.view;
+
+/**
+ * Key event carrying the fields the plugin reads, with Android's key code values.
+ */
+public class KeyEvent extends InputEvent {
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+
+    public static final int KEYCODE_UNKNOWN = 0;
+    public static final int KEYCODE_0 = 7;
+    public static final int KEYCODE_DPAD_UP = 19;
+    public static final int KEYCODE_DPAD_DOWN = 20;
+    public static final int KEYCODE_DPAD_LEFT = 21;
+    public static final int KEYCODE_DPAD_RIGHT = 22;
+    public static final int KEYCODE_DPAD_CENTER = 23;
+    public static final int KEYCODE_A = 29;
+    public static final int KEYCODE_ALT_LEFT = 57;
+    public static final int KEYCODE_ALT_RIGHT = 58;
+    public static final int KEYCODE_SHIFT_LEFT = 59;
+    public static final int KEYCODE_SHIFT_RIGHT = 60;
+    public static final int KEYCODE_TAB = 61;
+    public static final int KEYCODE_SPACE = 62;
+    public static final int KEYCODE_ENTER = 66;
+    public static final int KEYCODE_DEL = 67;
+    public static final int KEYCODE_BUTTON_A = 96;
+    public static final int KEYCODE_BUTTON_B = 97;
+    public static final int KEYCODE_BUTTON_X = 99;
+    public static final int KEYCODE_BUTTON_Y = 100;
+    public static final int KEYCODE_BUTTON_L1 = 102;
+    public static final int KEYCODE_BUTTON_R1 = 103;
+    public static final int KEYCODE_BUTTON_L2 = 104;
+    public static final int KEYCODE_BUTTON_R2 = 105;
+    public static final int KEYCODE_BUTTON_THUMBL = 106;
+    public static final int KEYCODE_BUTTON_THUMBR = 107;
+    public static final int KEYCODE_BUTTON_START = 108;
+    public static final int KEYCODE_BUTTON_SELECT = 109;
+    public static final int KEYCODE_ESCAPE = 111;
+    public static final int KEYCODE_CTRL_LEFT = 113;
+    public static final int KEYCODE_CTRL_RIGHT = 114;
+    public static final int KEYCODE_NUMPAD_ENTER = 160;
+
+    private static final int LAST_KEYCODE = 316;
+
+    private final long downTime;
+    private final long eventTime;
+    private final int action;
+    private final int keyCode;
+    private final int repeatCount;
+    private final int deviceId;
+    private final int source;
+
+    public KeyEvent(long downTime, long eventTime, int action, int code, int repeat, int metaState,
+                    int deviceId, int scancode, int flags, int source) {
+        this.downTime = downTime;
+        this.eventTime = eventTime;
+        this.action = action;
+        this.keyCode = code;
+        this.repeatCount = repeat;
+        this.deviceId = deviceId;
+        this.source = source;
+    }
+
+    public static int getMaxKeyCode() {
+        return LAST_KEYCODE;
+    }
+
+    public static int keyCodeFromString(String symbolicName) {
+        try {
+            return KeyEvent.class.getField(symbolicName).getInt(null);
+        } catch (ReflectiveOperationException e) {
+            return KEYCODE_UNKNOWN;
+        }
+    }
+
+    public final int getAction() {
+        return action;
+    }
+
+    public final int getKeyCode() {
+        return keyCode;
+    }
+
+    public final int getRepeatCount() {
+        return repeatCount;
+    }
+
+    public final long getDownTime() {
+        return downTime;
+    }
+
+    @Override
+    public final long getEventTime() {
+        return eventTime;
+    }
+
+    public final long getEventTimeNanos() {
+        return eventTime * 1_000_000L;
+    }
+
+    @Override
+    public final int getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public final int getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,233 @@
+package android.view;
+
+/**
+ * Motion event holding its pointers and batched samples in plain arrays.
+ *
+ * Built with the same {@code obtain}/{@code addBatch} calls as on Android, so
+ * benchmark code reads like real event construction. Recycling is a no-op:
+ * benchmarks keep their events and feed the same instances repeatedly.
+ */
+public final class MotionEvent extends InputEvent {
+    public static final int ACTION_MASK = 0xff;
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+    public static final int ACTION_POINTER_INDEX_MASK = 0xff00;
+    public static final int ACTION_POINTER_INDEX_SHIFT = 8;
+
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+    public static final int AXIS_PRESSURE = 2;
+    public static final int AXIS_Z = 11;
+    public static final int AXIS_RZ = 14;
+    public static final int AXIS_HAT_X = 15;
+    public static final int AXIS_HAT_Y = 16;
+    public static final int AXIS_LTRIGGER = 17;
+    public static final int AXIS_RTRIGGER = 18;
+    public static final int AXIS_GAS = 22;
+    public static final int AXIS_BRAKE = 23;
+
+    private static final int AXIS_COUNT = 48;
+
+    public static final class PointerProperties {
+        public int id;
+        public int toolType;
+    }
+
+    public static final class PointerCoords {
+        private final float[] axes = new float[AXIS_COUNT];
+        public float x;
+        public float y;
+        public float pressure;
+
+        public void clear() {
+            java.util.Arrays.fill(axes, 0);
+            x = 0;
+            y = 0;
+            pressure = 0;
+        }
+
+        public float getAxisValue(int axis) {
+            switch (axis) {
+                case AXIS_X: return x;
+                case AXIS_Y: return y;
+                case AXIS_PRESSURE: return pressure;
+                default: return axes[axis];
+            }
+        }
+
+        public void setAxisValue(int axis, float value) {
+            switch (axis) {
+                case AXIS_X: x = value; break;
+                case AXIS_Y: y = value; break;
+                case AXIS_PRESSURE: pressure = value; break;
+                default: axes[axis] = value; break;
+            }
+        }
+
+        void copyFrom(PointerCoords other) {
+            System.arraycopy(other.axes, 0, axes, 0, AXIS_COUNT);
+            x = other.x;
+            y = other.y;
+            pressure = other.pressure;
+        }
+    }
+
+    private long downTime;
+    private int action;
+    private int deviceId;
+    private int source;
+    private int pointerCount;
+    private int[] pointerIds;
+    // One row of pointer coordinates per sample; the last row is the current sample
+    private PointerCoords[][] samples = new PointerCoords[0][];
+    private long[] sampleTimes = new long[0];
+    private int sampleCount;
+
+    private MotionEvent() {
+    }
+
+    public static MotionEvent obtain(long downTime, long eventTime, int action, int pointerCount,
+                                     PointerProperties[] pointerProperties, PointerCoords[] pointerCoords,
+                                     int metaState, int buttonState, float xPrecision, float yPrecision,
+                                     int deviceId, int edgeFlags, int source, int flags) {
+        MotionEvent event = new MotionEvent();
+        event.downTime = downTime;
+        event.action = action;
+        event.deviceId = deviceId;
+        event.source = source;
+        event.pointerCount = pointerCount;
+        event.pointerIds = new int[pointerCount];
+        for (int i = 0; i < pointerCount; i++) {
+            event.pointerIds[i] = pointerProperties[i].id;
+        }
+        event.addBatch(eventTime, pointerCoords, metaState);
+        return event;
+    }
+
+    public static MotionEvent obtain(long downTime, long eventTime, int action, float x, float y, int metaState) {
+        PointerProperties[] properties = { new PointerProperties() };
+        PointerCoords[] coords = { new PointerCoords() };
+        coords[0].x = x;
+        coords[0].y = y;
+        return obtain(downTime, eventTime, action, 1, properties, coords, metaState, 0, 1f, 1f,
+            0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+    }
+
+    public void addBatch(long eventTime, PointerCoords[] pointerCoords, int metaState) {
+        if (sampleCount == samples.length) {
+            int capacity = Math.max(4, sampleCount * 2);
+            samples = java.util.Arrays.copyOf(samples, capacity);
+            sampleTimes = java.util.Arrays.copyOf(sampleTimes, capacity);
+        }
+        PointerCoords[] row = new PointerCoords[pointerCount];
+        for (int i = 0; i < pointerCount; i++) {
+            row[i] = new PointerCoords();
+            row[i].copyFrom(pointerCoords[i]);
+        }
+        samples[sampleCount] = row;
+        sampleTimes[sampleCount] = eventTime;
+        sampleCount++;
+    }
+
+    public void recycle() {
+    }
+
+    public int getAction() {
+        return action;
+    }
+
+    public int getActionMasked() {
+        return action & ACTION_MASK;
+    }
+
+    public int getActionIndex() {
+        return (action & ACTION_POINTER_INDEX_MASK) >> ACTION_POINTER_INDEX_SHIFT;
+    }
+
+    public long getDownTime() {
+        return downTime;
+    }
+
+    @Override
+    public long getEventTime() {
+        return sampleTimes[sampleCount - 1];
+    }
+
+    public long getEventTimeNanos() {
+        return getEventTime() * 1_000_000L;
+    }
+
+    @Override
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public int getSource() {
+        return source;
+    }
+
+    public int getPointerCount() {
+        return pointerCount;
+    }
+
+    public int getPointerId(int pointerIndex) {
+        return pointerIds[pointerIndex];
+    }
+
+    public float getX() {
+        return getX(0);
+    }
+
+    public float getY() {
+        return getY(0);
+    }
+
+    public float getX(int pointerIndex) {
+        return samples[sampleCount - 1][pointerIndex].x;
+    }
+
+    public float getY(int pointerIndex) {
+        return samples[sampleCount - 1][pointerIndex].y;
+    }
+
+    public float getAxisValue(int axis) {
+        return getAxisValue(axis, 0);
+    }
+
+    public float getAxisValue(int axis, int pointerIndex) {
+        return samples[sampleCount - 1][pointerIndex].getAxisValue(axis);
+    }
+
+    public int getHistorySize() {
+        return sampleCount - 1;
+    }
+
+    public long getHistoricalEventTime(int pos) {
+        return sampleTimes[pos];
+    }
+
+    public long getHistoricalEventTimeNanos(int pos) {
+        return getHistoricalEventTime(pos) * 1_000_000L;
+    }
+
+    public float getHistoricalX(int pointerIndex, int pos) {
+        return samples[pos][pointerIndex].x;
+    }
+
+    public float getHistoricalY(int pointerIndex, int pos) {
+        return samples[pos][pointerIndex].y;
+    }
+
+    public float getHistoricalAxisValue(int axis, int pos) {
+        return getHistoricalAxisValue(axis, 0, pos);
+    }
+
+    public float getHistoricalAxisValue(int axis, int pointerIndex, int pos) {
+        return samples[pos][pointerIndex].getAxisValue(axis);
+    }
+}
@@ -0,0 +1,54 @@
+package android.view;
+
+public class View {
+    public static final int INVISIBLE = 4;
+
+    public View() {
+    }
+
+    public View(android.content.Context context) {
+    }
+
+    public interface OnLayoutChangeListener {
+        void onLayoutChange(View v, int left, int top, int right, int bottom,
+                            int oldLeft, int oldTop, int oldRight, int oldBottom);
+    }
+
+    public interface OnApplyWindowInsetsListener {
+        WindowInsets onApplyWindowInsets(View v, WindowInsets insets);
+    }
+
+    public void setVisibility(int visibility) {
+    }
+
+    public ViewParent getParent() {
+        return null;
+    }
+
+    public WindowInsets getRootWindowInsets() {
+        return null;
+    }
+
+    public Display getDisplay() {
+        return null;
+    }
+
+    public void addOnLayoutChangeListener(OnLayoutChangeListener listener) {
+    }
+
+    public void removeOnLayoutChangeListener(OnLayoutChangeListener listener) {
+    }
+
+    public void setOnApplyWindowInsetsListener(OnApplyWindowInsetsListener listener) {
+    }
+
+    public WindowInsets onApplyWindowInsets(WindowInsets insets) {
+        return insets;
+    }
+
+    public void requestUnbufferedDispatch(int source) {
+    }
+
+    public void requestUnbufferedDispatch(MotionEvent event) {
+    }
+}
@@ -0,0 +1,14 @@
+package android.view;
+
+public abstract class ViewGroup extends View implements ViewParent {
+    public static class LayoutParams {
+        public LayoutParams(int width, int height) {
+        }
+    }
+
+    public void addView(View child, int index, LayoutParams params) {
+    }
+
+    public void removeView(View view) {
+    }
+}
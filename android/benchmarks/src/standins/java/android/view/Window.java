@@ -0,0 +1,7 @@
+package android.view;
+
+public class Window {
+    public View getDecorView() {
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package android.view;
+
+import android.graphics.Insets;
+
+public final class WindowInsets {
+    public Insets getInsets(int typeMask) {
+        return Insets.NONE;
+    }
+
+    public DisplayCutout getDisplayCutout() {
+        return null;
+    }
+
+    public static final class Type {
+        public static int systemBars() {
+            return 1;
+        }
+
+        public static int displayCutout() {
+            return 2;
+        }
+    }
+}
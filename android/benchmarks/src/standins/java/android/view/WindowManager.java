@@ -0,0 +1,7 @@
+package android.view;
+
+public interface WindowManager {
+    Display getDefaultDisplay();
+
+    WindowMetrics getCurrentWindowMetrics();
+}
@@ -0,0 +1,7 @@
+package android.view;
+
+public final class WindowMetrics {
+    public WindowInsets getWindowInsets() {
+        return new WindowInsets();
+    }
+}
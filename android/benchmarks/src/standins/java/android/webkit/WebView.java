@@ -0,0 +1,11 @@
+package android.webkit;
+
+import android.view.View;
+
+public class WebView extends View {
+    public void addJavascriptInterface(Object object, String name) {
+    }
+
+    public void removeJavascriptInterface(String name) {
+    }
+}
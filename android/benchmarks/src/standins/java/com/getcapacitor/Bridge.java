@@ -0,0 +1,20 @@
+package com.getcapacitor;
+
+import android.content.Context;
+import android.webkit.WebView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+public class Bridge {
+    public AppCompatActivity getActivity() {
+        return null;
+    }
+
+    public Context getContext() {
+        return null;
+    }
+
+    public WebView getWebView() {
+        return null;
+    }
+}
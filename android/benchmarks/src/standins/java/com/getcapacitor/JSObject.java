@@ -0,0 +1,114 @@
+package com.getcapacitor;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Capacitor's JSON object: chainable puts that never throw, and lenient getters.
+ */
+public class JSObject extends JSONObject {
+
+    public JSObject() {
+        super();
+    }
+
+    public JSObject(String json) throws JSONException {
+        super(json);
+    }
+
+    public static JSObject fromJSONObject(JSONObject obj) throws JSONException {
+        JSObject result = new JSObject();
+        for (String key : obj.keySet()) {
+            result.put(key, obj.get(key));
+        }
+        return result;
+    }
+
+    public String getString(String key) {
+        return getString(key, null);
+    }
+
+    public String getString(String key, String defaultValue) {
+        Object value = opt(key);
+        return value instanceof String ? (String) value : defaultValue;
+    }
+
+    public Integer getInteger(String key) {
+        return getInteger(key, null);
+    }
+
+    public Integer getInteger(String key, Integer defaultValue) {
+        Object value = opt(key);
+        return value instanceof Number ? Integer.valueOf(((Number) value).intValue()) : defaultValue;
+    }
+
+    public Boolean getBoolean(String key, Boolean defaultValue) {
+        Object value = opt(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    public JSObject getJSObject(String key) {
+        Object value = opt(key);
+        if (value instanceof JSObject) {
+            return (JSObject) value;
+        }
+        try {
+            return value instanceof JSONObject ? fromJSONObject((JSONObject) value) : null;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public JSObject put(String key, boolean value) {
+        try {
+            super.put(key, value);
+        } catch (JSONException ignored) {
+        }
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, int value) {
+        try {
+            super.put(key, value);
+        } catch (JSONException ignored) {
+        }
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, long value) {
+        try {
+            super.put(key, value);
+        } catch (JSONException ignored) {
+        }
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, double value) {
+        try {
+            super.put(key, value);
+        } catch (JSONException ignored) {
+        }
+        return this;
+    }
+
+    @Override
+    public JSObject put(String key, Object value) {
+        try {
+            super.put(key, value);
+        } catch (JSONException ignored) {
+        }
+        return this;
+    }
+
+    public JSObject put(String key, String value) {
+        try {
+            super.put(key, value);
+        } catch (JSONException ignored) {
+        }
+        return this;
+    }
+}
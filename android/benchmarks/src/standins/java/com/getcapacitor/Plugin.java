@@ -0,0 +1,50 @@
+package com.getcapacitor;
+
+import android.content.Context;
+import android.content.res.Configuration;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+/**
+ * Plugin base without a bridge. No JavaScript is attached, so there are no
+ * listeners and events go nowhere. The activity runs UI-thread work
+ * inline on the calling thread.
+ */
+public class Plugin {
+    private final Context context = new Context();
+    private final AppCompatActivity activity = new AppCompatActivity();
+
+    public void load() {
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public AppCompatActivity getActivity() {
+        return activity;
+    }
+
+    public Bridge getBridge() {
+        return null;
+    }
+
+    protected void notifyListeners(String eventName, JSObject data) {
+    }
+
+    protected void notifyListeners(String eventName, JSObject data, boolean retainUntilConsumed) {
+    }
+
+    public void addListener(PluginCall call) {
+    }
+
+    protected boolean hasListeners(String eventName) {
+        return false;
+    }
+
+    protected void handleOnConfigurationChanged(Configuration newConfig) {
+    }
+
+    protected void handleOnDestroy() {
+    }
+}
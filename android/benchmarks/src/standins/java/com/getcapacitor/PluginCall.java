@@ -0,0 +1,169 @@
+package com.getcapacitor;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * A call backed by an options object. The last result or error is kept so
+ * benchmarks can consume it and reuse the call.
+ */
+public class PluginCall {
+
+    private final String methodName;
+    private final JSObject data;
+    private JSObject result;
+    private String errorMessage;
+    private boolean keepAlive;
+
+    public PluginCall(String methodName, JSObject data) {
+        this.methodName = methodName;
+        this.data = data;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public JSObject getData() {
+        return data;
+    }
+
+    public boolean hasOption(String name) {
+        return data.has(name);
+    }
+
+    public String getString(String name) {
+        return getString(name, null);
+    }
+
+    public String getString(String name, String defaultValue) {
+        Object value = data.opt(name);
+        return value instanceof String ? (String) value : defaultValue;
+    }
+
+    public Integer getInt(String name) {
+        return getInt(name, null);
+    }
+
+    public Integer getInt(String name, Integer defaultValue) {
+        Object value = data.opt(name);
+        return value instanceof Number ? Integer.valueOf(((Number) value).intValue()) : defaultValue;
+    }
+
+    public Long getLong(String name) {
+        return getLong(name, null);
+    }
+
+    public Long getLong(String name, Long defaultValue) {
+        Object value = data.opt(name);
+        return value instanceof Number ? Long.valueOf(((Number) value).longValue()) : defaultValue;
+    }
+
+    public Float getFloat(String name) {
+        return getFloat(name, null);
+    }
+
+    public Float getFloat(String name, Float defaultValue) {
+        Object value = data.opt(name);
+        return value instanceof Number ? Float.valueOf(((Number) value).floatValue()) : defaultValue;
+    }
+
+    public Double getDouble(String name) {
+        return getDouble(name, null);
+    }
+
+    public Double getDouble(String name, Double defaultValue) {
+        Object value = data.opt(name);
+        return value instanceof Number ? Double.valueOf(((Number) value).doubleValue()) : defaultValue;
+    }
+
+    public Boolean getBoolean(String name) {
+        return getBoolean(name, null);
+    }
+
+    public Boolean getBoolean(String name, Boolean defaultValue) {
+        Object value = data.opt(name);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    public JSObject getObject(String name) {
+        return getObject(name, null);
+    }
+
+    public JSObject getObject(String name, JSObject defaultValue) {
+        JSObject value = data.getJSObject(name);
+        return value != null ? value : defaultValue;
+    }
+
+    public JSArray getArray(String name) {
+        return getArray(name, null);
+    }
+
+    public JSArray getArray(String name, JSArray defaultValue) {
+        Object value = data.opt(name);
+        if (value instanceof JSArray) {
+            return (JSArray) value;
+        }
+        if (value instanceof JSONArray) {
+            try {
+                return new JSArray(((JSONArray) value).toString());
+            } catch (JSONException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    public void resolve() {
+        resolve(new JSObject());
+    }
+
+    public void resolve(JSObject data) {
+        result = data;
+        errorMessage = null;
+    }
+
+    public void reject(String msg) {
+        reject(msg, null, null);
+    }
+
+    public void reject(String msg, Exception ex) {
+        reject(msg, null, ex);
+    }
+
+    public void reject(String msg, String code) {
+        reject(msg, code, null);
+    }
+
+    public void reject(String msg, String code, Exception ex) {
+        result = null;
+        errorMessage = msg;
+    }
+
+    public void unimplemented(String msg) {
+        reject(msg, "UNIMPLEMENTED");
+    }
+
+    public void unavailable(String msg) {
+        reject(msg, "UNAVAILABLE");
+    }
+
+    public void setKeepAlive(Boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * The object passed to the last {@code resolve}, or null after a reject.
+     */
+    public JSObject getResult() {
+        return result;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
@@ -0,0 +1,12 @@
+package com.getcapacitor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PluginMethod {
+    String RETURN_NONE = "none";
+    String RETURN_PROMISE = "promise";
+
+    String returnType() default RETURN_PROMISE;
+}
@@ -0,0 +1,356 @@
+package com.strata.capacitor;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.json.JSONObject;
+
+/**
+ * Deadzones, response curves and filtering for gamepad sticks and triggers.
+ *
+ * Raw values are filtered first, so noise is smoothed before it can cross a
+ * deadzone edge. The deadzone and curve then map each stick's magnitude
+ * (radial) or each axis on its own (axial) onto 0..1. Curves other than
+ * linear are sampled into a table when they are configured, so an event
+ * costs a table lookup instead of a {@code Math.pow}. The defaults match the
+ * original fixed processing: an axial 0.15 stick deadzone without rescaling,
+ * and triggers passed through unchanged.
+ *
+ * Settings are replaced as a whole from any thread. Processing and filter
+ * state belong to the UI thread. Android only sends stick events while a
+ * value changes, so a filtered value would stop short of a stick at rest.
+ * While any slot is still converging, the last raw values are filtered
+ * again every few milliseconds and handed back through {@link Host}.
+ */
+final class AxisProcessor {
+
+    interface Host {
+        /** Called on the UI thread with values filtered again without a new event. */
+        void onAxesSettled(int slot, int deviceId, long timeNanos, float[] axes);
+    }
+
+    static final int GROUP_LEFT_STICK = 0;
+    static final int GROUP_RIGHT_STICK = 1;
+    static final int GROUP_TRIGGERS = 2;
+    static final String[] GROUP_NAMES = { "leftStick", "rightStick", "triggers" };
+
+    static final int FILTER_NONE = 0;
+    static final int FILTER_LOW_PASS = 1;
+    static final int FILTER_ONE_EURO = 2;
+
+    static final float DEFAULT_STICK_DEADZONE = 0.15f;
+    private static final int CURVE_SEGMENTS = 256;
+    private static final long SETTLE_INTERVAL_MS = 8;
+    // Filtered values this close to the raw value snap to it
+    private static final float SETTLE_EPSILON = 1e-4f;
+    // Samples that share a timestamp are treated as this far apart
+    private static final float MIN_DT_SECONDS = 0.001f;
+    private static final float NANOS_PER_SECOND = 1e9f;
+    private static final int AXES = GamepadSlots.AXES;
+    private static final int SLOTS = GamepadSlots.MAX_SLOTS;
+
+    /**
+     * Immutable settings for one stick or for both triggers.
+     */
+    static final class Profile {
+        final float deadzone;
+        final float outerDeadzone;
+        final boolean radial;
+        final boolean rescale;
+        // Response sampled at CURVE_SEGMENTS + 1 points; null for linear
+        final float[] curve;
+        final int filter;
+        // Low-pass cutoff, or the one-euro minimum cutoff
+        final float cutoffHz;
+        final float beta;
+        final float derivativeCutoffHz;
+
+        Profile(float deadzone, float outerDeadzone, boolean radial, boolean rescale, float[] curve,
+                int filter, float cutoffHz, float beta, float derivativeCutoffHz) {
+            this.deadzone = deadzone;
+            this.outerDeadzone = outerDeadzone;
+            this.radial = radial;
+            this.rescale = rescale;
+            this.curve = curve;
+            this.filter = filter;
+            this.cutoffHz = cutoffHz;
+            this.beta = beta;
+            this.derivativeCutoffHz = derivativeCutoffHz;
+        }
+
+        static Profile defaults(float deadzone) {
+            return new Profile(deadzone, 1.0f, false, false, null, FILTER_NONE, 0, 0, 0);
+        }
+
+        /**
+         * Builds a profile from JS options. Missing fields take their defaults.
+         *
+         * @throws IllegalArgumentException if a value is out of range or unknown
+         */
+        static Profile parse(String group, JSONObject options, float defaultDeadzone) {
+            float deadzone = (float) options.optDouble("deadzone", defaultDeadzone);
+            float outer = (float) options.optDouble("outerDeadzone", 1.0);
+            if (!(deadzone >= 0 && deadzone < outer && outer <= 1)) {
+                throw new IllegalArgumentException(
+                    group + " needs 0 <= deadzone < outerDeadzone <= 1");
+            }
+            String shape = options.optString("deadzoneShape", "axial");
+            if (!shape.equals("axial") && !shape.equals("radial")) {
+                throw new IllegalArgumentException("Unknown deadzoneShape: " + shape);
+            }
+
+            String curveName = options.optString("curve", "linear");
+            double exponent;
+            switch (curveName) {
+                case "linear":
+                    exponent = 1;
+                    break;
+                case "quadratic":
+                    exponent = 2;
+                    break;
+                case "cubic":
+                    exponent = 3;
+                    break;
+                case "power":
+                    exponent = options.optDouble("exponent", 2);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown curve: " + curveName);
+            }
+            if (!(exponent > 0)) {
+                throw new IllegalArgumentException(group + " exponent must be positive");
+            }
+            float[] curve = null;
+            if (exponent != 1) {
+                curve = new float[CURVE_SEGMENTS + 1];
+                for (int i = 0; i <= CURVE_SEGMENTS; i++) {
+                    curve[i] = (float) Math.pow((double) i / CURVE_SEGMENTS, exponent);
+                }
+            }
+
+            int filter = FILTER_NONE;
+            float cutoffHz = 0;
+            float beta = 0;
+            float derivativeCutoffHz = 0;
+            JSONObject filterOptions = options.optJSONObject("filter");
+            if (filterOptions != null) {
+                String type = filterOptions.optString("type", "none");
+                switch (type) {
+                    case "none":
+                        break;
+                    case "lowPass":
+                        filter = FILTER_LOW_PASS;
+                        cutoffHz = (float) filterOptions.optDouble("cutoffHz", 10);
+                        break;
+                    case "oneEuro":
+                        filter = FILTER_ONE_EURO;
+                        cutoffHz = (float) filterOptions.optDouble("minCutoffHz", 1);
+                        beta = (float) filterOptions.optDouble("beta", 0.5);
+                        derivativeCutoffHz = (float) filterOptions.optDouble("derivativeCutoffHz", 1);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown filter: " + type);
+                }
+                if (filter != FILTER_NONE &&
+                    !(cutoffHz > 0 && beta >= 0 && (filter != FILTER_ONE_EURO || derivativeCutoffHz > 0))) {
+                    throw new IllegalArgumentException(group + " filter cutoffs must be positive");
+                }
+            }
+            return new Profile(deadzone, outer, shape.equals("radial"), options.optBoolean("rescale", false),
+                curve, filter, cutoffHz, beta, derivativeCutoffHz);
+        }
+
+        /**
+         * Maps a magnitude through the deadzones and the response curve.
+         */
+        float shape(float magnitude) {
+            if (magnitude <= deadzone) {
+                return 0;
+            }
+            float t = rescale
+                ? (magnitude - deadzone) / (outerDeadzone - deadzone)
+                : magnitude / outerDeadzone;
+            if (t >= 1) {
+                return 1;
+            }
+            if (curve == null) {
+                return t;
+            }
+            float position = t * CURVE_SEGMENTS;
+            int index = (int) position;
+            return curve[index] + (curve[index + 1] - curve[index]) * (position - index);
+        }
+    }
+
+    private final Host host;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable settle = this::settle;
+    private volatile Profile[] profiles = {
+        Profile.defaults(DEFAULT_STICK_DEADZONE),
+        Profile.defaults(DEFAULT_STICK_DEADZONE),
+        Profile.defaults(0)
+    };
+
+    // UI thread only. Filter state is dropped when a slot changes device or settings change.
+    private final int[] slotDevices = new int[SLOTS];
+    private final Profile[][] slotProfiles = new Profile[SLOTS][];
+    private final long[] slotTimes = new long[SLOTS];
+    private final boolean[] unsettled = new boolean[SLOTS];
+    private final float[] raw = new float[SLOTS * AXES];
+    private final float[] filtered = new float[SLOTS * AXES];
+    private final float[] derivatives = new float[SLOTS * AXES];
+    private final float[] settleScratch = new float[AXES];
+    private boolean settlePosted = false;
+    private volatile boolean filtering = false;
+
+    AxisProcessor(Host host) {
+        this.host = host;
+        for (int i = 0; i < SLOTS; i++) {
+            slotDevices[i] = -1;
+        }
+    }
+
+    /**
+     * Replaces the settings for one group, keeping the others.
+     */
+    synchronized void setProfile(int group, Profile profile) {
+        Profile[] next = profiles.clone();
+        next[group] = profile;
+        boolean anyFilter = false;
+        for (Profile p : next) {
+            anyFilter |= p.filter != FILTER_NONE;
+        }
+        filtering = anyFilter;
+        profiles = next;
+    }
+
+    /**
+     * Whether any group has a filter, which needs every batched sample.
+     */
+    boolean isFiltering() {
+        return filtering;
+    }
+
+    /**
+     * Processes one sample in place. {@code axes} holds raw leftStick x/y,
+     * rightStick x/y and triggers left/right, with Y pointing up.
+     */
+    void process(int slot, int deviceId, long timeNanos, float[] axes) {
+        Profile[] current = profiles;
+        int base = slot * AXES;
+        boolean primed = slotDevices[slot] == deviceId && slotProfiles[slot] == current;
+        float dt = primed
+            ? Math.max(MIN_DT_SECONDS, (timeNanos - slotTimes[slot]) / NANOS_PER_SECOND)
+            : 0;
+        slotDevices[slot] = deviceId;
+        slotProfiles[slot] = current;
+        slotTimes[slot] = timeNanos;
+
+        boolean converging = false;
+        for (int a = 0; a < AXES; a++) {
+            raw[base + a] = axes[a];
+            Profile profile = current[groupOf(a)];
+            if (profile.filter != FILTER_NONE) {
+                axes[a] = filter(profile, base + a, axes[a], primed, dt);
+                converging |= axes[a] != raw[base + a];
+            }
+        }
+        shapeStick(current[GROUP_LEFT_STICK], axes, GamepadSlots.AXIS_LEFT_X, GamepadSlots.AXIS_LEFT_Y);
+        shapeStick(current[GROUP_RIGHT_STICK], axes, GamepadSlots.AXIS_RIGHT_X, GamepadSlots.AXIS_RIGHT_Y);
+        Profile triggers = current[GROUP_TRIGGERS];
+        axes[GamepadSlots.AXIS_LEFT_TRIGGER] = shapeAxis(triggers, axes[GamepadSlots.AXIS_LEFT_TRIGGER]);
+        axes[GamepadSlots.AXIS_RIGHT_TRIGGER] = shapeAxis(triggers, axes[GamepadSlots.AXIS_RIGHT_TRIGGER]);
+
+        unsettled[slot] = converging;
+        if (converging && !settlePosted) {
+            settlePosted = true;
+            mainHandler.postDelayed(settle, SETTLE_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Forgets a slot's filter state, for a controller that disconnected.
+     */
+    void release(int slot) {
+        slotDevices[slot] = -1;
+        unsettled[slot] = false;
+    }
+
+    private void settle() {
+        settlePosted = false;
+        long now = System.nanoTime();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (!unsettled[slot]) {
+                continue;
+            }
+            System.arraycopy(raw, slot * AXES, settleScratch, 0, AXES);
+            process(slot, slotDevices[slot], now, settleScratch);
+            host.onAxesSettled(slot, slotDevices[slot], now, settleScratch);
+        }
+    }
+
+    private float filter(Profile profile, int index, float value, boolean primed, float dt) {
+        if (!primed) {
+            filtered[index] = value;
+            derivatives[index] = 0;
+            return value;
+        }
+        float previous = filtered[index];
+        float cutoff = profile.cutoffHz;
+        if (profile.filter == FILTER_ONE_EURO) {
+            // Faster movement raises the cutoff, trading smoothing for lag
+            float derivative = derivatives[index];
+            derivative += smoothing(profile.derivativeCutoffHz, dt) * ((value - previous) / dt - derivative);
+            derivatives[index] = derivative;
+            cutoff += profile.beta * Math.abs(derivative);
+        }
+        float result = previous + smoothing(cutoff, dt) * (value - previous);
+        if (Math.abs(result - value) < SETTLE_EPSILON) {
+            result = value;
+        }
+        filtered[index] = result;
+        return result;
+    }
+
+    /**
+     * Exponential smoothing factor for a cutoff frequency at a sample interval.
+     */
+    private static float smoothing(float cutoffHz, float dt) {
+        float tau = 1.0f / (2.0f * (float) Math.PI * cutoffHz);
+        return 1.0f / (1.0f + tau / dt);
+    }
+
+    private static void shapeStick(Profile profile, float[] axes, int xIndex, int yIndex) {
+        float x = axes[xIndex];
+        float y = axes[yIndex];
+        if (!profile.radial) {
+            axes[xIndex] = shapeAxis(profile, x);
+            axes[yIndex] = shapeAxis(profile, y);
+            return;
+        }
+        float magnitude = (float) Math.sqrt(x * x + y * y);
+        float shaped = profile.shape(magnitude);
+        if (shaped == 0) {
+            axes[xIndex] = 0;
+            axes[yIndex] = 0;
+            return;
+        }
+        // Scaling both axes by one factor keeps the stick's direction
+        float scale = shaped / magnitude;
+        axes[xIndex] = x * scale;
+        axes[yIndex] = y * scale;
+    }
+
+    private static float shapeAxis(Profile profile, float value) {
+        float shaped = profile.shape(Math.abs(value));
+        // Never -0, which would reach JS as a negative zero
+        return value < 0 && shaped != 0 ? -shaped : shaped;
+    }
+
+    private static int groupOf(int axis) {
+        if (axis <= GamepadSlots.AXIS_LEFT_Y) {
+            return GROUP_LEFT_STICK;
+        }
+        return axis <= GamepadSlots.AXIS_RIGHT_Y ? GROUP_RIGHT_STICK : GROUP_TRIGGERS;
+    }
+}
@@ -0,0 +1,222 @@
+package com.strata.capacitor;
+
+import android.util.Log;
+
+import com.getcapacitor.PluginCall;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Binary blobs stored as one file each, read and written in ranged chunks
+ * through memory-mapped regions.
+ *
+ * A blob is never loaded whole: reads copy only the requested range out of a
+ * read-only mapping of the file (kept while the blob is unchanged, so
+ * streaming a large blob maps it once), and writes map just the region being
+ * written. Namespaces and keys are hex-encoded into directory and file names,
+ * so any key is a safe file name. All file access happens on one background
+ * thread.
+ */
+final class BlobStore {
+
+    private static final String TAG = "StrataBlobs";
+    // Bounds the heap and bridge payload of a single call
+    static final int MAX_CHUNK_BYTES = 4 * 1024 * 1024;
+    // Hex doubles the name, and file names are limited to 255 bytes
+    private static final int MAX_NAME_BYTES = 120;
+    private static final int MAX_READ_MAPPINGS = 8;
+
+    interface Task {
+        void run(BlobStore blobs) throws IOException;
+    }
+
+    private final File root;
+    private final ExecutorService executor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, TAG));
+    // Calls run through the lane so its queue shows up in the threading metrics
+    private final WorkLane lane = WorkLane.wrap(TAG, executor, 1);
+    // Read-only mappings of recently read blobs, least recently used first; blob thread only
+    private final Map<File, MappedByteBuffer> readMappings =
+        new LinkedHashMap<File, MappedByteBuffer>(MAX_READ_MAPPINGS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<File, MappedByteBuffer> eldest) {
+                return size() > MAX_READ_MAPPINGS;
+            }
+        };
+
+    BlobStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Runs a blob operation on the blob thread. The task resolves the call
+     * itself, and {@code done} runs once it has.
+     */
+    void run(PluginCall call, Runnable done, Task task) {
+        boolean queued = lane.execute(() -> {
+            try {
+                task.run(this);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Blob operation failed", e);
+                call.reject("Blob operation failed: " + e.getMessage(), e);
+            } finally {
+                done.run();
+            }
+        });
+        if (!queued) {
+            call.reject("Blob work queue is full", "BUSY");
+        }
+    }
+
+    WorkLane lane() {
+        return lane;
+    }
+
+    void shutdown() {
+        lane.execute(readMappings::clear);
+        executor.shutdown();
+    }
+
+    /**
+     * Writes {@code data} at {@code offset}, growing the blob as needed.
+     *
+     * @param truncate cut the blob off after the written range
+     * @return the blob's size after the write
+     */
+    long write(String namespace, String key, long offset, byte[] data, boolean truncate) throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        File file = blobFile(namespace, key, true);
+        readMappings.remove(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            if (data.length > 0) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, offset, data.length);
+                region.put(data);
+                region.force();
+            }
+            long end = offset + data.length;
+            if (truncate && channel.size() > end) {
+                channel.truncate(end);
+            } else if (channel.size() < end) {
+                // Zero-length writes past the end still extend the blob
+                raf.setLength(end);
+            }
+            return channel.size();
+        }
+    }
+
+    /**
+     * Copies up to {@code length} bytes starting at {@code offset}. Returns an
+     * empty array at or past the end of the blob, or null if it does not exist.
+     */
+    byte[] read(String namespace, String key, long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("offset and length must not be negative");
+        }
+        File file = blobFile(namespace, key, false);
+        if (!file.isFile()) {
+            return null;
+        }
+        MappedByteBuffer mapping = readMappings.get(file);
+        if (mapping == null) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            readMappings.put(file, mapping);
+        }
+        int size = mapping.capacity();
+        if (offset >= size) {
+            return new byte[0];
+        }
+        byte[] chunk = new byte[(int) Math.min(length, size - offset)];
+        // Reading through a duplicate leaves the cached mapping's position alone
+        ByteBuffer cursor = mapping.duplicate();
+        cursor.position((int) offset);
+        cursor.get(chunk);
+        return chunk;
+    }
+
+    /**
+     * Size of a blob in bytes, or -1 if it does not exist.
+     */
+    long size(String namespace, String key) {
+        File file = blobFile(namespace, key, false);
+        return file.isFile() ? file.length() : -1;
+    }
+
+    boolean delete(String namespace, String key) {
+        File file = blobFile(namespace, key, false);
+        readMappings.remove(file);
+        return file.delete();
+    }
+
+    List<String> keys(String namespace) {
+        List<String> keys = new ArrayList<>();
+        File[] files = namespaceDir(namespace).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String key = decodeName(file.getName());
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private File namespaceDir(String namespace) {
+        return new File(root, encodeName(namespace));
+    }
+
+    private File blobFile(String namespace, String key, boolean create) {
+        File dir = namespaceDir(namespace);
+        if (create && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create " + dir);
+        }
+        return new File(dir, encodeName(key));
+    }
+
+    private static String encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Blob keys and namespaces are limited to " + MAX_NAME_BYTES + " bytes");
+        }
+        StringBuilder hex = new StringBuilder(bytes.length * 2 + 1);
+        // Prefix keeps the empty key a valid file name
+        hex.append('b');
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String decodeName(String fileName) {
+        if (fileName.isEmpty() || fileName.charAt(0) != 'b' || fileName.length() % 2 == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(fileName.length() - 1) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(fileName.charAt(1 + i * 2), 16);
+            int low = Character.digit(fileName.charAt(2 + i * 2), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
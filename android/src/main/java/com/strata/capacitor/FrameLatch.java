@@ -0,0 +1,124 @@
+package com.strata.capacitor;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * Latches the input state once per display frame.
+ *
+ * While enabled, a Choreographer callback on the main thread captures the
+ * input state at every vsync and stamps it with a frame number and the
+ * frame's vsync time. Snapshots then return the state as of the latest
+ * frame rather than whatever arrived mid-frame, so all reads within a frame
+ * agree and each can be matched to the frame it belongs to. Unlike
+ * {@link InputEventStream}, the callback runs every frame while enabled, so
+ * latching is opt-in.
+ */
+final class FrameLatch implements Choreographer.FrameCallback {
+
+    interface Host {
+        void captureInputFrame(InputFrame out);
+    }
+
+    private final Host host;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable startOnMain = this::start;
+    private final Runnable stopOnMain = this::stop;
+    // Main thread only
+    private final InputFrame scratch = new InputFrame();
+    private boolean scheduled = false;
+    private long frameNumber = 0;
+    private long lastInputTimeNanos = 0;
+    // Guarded by itself; written once per frame and copied out by readers
+    private final InputFrame latched = new InputFrame();
+    // Age of new input when its frame latched it
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
+    private volatile boolean enabled = false;
+
+    FrameLatch(Host host) {
+        this.host = host;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        mainHandler.post(enabled ? startOnMain : stopOnMain);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Copies the state latched on the latest frame into {@code out}.
+     *
+     * @return false if latching is off or no frame has been latched since it was enabled
+     */
+    boolean read(InputFrame out) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (latched) {
+            if (latched.frameNumber == 0) {
+                return false;
+            }
+            out.copyFrom(latched);
+        }
+        return true;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        if (!enabled) {
+            return;
+        }
+        host.captureInputFrame(scratch);
+        long latchNanos = System.nanoTime();
+        scratch.frameNumber = ++frameNumber;
+        scratch.frameTimeNanos = frameTimeNanos;
+        if (scratch.inputTimeNanos > lastInputTimeNanos) {
+            lastInputTimeNanos = scratch.inputTimeNanos;
+            inputLatency.record(latchNanos - scratch.inputTimeNanos);
+        }
+        synchronized (latched) {
+            latched.copyFrom(scratch);
+        }
+        scheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    JSObject metrics() {
+        JSObject result = new JSObject();
+        result.put("enabled", enabled);
+        synchronized (latched) {
+            result.put("frame", latched.frameNumber);
+        }
+        result.put("inputLatency", inputLatency.toJSObject());
+        return result;
+    }
+
+    void resetMetrics() {
+        inputLatency.reset();
+    }
+
+    private void start() {
+        if (enabled && !scheduled) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void stop() {
+        if (enabled) {
+            return;
+        }
+        Choreographer.getInstance().removeFrameCallback(this);
+        scheduled = false;
+        synchronized (latched) {
+            latched.clear();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.strata.capacitor;
+
+/**
+ * Per-device gamepad state, one slot per connected controller.
+ *
+ * Slots are keyed by {@code InputDevice} id and hold processed stick and
+ * trigger values plus each controller's own held-button state, so local
+ * multiplayer inputs never overwrite each other. Writes come from the UI
+ * thread only and are published per slot with a {@link SeqLock}; readers on any
+ * thread copy a slot without locking and retry if they overlapped a write.
+ */
+final class GamepadSlots {
+
+    static final int MAX_SLOTS = 8;
+    static final int AXES = 6;
+    static final int AXIS_LEFT_X = 0;
+    static final int AXIS_LEFT_Y = 1;
+    static final int AXIS_RIGHT_X = 2;
+    static final int AXIS_RIGHT_Y = 3;
+    static final int AXIS_LEFT_TRIGGER = 4;
+    static final int AXIS_RIGHT_TRIGGER = 5;
+    private static final int EMPTY = -1;
+    private static final int MAX_READ_ATTEMPTS = 64;
+
+    private final int[] deviceIds = new int[MAX_SLOTS];
+    private final float[] axes = new float[MAX_SLOTS * AXES];
+    // Monotonic nanoseconds of each slot's last input
+    private final long[] updateTimes = new long[MAX_SLOTS];
+    private final KeyActionTable.State[] keyStates = new KeyActionTable.State[MAX_SLOTS];
+    private final SeqLock[] locks = new SeqLock[MAX_SLOTS];
+
+    GamepadSlots() {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            deviceIds[i] = EMPTY;
+            keyStates[i] = new KeyActionTable.State();
+            locks[i] = new SeqLock();
+        }
+    }
+
+    /**
+     * Returns the slot for a device, claiming a free one if {@code create} is set.
+     * Returns -1 if the device has no slot and none could be claimed.
+     * Claiming must happen on the writer thread.
+     */
+    int slotFor(int deviceId, boolean create) {
+        int free = -1;
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            if (deviceIds[i] == deviceId) {
+                return i;
+            }
+            if (free < 0 && deviceIds[i] == EMPTY) {
+                free = i;
+            }
+        }
+        if (!create || free < 0) {
+            return -1;
+        }
+        locks[free].beginWrite();
+        deviceIds[free] = deviceId;
+        for (int a = 0; a < AXES; a++) {
+            axes[free * AXES + a] = 0;
+        }
+        keyStates[free].reset();
+        locks[free].endWrite();
+        return free;
+    }
+
+    void writeAxes(int slot, long timeNanos, float leftX, float leftY, float rightX, float rightY,
+                   float leftTrigger, float rightTrigger) {
+        int base = slot * AXES;
+        locks[slot].beginWrite();
+        axes[base + AXIS_LEFT_X] = leftX;
+        axes[base + AXIS_LEFT_Y] = leftY;
+        axes[base + AXIS_RIGHT_X] = rightX;
+        axes[base + AXIS_RIGHT_Y] = rightY;
+        axes[base + AXIS_LEFT_TRIGGER] = leftTrigger;
+        axes[base + AXIS_RIGHT_TRIGGER] = rightTrigger;
+        updateTimes[slot] = timeNanos;
+        locks[slot].endWrite();
+    }
+
+    /**
+     * Applies a button transition to the slot's own key state.
+     *
+     * @return true if the key is bound to an action
+     */
+    boolean onKey(int slot, KeyActionTable table, int keyCode, boolean down, long timeNanos) {
+        locks[slot].beginWrite();
+        boolean bound = keyStates[slot].onKey(table, keyCode, down);
+        updateTimes[slot] = timeNanos;
+        locks[slot].endWrite();
+        return bound;
+    }
+
+    void release(int deviceId) {
+        int slot = slotFor(deviceId, false);
+        if (slot >= 0) {
+            locks[slot].beginWrite();
+            deviceIds[slot] = EMPTY;
+            keyStates[slot].reset();
+            locks[slot].endWrite();
+        }
+    }
+
+    /**
+     * Releases every slot's held buttons, e.g. after the key table changed.
+     */
+    void resetKeys() {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            if (deviceIds[i] != EMPTY) {
+                locks[i].beginWrite();
+                keyStates[i].reset();
+                locks[i].endWrite();
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            if (deviceIds[i] != EMPTY) {
+                release(deviceIds[i]);
+            }
+        }
+    }
+
+    /**
+     * First occupied slot, or -1 when no gamepad has produced input.
+     */
+    int firstOccupied() {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            if (deviceIds[i] != EMPTY) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copies a slot's sticks, triggers, button mask and last input time into {@code out}.
+     *
+     * @return the slot's device id, or -1 if the slot is empty
+     */
+    int read(int slot, InputFrame out) {
+        int base = slot * AXES;
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            int before = locks[slot].readBegin();
+            if (SeqLock.isWriting(before)) {
+                Thread.yield();
+                continue;
+            }
+            int deviceId = deviceIds[slot];
+            out.leftStickX = axes[base + AXIS_LEFT_X];
+            out.leftStickY = axes[base + AXIS_LEFT_Y];
+            out.rightStickX = axes[base + AXIS_RIGHT_X];
+            out.rightStickY = axes[base + AXIS_RIGHT_Y];
+            out.leftTrigger = axes[base + AXIS_LEFT_TRIGGER];
+            out.rightTrigger = axes[base + AXIS_RIGHT_TRIGGER];
+            out.buttonMask = keyStates[slot].buttonMask();
+            out.inputTimeNanos = updateTimes[slot];
+            if (locks[slot].validate(before)) {
+                return deviceId;
+            }
+        }
+        return EMPTY;
+    }
+}
@@ -0,0 +1,457 @@
+package com.strata.capacitor;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * Incremental tap, pan, swipe and pinch recognition over raw touch events.
+ *
+ * Fed from the UI thread with every touch event, including the samples
+ * Android batches between frames, so swipe velocity is measured at the
+ * full touch rate. Taps, swipes and the start and end of a pan or pinch are
+ * sent as they happen. Pan and pinch movement is accumulated and sent at
+ * most once per display frame, so a drag costs one small event per frame
+ * rather than one per touch sample. Recognition keeps running without
+ * listeners, but nothing is built or sent. Positions are in the same pixels
+ * as the touches in input snapshots.
+ */
+final class GestureRecognizer implements Choreographer.FrameCallback {
+
+    static final String EVENT_GESTURE = "gesture";
+
+    interface Host {
+        boolean hasGestureListeners();
+
+        /**
+         * True to send events in the packed {@link WireFormat} layout instead of keyed.
+         */
+        boolean compactWire();
+
+        void emitGesture(JSObject data);
+    }
+
+    private static final int STATE_IDLE = 0;
+    // One finger down that has not moved beyond the slop; may still become a tap
+    private static final int STATE_PRESSED = 1;
+    private static final int STATE_PAN = 2;
+    private static final int STATE_PINCH = 3;
+
+    static final float DEFAULT_SLOP_DP = 8;
+    static final float DEFAULT_SWIPE_VELOCITY_DP = 600;
+    static final long DEFAULT_TAP_TIMEOUT_MS = 300;
+    // Samples within this window of the last one set the release velocity
+    private static final long VELOCITY_WINDOW_NANOS = 100_000_000L;
+    private static final int VELOCITY_SAMPLES = 16;
+    private static final float NANOS_PER_SECOND = 1e9f;
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private final Host host;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable resetOnMain = this::reset;
+    private volatile boolean enabled = false;
+    private volatile float slopPx;
+    private volatile float swipeVelocityPx;
+    private volatile long tapTimeoutNanos;
+
+    // UI thread only
+    private int state = STATE_IDLE;
+    private int primaryId = -1;
+    private int secondaryId = -1;
+    private long downTimeNanos;
+    private long lastTimeNanos;
+    private float startX;
+    private float startY;
+    private float lastX;
+    private float lastY;
+    private float lastSpan;
+    private float startSpan;
+    private float pendingDx;
+    private float pendingDy;
+    private float pendingScale = 1;
+    private boolean pending = false;
+    private boolean frameScheduled = false;
+    // Ring of recent primary pointer samples for the release velocity
+    private final long[] sampleTimes = new long[VELOCITY_SAMPLES];
+    private final float[] sampleXs = new float[VELOCITY_SAMPLES];
+    private final float[] sampleYs = new float[VELOCITY_SAMPLES];
+    private int sampleCount = 0;
+    private int sampleNext = 0;
+
+    GestureRecognizer(Host host) {
+        this.host = host;
+    }
+
+    /**
+     * Enables recognition with thresholds in pixels, or disables it and drops any gesture in progress.
+     */
+    void setEnabled(boolean enabled, float slopPx, float swipeVelocityPx, long tapTimeoutMs) {
+        this.slopPx = slopPx;
+        this.swipeVelocityPx = swipeVelocityPx;
+        this.tapTimeoutNanos = tapTimeoutMs * NANOS_PER_MS;
+        this.enabled = enabled;
+        if (!enabled) {
+            mainHandler.post(resetOnMain);
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void onTouchEvent(MotionEvent event) {
+        if (!enabled) {
+            if (state != STATE_IDLE) {
+                reset();
+            }
+            return;
+        }
+        long timeNanos = InputClock.eventTimeNanos(event);
+        lastTimeNanos = timeNanos;
+        int actionIndex = event.getActionIndex();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                reset();
+                primaryId = event.getPointerId(actionIndex);
+                startX = lastX = event.getX(actionIndex);
+                startY = lastY = event.getY(actionIndex);
+                downTimeNanos = timeNanos;
+                addSample(timeNanos, lastX, lastY);
+                state = STATE_PRESSED;
+                break;
+
+            case MotionEvent.ACTION_POINTER_DOWN:
+                if ((state == STATE_PRESSED || state == STATE_PAN) && secondaryId == -1) {
+                    if (state == STATE_PAN) {
+                        emitPan("ended", false);
+                    }
+                    secondaryId = event.getPointerId(actionIndex);
+                    startSpan = lastSpan = span(event);
+                    state = STATE_PINCH;
+                    emitPinch("began");
+                }
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                onMove(event, timeNanos);
+                break;
+
+            case MotionEvent.ACTION_POINTER_UP:
+                onPointerUp(event, event.getPointerId(actionIndex));
+                break;
+
+            case MotionEvent.ACTION_UP:
+                onUp(event, timeNanos);
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                if (state == STATE_PAN) {
+                    emitPan("cancelled", false);
+                } else if (state == STATE_PINCH) {
+                    emitPinch("cancelled");
+                }
+                reset();
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void onMove(MotionEvent event, long timeNanos) {
+        int primary = pointerIndex(event, primaryId);
+        if (primary < 0) {
+            return;
+        }
+        if (state == STATE_PINCH) {
+            if (pointerIndex(event, secondaryId) < 0) {
+                return;
+            }
+            float span = span(event);
+            if (lastSpan > 0 && span > 0) {
+                pendingScale *= span / lastSpan;
+            }
+            lastSpan = span;
+            markPending();
+            return;
+        }
+
+        for (int h = 0; h < event.getHistorySize(); h++) {
+            addSample(InputClock.historicalEventTimeNanos(event, h),
+                event.getHistoricalX(primary, h), event.getHistoricalY(primary, h));
+        }
+        float x = event.getX(primary);
+        float y = event.getY(primary);
+        addSample(timeNanos, x, y);
+
+        if (state == STATE_PRESSED) {
+            float dx = x - startX;
+            float dy = y - startY;
+            float slop = slopPx;
+            if (dx * dx + dy * dy <= slop * slop) {
+                return;
+            }
+            state = STATE_PAN;
+            pendingDx = dx;
+            pendingDy = dy;
+            lastX = x;
+            lastY = y;
+            emitPan("began", false);
+            return;
+        }
+        if (state == STATE_PAN) {
+            pendingDx += x - lastX;
+            pendingDy += y - lastY;
+            lastX = x;
+            lastY = y;
+            markPending();
+        }
+    }
+
+    private void onPointerUp(MotionEvent event, int pointerId) {
+        if (state != STATE_PINCH || (pointerId != primaryId && pointerId != secondaryId)) {
+            return;
+        }
+        emitPinch("ended");
+        // The finger left on screen carries on as a pan
+        primaryId = pointerId == primaryId ? secondaryId : primaryId;
+        secondaryId = -1;
+        int remaining = pointerIndex(event, primaryId);
+        if (remaining < 0) {
+            state = STATE_IDLE;
+            return;
+        }
+        lastX = event.getX(remaining);
+        lastY = event.getY(remaining);
+        sampleCount = 0;
+        addSample(lastTimeNanos, lastX, lastY);
+        state = STATE_PAN;
+        emitPan("began", false);
+    }
+
+    private void onUp(MotionEvent event, long timeNanos) {
+        float x = event.getX(event.getActionIndex());
+        float y = event.getY(event.getActionIndex());
+        if (state == STATE_PRESSED) {
+            if (timeNanos - downTimeNanos <= tapTimeoutNanos && host.hasGestureListeners()) {
+                host.emitGesture(host.compactWire() ? WireFormat.tap(x, y, lastTimeNanos) : gesture("tap", x, y));
+            }
+        } else if (state == STATE_PAN) {
+            addSample(timeNanos, x, y);
+            pendingDx += x - lastX;
+            pendingDy += y - lastY;
+            lastX = x;
+            lastY = y;
+            emitPan("ended", true);
+        } else if (state == STATE_PINCH) {
+            emitPinch("ended");
+        }
+        reset();
+    }
+
+    private void markPending() {
+        pending = true;
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Sends the movement accumulated since the last frame.
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (!pending) {
+            return;
+        }
+        pending = false;
+        if (state == STATE_PAN) {
+            emitPanData("changed", false);
+        } else if (state == STATE_PINCH) {
+            emitPinchData("changed");
+        }
+    }
+
+    /**
+     * Sends a pan phase change, carrying any movement not yet sent.
+     */
+    private void emitPan(String phase, boolean released) {
+        pending = false;
+        emitPanData(phase, released);
+        if (released) {
+            emitSwipe();
+        }
+    }
+
+    private void emitPanData(String phase, boolean released) {
+        if (!host.hasGestureListeners()) {
+            pendingDx = 0;
+            pendingDy = 0;
+            return;
+        }
+        float vx = released ? velocity(sampleXs) : 0;
+        float vy = released ? velocity(sampleYs) : 0;
+        JSObject data;
+        if (host.compactWire()) {
+            data = WireFormat.pan(lastX, lastY, lastTimeNanos, phase, pendingDx, pendingDy, released, vx, vy);
+        } else {
+            data = gesture("pan", lastX, lastY);
+            data.put("phase", phase);
+            data.put("dx", pendingDx);
+            data.put("dy", pendingDy);
+            if (released) {
+                data.put("vx", vx);
+                data.put("vy", vy);
+            }
+        }
+        pendingDx = 0;
+        pendingDy = 0;
+        host.emitGesture(data);
+    }
+
+    private void emitSwipe() {
+        if (!host.hasGestureListeners()) {
+            return;
+        }
+        float vx = velocity(sampleXs);
+        float vy = velocity(sampleYs);
+        float minimum = swipeVelocityPx;
+        if (vx * vx + vy * vy < minimum * minimum) {
+            return;
+        }
+        String direction;
+        if (Math.abs(vx) >= Math.abs(vy)) {
+            direction = vx > 0 ? "right" : "left";
+        } else {
+            direction = vy > 0 ? "down" : "up";
+        }
+        if (host.compactWire()) {
+            host.emitGesture(WireFormat.swipe(lastX, lastY, lastTimeNanos, vx, vy, direction));
+            return;
+        }
+        JSObject data = gesture("swipe", lastX, lastY);
+        data.put("vx", vx);
+        data.put("vy", vy);
+        data.put("direction", direction);
+        host.emitGesture(data);
+    }
+
+    /**
+     * Sends a pinch phase change, carrying any scaling not yet sent.
+     */
+    private void emitPinch(String phase) {
+        pending = false;
+        emitPinchData(phase);
+    }
+
+    private void emitPinchData(String phase) {
+        if (!host.hasGestureListeners()) {
+            pendingScale = 1;
+            return;
+        }
+        float totalScale = startSpan > 0 ? lastSpan / startSpan : 1;
+        JSObject data;
+        if (host.compactWire()) {
+            data = WireFormat.pinch(lastX, lastY, lastTimeNanos, phase, pendingScale, totalScale);
+        } else {
+            data = gesture("pinch", lastX, lastY);
+            data.put("phase", phase);
+            data.put("scale", pendingScale);
+            data.put("totalScale", totalScale);
+        }
+        pendingScale = 1;
+        host.emitGesture(data);
+    }
+
+    private JSObject gesture(String type, float x, float y) {
+        JSObject data = new JSObject();
+        data.put("type", type);
+        data.put("x", x);
+        data.put("y", y);
+        data.put("timeNanos", lastTimeNanos);
+        return data;
+    }
+
+    /**
+     * Distance between the two pinch pointers, updating the focus point as a side effect.
+     */
+    private float span(MotionEvent event) {
+        int primary = pointerIndex(event, primaryId);
+        int secondary = pointerIndex(event, secondaryId);
+        if (primary < 0 || secondary < 0) {
+            return lastSpan;
+        }
+        float x1 = event.getX(primary);
+        float y1 = event.getY(primary);
+        float x2 = event.getX(secondary);
+        float y2 = event.getY(secondary);
+        lastX = (x1 + x2) / 2;
+        lastY = (y1 + y2) / 2;
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static int pointerIndex(MotionEvent event, int pointerId) {
+        for (int i = 0; i < event.getPointerCount(); i++) {
+            if (event.getPointerId(i) == pointerId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addSample(long timeNanos, float x, float y) {
+        sampleTimes[sampleNext] = timeNanos;
+        sampleXs[sampleNext] = x;
+        sampleYs[sampleNext] = y;
+        sampleNext = (sampleNext + 1) % VELOCITY_SAMPLES;
+        if (sampleCount < VELOCITY_SAMPLES) {
+            sampleCount++;
+        }
+    }
+
+    /**
+     * Pixels per second between the newest sample and the oldest one inside the velocity window.
+     */
+    private float velocity(float[] values) {
+        if (sampleCount < 2) {
+            return 0;
+        }
+        int newest = (sampleNext + VELOCITY_SAMPLES - 1) % VELOCITY_SAMPLES;
+        int oldest = newest;
+        for (int i = 1; i < sampleCount; i++) {
+            int index = (newest + VELOCITY_SAMPLES - i) % VELOCITY_SAMPLES;
+            if (sampleTimes[newest] - sampleTimes[index] > VELOCITY_WINDOW_NANOS) {
+                break;
+            }
+            oldest = index;
+        }
+        long elapsed = sampleTimes[newest] - sampleTimes[oldest];
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return (values[newest] - values[oldest]) * NANOS_PER_SECOND / elapsed;
+    }
+
+    private void reset() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        state = STATE_IDLE;
+        primaryId = -1;
+        secondaryId = -1;
+        pendingDx = 0;
+        pendingDy = 0;
+        pendingScale = 1;
+        pending = false;
+        sampleCount = 0;
+        sampleNext = 0;
+    }
+}
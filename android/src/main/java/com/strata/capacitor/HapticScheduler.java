@@ -0,0 +1,393 @@
+package com.strata.capacitor;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plays haptic effects on one timeline instead of letting every request
+ * cancel the vibration before it.
+ *
+ * Effects are compiled once and cached by their parameters, so repeated hits
+ * reuse the same {@link VibrationEffect}. A request that arrives while an
+ * effect is playing is ranked against it by priority, then amplitude: a
+ * stronger one takes over at once, a weaker one arriving within the merge
+ * window is folded into the playing effect, and anything later waits its
+ * turn. Waiting requests merge into a single pending effect that starts when
+ * the current one ends. Bursts are compiled into one waveform, so a burst of
+ * shots costs one call.
+ *
+ * Effects can also be registered once under a small integer id. Playing a
+ * registered effect posts a task allocated at registration to the timeline
+ * thread's Handler, whose messages are pooled, so it allocates nothing.
+ */
+final class HapticScheduler {
+
+    private static final String TAG = "StrataHaptics";
+    static final long MERGE_WINDOW_MS = 16;
+    static final long MAX_DURATION_MS = 10000;
+    // Ranking amplitude for effects played at the device default strength
+    private static final int DEFAULT_RANK_AMPLITUDE = 150;
+    private static final int MAX_CACHED_EFFECTS = 64;
+    private static final String[] PRIMITIVE_NAMES = {
+        "click", "thud", "spin", "quickRise", "slowRise", "quickFall", "tick", "lowTick"
+    };
+    private static final int[] PRIMITIVE_IDS = {
+        VibrationEffect.Composition.PRIMITIVE_CLICK, VibrationEffect.Composition.PRIMITIVE_THUD,
+        VibrationEffect.Composition.PRIMITIVE_SPIN, VibrationEffect.Composition.PRIMITIVE_QUICK_RISE,
+        VibrationEffect.Composition.PRIMITIVE_SLOW_RISE, VibrationEffect.Composition.PRIMITIVE_QUICK_FALL,
+        VibrationEffect.Composition.PRIMITIVE_TICK, VibrationEffect.Composition.PRIMITIVE_LOW_TICK
+    };
+    // Rough lengths of the primitives, for placing compositions on the timeline
+    private static final int[] PRIMITIVE_DURATIONS_MS = { 12, 50, 80, 60, 150, 50, 5, 12 };
+    // Returned for effects with nothing to play; the platform rejects all-zero waveforms
+    static final Effect NONE = new Effect(null, 0, new long[0], 0);
+
+    /**
+     * A compiled effect. Immutable, so it can be shared between threads.
+     */
+    static final class Effect {
+        final long[] timings;
+        final int[] amplitudes;
+        final long durationMs;
+        final int rankAmplitude;
+        // Null below API 26, where only the timings are used
+        final VibrationEffect vibrationEffect;
+
+        /**
+         * An effect built by the caller, such as a primitive composition.
+         * {@code timings} is what devices without support for it play instead.
+         */
+        Effect(VibrationEffect vibrationEffect, long durationMs, long[] timings, int rankAmplitude) {
+            this.timings = timings;
+            this.amplitudes = null;
+            this.durationMs = durationMs;
+            this.rankAmplitude = rankAmplitude;
+            this.vibrationEffect = vibrationEffect;
+        }
+
+        /**
+         * A waveform. {@code timings} must not add up to zero, which the platform rejects.
+         */
+        Effect(long[] timings, int[] amplitudes, int rankAmplitude) {
+            this.timings = timings;
+            this.amplitudes = amplitudes;
+            this.durationMs = totalDuration(timings);
+            this.rankAmplitude = rankAmplitude;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                vibrationEffect = amplitudes != null
+                    ? VibrationEffect.createWaveform(timings, amplitudes, -1)
+                    : VibrationEffect.createWaveform(timings, -1);
+            } else {
+                vibrationEffect = null;
+            }
+        }
+    }
+
+    /**
+     * A registered effect with the task that plays it at its priority.
+     */
+    private final class Registered {
+        final Effect effect;
+        final int priority;
+        final Runnable playTask;
+
+        Registered(Effect effect, int priority) {
+            this.effect = effect;
+            this.priority = priority;
+            this.playTask = () -> submit(effect, priority);
+        }
+    }
+
+    private final Vibrator vibrator;
+    private final HandlerThread thread = new HandlerThread(TAG);
+    private final Handler handler;
+    private final Runnable startPendingTask = this::startPending;
+    // Indexed by effect id; replaced wholesale so playing never takes a lock
+    private volatile Registered[] registered = new Registered[0];
+    // Compiled effects by parameters, least recently used first; plugin thread only
+    private final Map<String, Effect> effects =
+        new LinkedHashMap<String, Effect>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Effect> eldest) {
+                return size() > MAX_CACHED_EFFECTS;
+            }
+        };
+    // Timeline state, confined to the haptics thread
+    private Effect playing;
+    private int playingPriority;
+    private long playingStartMs;
+    private long playingEndMs;
+    private Effect pending;
+    private int pendingPriority;
+    private boolean pendingScheduled;
+
+    HapticScheduler(Vibrator vibrator) {
+        this.vibrator = vibrator;
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    boolean isAvailable() {
+        return vibrator != null && vibrator.hasVibrator();
+    }
+
+    /**
+     * A burst of {@code count} pulses starting every {@code intervalMs}.
+     *
+     * @param amplitude 1-255, or {@link VibrationEffect#DEFAULT_AMPLITUDE}
+     * @param cached reuse a cached effect with the same parameters; plugin thread only
+     */
+    Effect pulses(long durationMs, int amplitude, int count, long intervalMs, boolean cached) {
+        long duration = clampDuration(durationMs);
+        int pulses = Math.max(1, count);
+        long gap = clampDuration(intervalMs - duration);
+        if (duration == 0) {
+            return NONE;
+        }
+        String key = "p" + duration + ':' + amplitude + ':' + pulses + ':' + gap;
+        Effect effect = cached ? effects.get(key) : null;
+        if (effect == null) {
+            long[] timings = new long[pulses * 2];
+            int[] amplitudes = new int[pulses * 2];
+            for (int i = 0; i < pulses; i++) {
+                timings[i * 2] = i == 0 ? 0 : gap;
+                timings[i * 2 + 1] = duration;
+                amplitudes[i * 2 + 1] = amplitude;
+            }
+            int rank = amplitude == VibrationEffect.DEFAULT_AMPLITUDE ? DEFAULT_RANK_AMPLITUDE : amplitude;
+            effect = new Effect(timings, amplitudes, rank);
+            if (cached) {
+                effects.put(key, effect);
+            }
+        }
+        return effect;
+    }
+
+    /**
+     * A raw timing pattern in the platform's off/on order; plugin thread only.
+     */
+    Effect pattern(long[] pattern) {
+        String key = "w" + Arrays.toString(pattern);
+        Effect effect = effects.get(key);
+        if (effect == null) {
+            long[] timings = new long[pattern.length];
+            for (int i = 0; i < pattern.length; i++) {
+                timings[i] = clampDuration(pattern[i]);
+            }
+            effect = totalDuration(timings) == 0 ? NONE : new Effect(timings, null, DEFAULT_RANK_AMPLITUDE);
+            effects.put(key, effect);
+        }
+        return effect;
+    }
+
+    /**
+     * An uncached waveform; {@code amplitudes} may be null for the default strength.
+     */
+    Effect waveform(long[] timings, int[] amplitudes) {
+        long[] clamped = new long[timings.length];
+        int rank = amplitudes == null ? DEFAULT_RANK_AMPLITUDE : 0;
+        for (int i = 0; i < timings.length; i++) {
+            clamped[i] = clampDuration(timings[i]);
+            if (amplitudes != null) {
+                amplitudes[i] = Math.max(0, Math.min(255, amplitudes[i]));
+                rank = Math.max(rank, amplitudes[i]);
+            }
+        }
+        if (totalDuration(clamped) == 0) {
+            return NONE;
+        }
+        return new Effect(clamped, amplitudes, rank);
+    }
+
+    /**
+     * Composition id of a primitive name such as "click", or -1 if unknown.
+     */
+    static int primitiveId(String name) {
+        for (int i = 0; i < PRIMITIVE_NAMES.length; i++) {
+            if (PRIMITIVE_NAMES[i].equals(name)) {
+                return PRIMITIVE_IDS[i];
+            }
+        }
+        return -1;
+    }
+
+    private static int primitiveDurationMs(int id) {
+        for (int i = 0; i < PRIMITIVE_IDS.length; i++) {
+            if (PRIMITIVE_IDS[i] == id) {
+                return PRIMITIVE_DURATIONS_MS[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A composition of primitives (API 30+), or {@code fallback} where the
+     * device cannot play all of them.
+     *
+     * @param scales 0-1 strength of each primitive
+     * @param delaysMs pause before each primitive
+     */
+    Effect composition(int[] primitives, float[] scales, int[] delaysMs, Effect fallback) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R || vibrator == null
+                || !vibrator.areAllPrimitivesSupported(primitives)) {
+            return fallback;
+        }
+        VibrationEffect.Composition composition = VibrationEffect.startComposition();
+        long duration = 0;
+        float strongest = 0;
+        for (int i = 0; i < primitives.length; i++) {
+            float scale = Math.max(0f, Math.min(1f, scales[i]));
+            int delay = (int) clampDuration(delaysMs[i]);
+            composition.addPrimitive(primitives[i], scale, delay);
+            duration += delay + primitiveDurationMs(primitives[i]);
+            strongest = Math.max(strongest, scale);
+        }
+        return new Effect(composition.compose(), duration, fallback.timings, Math.round(strongest * 255));
+    }
+
+    /**
+     * Queues an effect on the timeline. Returns immediately.
+     */
+    void play(Effect effect, int priority) {
+        if (effect.durationMs == 0 || !isAvailable()) {
+            return;
+        }
+        handler.post(() -> submit(effect, priority));
+    }
+
+    /**
+     * Registers an effect to be played by id, reusing a freed id if there is one.
+     */
+    synchronized int register(Effect effect, int priority) {
+        Registered[] current = registered;
+        int id = 0;
+        while (id < current.length && current[id] != null) {
+            id++;
+        }
+        Registered[] next = Arrays.copyOf(current, Math.max(current.length, id + 1));
+        next[id] = new Registered(effect, priority);
+        registered = next;
+        return id;
+    }
+
+    synchronized boolean unregister(int id) {
+        Registered[] current = registered;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            return false;
+        }
+        Registered[] next = current.clone();
+        next[id] = null;
+        registered = next;
+        return true;
+    }
+
+    /**
+     * Queues a registered effect without allocating.
+     *
+     * @return false if no effect is registered under {@code id}
+     */
+    boolean playRegistered(int id) {
+        Registered[] current = registered;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            return false;
+        }
+        Registered effect = current[id];
+        if (effect.effect.durationMs > 0 && isAvailable()) {
+            handler.post(effect.playTask);
+        }
+        return true;
+    }
+
+    void shutdown() {
+        handler.post(() -> {
+            pending = null;
+            if (playing != null) {
+                vibrator.cancel();
+                playing = null;
+            }
+        });
+        thread.quitSafely();
+    }
+
+    private void submit(Effect effect, int priority) {
+        long now = SystemClock.uptimeMillis();
+        if (playing == null || now >= playingEndMs
+                || outranks(effect, priority, playing, playingPriority)) {
+            start(effect, priority, now);
+        } else if (now - playingStartMs >= MERGE_WINDOW_MS) {
+            // Requests landing right on top of the effect that just started are
+            // felt as the same hit and dropped; later ones queue behind it
+            if (pending == null || outranks(effect, priority, pending, pendingPriority)) {
+                pending = effect;
+                pendingPriority = priority;
+            }
+            if (!pendingScheduled) {
+                pendingScheduled = true;
+                handler.postDelayed(startPendingTask, playingEndMs - now);
+            }
+        }
+    }
+
+    private void startPending() {
+        pendingScheduled = false;
+        Effect effect = pending;
+        pending = null;
+        if (effect == null) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (now < playingEndMs) {
+            // A stronger effect took over after this was scheduled; wait for it
+            pending = effect;
+            pendingScheduled = true;
+            handler.postDelayed(startPendingTask, playingEndMs - now);
+            return;
+        }
+        start(effect, pendingPriority, now);
+    }
+
+    private void start(Effect effect, int priority, long now) {
+        try {
+            if (effect.vibrationEffect != null) {
+                vibrator.vibrate(effect.vibrationEffect);
+            } else {
+                vibrator.vibrate(effect.timings, -1);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Vibration failed", e);
+            return;
+        }
+        playing = effect;
+        playingPriority = priority;
+        playingStartMs = now;
+        playingEndMs = now + effect.durationMs;
+    }
+
+    private static boolean outranks(Effect effect, int priority, Effect other, int otherPriority) {
+        if (priority != otherPriority) {
+            return priority > otherPriority;
+        }
+        return effect.rankAmplitude > other.rankAmplitude;
+    }
+
+    private static long totalDuration(long[] timings) {
+        long duration = 0;
+        for (long timing : timings) {
+            duration += timing;
+        }
+        return duration;
+    }
+
+    private static long clampDuration(long durationMs) {
+        return Math.max(0, Math.min(MAX_DURATION_MS, durationMs));
+    }
+}
@@ -0,0 +1,142 @@
+package com.strata.capacitor;
+
+import android.util.Base64;
+import android.webkit.JavascriptInterface;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-layout binary input buffer shared with the WebView.
+ *
+ * Input handlers write stick, trigger, button and touch state into a single
+ * little-endian buffer. JS reads it synchronously through a
+ * {@link JavascriptInterface}, so a frame costs neither a Capacitor bridge
+ * round-trip nor JSON encoding. The layout must stay in sync with
+ * {@code src/inputBuffer.ts}:
+ *
+ * <pre>
+ *  0  u16  version
+ *  2  u16  byte length
+ *  4  i32  sequence (incremented on every write)
+ *  8  f64  timestamp (ms)
+ * 16  f32  leftStick.x, leftStick.y, rightStick.x, rightStick.y, triggers.left, triggers.right
+ * 40  u32  button bitfield (bit n = INPUT_ACTIONS[n])
+ * 44  u16  touch count
+ * 46  u16  reserved
+ * 48  touch[MAX_TOUCHES] { i32 id, f32 x, f32 y, u8 phase, u8[3] padding }
+ * </pre>
+ */
+final class InputBufferChannel {
+
+    static final String JS_INTERFACE_NAME = "StrataInputBuffer";
+    static final int VERSION = 1;
+    static final int MAX_TOUCHES = 10;
+
+    static final int OFFSET_VERSION = 0;
+    static final int OFFSET_BYTE_LENGTH = 2;
+    static final int OFFSET_SEQUENCE = 4;
+    static final int OFFSET_TIMESTAMP = 8;
+    static final int OFFSET_AXES = 16;
+    static final int OFFSET_BUTTONS = 40;
+    static final int OFFSET_TOUCH_COUNT = 44;
+    static final int OFFSET_TOUCHES = 48;
+    static final int TOUCH_STRIDE = 16;
+    static final int BYTE_LENGTH = OFFSET_TOUCHES + MAX_TOUCHES * TOUCH_STRIDE;
+
+    static final byte PHASE_BEGAN = 0;
+    static final byte PHASE_MOVED = 1;
+    static final byte PHASE_ENDED = 2;
+    static final byte PHASE_CANCELLED = 3;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BYTE_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private volatile boolean enabled = false;
+    private int sequence = 0;
+
+    InputBufferChannel() {
+        buffer.putShort(OFFSET_VERSION, (short) VERSION);
+        buffer.putShort(OFFSET_BYTE_LENGTH, (short) BYTE_LENGTH);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    synchronized void writeAxes(float leftStickX, float leftStickY, float rightStickX, float rightStickY,
+                                float leftTrigger, float rightTrigger) {
+        buffer.putFloat(OFFSET_AXES, leftStickX);
+        buffer.putFloat(OFFSET_AXES + 4, leftStickY);
+        buffer.putFloat(OFFSET_AXES + 8, rightStickX);
+        buffer.putFloat(OFFSET_AXES + 12, rightStickY);
+        buffer.putFloat(OFFSET_AXES + 16, leftTrigger);
+        buffer.putFloat(OFFSET_AXES + 20, rightTrigger);
+        commit();
+    }
+
+    synchronized void writeButtons(int buttonMask) {
+        buffer.putInt(OFFSET_BUTTONS, buttonMask);
+        commit();
+    }
+
+    /**
+     * Replaces the touch section with the first {@code count} entries of the given
+     * arrays. Entries beyond {@link #MAX_TOUCHES} are dropped.
+     */
+    synchronized void writeTouches(int count, int[] ids, float[] xs, float[] ys, byte[] phases) {
+        int n = Math.min(count, MAX_TOUCHES);
+        for (int i = 0; i < n; i++) {
+            int offset = OFFSET_TOUCHES + i * TOUCH_STRIDE;
+            buffer.putInt(offset, ids[i]);
+            buffer.putFloat(offset + 4, xs[i]);
+            buffer.putFloat(offset + 8, ys[i]);
+            buffer.put(offset + 12, phases[i]);
+        }
+        buffer.putShort(OFFSET_TOUCH_COUNT, (short) n);
+        commit();
+    }
+
+    synchronized void reset() {
+        for (int i = OFFSET_SEQUENCE + 4; i < BYTE_LENGTH; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        commit();
+    }
+
+    private void commit() {
+        sequence++;
+        buffer.putInt(OFFSET_SEQUENCE, sequence);
+        buffer.putDouble(OFFSET_TIMESTAMP, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the whole buffer as base64, or null when the channel is disabled.
+     */
+    @JavascriptInterface
+    public synchronized String read() {
+        if (!enabled) {
+            return null;
+        }
+        return Base64.encodeToString(buffer.array(), Base64.NO_WRAP);
+    }
+
+    /**
+     * Returns the buffer as base64 only if it has been written since {@code lastSequence},
+     * so an idle frame costs a single int comparison.
+     */
+    @JavascriptInterface
+    public synchronized String readIfNewer(int lastSequence) {
+        if (!enabled || sequence == lastSequence) {
+            return null;
+        }
+        return Base64.encodeToString(buffer.array(), Base64.NO_WRAP);
+    }
+
+    @JavascriptInterface
+    public synchronized int getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,46 @@
+package com.strata.capacitor;
+
+import android.os.Build;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+/**
+ * Event times in nanoseconds on the monotonic clock.
+ *
+ * Input events, {@code SystemClock.uptimeMillis}, {@code System.nanoTime} and
+ * Choreographer frame times all read the same clock, so these values can be
+ * subtracted from frame times directly. Before Android 14 events only carry
+ * millisecond times, which are widened here.
+ */
+final class InputClock {
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private InputClock() {
+    }
+
+    static long eventTimeNanos(MotionEvent event) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            return event.getEventTimeNanos();
+        }
+        return event.getEventTime() * NANOS_PER_MS;
+    }
+
+    static long historicalEventTimeNanos(MotionEvent event, int pos) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            return event.getHistoricalEventTimeNanos(pos);
+        }
+        return event.getHistoricalEventTime(pos) * NANOS_PER_MS;
+    }
+
+    static long eventTimeNanos(KeyEvent event) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            return event.getEventTimeNanos();
+        }
+        return event.getEventTime() * NANOS_PER_MS;
+    }
+
+    static long toMillis(long nanos) {
+        return nanos / NANOS_PER_MS;
+    }
+}
@@ -0,0 +1,203 @@
+package com.strata.capacitor;
+
+import android.content.Context;
+import android.hardware.input.InputManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.InputDevice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Connected input devices, scanned once and kept current from
+ * {@link InputManager.InputDeviceListener} callbacks.
+ *
+ * Queries read an immutable snapshot published through a volatile field, so
+ * they are cheap on any thread. Callbacks arrive on the main thread, where the
+ * snapshot is rebuilt and the host is told about controllers coming and going.
+ */
+final class InputDeviceRegistry implements InputManager.InputDeviceListener {
+
+    interface Host {
+        void onGamepadConnected(int index, int deviceId, String name);
+
+        void onGamepadDisconnected(int index, int deviceId);
+
+        /**
+         * Called when gamepad or pointer presence changes, after the connect or disconnect callback.
+         */
+        void onInputCapabilitiesChanged();
+    }
+
+    /**
+     * A connected game controller. Index is its position in connection order.
+     */
+    static final class Controller {
+        final int deviceId;
+        final String name;
+
+        Controller(int deviceId, String name) {
+            this.deviceId = deviceId;
+            this.name = name != null ? name : "";
+        }
+    }
+
+    private static final class Snapshot {
+        final List<Controller> controllers;
+        final List<Integer> pointerIds;
+
+        Snapshot(List<Controller> controllers, List<Integer> pointerIds) {
+            this.controllers = Collections.unmodifiableList(controllers);
+            this.pointerIds = Collections.unmodifiableList(pointerIds);
+        }
+    }
+
+    private final Host host;
+    private InputManager inputManager;
+    private volatile Snapshot snapshot = new Snapshot(new ArrayList<Controller>(), new ArrayList<Integer>());
+
+    InputDeviceRegistry(Host host) {
+        this.host = host;
+    }
+
+    /**
+     * Scans current devices and starts listening for changes. No callbacks are
+     * sent for devices already connected.
+     */
+    void start(Context context) {
+        inputManager = (InputManager) context.getSystemService(Context.INPUT_SERVICE);
+        if (inputManager != null) {
+            inputManager.registerInputDeviceListener(this, new Handler(Looper.getMainLooper()));
+        }
+        rescan();
+    }
+
+    void stop() {
+        if (inputManager != null) {
+            inputManager.unregisterInputDeviceListener(this);
+            inputManager = null;
+        }
+    }
+
+    boolean hasGameController() {
+        return !snapshot.controllers.isEmpty();
+    }
+
+    boolean hasPointerDevice() {
+        return !snapshot.pointerIds.isEmpty();
+    }
+
+    /**
+     * Connected controllers in connection order; the list is immutable.
+     */
+    List<Controller> controllers() {
+        return snapshot.controllers;
+    }
+
+    /**
+     * Index of a controller in {@link #controllers()}, or -1 if it is not connected.
+     */
+    int indexOf(int deviceId) {
+        List<Controller> controllers = snapshot.controllers;
+        for (int i = 0; i < controllers.size(); i++) {
+            if (controllers.get(i).deviceId == deviceId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The connected controller with this device id, or null.
+     */
+    Controller controller(int deviceId) {
+        for (Controller controller : snapshot.controllers) {
+            if (controller.deviceId == deviceId) {
+                return controller;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void onInputDeviceAdded(int deviceId) {
+        update(deviceId, InputDevice.getDevice(deviceId));
+    }
+
+    @Override
+    public void onInputDeviceRemoved(int deviceId) {
+        update(deviceId, null);
+    }
+
+    @Override
+    public void onInputDeviceChanged(int deviceId) {
+        update(deviceId, InputDevice.getDevice(deviceId));
+    }
+
+    private void update(int deviceId, InputDevice device) {
+        Snapshot previous = snapshot;
+        int index = indexOf(deviceId);
+        boolean isGamepad = device != null && isGameController(device);
+
+        List<Controller> controllers = new ArrayList<>(previous.controllers);
+        if (index >= 0) {
+            controllers.remove(index);
+        }
+        if (isGamepad) {
+            Controller controller = new Controller(deviceId, device.getName());
+            if (index >= 0) {
+                controllers.add(index, controller);
+            } else {
+                controllers.add(controller);
+            }
+        }
+        List<Integer> pointerIds = new ArrayList<>(previous.pointerIds);
+        pointerIds.remove(Integer.valueOf(deviceId));
+        if (device != null && isPointer(device)) {
+            pointerIds.add(deviceId);
+        }
+        Snapshot next = new Snapshot(controllers, pointerIds);
+        snapshot = next;
+
+        if (index >= 0 && !isGamepad) {
+            host.onGamepadDisconnected(index, deviceId);
+        } else if (index < 0 && isGamepad) {
+            host.onGamepadConnected(controllers.size() - 1, deviceId, device.getName());
+        }
+        if (previous.controllers.isEmpty() != next.controllers.isEmpty()
+            || previous.pointerIds.isEmpty() != next.pointerIds.isEmpty()) {
+            host.onInputCapabilitiesChanged();
+        }
+    }
+
+    private void rescan() {
+        List<Controller> controllers = new ArrayList<>();
+        List<Integer> pointerIds = new ArrayList<>();
+        int[] deviceIds = InputDevice.getDeviceIds();
+        for (int deviceId : deviceIds) {
+            InputDevice device = InputDevice.getDevice(deviceId);
+            if (device == null) {
+                continue;
+            }
+            if (isGameController(device)) {
+                controllers.add(new Controller(deviceId, device.getName()));
+            }
+            if (isPointer(device)) {
+                pointerIds.add(deviceId);
+            }
+        }
+        snapshot = new Snapshot(controllers, pointerIds);
+    }
+
+    private static boolean isPointer(InputDevice device) {
+        return (device.getSources() & InputDevice.SOURCE_MOUSE) == InputDevice.SOURCE_MOUSE;
+    }
+
+    static boolean isGameController(InputDevice device) {
+        int sources = device.getSources();
+        return (sources & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD ||
+            (sources & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK;
+    }
+}
@@ -0,0 +1,227 @@
+package com.strata.capacitor;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+/**
+ * Push-mode input event stream.
+ *
+ * Input handlers call {@link #markDirty()}; the stream coalesces everything
+ * that happens before the next vsync into a single emission, skips frames
+ * where nothing changed beyond the configured epsilon, and emits
+ * {@code inputDelta} events carrying only the changed fields. Full
+ * {@code inputChange} snapshots are still emitted for existing listeners,
+ * but only on change. An idle controller schedules no frame callbacks.
+ */
+final class InputEventStream implements Choreographer.FrameCallback {
+
+    static final String EVENT_SNAPSHOT = "inputChange";
+    static final String EVENT_DELTA = "inputDelta";
+
+    interface Host {
+        boolean hasInputListeners(String eventName);
+
+        void captureInputFrame(InputFrame out);
+
+        JSObject buildInputSnapshot(InputFrame frame);
+
+        JSObject buildButtons(int buttonMask, int changedMask);
+
+        JSArray buildTouches(InputFrame frame);
+
+        /**
+         * Touches as a {@link WireFormat} table.
+         */
+        JSArray packTouches(InputFrame frame);
+
+        void emitInputEvent(String eventName, JSObject data);
+    }
+
+    private final Host host;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduleOnMain = this::scheduleFrame;
+    // Frames are only touched from the main thread inside doFrame
+    private final InputFrame current = new InputFrame();
+    private final InputFrame emitted = new InputFrame();
+    private boolean hasEmitted = false;
+    private boolean frameScheduled = false;
+    private boolean dirty = false;
+    private long lastEmitNanos = 0;
+
+    private volatile long minIntervalNanos = 0;
+    private volatile float axisEpsilon = 0.0f;
+    private volatile boolean compact = false;
+
+    InputEventStream(Host host) {
+        this.host = host;
+    }
+
+    void configure(long minIntervalMs, float axisEpsilon) {
+        this.minIntervalNanos = Math.max(0, minIntervalMs) * 1_000_000L;
+        this.axisEpsilon = Math.max(0.0f, axisEpsilon);
+    }
+
+    /**
+     * Switches deltas between keyed objects and the {@link WireFormat} layout.
+     * The next delta carries every field.
+     */
+    void setCompact(boolean compact) {
+        this.compact = compact;
+        resetBaseline();
+    }
+
+    /**
+     * Forces the next emission to carry every field, e.g. after a listener is added.
+     */
+    void resetBaseline() {
+        mainHandler.post(() -> hasEmitted = false);
+    }
+
+    /**
+     * Requests an emission on the next vsync. Safe to call from any thread.
+     */
+    void markDirty() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleFrame();
+        } else {
+            mainHandler.post(scheduleOnMain);
+        }
+    }
+
+    private void scheduleFrame() {
+        dirty = true;
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void stop() {
+        mainHandler.post(() -> {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+            dirty = false;
+            hasEmitted = false;
+        });
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (!dirty) {
+            return;
+        }
+        if (hasEmitted && minIntervalNanos > 0 && frameTimeNanos - lastEmitNanos < minIntervalNanos) {
+            // Rate limited: keep the dirty flag and retry on a later vsync
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+            return;
+        }
+        dirty = false;
+
+        boolean wantsSnapshot = host.hasInputListeners(EVENT_SNAPSHOT);
+        boolean wantsDelta = host.hasInputListeners(EVENT_DELTA);
+        if (!wantsSnapshot && !wantsDelta) {
+            hasEmitted = false;
+            return;
+        }
+
+        host.captureInputFrame(current);
+        current.frameTimeNanos = frameTimeNanos;
+        JSObject delta = buildDelta();
+        if (delta == null) {
+            return;
+        }
+        lastEmitNanos = frameTimeNanos;
+        hasEmitted = true;
+
+        if (wantsDelta) {
+            host.emitInputEvent(EVENT_DELTA, delta);
+        }
+        if (wantsSnapshot) {
+            host.emitInputEvent(EVENT_SNAPSHOT, host.buildInputSnapshot(current));
+        }
+    }
+
+    /**
+     * Diffs {@link #current} against the last emitted frame, updating the
+     * baseline only for the groups that are emitted. Returns null if nothing changed.
+     */
+    private JSObject buildDelta() {
+        boolean full = !hasEmitted;
+        boolean sticksChanged = full
+            || changed(current.leftStickX, emitted.leftStickX)
+            || changed(current.leftStickY, emitted.leftStickY)
+            || changed(current.rightStickX, emitted.rightStickX)
+            || changed(current.rightStickY, emitted.rightStickY);
+        boolean triggersChanged = full
+            || changed(current.leftTrigger, emitted.leftTrigger)
+            || changed(current.rightTrigger, emitted.rightTrigger);
+        int changedButtons = full ? -1 : current.buttonMask ^ emitted.buttonMask;
+        boolean touchesChanged = full || !current.touchesEqual(emitted);
+
+        if (!sticksChanged && !triggersChanged && changedButtons == 0 && !touchesChanged) {
+            return null;
+        }
+
+        if (compact) {
+            JSObject delta = WireFormat.delta(current, System.currentTimeMillis(), sticksChanged, triggersChanged,
+                changedButtons, touchesChanged ? host.packTouches(current) : null);
+            updateBaseline(sticksChanged, triggersChanged, changedButtons, touchesChanged);
+            return delta;
+        }
+
+        JSObject delta = new JSObject();
+        delta.put("timestamp", System.currentTimeMillis());
+        delta.put("frameTimeNanos", current.frameTimeNanos);
+        delta.put("inputTimeNanos", current.inputTimeNanos);
+        if (sticksChanged) {
+            JSObject leftStick = new JSObject();
+            leftStick.put("x", current.leftStickX);
+            leftStick.put("y", current.leftStickY);
+            JSObject rightStick = new JSObject();
+            rightStick.put("x", current.rightStickX);
+            rightStick.put("y", current.rightStickY);
+            delta.put("leftStick", leftStick);
+            delta.put("rightStick", rightStick);
+        }
+        if (triggersChanged) {
+            JSObject triggers = new JSObject();
+            triggers.put("left", current.leftTrigger);
+            triggers.put("right", current.rightTrigger);
+            delta.put("triggers", triggers);
+        }
+        if (changedButtons != 0) {
+            delta.put("buttons", host.buildButtons(current.buttonMask, changedButtons));
+        }
+        if (touchesChanged) {
+            delta.put("touches", host.buildTouches(current));
+        }
+        updateBaseline(sticksChanged, triggersChanged, changedButtons, touchesChanged);
+        return delta;
+    }
+
+    private void updateBaseline(boolean sticks, boolean triggers, int changedButtons, boolean touches) {
+        if (sticks) {
+            emitted.copySticksFrom(current);
+        }
+        if (triggers) {
+            emitted.copyTriggersFrom(current);
+        }
+        if (changedButtons != 0) {
+            emitted.buttonMask = current.buttonMask;
+        }
+        if (touches) {
+            emitted.copyTouchesFrom(current);
+        }
+    }
+
+    private boolean changed(float a, float b) {
+        // Returning to rest is always emitted so JS never keeps a stale non-zero value
+        return a != b && (Math.abs(a - b) > axisEpsilon || a == 0.0f || b == 0.0f);
+    }
+}
@@ -0,0 +1,91 @@
+package com.strata.capacitor;
+
+/**
+ * Mutable, primitive-only copy of the processed input state.
+ *
+ * Used as a reusable scratch target when capturing state for snapshots and
+ * event emission, so comparing two frames never allocates.
+ */
+final class InputFrame {
+
+    static final int MAX_TOUCHES = InputBufferChannel.MAX_TOUCHES;
+
+    float leftStickX;
+    float leftStickY;
+    float rightStickX;
+    float rightStickY;
+    float leftTrigger;
+    float rightTrigger;
+    int buttonMask;
+    // GamepadSlots slot the sticks and triggers came from, or -1
+    int gamepadSlot = -1;
+    int touchCount;
+    final int[] touchIds = new int[MAX_TOUCHES];
+    final float[] touchX = new float[MAX_TOUCHES];
+    final float[] touchY = new float[MAX_TOUCHES];
+    final byte[] touchPhases = new byte[MAX_TOUCHES];
+    // Newest input event included, in monotonic nanoseconds; 0 if there was none
+    long inputTimeNanos;
+    // Display frame this state was latched on, or 0 if it was read outside a frame
+    long frameNumber;
+    long frameTimeNanos;
+
+    void clear() {
+        leftStickX = 0;
+        leftStickY = 0;
+        rightStickX = 0;
+        rightStickY = 0;
+        leftTrigger = 0;
+        rightTrigger = 0;
+        buttonMask = 0;
+        gamepadSlot = -1;
+        touchCount = 0;
+        inputTimeNanos = 0;
+        frameNumber = 0;
+        frameTimeNanos = 0;
+    }
+
+    void copySticksFrom(InputFrame other) {
+        leftStickX = other.leftStickX;
+        leftStickY = other.leftStickY;
+        rightStickX = other.rightStickX;
+        rightStickY = other.rightStickY;
+    }
+
+    void copyTriggersFrom(InputFrame other) {
+        leftTrigger = other.leftTrigger;
+        rightTrigger = other.rightTrigger;
+    }
+
+    void copyTouchesFrom(InputFrame other) {
+        touchCount = other.touchCount;
+        System.arraycopy(other.touchIds, 0, touchIds, 0, touchCount);
+        System.arraycopy(other.touchX, 0, touchX, 0, touchCount);
+        System.arraycopy(other.touchY, 0, touchY, 0, touchCount);
+        System.arraycopy(other.touchPhases, 0, touchPhases, 0, touchCount);
+    }
+
+    void copyFrom(InputFrame other) {
+        copySticksFrom(other);
+        copyTriggersFrom(other);
+        buttonMask = other.buttonMask;
+        gamepadSlot = other.gamepadSlot;
+        copyTouchesFrom(other);
+        inputTimeNanos = other.inputTimeNanos;
+        frameNumber = other.frameNumber;
+        frameTimeNanos = other.frameTimeNanos;
+    }
+
+    boolean touchesEqual(InputFrame other) {
+        if (touchCount != other.touchCount) {
+            return false;
+        }
+        for (int i = 0; i < touchCount; i++) {
+            if (touchIds[i] != other.touchIds[i] || touchPhases[i] != other.touchPhases[i]
+                || touchX[i] != other.touchX[i] || touchY[i] != other.touchY[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
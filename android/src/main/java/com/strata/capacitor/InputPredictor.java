@@ -0,0 +1,225 @@
+package com.strata.capacitor;
+
+import android.view.MotionEvent;
+
+/**
+ * Extrapolates touch pointers and sticks to a target time from their recent
+ * velocity and acceleration.
+ *
+ * Every sample, including the batched ones inside a MotionEvent, updates a
+ * smoothed velocity and acceleration per channel: x and y of each pointer id,
+ * and the four stick axes of each gamepad slot. Smoothing is exponential with
+ * a time constant, so it behaves the same at 60, 120 or 240 Hz. A prediction
+ * is {@code p + v*h + a*h*h/2}, where h is the time from the last sample to
+ * the target, capped at the maximum prediction. Android sends no events
+ * while a finger or stick is still, so a channel with no recent sample is
+ * reported as measured rather than carried along by old velocity.
+ *
+ * Samples are written on the UI thread and read on any thread through a
+ * {@link SeqLock}, like {@link TouchTracker}.
+ */
+final class InputPredictor {
+
+    static final float DEFAULT_LOOK_AHEAD_MS = 16;
+    static final float DEFAULT_MAX_PREDICTION_MS = 32;
+    static final float DEFAULT_SMOOTHING_MS = 12;
+    // Android pointer ids run from 0 to 31
+    private static final int MAX_POINTER_ID = 32;
+    private static final int STICK_CHANNELS = 4;
+    private static final int TOUCH_BASE = 0;
+    private static final int STICK_BASE = MAX_POINTER_ID * 2;
+    private static final int CHANNELS = STICK_BASE + GamepadSlots.MAX_SLOTS * STICK_CHANNELS;
+    // Longer gaps between samples mean the motion stopped, so velocity starts over
+    private static final long STALE_NANOS = 50_000_000L;
+    private static final int MAX_READ_ATTEMPTS = 64;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private volatile boolean enabled = false;
+    private volatile long lookAheadNanos = (long) (DEFAULT_LOOK_AHEAD_MS * 1_000_000L);
+    private volatile long maxPredictionNanos = (long) (DEFAULT_MAX_PREDICTION_MS * 1_000_000L);
+    private volatile double smoothingSeconds = DEFAULT_SMOOTHING_MS / 1000.0;
+
+    // Per channel, written on the UI thread
+    private final float[] positions = new float[CHANNELS];
+    private final float[] velocities = new float[CHANNELS];
+    private final float[] accelerations = new float[CHANNELS];
+    private final long[] times = new long[CHANNELS];
+    private final SeqLock lock = new SeqLock();
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void configure(boolean enabled, float lookAheadMs, float maxPredictionMs, float smoothingMs) {
+        lookAheadNanos = (long) (lookAheadMs * 1_000_000L);
+        maxPredictionNanos = (long) (maxPredictionMs * 1_000_000L);
+        smoothingSeconds = smoothingMs / 1000.0;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Default target for a read: the frame's vsync time if it has one, or now, plus the look-ahead.
+     */
+    long defaultTarget(long frameTimeNanos, long nowNanos) {
+        return (frameTimeNanos != 0 ? frameTimeNanos : nowNanos) + lookAheadNanos;
+    }
+
+    void onTouchEvent(MotionEvent event) {
+        int action = event.getActionMasked();
+        lock.beginWrite();
+        if (action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN) {
+            int index = event.getActionIndex();
+            int channel = touchChannel(event.getPointerId(index));
+            if (channel >= 0) {
+                long time = InputClock.eventTimeNanos(event);
+                reset(channel, time, event.getX(index));
+                reset(channel + 1, time, event.getY(index));
+            }
+        } else if (action == MotionEvent.ACTION_MOVE) {
+            int pointers = event.getPointerCount();
+            int historySize = event.getHistorySize();
+            for (int h = 0; h < historySize; h++) {
+                long time = InputClock.historicalEventTimeNanos(event, h);
+                for (int i = 0; i < pointers; i++) {
+                    int channel = touchChannel(event.getPointerId(i));
+                    if (channel >= 0) {
+                        update(channel, time, event.getHistoricalX(i, h));
+                        update(channel + 1, time, event.getHistoricalY(i, h));
+                    }
+                }
+            }
+            long time = InputClock.eventTimeNanos(event);
+            for (int i = 0; i < pointers; i++) {
+                int channel = touchChannel(event.getPointerId(i));
+                if (channel >= 0) {
+                    update(channel, time, event.getX(i));
+                    update(channel + 1, time, event.getY(i));
+                }
+            }
+        }
+        lock.endWrite();
+    }
+
+    /**
+     * Adds one processed gamepad sample, with the sticks at the GamepadSlots axis indices.
+     */
+    void onStickSample(int slot, long timeNanos, float[] axes) {
+        int channel = STICK_BASE + slot * STICK_CHANNELS;
+        lock.beginWrite();
+        update(channel, timeNanos, axes[GamepadSlots.AXIS_LEFT_X]);
+        update(channel + 1, timeNanos, axes[GamepadSlots.AXIS_LEFT_Y]);
+        update(channel + 2, timeNanos, axes[GamepadSlots.AXIS_RIGHT_X]);
+        update(channel + 3, timeNanos, axes[GamepadSlots.AXIS_RIGHT_Y]);
+        lock.endWrite();
+    }
+
+    /**
+     * Predicts a pointer at {@code targetNanos} into {@code out[0..1]}, which
+     * holds its measured position on entry and keeps it if there is no recent motion.
+     */
+    void predictTouch(int pointerId, long targetNanos, long nowNanos, float[] out) {
+        int channel = touchChannel(pointerId);
+        if (channel >= 0) {
+            predict(channel, 2, targetNanos, nowNanos, out);
+        }
+    }
+
+    /**
+     * Predicts the sticks of a slot into {@code out}: left x and y, then right
+     * x and y. {@code out} holds the measured values on entry. Each predicted
+     * stick stays within the unit circle.
+     */
+    void predictSticks(int slot, long targetNanos, long nowNanos, float[] out) {
+        predict(STICK_BASE + slot * STICK_CHANNELS, STICK_CHANNELS, targetNanos, nowNanos, out);
+        clampToUnit(out, 0);
+        clampToUnit(out, 2);
+    }
+
+    private void predict(int channel, int count, long targetNanos, long nowNanos, float[] out) {
+        long maxNanos = maxPredictionNanos;
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            int before = lock.readBegin();
+            if (SeqLock.isWriting(before)) {
+                Thread.yield();
+                continue;
+            }
+            long time = times[channel];
+            // Channels of a pointer or slot are always written together, so one time covers them
+            if (time == 0 || nowNanos - time > STALE_NANOS) {
+                if (lock.validate(before)) {
+                    return;
+                }
+                continue;
+            }
+            double h = Math.max(0, Math.min(maxNanos, targetNanos - time)) / NANOS_PER_SECOND;
+            float p0 = 0, p1 = 0, p2 = 0, p3 = 0;
+            for (int c = 0; c < count; c++) {
+                int i = channel + c;
+                float p = (float) (positions[i] + velocities[i] * h + 0.5 * accelerations[i] * h * h);
+                if (c == 0) {
+                    p0 = p;
+                } else if (c == 1) {
+                    p1 = p;
+                } else if (c == 2) {
+                    p2 = p;
+                } else {
+                    p3 = p;
+                }
+            }
+            if (lock.validate(before)) {
+                out[0] = p0;
+                out[1] = p1;
+                if (count > 2) {
+                    out[2] = p2;
+                    out[3] = p3;
+                }
+                return;
+            }
+        }
+        // Starved by the writer; keep the measured values
+    }
+
+    private void reset(int channel, long timeNanos, float position) {
+        positions[channel] = position;
+        velocities[channel] = 0;
+        accelerations[channel] = 0;
+        times[channel] = timeNanos;
+    }
+
+    private void update(int channel, long timeNanos, float position) {
+        long last = times[channel];
+        long gap = timeNanos - last;
+        if (last == 0 || gap > STALE_NANOS) {
+            reset(channel, timeNanos, position);
+            return;
+        }
+        if (gap <= 0) {
+            positions[channel] = position;
+            return;
+        }
+        double dt = gap / NANOS_PER_SECOND;
+        // Per-sample weight for this gap, so smoothing does not depend on the sample rate
+        double k = 1 - Math.exp(-dt / smoothingSeconds);
+        double measured = (position - positions[channel]) / dt;
+        double previous = velocities[channel];
+        double velocity = previous + k * (measured - previous);
+        accelerations[channel] += (float) (k * ((velocity - previous) / dt - accelerations[channel]));
+        velocities[channel] = (float) velocity;
+        positions[channel] = position;
+        times[channel] = timeNanos;
+    }
+
+    private static int touchChannel(int pointerId) {
+        return pointerId >= 0 && pointerId < MAX_POINTER_ID ? TOUCH_BASE + pointerId * 2 : -1;
+    }
+
+    private static void clampToUnit(float[] out, int offset) {
+        float x = out[offset];
+        float y = out[offset + 1];
+        float magnitude = (float) Math.sqrt(x * x + y * y);
+        if (magnitude > 1) {
+            out[offset] = x / magnitude;
+            out[offset + 1] = y / magnitude;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.strata.capacitor;
+
+import android.util.Log;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Streams the touch, gamepad and key events the plugin handles to a compact
+ * binary log, stored as a blob.
+ *
+ * Events are encoded on the UI thread into a preallocated chunk as they are
+ * handled. Each full chunk is appended to the blob on the blob thread, so
+ * recording does no file I/O on the UI thread and only allocates when a chunk
+ * is handed off. Chunks end on record boundaries. {@link InputReplay} feeds a
+ * log back through the same handlers.
+ *
+ * Layout, little-endian:
+ * <pre>
+ * header:  int magic, short version, byte axisCount, byte[axisCount] gamepad axes
+ * record:  byte type, int micros since the previous record, then by type:
+ *   touch:   short action, int micros since down, int deviceId, int source,
+ *            byte pointers, byte samples, byte[pointers] pointer ids,
+ *            samples x (int micros before the event time, pointers x (float x, float y))
+ *   gamepad: int deviceId, int source, byte samples,
+ *            samples x (int micros before the event time, float[axisCount])
+ *   key:     short action, int micros since down, short keyCode, int deviceId,
+ *            int source, short repeatCount
+ * </pre>
+ * Samples run from oldest to newest, so the last one is the event itself.
+ */
+final class InputRecorder {
+
+    private static final String TAG = "StrataRecorder";
+    // "STRI" in file order, distinct from the storage log's "STRL"
+    static final int MAGIC = 0x49525453;
+    static final short VERSION = 1;
+    static final byte RECORD_TOUCH = 1;
+    static final byte RECORD_GAMEPAD = 2;
+    static final byte RECORD_KEY = 3;
+    // The axes StrataPlugin reads from gamepad events, in recorded order
+    static final int[] GAMEPAD_AXES = {
+        MotionEvent.AXIS_X, MotionEvent.AXIS_Y, MotionEvent.AXIS_Z, MotionEvent.AXIS_RZ,
+        MotionEvent.AXIS_LTRIGGER, MotionEvent.AXIS_RTRIGGER, MotionEvent.AXIS_BRAKE, MotionEvent.AXIS_GAS
+    };
+    // Android delivers at most 16 pointers per event
+    static final int MAX_POINTERS = 16;
+    // Sample counts are stored in a byte; older batched samples beyond this are dropped
+    static final int MAX_SAMPLES = 255;
+    static final int RECORD_HEADER_BYTES = 5;
+    static final int TOUCH_BYTES = 16;
+    static final int GAMEPAD_BYTES = 9;
+    static final int KEY_BYTES = 18;
+    // Holds the largest possible record several times over
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private volatile boolean recording = false;
+    private BlobStore blobs;
+    private String namespace;
+    private String key;
+    // Blob size once every handed-off chunk is written
+    private long written;
+    private long firstMicros;
+    private long lastMicros;
+    private int events;
+    // Set on the blob thread
+    private volatile Exception failure;
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Starts a new log in the given blob, replacing it.
+     *
+     * @return false if a recording is already running
+     */
+    synchronized boolean start(BlobStore blobs, String namespace, String key) {
+        if (recording) {
+            return false;
+        }
+        this.blobs = blobs;
+        this.namespace = namespace;
+        this.key = key;
+        written = 0;
+        events = 0;
+        failure = null;
+        chunk.clear();
+        chunk.putInt(MAGIC);
+        chunk.putShort(VERSION);
+        chunk.put((byte) GAMEPAD_AXES.length);
+        for (int axis : GAMEPAD_AXES) {
+            chunk.put((byte) axis);
+        }
+        // The header goes out at once so a missing or bad blob fails early
+        flush();
+        recording = true;
+        return true;
+    }
+
+    /**
+     * Writes what is left of the log and resolves {@code call} with a summary
+     * once everything is on disk, or rejects it if a write failed.
+     *
+     * @return false if nothing is recording
+     */
+    synchronized boolean stop(PluginCall call) {
+        if (blobs == null) {
+            return false;
+        }
+        recording = false;
+        flush();
+        JSObject summary = new JSObject();
+        summary.put("key", key);
+        summary.put("namespace", namespace);
+        summary.put("events", events);
+        summary.put("durationMs", events > 0 ? (lastMicros - firstMicros) / 1000.0 : 0);
+        summary.put("bytes", written);
+        BlobStore store = blobs;
+        blobs = null;
+        if (call != null) {
+            // Queued behind the chunk writes, so it runs once they are done
+            boolean queued = store.lane().execute(() -> {
+                Exception e = failure;
+                if (e != null) {
+                    call.reject("Input recording failed: " + e.getMessage(), e);
+                } else {
+                    call.resolve(summary);
+                }
+            });
+            if (!queued) {
+                call.reject("Blob storage is shut down");
+            }
+        }
+        return true;
+    }
+
+    synchronized void recordTouch(MotionEvent event) {
+        if (!recording) {
+            return;
+        }
+        int pointers = Math.min(event.getPointerCount(), MAX_POINTERS);
+        int historySize = event.getHistorySize();
+        int history = Math.min(historySize, MAX_SAMPLES - 1);
+        long timeNanos = InputClock.eventTimeNanos(event);
+        begin(RECORD_TOUCH, timeNanos, TOUCH_BYTES + pointers + (history + 1) * (4 + pointers * 8));
+        chunk.putShort((short) event.getAction());
+        chunk.putInt(micros(timeNanos - event.getDownTime() * 1_000_000L));
+        chunk.putInt(event.getDeviceId());
+        chunk.putInt(event.getSource());
+        chunk.put((byte) pointers);
+        chunk.put((byte) (history + 1));
+        for (int i = 0; i < pointers; i++) {
+            chunk.put((byte) event.getPointerId(i));
+        }
+        for (int h = historySize - history; h < historySize; h++) {
+            chunk.putInt(micros(timeNanos - InputClock.historicalEventTimeNanos(event, h)));
+            for (int i = 0; i < pointers; i++) {
+                chunk.putFloat(event.getHistoricalX(i, h));
+                chunk.putFloat(event.getHistoricalY(i, h));
+            }
+        }
+        chunk.putInt(0);
+        for (int i = 0; i < pointers; i++) {
+            chunk.putFloat(event.getX(i));
+            chunk.putFloat(event.getY(i));
+        }
+    }
+
+    synchronized void recordGamepad(MotionEvent event) {
+        if (!recording) {
+            return;
+        }
+        int historySize = event.getHistorySize();
+        int history = Math.min(historySize, MAX_SAMPLES - 1);
+        long timeNanos = InputClock.eventTimeNanos(event);
+        begin(RECORD_GAMEPAD, timeNanos, GAMEPAD_BYTES + (history + 1) * (4 + GAMEPAD_AXES.length * 4));
+        chunk.putInt(event.getDeviceId());
+        chunk.putInt(event.getSource());
+        chunk.put((byte) (history + 1));
+        for (int h = historySize - history; h < historySize; h++) {
+            chunk.putInt(micros(timeNanos - InputClock.historicalEventTimeNanos(event, h)));
+            for (int axis : GAMEPAD_AXES) {
+                chunk.putFloat(event.getHistoricalAxisValue(axis, h));
+            }
+        }
+        chunk.putInt(0);
+        for (int axis : GAMEPAD_AXES) {
+            chunk.putFloat(event.getAxisValue(axis));
+        }
+    }
+
+    synchronized void recordKey(KeyEvent event) {
+        if (!recording) {
+            return;
+        }
+        long timeNanos = InputClock.eventTimeNanos(event);
+        begin(RECORD_KEY, timeNanos, KEY_BYTES);
+        chunk.putShort((short) event.getAction());
+        chunk.putInt(micros(timeNanos - event.getDownTime() * 1_000_000L));
+        chunk.putShort((short) event.getKeyCode());
+        chunk.putInt(event.getDeviceId());
+        chunk.putInt(event.getSource());
+        chunk.putShort((short) Math.min(Short.MAX_VALUE, event.getRepeatCount()));
+    }
+
+    /**
+     * Makes room for a record of {@code bytes} after the common header and writes that header.
+     */
+    private void begin(byte type, long timeNanos, int bytes) {
+        if (chunk.remaining() < RECORD_HEADER_BYTES + bytes) {
+            flush();
+        }
+        long micros = timeNanos / 1000;
+        if (events == 0) {
+            firstMicros = micros;
+            lastMicros = micros;
+        }
+        chunk.put(type);
+        // Signed: events from different devices can arrive slightly out of time order
+        chunk.putInt((int) (micros - lastMicros));
+        lastMicros = micros;
+        events++;
+    }
+
+    /**
+     * Hands the chunk to the blob thread to be appended.
+     */
+    private void flush() {
+        if (chunk.position() == 0) {
+            return;
+        }
+        byte[] data = Arrays.copyOf(chunk.array(), chunk.position());
+        long offset = written;
+        written += data.length;
+        chunk.clear();
+        BlobStore store = blobs;
+        String namespace = this.namespace;
+        String key = this.key;
+        boolean queued = store.lane().execute(() -> {
+            if (failure != null) {
+                return;
+            }
+            try {
+                // Truncating drops whatever an earlier recording left past this point
+                store.write(namespace, key, offset, data, true);
+            } catch (IOException | IllegalArgumentException e) {
+                fail(e);
+            }
+        });
+        if (!queued) {
+            fail(new IOException("Blob storage is shut down"));
+        }
+    }
+
+    private void fail(Exception e) {
+        Log.w(TAG, "Input recording failed", e);
+        failure = e;
+        recording = false;
+    }
+
+    private static int micros(long nanos) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, nanos / 1000));
+    }
+}
@@ -0,0 +1,436 @@
+package com.strata.capacitor;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Feeds a log written by {@link InputRecorder} back through the plugin's
+ * input handlers on the UI thread.
+ *
+ * A replay thread streams the log from the blob thread, rebuilds each event
+ * and posts it to the UI thread, either when it is due or as soon as the
+ * previous events are handled. Event times keep their recorded spacing from
+ * the start of the replay in both modes, so filters and gesture velocities
+ * see the same input either way. When the replay ends or is stopped, touches,
+ * keys and sticks it left held are released through the same handlers.
+ */
+final class InputReplay {
+
+    private static final String TAG = "StrataReplay";
+    // Events posted to the UI thread but not yet handled; bounds fast replay
+    private static final int MAX_IN_FLIGHT = 64;
+    private static final int READ_BYTES = InputRecorder.CHUNK_BYTES;
+
+    interface Host {
+        void dispatchTouch(MotionEvent event);
+
+        void dispatchGamepad(MotionEvent event);
+
+        void dispatchKey(KeyEvent event);
+
+        /**
+         * Called on the UI thread after the last event, with every gamepad the replay drove.
+         */
+        void onReplayEnded(int[] gamepadDeviceIds);
+    }
+
+    private final Host host;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    // True from start until the end has been handled on the UI thread
+    private volatile boolean active = false;
+    private Thread thread;
+
+    InputReplay(Host host) {
+        this.host = host;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Starts replaying a log. {@code call} is resolved when the replay ends.
+     *
+     * @param realtime dispatch each event at its recorded time instead of as fast as possible
+     * @return false if a replay is already running
+     */
+    synchronized boolean start(BlobStore blobs, String namespace, String key, boolean realtime, PluginCall call) {
+        if (active) {
+            return false;
+        }
+        active = true;
+        Run run = new Run(blobs, namespace, key, realtime, call);
+        thread = new Thread(run, TAG);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stops dispatching. The pending call resolves with {@code completed: false}.
+     */
+    synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private final class Run implements Runnable {
+        private final BlobStore blobs;
+        private final String namespace;
+        private final String key;
+        private final boolean realtime;
+        private final PluginCall call;
+        private final ByteBuffer window = ByteBuffer.allocate(READ_BYTES * 2).order(ByteOrder.LITTLE_ENDIAN);
+        private long readOffset = 0;
+        private boolean endOfLog = false;
+        private int[] axes;
+        private final MotionEvent.PointerProperties[] properties =
+            new MotionEvent.PointerProperties[InputRecorder.MAX_POINTERS];
+        private final MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[InputRecorder.MAX_POINTERS];
+        private long baseMs;
+        private int events = 0;
+
+        // Left held by the replay, released when it ends
+        private MotionEvent lastTouch;
+        private final List<KeyEvent> heldKeys = new ArrayList<>();
+        private final List<MotionEvent> gamepads = new ArrayList<>();
+
+        Run(BlobStore blobs, String namespace, String key, boolean realtime, PluginCall call) {
+            this.blobs = blobs;
+            this.namespace = namespace;
+            this.key = key;
+            this.realtime = realtime;
+            this.call = call;
+            window.flip();
+            for (int i = 0; i < InputRecorder.MAX_POINTERS; i++) {
+                properties[i] = new MotionEvent.PointerProperties();
+                coords[i] = new MotionEvent.PointerCoords();
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean completed = false;
+            Exception failure = null;
+            baseMs = SystemClock.uptimeMillis();
+            long micros = 0;
+            try {
+                readHeader();
+                while (ensure(InputRecorder.RECORD_HEADER_BYTES)) {
+                    byte type = window.get();
+                    micros += window.getInt();
+                    long timeMs = baseMs + micros / 1000;
+                    if (type == InputRecorder.RECORD_TOUCH) {
+                        MotionEvent event = readTouch(micros);
+                        waitUntil(timeMs);
+                        trackTouch(event);
+                        post(event, false);
+                    } else if (type == InputRecorder.RECORD_GAMEPAD) {
+                        MotionEvent event = readGamepad(micros);
+                        waitUntil(timeMs);
+                        trackGamepad(event);
+                        post(event, true);
+                    } else if (type == InputRecorder.RECORD_KEY) {
+                        KeyEvent event = readKey(micros);
+                        waitUntil(timeMs);
+                        trackKey(event);
+                        post(event);
+                    } else {
+                        throw new IOException("Unknown record type " + type);
+                    }
+                    events++;
+                }
+                completed = true;
+            } catch (InterruptedException e) {
+                // Stopped
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Input replay failed", e);
+                failure = e;
+            }
+            finish(completed, failure);
+        }
+
+        private void readHeader() throws IOException, InterruptedException {
+            if (!ensure(7) || window.getInt() != InputRecorder.MAGIC) {
+                throw new IOException(key + " is not an input recording");
+            }
+            short version = window.getShort();
+            if (version != InputRecorder.VERSION) {
+                throw new IOException("Unsupported input recording version " + version);
+            }
+            int axisCount = window.get() & 0xFF;
+            require(axisCount);
+            axes = new int[axisCount];
+            for (int a = 0; a < axisCount; a++) {
+                axes[a] = window.get() & 0xFF;
+            }
+        }
+
+        private MotionEvent readTouch(long micros) throws IOException, InterruptedException {
+            require(InputRecorder.TOUCH_BYTES);
+            int action = window.getShort() & 0xFFFF;
+            int sinceDown = window.getInt();
+            int deviceId = window.getInt();
+            int source = window.getInt();
+            int pointers = window.get() & 0xFF;
+            int samples = window.get() & 0xFF;
+            if (pointers == 0 || pointers > InputRecorder.MAX_POINTERS || samples == 0) {
+                throw new IOException("Corrupt touch record");
+            }
+            require(pointers + samples * (4 + pointers * 8));
+            for (int i = 0; i < pointers; i++) {
+                properties[i].id = window.get() & 0xFF;
+            }
+            long downMs = baseMs + (micros - sinceDown) / 1000;
+            MotionEvent event = null;
+            for (int s = 0; s < samples; s++) {
+                long sampleMs = baseMs + (micros - window.getInt()) / 1000;
+                for (int i = 0; i < pointers; i++) {
+                    coords[i].clear();
+                    coords[i].x = window.getFloat();
+                    coords[i].y = window.getFloat();
+                }
+                if (event == null) {
+                    event = MotionEvent.obtain(downMs, sampleMs, action, pointers, properties, coords,
+                        0, 0, 1f, 1f, deviceId, 0, source, 0);
+                } else {
+                    event.addBatch(sampleMs, coords, 0);
+                }
+            }
+            return event;
+        }
+
+        private MotionEvent readGamepad(long micros) throws IOException, InterruptedException {
+            require(InputRecorder.GAMEPAD_BYTES);
+            int deviceId = window.getInt();
+            int source = window.getInt();
+            int samples = window.get() & 0xFF;
+            if (samples == 0) {
+                throw new IOException("Corrupt gamepad record");
+            }
+            require(samples * (4 + axes.length * 4));
+            properties[0].id = 0;
+            MotionEvent event = null;
+            for (int s = 0; s < samples; s++) {
+                long sampleMs = baseMs + (micros - window.getInt()) / 1000;
+                coords[0].clear();
+                for (int axis : axes) {
+                    coords[0].setAxisValue(axis, window.getFloat());
+                }
+                if (event == null) {
+                    event = MotionEvent.obtain(sampleMs, sampleMs, MotionEvent.ACTION_MOVE, 1, properties, coords,
+                        0, 0, 1f, 1f, deviceId, 0, source, 0);
+                } else {
+                    event.addBatch(sampleMs, coords, 0);
+                }
+            }
+            return event;
+        }
+
+        private KeyEvent readKey(long micros) throws IOException, InterruptedException {
+            require(InputRecorder.KEY_BYTES);
+            int action = window.getShort() & 0xFFFF;
+            int sinceDown = window.getInt();
+            int keyCode = window.getShort() & 0xFFFF;
+            int deviceId = window.getInt();
+            int source = window.getInt();
+            int repeat = window.getShort();
+            return new KeyEvent(baseMs + (micros - sinceDown) / 1000, baseMs + micros / 1000, action, keyCode,
+                repeat, 0, deviceId, 0, 0, source);
+        }
+
+        private void trackTouch(MotionEvent event) {
+            int action = event.getActionMasked();
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                lastTouch = null;
+                return;
+            }
+            int pointers = event.getPointerCount();
+            for (int i = 0; i < pointers; i++) {
+                properties[i].id = event.getPointerId(i);
+                coords[i].clear();
+                coords[i].x = event.getX(i);
+                coords[i].y = event.getY(i);
+            }
+            // A copy, since the event is recycled once it is handled
+            lastTouch = MotionEvent.obtain(event.getDownTime(), event.getEventTime(), MotionEvent.ACTION_CANCEL,
+                pointers, properties, coords, 0, 0, 1f, 1f, event.getDeviceId(), 0, event.getSource(), 0);
+        }
+
+        private void trackGamepad(MotionEvent event) {
+            int deviceId = event.getDeviceId();
+            for (MotionEvent gamepad : gamepads) {
+                if (gamepad.getDeviceId() == deviceId) {
+                    return;
+                }
+            }
+            properties[0].id = 0;
+            coords[0].clear();
+            // Centred sticks and released triggers
+            gamepads.add(MotionEvent.obtain(event.getEventTime(), event.getEventTime(), MotionEvent.ACTION_MOVE,
+                1, properties, coords, 0, 0, 1f, 1f, deviceId, 0, event.getSource(), 0));
+        }
+
+        private void trackKey(KeyEvent event) {
+            for (int i = 0; i < heldKeys.size(); i++) {
+                KeyEvent held = heldKeys.get(i);
+                if (held.getKeyCode() == event.getKeyCode() && held.getDeviceId() == event.getDeviceId()) {
+                    heldKeys.remove(i);
+                    break;
+                }
+            }
+            if (event.getAction() == KeyEvent.ACTION_DOWN) {
+                heldKeys.add(event);
+            }
+        }
+
+        /**
+         * Sleeps until {@code timeMs} on the uptime clock when replaying in real time.
+         */
+        private void waitUntil(long timeMs) throws InterruptedException {
+            if (realtime) {
+                long delay = timeMs - SystemClock.uptimeMillis();
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+            }
+        }
+
+        private void post(MotionEvent event, boolean gamepad) throws InterruptedException {
+            inFlight.acquire();
+            mainHandler.post(() -> {
+                try {
+                    if (gamepad) {
+                        host.dispatchGamepad(event);
+                    } else {
+                        host.dispatchTouch(event);
+                    }
+                } finally {
+                    event.recycle();
+                    inFlight.release();
+                }
+            });
+        }
+
+        private void post(KeyEvent event) throws InterruptedException {
+            inFlight.acquire();
+            mainHandler.post(() -> {
+                try {
+                    host.dispatchKey(event);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        /**
+         * Releases what the replay left held and settles the call, after every posted event.
+         */
+        private void finish(boolean completed, Exception failure) {
+            long endMs = SystemClock.uptimeMillis();
+            mainHandler.post(() -> {
+                try {
+                    if (lastTouch != null) {
+                        host.dispatchTouch(lastTouch);
+                        lastTouch.recycle();
+                    }
+                    for (KeyEvent held : heldKeys) {
+                        host.dispatchKey(new KeyEvent(held.getDownTime(), held.getEventTime(), KeyEvent.ACTION_UP,
+                            held.getKeyCode(), 0, 0, held.getDeviceId(), 0, 0, held.getSource()));
+                    }
+                    int[] deviceIds = new int[gamepads.size()];
+                    for (int i = 0; i < deviceIds.length; i++) {
+                        MotionEvent gamepad = gamepads.get(i);
+                        deviceIds[i] = gamepad.getDeviceId();
+                        host.dispatchGamepad(gamepad);
+                        gamepad.recycle();
+                    }
+                    host.onReplayEnded(deviceIds);
+                } finally {
+                    active = false;
+                }
+                if (failure != null) {
+                    call.reject("Input replay failed: " + failure.getMessage(), failure);
+                    return;
+                }
+                JSObject result = new JSObject();
+                result.put("events", events);
+                result.put("durationMs", endMs - baseMs);
+                result.put("completed", completed);
+                call.resolve(result);
+            });
+        }
+
+        /**
+         * Like {@link #ensure} for the rest of a record that has already begun.
+         */
+        private void require(int bytes) throws IOException, InterruptedException {
+            if (!ensure(bytes)) {
+                throw new EOFException(key + " is truncated");
+            }
+        }
+
+        /**
+         * Reads ahead until {@code bytes} are buffered.
+         *
+         * @return false if the log ends first
+         */
+        private boolean ensure(int bytes) throws IOException, InterruptedException {
+            if (window.remaining() >= bytes) {
+                return true;
+            }
+            window.compact();
+            while (window.position() < bytes && !endOfLog) {
+                byte[] data = read(readOffset, window.remaining());
+                if (data.length == 0) {
+                    endOfLog = true;
+                } else {
+                    window.put(data);
+                    readOffset += data.length;
+                }
+            }
+            window.flip();
+            return window.remaining() >= bytes;
+        }
+
+        /**
+         * Reads a range of the log on the blob thread, which owns all blob access.
+         */
+        private byte[] read(long offset, int length) throws IOException, InterruptedException {
+            FutureTask<byte[]> task = new FutureTask<>(() -> blobs.read(namespace, key, offset, length));
+            if (!blobs.lane().execute(task)) {
+                throw new IOException("Blob storage is shut down");
+            }
+            byte[] data;
+            try {
+                data = task.get();
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            if (data == null) {
+                throw new FileNotFoundException("No input recording named " + key);
+            }
+            return data;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.strata.capacitor;
+
+import android.view.KeyEvent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Input mapping compiled into a dense keycode to action-bitmask table.
+ *
+ * {@link #compile} resolves the web-style key codes stored by
+ * {@code setInputMapping} ("KeyW", "ArrowUp", "ButtonA", or a raw
+ * "KEYCODE_*" name) once, so handling a key event is a single array lookup
+ * with no string comparisons. Tables are immutable; held-key state lives in
+ * {@link State}, one per input source.
+ */
+final class KeyActionTable {
+
+    private static final Map<String, Integer> WEB_KEY_CODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < 26; i++) {
+            WEB_KEY_CODES.put("Key" + (char) ('A' + i), KeyEvent.KEYCODE_A + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            WEB_KEY_CODES.put("Digit" + i, KeyEvent.KEYCODE_0 + i);
+        }
+        WEB_KEY_CODES.put("ArrowUp", KeyEvent.KEYCODE_DPAD_UP);
+        WEB_KEY_CODES.put("ArrowDown", KeyEvent.KEYCODE_DPAD_DOWN);
+        WEB_KEY_CODES.put("ArrowLeft", KeyEvent.KEYCODE_DPAD_LEFT);
+        WEB_KEY_CODES.put("ArrowRight", KeyEvent.KEYCODE_DPAD_RIGHT);
+        WEB_KEY_CODES.put("Space", KeyEvent.KEYCODE_SPACE);
+        WEB_KEY_CODES.put("Enter", KeyEvent.KEYCODE_ENTER);
+        WEB_KEY_CODES.put("NumpadEnter", KeyEvent.KEYCODE_NUMPAD_ENTER);
+        WEB_KEY_CODES.put("Escape", KeyEvent.KEYCODE_ESCAPE);
+        WEB_KEY_CODES.put("Tab", KeyEvent.KEYCODE_TAB);
+        WEB_KEY_CODES.put("Backspace", KeyEvent.KEYCODE_DEL);
+        WEB_KEY_CODES.put("ShiftLeft", KeyEvent.KEYCODE_SHIFT_LEFT);
+        WEB_KEY_CODES.put("ShiftRight", KeyEvent.KEYCODE_SHIFT_RIGHT);
+        WEB_KEY_CODES.put("ControlLeft", KeyEvent.KEYCODE_CTRL_LEFT);
+        WEB_KEY_CODES.put("ControlRight", KeyEvent.KEYCODE_CTRL_RIGHT);
+        WEB_KEY_CODES.put("AltLeft", KeyEvent.KEYCODE_ALT_LEFT);
+        WEB_KEY_CODES.put("AltRight", KeyEvent.KEYCODE_ALT_RIGHT);
+        WEB_KEY_CODES.put("ButtonA", KeyEvent.KEYCODE_BUTTON_A);
+        WEB_KEY_CODES.put("ButtonB", KeyEvent.KEYCODE_BUTTON_B);
+        WEB_KEY_CODES.put("ButtonX", KeyEvent.KEYCODE_BUTTON_X);
+        WEB_KEY_CODES.put("ButtonY", KeyEvent.KEYCODE_BUTTON_Y);
+        WEB_KEY_CODES.put("ButtonL1", KeyEvent.KEYCODE_BUTTON_L1);
+        WEB_KEY_CODES.put("ButtonR1", KeyEvent.KEYCODE_BUTTON_R1);
+        WEB_KEY_CODES.put("ButtonL2", KeyEvent.KEYCODE_BUTTON_L2);
+        WEB_KEY_CODES.put("ButtonR2", KeyEvent.KEYCODE_BUTTON_R2);
+        WEB_KEY_CODES.put("ButtonThumbL", KeyEvent.KEYCODE_BUTTON_THUMBL);
+        WEB_KEY_CODES.put("ButtonThumbR", KeyEvent.KEYCODE_BUTTON_THUMBR);
+        WEB_KEY_CODES.put("ButtonStart", KeyEvent.KEYCODE_BUTTON_START);
+        WEB_KEY_CODES.put("ButtonSelect", KeyEvent.KEYCODE_BUTTON_SELECT);
+        WEB_KEY_CODES.put("DpadCenter", KeyEvent.KEYCODE_DPAD_CENTER);
+    }
+
+    private final int[] actionMasks;
+    private final int actionCount;
+
+    private KeyActionTable(int[] actionMasks, int actionCount) {
+        this.actionMasks = actionMasks;
+        this.actionCount = actionCount;
+    }
+
+    /**
+     * Builds the lookup table for the given mapping. Bit n of each entry is
+     * {@code actions[n]}; at most 32 actions are supported.
+     *
+     * @param defaults extra bindings applied under every mapping (e.g. gamepad buttons)
+     */
+    static KeyActionTable compile(Map<String, List<String>> mapping, String[] actions,
+                                  Map<String, Integer> defaults) {
+        int[] masks = new int[KeyEvent.getMaxKeyCode() + 1];
+        int actionCount = Math.min(actions.length, Integer.SIZE);
+        for (int bit = 0; bit < actionCount; bit++) {
+            List<String> keys = mapping.get(actions[bit]);
+            if (keys != null) {
+                for (String key : keys) {
+                    bind(masks, resolveKeyCode(key), bit);
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> entry : defaults.entrySet()) {
+            for (int bit = 0; bit < actionCount; bit++) {
+                if (actions[bit].equals(entry.getKey())) {
+                    bind(masks, entry.getValue(), bit);
+                }
+            }
+        }
+        return new KeyActionTable(masks, actionCount);
+    }
+
+    private static void bind(int[] masks, int keyCode, int bit) {
+        if (keyCode > KeyEvent.KEYCODE_UNKNOWN && keyCode < masks.length) {
+            masks[keyCode] |= 1 << bit;
+        }
+    }
+
+    static int resolveKeyCode(String key) {
+        Integer keyCode = WEB_KEY_CODES.get(key);
+        if (keyCode != null) {
+            return keyCode;
+        }
+        if (key.startsWith("KEYCODE_")) {
+            return KeyEvent.keyCodeFromString(key);
+        }
+        return KeyEvent.KEYCODE_UNKNOWN;
+    }
+
+    /**
+     * Action bits bound to a key code, or 0 if it is unbound.
+     */
+    int maskFor(int keyCode) {
+        return keyCode >= 0 && keyCode < actionMasks.length ? actionMasks[keyCode] : 0;
+    }
+
+    /**
+     * Held keys and the resulting action bitfield for one input source.
+     *
+     * Key transitions must come from a single thread; the bitfield is published
+     * through a volatile field. State is reset whenever it is used with a newly
+     * compiled table, since held keys may no longer map to the same actions.
+     */
+    static final class State {
+        private KeyActionTable table;
+        private boolean[] keyDown;
+        private int[] actionPressCounts;
+        private volatile int buttonMask = 0;
+
+        /**
+         * Applies a key transition.
+         *
+         * @return true if the key is bound to at least one action
+         */
+        boolean onKey(KeyActionTable table, int keyCode, boolean down) {
+            if (this.table != table) {
+                this.table = table;
+                keyDown = new boolean[table.actionMasks.length];
+                actionPressCounts = new int[table.actionCount];
+                buttonMask = 0;
+            }
+            int mask = table.maskFor(keyCode);
+            if (mask == 0) {
+                return false;
+            }
+            if (keyDown[keyCode] == down) {
+                // Auto-repeat or a release we never saw pressed
+                return true;
+            }
+            keyDown[keyCode] = down;
+
+            int state = buttonMask;
+            int delta = down ? 1 : -1;
+            for (int bit = 0; bit < actionPressCounts.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    actionPressCounts[bit] = Math.max(0, actionPressCounts[bit] + delta);
+                    if (actionPressCounts[bit] > 0) {
+                        state |= 1 << bit;
+                    } else {
+                        state &= ~(1 << bit);
+                    }
+                }
+            }
+            buttonMask = state;
+            return true;
+        }
+
+        void reset() {
+            table = null;
+            buttonMask = 0;
+        }
+
+        /**
+         * Bitfield of the actions currently held, safe to read from any thread.
+         */
+        int buttonMask() {
+            return buttonMask;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.strata.capacitor;
+
+import com.getcapacitor.JSObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of nanosecond durations, in the style of HdrHistogram.
+ *
+ * Each power of two is split into 8 linear sub-buckets, so any recorded value
+ * is reported within 12.5% across the whole range from nanoseconds to hours.
+ * Recording is a few atomic increments on preallocated arrays: it never
+ * allocates or locks, and may be called from any thread.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    /**
+     * Highest value in the bucket holding the given quantile, in nanoseconds.
+     * Reads racing with records may be off by the records in flight.
+     */
+    long valueAtQuantile(double quantile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    JSObject toJSObject() {
+        long total = count.get();
+        JSObject result = new JSObject();
+        result.put("count", total);
+        result.put("meanMs", total > 0 ? totalNanos.get() / NANOS_PER_MS / total : 0);
+        result.put("p50Ms", valueAtQuantile(0.5) / NANOS_PER_MS);
+        result.put("p90Ms", valueAtQuantile(0.9) / NANOS_PER_MS);
+        result.put("p99Ms", valueAtQuantile(0.99) / NANOS_PER_MS);
+        result.put("p999Ms", valueAtQuantile(0.999) / NANOS_PER_MS);
+        result.put("maxMs", maxNanos.get() / NANOS_PER_MS);
+        return result;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
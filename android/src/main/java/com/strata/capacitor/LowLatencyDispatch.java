@@ -0,0 +1,175 @@
+package com.strata.capacitor;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.getcapacitor.JSObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in unbuffered input dispatch, and arrival latency for every touch and
+ * gamepad event.
+ *
+ * Android normally batches motion events and delivers them once per vsync,
+ * so the newest sample can be up to a frame old on arrival. While enabled,
+ * the WebView asks for unbuffered dispatch of the chosen source classes, and
+ * each event arrives as soon as it is read (API 30+). Older versions can only
+ * ask per gesture, on every touch down, so there touches are unbuffered and
+ * gamepads stay batched.
+ *
+ * Every event's age on arrival and its sample count are recorded under the
+ * dispatch mode it arrived in, so buffered and unbuffered delivery can be
+ * compared on the same device. More events per second means more wakeups:
+ * the event rate in each mode shows what unbuffered delivery costs.
+ */
+final class LowLatencyDispatch {
+
+    static final String SOURCE_TOUCH = "touch";
+    static final String SOURCE_GAMEPAD = "gamepad";
+    private static final int TOUCH = 0;
+    private static final int GAMEPAD = 1;
+    private static final int BUFFERED = 0;
+    private static final int UNBUFFERED = 1;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Delivery of one source in one mode.
+     */
+    private static final class Stats {
+        // Newest sample's age when the event reached the plugin
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong samples = new AtomicLong();
+        // Time spent in this mode, up to the last mode change
+        long activeNanos;
+
+        void reset() {
+            latency.reset();
+            samples.set(0);
+            activeNanos = 0;
+        }
+
+        JSObject toJSObject(long activeNanos) {
+            long events = latency.count();
+            JSObject result = latency.toJSObject();
+            result.put("eventsPerSecond", activeNanos > 0 ? events * NANOS_PER_SECOND / activeNanos : 0);
+            result.put("samplesPerEvent", events > 0 ? (double) samples.get() / events : 0);
+            return result;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Indexed by source * 2 + mode
+    private final Stats[] stats = { new Stats(), new Stats(), new Stats(), new Stats() };
+    private final Object statsLock = new Object();
+    private long modeSinceNanos = System.nanoTime();
+    private volatile boolean enabled = false;
+    private volatile boolean touchUnbuffered = false;
+    private volatile boolean gamepadUnbuffered = false;
+    // Set below API 30, where unbuffered touch is requested on each touch down
+    private volatile View perGestureView;
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    boolean isTouchUnbuffered() {
+        return touchUnbuffered;
+    }
+
+    boolean isGamepadUnbuffered() {
+        return gamepadUnbuffered;
+    }
+
+    /**
+     * Applies the mode to {@code view}, which may be null when there is no WebView.
+     */
+    void setEnabled(View view, boolean enabled, boolean touch, boolean gamepad) {
+        boolean sourceLevel = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+        boolean unbufferTouch = enabled && touch && view != null;
+        boolean unbufferGamepad = enabled && gamepad && view != null && sourceLevel;
+        synchronized (statsLock) {
+            closeWindow(System.nanoTime());
+            this.enabled = enabled;
+            touchUnbuffered = unbufferTouch;
+            gamepadUnbuffered = unbufferGamepad;
+        }
+        perGestureView = unbufferTouch && !sourceLevel ? view : null;
+        if (view != null && sourceLevel) {
+            int sources = (unbufferTouch ? InputDevice.SOURCE_CLASS_POINTER : 0)
+                | (unbufferGamepad ? InputDevice.SOURCE_CLASS_JOYSTICK : 0);
+            // 0 returns every source to batched delivery
+            mainHandler.post(() -> view.requestUnbufferedDispatch(sources));
+        }
+    }
+
+    /**
+     * Records a live touch event as it arrives. UI thread only.
+     */
+    void onTouchEvent(MotionEvent event) {
+        record(TOUCH, touchUnbuffered, event);
+        View view = perGestureView;
+        if (view != null && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // Holds for this gesture's remaining events; must be asked while the down is dispatched
+            view.requestUnbufferedDispatch(event);
+        }
+    }
+
+    /**
+     * Records a live gamepad motion event as it arrives. UI thread only.
+     */
+    void onGamepadEvent(MotionEvent event) {
+        record(GAMEPAD, gamepadUnbuffered, event);
+    }
+
+    private void record(int source, boolean unbuffered, MotionEvent event) {
+        Stats s = stats[source * 2 + (unbuffered ? UNBUFFERED : BUFFERED)];
+        s.latency.record(System.nanoTime() - InputClock.eventTimeNanos(event));
+        s.samples.addAndGet(event.getHistorySize() + 1);
+    }
+
+    JSObject metrics() {
+        JSObject result = new JSObject();
+        result.put("enabled", enabled);
+        synchronized (statsLock) {
+            long now = System.nanoTime();
+            result.put(SOURCE_TOUCH, sourceMetrics(TOUCH, touchUnbuffered, now));
+            result.put(SOURCE_GAMEPAD, sourceMetrics(GAMEPAD, gamepadUnbuffered, now));
+        }
+        return result;
+    }
+
+    void resetMetrics() {
+        synchronized (statsLock) {
+            for (Stats s : stats) {
+                s.reset();
+            }
+            modeSinceNanos = System.nanoTime();
+        }
+    }
+
+    private JSObject sourceMetrics(int source, boolean unbuffered, long now) {
+        long open = now - modeSinceNanos;
+        Stats buffered = stats[source * 2 + BUFFERED];
+        Stats direct = stats[source * 2 + UNBUFFERED];
+        JSObject result = new JSObject();
+        result.put("mode", unbuffered ? "unbuffered" : "buffered");
+        result.put("buffered", buffered.toJSObject(buffered.activeNanos + (unbuffered ? 0 : open)));
+        result.put("unbuffered", direct.toJSObject(direct.activeNanos + (unbuffered ? open : 0)));
+        return result;
+    }
+
+    /**
+     * Adds the time since the last mode change to each source's current mode.
+     */
+    private void closeWindow(long now) {
+        long open = now - modeSinceNanos;
+        stats[TOUCH * 2 + (touchUnbuffered ? UNBUFFERED : BUFFERED)].activeNanos += open;
+        stats[GAMEPAD * 2 + (gamepadUnbuffered ? UNBUFFERED : BUFFERED)].activeNanos += open;
+        modeSinceNanos = now;
+    }
+}
@@ -0,0 +1,286 @@
+package com.strata.capacitor;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks a quality tier from thermal, power-save and battery state.
+ *
+ * Thermal status changes and power-save changes are pushed by the system.
+ * Thermal headroom and the battery are polled. The headroom forecast shows
+ * the device heating up before the system starts throttling, so the tier
+ * can rise before frames drop. A rise takes effect at once. A drop happens
+ * one tier at a time, and only after pressure has stayed lower for the whole
+ * cooldown. The headroom thresholds also leave a margin before a tier is
+ * left. Together these stop quality from flapping around a threshold.
+ *
+ * All evaluation runs on one governor thread, and the host is told about
+ * every tier change from that thread.
+ */
+final class PerformanceGovernor {
+
+    private static final String TAG = "StrataGovernor";
+    static final String EVENT_TIER = "performanceTier";
+
+    interface Host {
+        void onTierChanged(JSObject status);
+    }
+
+    /**
+     * Recommended settings for one tier.
+     */
+    static final class Tier {
+        final int targetFps;
+        final float renderScale;
+
+        Tier(int targetFps, float renderScale) {
+            this.targetFps = targetFps;
+            this.renderScale = renderScale;
+        }
+    }
+
+    static final Tier[] DEFAULT_TIERS = {
+        new Tier(60, 1.0f),
+        new Tier(60, 0.85f),
+        new Tier(45, 0.75f),
+        new Tier(30, 0.6f)
+    };
+    static final long DEFAULT_POLL_MS = 2000;
+    // The system may return NaN for headroom queried more than once a second
+    static final long MIN_POLL_MS = 1000;
+    static final long DEFAULT_COOLDOWN_MS = 10_000;
+    private static final int HEADROOM_FORECAST_SECONDS = 10;
+    // Extra evaluations from pushed changes reuse the last headroom; the slack keeps polls from skipping a read
+    private static final long HEADROOM_READ_INTERVAL_NANOS = 900_000_000L;
+    // Forecast headroom that enters tiers 1, 2 and 3. 1.0 is where severe throttling starts.
+    private static final float[] HEADROOM_THRESHOLDS = { 0.7f, 0.85f, 0.95f };
+    // Headroom must fall this far below a tier's threshold to leave it
+    private static final float HEADROOM_MARGIN = 0.05f;
+    private static final int LOW_BATTERY_PERCENT = 15;
+    private static final String[] THERMAL_STATUSES = {
+        "none", "light", "moderate", "severe", "critical", "emergency", "shutdown"
+    };
+
+    private final Host host;
+    private Context context;
+    private PowerManager powerManager;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> pollTask;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private final BroadcastReceiver powerSaveReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            evaluateSoon();
+        }
+    };
+    private volatile boolean enabled = false;
+    private volatile JSObject status;
+
+    // Governor thread only
+    private Tier[] tiers = DEFAULT_TIERS;
+    private long cooldownNanos = DEFAULT_COOLDOWN_MS * 1_000_000L;
+    private int tier = -1;
+    private long lowerSinceNanos = -1;
+    private long headroomReadNanos = 0;
+    private float headroom = Float.NaN;
+
+    PerformanceGovernor(Host host) {
+        this.host = host;
+    }
+
+    /**
+     * Starts or restarts the governor. The current tier is reported to the host straight away.
+     */
+    synchronized void start(Context context, long pollMs, long cooldownMs, Tier[] tiers) {
+        stop();
+        this.context = context.getApplicationContext();
+        powerManager = (PowerManager) this.context.getSystemService(Context.POWER_SERVICE);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, TAG));
+        executor.execute(() -> {
+            this.tiers = tiers;
+            this.cooldownNanos = cooldownMs * 1_000_000L;
+            tier = -1;
+            lowerSinceNanos = -1;
+        });
+        enabled = true;
+
+        if (powerManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // Called on the governor thread
+            thermalListener = thermalStatus -> evaluateSafely();
+            powerManager.addThermalStatusListener(executor, thermalListener);
+        }
+        this.context.registerReceiver(powerSaveReceiver, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        long interval = Math.max(MIN_POLL_MS, pollMs);
+        pollTask = executor.scheduleAtFixedRate(this::evaluateSafely, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        enabled = false;
+        if (executor == null) {
+            return;
+        }
+        if (thermalListener != null) {
+            powerManager.removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+        try {
+            context.unregisterReceiver(powerSaveReceiver);
+        } catch (IllegalArgumentException e) {
+            // Not registered
+        }
+        pollTask.cancel(false);
+        executor.shutdownNow();
+        executor = null;
+        pollTask = null;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The last published tier and the readings behind it, or null before the first evaluation.
+     */
+    JSObject status() {
+        return enabled ? status : null;
+    }
+
+    private synchronized void evaluateSoon() {
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(this::evaluateSafely);
+        } catch (RejectedExecutionException e) {
+            // Stopping
+        }
+    }
+
+    private void evaluateSafely() {
+        try {
+            evaluate();
+        } catch (RuntimeException e) {
+            // A thrown exception would cancel the poll
+            Log.w(TAG, "Governor evaluation failed", e);
+        }
+    }
+
+    private void evaluate() {
+        long now = System.nanoTime();
+        int thermalStatus = PowerManager.THERMAL_STATUS_NONE;
+        boolean powerSave = false;
+        if (powerManager != null) {
+            powerSave = powerManager.isPowerSaveMode();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                thermalStatus = powerManager.getCurrentThermalStatus();
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && now - headroomReadNanos >= HEADROOM_READ_INTERVAL_NANOS) {
+                headroom = powerManager.getThermalHeadroom(HEADROOM_FORECAST_SECONDS);
+                headroomReadNanos = now;
+            }
+        }
+        // Sticky broadcast: returns the latest battery state without registering a receiver
+        Intent battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        int batteryPercent = -1;
+        boolean charging = false;
+        if (battery != null) {
+            int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            if (level >= 0 && scale > 0) {
+                batteryPercent = level * 100 / scale;
+            }
+            charging = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+        }
+
+        int maxTier = tiers.length - 1;
+        int thermalTier = Math.min(maxTier, Math.min(thermalStatus, PowerManager.THERMAL_STATUS_SEVERE));
+        int headroomTier = Math.min(maxTier, headroomTier(headroom, tier));
+        int powerTier = Math.min(maxTier, powerSave ? 1 : 0);
+        int batteryTier = Math.min(maxTier, !charging && batteryPercent >= 0 && batteryPercent <= LOW_BATTERY_PERCENT ? 1 : 0);
+        int desired = Math.max(Math.max(thermalTier, headroomTier), Math.max(powerTier, batteryTier));
+        String reason = "none";
+        if (desired > 0) {
+            if (desired == thermalTier) {
+                reason = "thermal";
+            } else if (desired == headroomTier) {
+                reason = "headroom";
+            } else if (desired == powerTier) {
+                reason = "powerSave";
+            } else {
+                reason = "battery";
+            }
+        }
+
+        boolean changed = false;
+        if (tier < 0 || desired > tier) {
+            tier = desired;
+            lowerSinceNanos = -1;
+            changed = true;
+        } else if (desired < tier) {
+            if (lowerSinceNanos < 0) {
+                lowerSinceNanos = now;
+            } else if (now - lowerSinceNanos >= cooldownNanos) {
+                tier--;
+                // The next step down needs another full cooldown
+                lowerSinceNanos = tier > desired ? now : -1;
+                changed = true;
+            }
+        } else {
+            lowerSinceNanos = -1;
+        }
+
+        Tier settings = tiers[tier];
+        JSObject next = new JSObject();
+        next.put("tier", tier);
+        next.put("targetFps", settings.targetFps);
+        next.put("renderScale", settings.renderScale);
+        next.put("reason", tier == desired ? reason : "cooldown");
+        next.put("thermalStatus", THERMAL_STATUSES[Math.max(0, Math.min(THERMAL_STATUSES.length - 1, thermalStatus))]);
+        if (!Float.isNaN(headroom)) {
+            next.put("thermalHeadroom", headroom);
+        }
+        next.put("powerSave", powerSave);
+        if (batteryPercent >= 0) {
+            next.put("batteryLevel", batteryPercent / 100.0);
+        }
+        next.put("charging", charging);
+        status = next;
+        if (changed && enabled) {
+            host.onTierChanged(next);
+        }
+    }
+
+    /**
+     * Highest tier whose headroom threshold is reached. Tiers at or below the
+     * current one are kept until headroom falls a margin below their threshold.
+     */
+    private static int headroomTier(float headroom, int currentTier) {
+        if (Float.isNaN(headroom)) {
+            return 0;
+        }
+        for (int t = HEADROOM_THRESHOLDS.length; t > 0; t--) {
+            float threshold = HEADROOM_THRESHOLDS[t - 1];
+            if (t <= currentTier) {
+                threshold -= HEADROOM_MARGIN;
+            }
+            if (headroom >= threshold) {
+                return t;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,201 @@
+package com.strata.capacitor;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call and event counters for the plugin.
+ *
+ * Each plugin method records how long it held the plugin thread, which is
+ * the delay it adds to every call queued behind it. Work handed to a
+ * {@link WorkLane} is measured by the lane, and methods that finish there
+ * also record the time from dispatch to their result. Events are counted per name as
+ * they are sent. Payload sizes need the JSON text, so they are sampled on one
+ * call or event in {@link #PAYLOAD_SAMPLE_INTERVAL}; everything else is
+ * recorded on every call without allocating once a name has been seen.
+ */
+final class PluginMetrics {
+
+    private static final String TAG = "StrataMetrics";
+    static final int PAYLOAD_SAMPLE_INTERVAL = 64;
+    static final long MIN_REPORT_INTERVAL_MS = 250;
+
+    /**
+     * Counters for one method or event name.
+     */
+    static final class Counter {
+        final LatencyHistogram latency = new LatencyHistogram();
+        // Dispatch to result, for methods that finish on a background lane
+        final LatencyHistogram completion = new LatencyHistogram();
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong sampledPayloads = new AtomicLong();
+        final AtomicLong sampledPayloadChars = new AtomicLong();
+        final AtomicLong maxPayloadChars = new AtomicLong();
+
+        void reset() {
+            latency.reset();
+            completion.reset();
+            count.set(0);
+            sampledPayloads.set(0);
+            sampledPayloadChars.set(0);
+            maxPayloadChars.set(0);
+        }
+
+        static boolean shouldSamplePayload(long count) {
+            return count % PAYLOAD_SAMPLE_INTERVAL == 1;
+        }
+
+        void samplePayload(JSONObject payload) {
+            if (payload == null) {
+                return;
+            }
+            int chars = payload.toString().length();
+            sampledPayloads.incrementAndGet();
+            sampledPayloadChars.addAndGet(chars);
+            long max = maxPayloadChars.get();
+            while (chars > max && !maxPayloadChars.compareAndSet(max, chars)) {
+                max = maxPayloadChars.get();
+            }
+        }
+
+        void putPayload(JSObject target) {
+            long samples = sampledPayloads.get();
+            target.put("meanPayloadChars", samples > 0 ? (double) sampledPayloadChars.get() / samples : 0);
+            target.put("maxPayloadChars", maxPayloadChars.get());
+        }
+    }
+
+    private final ConcurrentHashMap<String, Counter> methods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> events = new ConcurrentHashMap<>();
+    private volatile long sinceMs = System.currentTimeMillis();
+    private ScheduledExecutorService reportExecutor;
+    private ScheduledFuture<?> reportTask;
+
+    /**
+     * Records a method call that started at {@code startNanos} and returned now.
+     */
+    void recordCall(String method, long startNanos, PluginCall call) {
+        Counter counter = counter(methods, method);
+        counter.latency.record(System.nanoTime() - startNanos);
+        if (Counter.shouldSamplePayload(counter.count.incrementAndGet())) {
+            counter.samplePayload(call.getData());
+        }
+    }
+
+    /**
+     * Records the result of a method call that was dispatched at {@code startNanos}
+     * and finished off the plugin thread.
+     */
+    void recordCompletion(String method, long startNanos) {
+        counter(methods, method).completion.record(System.nanoTime() - startNanos);
+    }
+
+    void recordEvent(String event, JSObject data) {
+        Counter counter = counter(events, event);
+        if (Counter.shouldSamplePayload(counter.count.incrementAndGet())) {
+            counter.samplePayload(data);
+        }
+    }
+
+    void reset() {
+        for (Counter counter : methods.values()) {
+            counter.reset();
+        }
+        for (Counter counter : events.values()) {
+            counter.reset();
+        }
+        sinceMs = System.currentTimeMillis();
+    }
+
+    JSObject toJSObject() {
+        long now = System.currentTimeMillis();
+        double seconds = Math.max(0.001, (now - sinceMs) / 1000.0);
+
+        JSObject methodMetrics = new JSObject();
+        for (Map.Entry<String, Counter> entry : methods.entrySet()) {
+            Counter counter = entry.getValue();
+            JSObject item = counter.latency.toJSObject();
+            item.put("count", counter.count.get());
+            if (counter.completion.count() > 0) {
+                item.put("completion", counter.completion.toJSObject());
+            }
+            counter.putPayload(item);
+            methodMetrics.put(entry.getKey(), item);
+        }
+        JSObject eventMetrics = new JSObject();
+        for (Map.Entry<String, Counter> entry : events.entrySet()) {
+            Counter counter = entry.getValue();
+            JSObject item = new JSObject();
+            item.put("count", counter.count.get());
+            item.put("perSecond", counter.count.get() / seconds);
+            counter.putPayload(item);
+            eventMetrics.put(entry.getKey(), item);
+        }
+
+        JSObject result = new JSObject();
+        result.put("since", sinceMs);
+        result.put("elapsedMs", now - sinceMs);
+        result.put("methods", methodMetrics);
+        result.put("events", eventMetrics);
+        return result;
+    }
+
+    /**
+     * Starts or stops periodic reports. An interval of zero or less stops them.
+     *
+     * @return the interval in effect
+     */
+    synchronized long scheduleReports(long intervalMs, Runnable report) {
+        if (reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+        }
+        if (intervalMs <= 0) {
+            return 0;
+        }
+        long interval = Math.max(MIN_REPORT_INTERVAL_MS, intervalMs);
+        if (reportExecutor == null) {
+            reportExecutor = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, TAG));
+        }
+        reportTask = reportExecutor.scheduleAtFixedRate(() -> {
+            try {
+                report.run();
+            } catch (RuntimeException e) {
+                // A thrown exception would cancel the schedule
+                Log.w(TAG, "Metrics report failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        return interval;
+    }
+
+    synchronized void shutdown() {
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+            reportExecutor = null;
+            reportTask = null;
+        }
+    }
+
+    private static Counter counter(ConcurrentHashMap<String, Counter> counters, String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            Counter created = new Counter();
+            Counter existing = counters.putIfAbsent(name, created);
+            counter = existing != null ? existing : created;
+        }
+        return counter;
+    }
+}
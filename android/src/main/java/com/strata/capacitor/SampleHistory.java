@@ -0,0 +1,103 @@
+package com.strata.capacitor;
+
+/**
+ * Bounded ring buffer of timestamped input samples.
+ *
+ * Each sample has a timestamp, an integer tag (pointer id or device id) and a
+ * fixed number of float channels. Recording never allocates; once the ring is
+ * full the oldest samples are overwritten and reported as dropped to readers
+ * that fell behind. Readers keep a cursor (total samples seen) and ask for
+ * everything written since.
+ */
+final class SampleHistory {
+
+    private final int capacity;
+    private final int channels;
+    private final long[] times;
+    private final int[] tags;
+    private final float[] values;
+    private long written = 0;
+
+    SampleHistory(int capacity, int channels) {
+        this.capacity = capacity;
+        this.channels = channels;
+        this.times = new long[capacity];
+        this.tags = new int[capacity];
+        this.values = new float[capacity * channels];
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int channels() {
+        return channels;
+    }
+
+    synchronized void record(long time, int tag, float v0, float v1) {
+        int slot = (int) (written % capacity);
+        times[slot] = time;
+        tags[slot] = tag;
+        values[slot * channels] = v0;
+        values[slot * channels + 1] = v1;
+        written++;
+    }
+
+    synchronized void record(long time, int tag, float[] sample) {
+        int slot = (int) (written % capacity);
+        times[slot] = time;
+        tags[slot] = tag;
+        System.arraycopy(sample, 0, values, slot * channels, channels);
+        written++;
+    }
+
+    synchronized long written() {
+        return written;
+    }
+
+    synchronized void clear() {
+        written = 0;
+    }
+
+    /**
+     * Copies every sample recorded after {@code cursor} into {@code out}, oldest first.
+     *
+     * @return the new cursor to pass on the next read
+     */
+    synchronized long readSince(long cursor, Batch out) {
+        long oldest = Math.max(0, written - capacity);
+        long from = Math.max(Math.min(cursor, written), oldest);
+        out.dropped = from - Math.min(cursor, written);
+        out.count = (int) (written - from);
+        for (int i = 0; i < out.count; i++) {
+            int slot = (int) ((from + i) % capacity);
+            out.times[i] = times[slot];
+            out.tags[i] = tags[slot];
+            System.arraycopy(values, slot * channels, out.values, i * channels, channels);
+        }
+        return written;
+    }
+
+    /**
+     * Reusable read target sized to a history's capacity.
+     */
+    static final class Batch {
+        final long[] times;
+        final int[] tags;
+        final float[] values;
+        final int channels;
+        int count;
+        long dropped;
+
+        Batch(SampleHistory history) {
+            this.times = new long[history.capacity];
+            this.tags = new int[history.capacity];
+            this.values = new float[history.capacity * history.channels];
+            this.channels = history.channels;
+        }
+
+        boolean fits(SampleHistory history) {
+            return times.length == history.capacity && channels == history.channels;
+        }
+    }
+}
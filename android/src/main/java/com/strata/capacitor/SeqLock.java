@@ -0,0 +1,76 @@
+package com.strata.capacitor;
+
+import android.os.Build;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sequence lock for state with one writer thread and lock-free readers.
+ *
+ * The writer brackets each update with {@link #beginWrite()} and
+ * {@link #endWrite()}, which leave the counter odd while the update is in
+ * progress. A reader takes a stamp with {@link #readBegin()}, copies the
+ * state with plain reads, and keeps the copy only if {@link #validate(int)}
+ * returns true.
+ *
+ * Plain accesses need fences to stay inside the bracket: a store-store
+ * fence after the opening increment, so no data write becomes visible
+ * before the counter turns odd, and an acquire fence before the re-check,
+ * so no data read is satisfied after it. {@code VarHandle} fences need API
+ * 33; older versions get the same ordering from read-modify-writes on the
+ * counter, at the cost of readers writing its cache line.
+ */
+final class SeqLock {
+
+    private static final boolean HAS_FENCES = Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * Kept out of line so older runtimes never resolve {@code VarHandle}.
+     */
+    private static final class Fences {
+        static void storeStore() {
+            VarHandle.storeStoreFence();
+        }
+
+        static void acquire() {
+            VarHandle.acquireFence();
+        }
+    }
+
+    void beginWrite() {
+        sequence.incrementAndGet();
+        if (HAS_FENCES) {
+            Fences.storeStore();
+        }
+    }
+
+    void endWrite() {
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Returns a stamp for {@link #validate(int)}, or an odd value while a write is in progress.
+     */
+    int readBegin() {
+        return sequence.get();
+    }
+
+    static boolean isWriting(int stamp) {
+        return (stamp & 1) != 0;
+    }
+
+    /**
+     * True if no write started since {@code stamp} was taken, so the reads since then are consistent.
+     */
+    boolean validate(int stamp) {
+        if (HAS_FENCES) {
+            Fences.acquire();
+            return sequence.get() == stamp;
+        }
+        // A successful compare-and-set is a release, which earlier reads cannot move past
+        return sequence.compareAndSet(stamp, stamp);
+    }
+}
@@ -0,0 +1,106 @@
+package com.strata.capacitor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage writes staged between flushes.
+ *
+ * Later writes to the same key replace earlier ones, so a burst of saves is
+ * written once. Reads must consult the batch before the engine so callers
+ * see their own unflushed writes. The whole batch is written as one atomic
+ * log record by {@link StorageEngine#apply}.
+ */
+final class StorageBatch {
+
+    /**
+     * Staged changes for one namespace. A null value stages a removal.
+     */
+    static final class Namespace {
+        boolean cleared;
+        final Map<String, String> writes = new LinkedHashMap<>();
+    }
+
+    private final Map<String, Namespace> namespaces = new LinkedHashMap<>();
+
+    void put(String namespace, String key, String value) {
+        staged(namespace).writes.put(key, value);
+    }
+
+    void remove(String namespace, String key) {
+        staged(namespace).writes.put(key, null);
+    }
+
+    /**
+     * Drops everything staged for the namespace and clears it when flushed.
+     */
+    void clear(String namespace) {
+        Namespace staged = staged(namespace);
+        staged.cleared = true;
+        staged.writes.clear();
+    }
+
+    boolean isEmpty() {
+        return namespaces.isEmpty();
+    }
+
+    void reset() {
+        namespaces.clear();
+    }
+
+    Map<String, Namespace> namespaces() {
+        return namespaces;
+    }
+
+    /**
+     * Whether the batch decides the key's value, either by a staged write or
+     * by a staged clear of its namespace.
+     */
+    boolean covers(String namespace, String key) {
+        Namespace staged = namespaces.get(namespace);
+        return staged != null && (staged.cleared || staged.writes.containsKey(key));
+    }
+
+    /**
+     * Staged value for a key the batch {@link #covers}; null if removed or cleared.
+     */
+    String get(String namespace, String key) {
+        Namespace staged = namespaces.get(namespace);
+        return staged != null ? staged.writes.get(key) : null;
+    }
+
+    /**
+     * Applies the staged changes for a namespace on top of its stored keys.
+     */
+    List<String> overlayKeys(String namespace, List<String> storedKeys) {
+        Namespace staged = namespaces.get(namespace);
+        if (staged == null) {
+            return storedKeys;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        if (!staged.cleared) {
+            keys.addAll(storedKeys);
+        }
+        for (Map.Entry<String, String> write : staged.writes.entrySet()) {
+            if (write.getValue() == null) {
+                keys.remove(write.getKey());
+            } else {
+                keys.add(write.getKey());
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private Namespace staged(String namespace) {
+        Namespace staged = namespaces.get(namespace);
+        if (staged == null) {
+            staged = new Namespace();
+            namespaces.put(namespace, staged);
+        }
+        return staged;
+    }
+}
@@ -0,0 +1,176 @@
+package com.strata.capacitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encoding applied to stored values, chosen per namespace.
+ *
+ * Every value is written as a self-describing frame: codec id, raw length,
+ * CRC32 of the raw bytes and preset dictionary id, followed by the payload.
+ * Decoding therefore never depends on the namespace's current codec, and a
+ * checksum mismatch is reported instead of returning corrupt data.
+ *
+ * Deflate can use a preset dictionary of typical save content, which lets
+ * even small, repetitive JSON values compress well.
+ */
+final class StorageCodec {
+
+    static final byte TYPE_NONE = 0;
+    static final byte TYPE_DEFLATE = 1;
+    // codec u8, raw length u32, crc32 u32, dictionary id u32
+    static final int FRAME_HEADER_BYTES = 13;
+
+    static final StorageCodec NONE = new StorageCodec(TYPE_NONE, 0, null);
+
+    /**
+     * Looks up a preset dictionary by id; returns null if it is unknown.
+     */
+    interface Dictionaries {
+        byte[] dictionary(int id) throws IOException;
+    }
+
+    final byte type;
+    final int level;
+    final byte[] dictionary;
+    final int dictionaryId;
+
+    private StorageCodec(byte type, int level, byte[] dictionary) {
+        this.type = type;
+        this.level = level;
+        this.dictionary = dictionary;
+        this.dictionaryId = dictionary != null ? dictionaryId(dictionary) : 0;
+    }
+
+    static StorageCodec deflate(int level, byte[] dictionary) {
+        int clamped = Math.max(Deflater.BEST_SPEED, Math.min(level, Deflater.BEST_COMPRESSION));
+        return new StorageCodec(TYPE_DEFLATE, clamped, dictionary != null && dictionary.length > 0 ? dictionary : null);
+    }
+
+    /**
+     * The id frames use to refer to a dictionary: the first four bytes of its
+     * SHA-256. Adler-32, which zlib uses, collides easily on short inputs; the
+     * engine still compares the bytes before trusting a stored dictionary.
+     */
+    static int dictionaryId(byte[] dictionary) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(dictionary);
+            return ByteBuffer.wrap(digest).getInt();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is unavailable", e);
+        }
+    }
+
+    String name() {
+        return type == TYPE_DEFLATE ? "deflate" : "none";
+    }
+
+    byte[] encode(byte[] raw) {
+        byte[] payload = raw;
+        int payloadLength = raw.length;
+        byte type = this.type;
+        if (type == TYPE_DEFLATE) {
+            Deflater deflater = new Deflater(level);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                }
+                payload = out.toByteArray();
+                payloadLength = payload.length;
+            } finally {
+                deflater.end();
+            }
+            // Incompressible values are stored as-is rather than growing
+            if (payloadLength >= raw.length) {
+                payload = raw;
+                payloadLength = raw.length;
+                type = TYPE_NONE;
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payloadLength);
+        frame.put(type);
+        frame.putInt(raw.length);
+        frame.putInt((int) crc.getValue());
+        frame.putInt(type == TYPE_DEFLATE ? dictionaryId : 0);
+        frame.put(payload, 0, payloadLength);
+        return frame.array();
+    }
+
+    /**
+     * Raw length recorded in a frame header.
+     */
+    static int rawLength(byte[] header) {
+        return ByteBuffer.wrap(header, 1, 4).getInt();
+    }
+
+    static byte[] decode(byte[] frame, Dictionaries dictionaries) throws IOException {
+        if (frame.length < FRAME_HEADER_BYTES) {
+            throw new IOException("Truncated value frame");
+        }
+        ByteBuffer header = ByteBuffer.wrap(frame);
+        byte type = header.get();
+        int rawLength = header.getInt();
+        int expectedCrc = header.getInt();
+        int dictionaryId = header.getInt();
+
+        byte[] raw;
+        if (type == TYPE_NONE) {
+            raw = new byte[frame.length - FRAME_HEADER_BYTES];
+            System.arraycopy(frame, FRAME_HEADER_BYTES, raw, 0, raw.length);
+        } else if (type == TYPE_DEFLATE) {
+            raw = new byte[rawLength];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(frame, FRAME_HEADER_BYTES, frame.length - FRAME_HEADER_BYTES);
+                int written = 0;
+                while (written < rawLength && !inflater.finished()) {
+                    int n = inflater.inflate(raw, written, rawLength - written);
+                    if (n == 0 && inflater.needsDictionary()) {
+                        byte[] dictionary = dictionaries.dictionary(dictionaryId);
+                        if (dictionary == null) {
+                            throw new IOException("Missing storage dictionary " + Integer.toHexString(dictionaryId));
+                        }
+                        inflater.setDictionary(dictionary);
+                    } else if (n == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    written += n;
+                }
+                if (written != rawLength) {
+                    throw new IOException("Truncated compressed value");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt compressed value", e);
+            } finally {
+                inflater.end();
+            }
+        } else {
+            throw new IOException("Unknown storage codec " + type);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        if (raw.length != rawLength || (int) crc.getValue() != expectedCrc) {
+            throw new IOException("Stored value failed its checksum");
+        }
+        return raw;
+    }
+}
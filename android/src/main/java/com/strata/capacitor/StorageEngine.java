@@ -0,0 +1,577 @@
+package com.strata.capacitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only key/value log with an in-memory index, used for the Storage API.
+ *
+ * Each {@link StorageBatch} is appended to a single log file as one record
+ * and synced before it is acknowledged; the index maps namespace and key to the value's position in
+ * the log, so reads are one positioned read and namespace scans only touch
+ * that namespace. Overwritten and removed records stay in the log as dead
+ * bytes until {@link #compactIfNeeded} rewrites the live records into a new
+ * file and swaps it in.
+ *
+ * Values are written as {@link StorageCodec} frames using the codec chosen
+ * for their namespace, and verified against their checksum when read. A
+ * preset dictionary is stored in the log, in the same batch as the first
+ * value that uses it, so values stay readable whatever the app configures
+ * later. Plain records from before frames were introduced are still read.
+ *
+ * Not thread-safe: all calls must come from the single storage thread.
+ */
+final class StorageEngine {
+
+    private static final int MAGIC = 0x5354524C; // "STRL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_CLEAR = 3;
+    private static final byte OP_BATCH = 4;
+    private static final byte OP_PUT_FRAMED = 5;
+    // Batch op byte and body length
+    private static final int BATCH_HEADER_BYTES = 5;
+    // Compact once dead records outweigh live ones and are worth the rewrite
+    private static final long COMPACTION_MIN_DEAD_BYTES = 1024 * 1024;
+    // Not reachable from the JS API, which never passes a NUL namespace
+    static final String DICTIONARY_NAMESPACE = "\u0000dictionaries";
+
+    private static final class Entry {
+        final long valueOffset;
+        final int valueLength;
+        final int recordLength;
+        final boolean framed;
+        final int rawLength;
+
+        Entry(long valueOffset, int valueLength, int recordLength, boolean framed, int rawLength) {
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordLength = recordLength;
+            this.framed = framed;
+            this.rawLength = rawLength;
+        }
+    }
+
+    /**
+     * Stored size of a namespace: its value bytes before and after encoding.
+     */
+    static final class Stats {
+        final int keys;
+        final long rawBytes;
+        final long storedBytes;
+
+        Stats(int keys, long rawBytes, long storedBytes) {
+            this.keys = keys;
+            this.rawBytes = rawBytes;
+            this.storedBytes = storedBytes;
+        }
+    }
+
+    /**
+     * A batched change to apply to the index once its record is on disk.
+     * Offsets are relative to the batch body.
+     */
+    private static final class Change {
+        final byte op;
+        final String namespace;
+        final String key;
+        final int valueOffset;
+        final int valueLength;
+        final int recordLength;
+        final int rawLength;
+
+        Change(byte op, String namespace, String key, int valueOffset, int valueLength, int recordLength,
+               int rawLength) {
+            this.op = op;
+            this.namespace = namespace;
+            this.key = key;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordLength = recordLength;
+            this.rawLength = rawLength;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Map<String, Entry>> index = new HashMap<>();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+    private final Map<Integer, byte[]> dictionaries = new HashMap<>();
+    private final StorageCodec.Dictionaries dictionaryLookup = this::dictionary;
+    private RandomAccessFile log;
+    private long liveBytes;
+    private long deadBytes;
+
+    StorageEngine(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the log and rebuilds the index. A record cut short by a crash is
+     * discarded along with anything after it.
+     */
+    void open() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        log = new RandomAccessFile(file, "rw");
+        if (log.length() < HEADER_BYTES) {
+            log.setLength(0);
+            log.writeInt(MAGIC);
+            log.writeInt(VERSION);
+            log.getChannel().force(false);
+        } else {
+            log.seek(0);
+            if (log.readInt() != MAGIC || log.readInt() != VERSION) {
+                throw new IOException("Unrecognized storage log " + file);
+            }
+        }
+        replay();
+    }
+
+    void close() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+            }
+            log = null;
+        }
+    }
+
+    String get(String namespace, String key) throws IOException {
+        Map<String, Entry> entries = index.get(namespace);
+        Entry entry = entries != null ? entries.get(key) : null;
+        if (entry == null) {
+            return null;
+        }
+        byte[] value = new byte[entry.valueLength];
+        log.seek(entry.valueOffset);
+        log.readFully(value);
+        if (entry.framed) {
+            value = StorageCodec.decode(value, dictionaryLookup);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    List<String> keys(String namespace) {
+        Map<String, Entry> entries = index.get(namespace);
+        return entries != null ? new ArrayList<>(entries.keySet()) : new ArrayList<String>();
+    }
+
+    List<String> namespaces() {
+        List<String> namespaces = new ArrayList<>(index.keySet());
+        namespaces.remove(DICTIONARY_NAMESPACE);
+        return namespaces;
+    }
+
+    Stats stats(String namespace) {
+        Map<String, Entry> entries = index.get(namespace);
+        if (entries == null) {
+            return new Stats(0, 0, 0);
+        }
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (Entry entry : entries.values()) {
+            rawBytes += entry.rawLength;
+            storedBytes += entry.valueLength;
+        }
+        return new Stats(entries.size(), rawBytes, storedBytes);
+    }
+
+    /**
+     * Writes every staged change as one batch record with a single sync. On
+     * replay a batch is applied whole or, if it was torn by a crash, not at all.
+     *
+     * @param codecs codec per namespace; namespaces without one are stored uncompressed
+     */
+    void apply(StorageBatch batch, Map<String, StorageCodec> codecs) throws IOException {
+        recordBuffer.reset();
+        DataOutputStream out = new DataOutputStream(recordBuffer);
+        List<Change> changes = new ArrayList<>();
+        Map<Integer, byte[]> newDictionaries = new HashMap<>();
+        for (Map.Entry<String, StorageBatch.Namespace> staged : batch.namespaces().entrySet()) {
+            String namespace = staged.getKey();
+            boolean cleared = staged.getValue().cleared;
+            StorageCodec codec = codecs.get(namespace);
+            if (codec == null) {
+                codec = StorageCodec.NONE;
+            }
+            if (codec.dictionary != null) {
+                byte[] stored = dictionary(codec.dictionaryId);
+                if (stored == null) {
+                    stored = newDictionaries.get(codec.dictionaryId);
+                }
+                if (stored == null) {
+                    newDictionaries.put(codec.dictionaryId, codec.dictionary);
+                    writeFramedPut(out, changes, DICTIONARY_NAMESPACE, dictionaryKey(codec.dictionaryId),
+                        StorageCodec.NONE.encode(codec.dictionary), codec.dictionary.length);
+                } else if (!Arrays.equals(stored, codec.dictionary)) {
+                    // Frames would decode against the wrong dictionary; fail before writing any
+                    throw new IOException("Storage dictionary id " + Integer.toHexString(codec.dictionaryId)
+                        + " is already used by a different dictionary");
+                }
+            }
+            if (cleared && index.containsKey(namespace)) {
+                int start = recordBuffer.size();
+                writeRecordHeader(out, OP_CLEAR, namespace, "");
+                changes.add(new Change(OP_CLEAR, namespace, null, 0, 0, recordBuffer.size() - start, 0));
+            }
+            for (Map.Entry<String, String> write : staged.getValue().writes.entrySet()) {
+                String key = write.getKey();
+                int start = recordBuffer.size();
+                if (write.getValue() == null) {
+                    Map<String, Entry> entries = index.get(namespace);
+                    if (cleared || entries == null || !entries.containsKey(key)) {
+                        continue;
+                    }
+                    writeRecordHeader(out, OP_REMOVE, namespace, key);
+                    changes.add(new Change(OP_REMOVE, namespace, key, 0, 0, recordBuffer.size() - start, 0));
+                } else {
+                    byte[] raw = write.getValue().getBytes(StandardCharsets.UTF_8);
+                    writeFramedPut(out, changes, namespace, key, codec.encode(raw), raw.length);
+                }
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        long start = log.length();
+        long body = start + BATCH_HEADER_BYTES;
+        try {
+            log.seek(start);
+            log.writeByte(OP_BATCH);
+            log.writeInt(recordBuffer.size());
+            recordBuffer.writeTo(new RandomAccessFileOutput(log));
+            log.getChannel().force(false);
+        } catch (IOException e) {
+            // Drop the partial batch so later appends don't land behind it
+            try {
+                log.setLength(start);
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+
+        deadBytes += BATCH_HEADER_BYTES;
+        for (Change change : changes) {
+            applyChange(change.op, change.namespace, change.key, body + change.valueOffset,
+                change.valueLength, change.recordLength, change.rawLength);
+        }
+    }
+
+    private void writeFramedPut(DataOutputStream out, List<Change> changes, String namespace, String key,
+                                byte[] frame, int rawLength) throws IOException {
+        int start = recordBuffer.size();
+        writeRecordHeader(out, OP_PUT_FRAMED, namespace, key);
+        out.writeInt(frame.length);
+        int valueOffset = recordBuffer.size();
+        out.write(frame);
+        changes.add(new Change(OP_PUT_FRAMED, namespace, key, valueOffset, frame.length,
+            recordBuffer.size() - start, rawLength));
+    }
+
+    /**
+     * Rewrites the live records into a fresh log when enough of the current
+     * one is dead. The new file is synced before it replaces the old one, so a
+     * crash at any point leaves one complete log behind.
+     *
+     * @return true if the log was compacted
+     */
+    boolean compactIfNeeded() throws IOException {
+        if (deadBytes < COMPACTION_MIN_DEAD_BYTES || deadBytes < liveBytes) {
+            return false;
+        }
+        File compacted = new File(file.getPath() + ".compact");
+        Map<String, Map<String, Entry>> rewritten = new HashMap<>();
+        long written = 0;
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Map.Entry<String, Map<String, Entry>> namespace : index.entrySet()) {
+                Map<String, Entry> entries = new HashMap<>();
+                for (Map.Entry<String, Entry> item : namespace.getValue().entrySet()) {
+                    Entry entry = item.getValue();
+                    byte[] value = new byte[entry.valueLength];
+                    log.seek(entry.valueOffset);
+                    log.readFully(value);
+
+                    long start = out.length();
+                    recordBuffer.reset();
+                    DataOutputStream record = new DataOutputStream(recordBuffer);
+                    writeRecordHeader(record, entry.framed ? OP_PUT_FRAMED : OP_PUT, namespace.getKey(),
+                        item.getKey());
+                    record.writeInt(value.length);
+                    int valueOffset = recordBuffer.size();
+                    record.write(value);
+                    out.seek(start);
+                    recordBuffer.writeTo(new RandomAccessFileOutput(out));
+                    int recordLength = recordBuffer.size();
+                    entries.put(item.getKey(), new Entry(start + valueOffset, value.length, recordLength,
+                        entry.framed, entry.rawLength));
+                    written += recordLength;
+                }
+                rewritten.put(namespace.getKey(), entries);
+            }
+            out.getChannel().force(true);
+        }
+
+        log.close();
+        if (!compacted.renameTo(file)) {
+            log = new RandomAccessFile(file, "rw");
+            throw new IOException("Cannot replace " + file);
+        }
+        log = new RandomAccessFile(file, "rw");
+        index.clear();
+        index.putAll(rewritten);
+        liveBytes = written;
+        deadBytes = 0;
+        return true;
+    }
+
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    long deadBytes() {
+        return deadBytes;
+    }
+
+    private Map<String, Entry> namespaceEntries(String namespace, boolean create) {
+        Map<String, Entry> entries = index.get(namespace);
+        if (entries == null && create) {
+            entries = new HashMap<>();
+            index.put(namespace, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * Preset dictionary by id, loaded from the log on first use; null if none is stored.
+     */
+    private byte[] dictionary(int id) throws IOException {
+        byte[] dictionary = dictionaries.get(id);
+        if (dictionary == null) {
+            String key = dictionaryKey(id);
+            Map<String, Entry> entries = index.get(DICTIONARY_NAMESPACE);
+            Entry entry = entries != null ? entries.get(key) : null;
+            if (entry == null) {
+                return null;
+            }
+            byte[] frame = new byte[entry.valueLength];
+            log.seek(entry.valueOffset);
+            log.readFully(frame);
+            dictionary = StorageCodec.decode(frame, dictionaryLookup);
+            dictionaries.put(id, dictionary);
+        }
+        return dictionary;
+    }
+
+    private static String dictionaryKey(int id) {
+        return Integer.toHexString(id);
+    }
+
+    private void retire(Entry entry) {
+        liveBytes -= entry.recordLength;
+        deadBytes += entry.recordLength;
+    }
+
+    private static void writeRecordHeader(DataOutputStream out, byte op, String namespace, String key)
+            throws IOException {
+        byte[] ns = namespace.getBytes(StandardCharsets.UTF_8);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(op);
+        out.writeInt(ns.length);
+        out.write(ns);
+        out.writeInt(k.length);
+        out.write(k);
+    }
+
+    private void applyChange(byte op, String namespace, String key, long valueOffset, int valueLength,
+                             int recordLength, int rawLength) {
+        if (op == OP_PUT || op == OP_PUT_FRAMED) {
+            Entry previous = namespaceEntries(namespace, true).put(key,
+                new Entry(valueOffset, valueLength, recordLength, op == OP_PUT_FRAMED, rawLength));
+            if (previous != null) {
+                retire(previous);
+            }
+            liveBytes += recordLength;
+        } else if (op == OP_REMOVE) {
+            Map<String, Entry> entries = index.get(namespace);
+            Entry removed = entries != null ? entries.remove(key) : null;
+            if (removed != null) {
+                retire(removed);
+                if (entries.isEmpty()) {
+                    index.remove(namespace);
+                }
+            }
+            deadBytes += recordLength;
+        } else if (op == OP_CLEAR) {
+            Map<String, Entry> entries = index.remove(namespace);
+            if (entries != null) {
+                for (Entry entry : entries.values()) {
+                    retire(entry);
+                }
+            }
+            deadBytes += recordLength;
+        }
+    }
+
+    private void replay() throws IOException {
+        long position = HEADER_BYTES;
+        long length = log.length();
+        try {
+            while (position < length) {
+                long end = replayRecord(position, length, true);
+                if (end < 0) {
+                    break;
+                }
+                position = end;
+            }
+        } catch (EOFException e) {
+            // Torn final record; everything before it is intact
+        }
+        if (position < length) {
+            log.setLength(position);
+        }
+    }
+
+    /**
+     * Applies the record at {@code position} to the index.
+     *
+     * @return the end of the record, or -1 if it does not fit before {@code limit}
+     */
+    private long replayRecord(long position, long limit, boolean allowBatch) throws IOException {
+        log.seek(position);
+        byte op = log.readByte();
+        if (op == OP_BATCH && allowBatch) {
+            long body = position + BATCH_HEADER_BYTES;
+            int bodyLength = log.readInt();
+            long end = body + bodyLength;
+            if (bodyLength < 0 || end > limit) {
+                return -1;
+            }
+            // Validate the whole batch before applying any of it
+            long cursor = body;
+            while (cursor < end) {
+                cursor = skipRecord(cursor, end);
+                if (cursor < 0) {
+                    return -1;
+                }
+            }
+            deadBytes += BATCH_HEADER_BYTES;
+            cursor = body;
+            while (cursor < end) {
+                cursor = replayRecord(cursor, end, false);
+            }
+            return end;
+        }
+        if (!isPlainOp(op)) {
+            return -1;
+        }
+        String namespace = readString(limit);
+        String key = readString(limit);
+        long valueOffset = 0;
+        int valueLength = 0;
+        int rawLength = 0;
+        boolean put = op == OP_PUT || op == OP_PUT_FRAMED;
+        if (put) {
+            valueLength = log.readInt();
+            valueOffset = log.getFilePointer();
+            if (valueLength < 0 || valueOffset + valueLength > limit) {
+                return -1;
+            }
+            rawLength = valueLength;
+            if (op == OP_PUT_FRAMED) {
+                if (valueLength < StorageCodec.FRAME_HEADER_BYTES) {
+                    return -1;
+                }
+                byte[] header = new byte[StorageCodec.FRAME_HEADER_BYTES];
+                log.readFully(header);
+                rawLength = StorageCodec.rawLength(header);
+            }
+        }
+        long end = put ? valueOffset + valueLength : log.getFilePointer();
+        applyChange(op, namespace, key, valueOffset, valueLength, (int) (end - position), rawLength);
+        return end;
+    }
+
+    /**
+     * Returns the end of the plain record at {@code position}, or -1 if it is malformed.
+     */
+    private long skipRecord(long position, long limit) throws IOException {
+        log.seek(position);
+        byte op = log.readByte();
+        if (!isPlainOp(op)) {
+            return -1;
+        }
+        for (int i = 0; i < 2; i++) {
+            int length = log.readInt();
+            if (length < 0 || log.getFilePointer() + length > limit) {
+                return -1;
+            }
+            log.seek(log.getFilePointer() + length);
+        }
+        if (op == OP_PUT || op == OP_PUT_FRAMED) {
+            int valueLength = log.readInt();
+            if (valueLength < 0 || log.getFilePointer() + valueLength > limit) {
+                return -1;
+            }
+            if (op == OP_PUT_FRAMED && valueLength < StorageCodec.FRAME_HEADER_BYTES) {
+                return -1;
+            }
+            return log.getFilePointer() + valueLength;
+        }
+        return log.getFilePointer();
+    }
+
+    private static boolean isPlainOp(byte op) {
+        return op == OP_PUT || op == OP_PUT_FRAMED || op == OP_REMOVE || op == OP_CLEAR;
+    }
+
+    private String readString(long limit) throws IOException {
+        int length = log.readInt();
+        if (length < 0 || length > limit - log.getFilePointer()) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[length];
+        log.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lets a buffered record be written to a RandomAccessFile without copying it.
+     */
+    private static final class RandomAccessFileOutput extends OutputStream {
+        private final RandomAccessFile target;
+
+        RandomAccessFileOutput(RandomAccessFile target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+        }
+    }
+}
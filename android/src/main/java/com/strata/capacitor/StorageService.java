@@ -0,0 +1,226 @@
+package com.strata.capacitor;
+
+import android.util.Log;
+
+import com.getcapacitor.PluginCall;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs Storage API calls against a {@link StorageEngine} on one background thread.
+ *
+ * Writes are staged in a {@link StorageBatch} and flushed together once the
+ * flush window has passed, so repeated saves of the same key collapse into
+ * one durable write and a burst of calls shares a single sync. Each write call
+ * resolves only after the flush holding it is on disk. Reads see staged
+ * writes. Compaction runs on the same thread after a flush has resolved its
+ * calls, so callers never wait on it.
+ *
+ * Each namespace can be given a {@link StorageCodec}; values are encoded with
+ * it when they are flushed, so compression also runs off the calling thread.
+ * Codec choices are not persisted and apply to values written afterwards.
+ */
+final class StorageService {
+
+    private static final String TAG = "StrataStorage";
+    static final long DEFAULT_FLUSH_WINDOW_MS = 8;
+    static final long MAX_FLUSH_WINDOW_MS = 1000;
+
+    interface ReadTask {
+        void run(StorageService storage) throws IOException;
+    }
+
+    interface WriteTask {
+        void stage(StorageBatch batch);
+    }
+
+    private final File logFile;
+    private final ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, TAG));
+    // Calls run through the lane so its queue shows up in the threading metrics
+    private final WorkLane lane = WorkLane.wrap(TAG, executor, 1);
+    // Everything below is confined to the executor thread
+    private final StorageBatch staged = new StorageBatch();
+    private final List<PluginCall> stagedCalls = new ArrayList<>();
+    // Completion hooks of the staged calls, in the same order
+    private final List<Runnable> stagedDone = new ArrayList<>();
+    private final Map<String, StorageCodec> codecs = new HashMap<>();
+    private StorageEngine engine;
+    private boolean flushScheduled;
+    private volatile long flushWindowMs = DEFAULT_FLUSH_WINDOW_MS;
+
+    StorageService(File logFile) {
+        this.logFile = logFile;
+    }
+
+    void setFlushWindowMs(long flushWindowMs) {
+        this.flushWindowMs = Math.max(0, Math.min(flushWindowMs, MAX_FLUSH_WINDOW_MS));
+    }
+
+    long flushWindowMs() {
+        return flushWindowMs;
+    }
+
+    /**
+     * Runs a read on the storage thread. The task resolves the call itself,
+     * and {@code done} runs once it has.
+     */
+    void read(PluginCall call, Runnable done, ReadTask task) {
+        lane.execute(() -> {
+            try {
+                open();
+                task.run(this);
+            } catch (IOException e) {
+                Log.w(TAG, "Storage read failed", e);
+                call.reject("Storage operation failed: " + e.getMessage(), e);
+            } finally {
+                done.run();
+            }
+        });
+    }
+
+    /**
+     * Stages a write and resolves the call once it has been flushed, then runs {@code done}.
+     */
+    void write(PluginCall call, Runnable done, WriteTask task) {
+        lane.execute(() -> {
+            try {
+                open();
+            } catch (IOException e) {
+                Log.w(TAG, "Storage open failed", e);
+                call.reject("Storage operation failed: " + e.getMessage(), e);
+                done.run();
+                return;
+            }
+            task.stage(staged);
+            stagedCalls.add(call);
+            stagedDone.add(done);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(this::flush, flushWindowMs, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Sets the codec for values written to a namespace from now on.
+     */
+    void setCodec(PluginCall call, Runnable done, String namespace, StorageCodec codec) {
+        lane.execute(() -> {
+            codecs.put(namespace, codec);
+            call.resolve();
+            done.run();
+        });
+    }
+
+    /**
+     * Codec used for new values in a namespace; storage thread only.
+     */
+    StorageCodec codec(String namespace) {
+        StorageCodec codec = codecs.get(namespace);
+        return codec != null ? codec : StorageCodec.NONE;
+    }
+
+    /**
+     * Sizes of the flushed values in a namespace; storage thread only.
+     */
+    StorageEngine.Stats stats(String namespace) {
+        return engine.stats(namespace);
+    }
+
+    /**
+     * Namespaces with flushed values; storage thread only.
+     */
+    List<String> namespaces() {
+        return engine.namespaces();
+    }
+
+    /**
+     * Current value of a key including staged writes; storage thread only.
+     */
+    String get(String namespace, String key) throws IOException {
+        if (staged.covers(namespace, key)) {
+            return staged.get(namespace, key);
+        }
+        return engine.get(namespace, key);
+    }
+
+    /**
+     * Keys in a namespace including staged writes; storage thread only.
+     */
+    List<String> keys(String namespace) {
+        return staged.overlayKeys(namespace, engine.keys(namespace));
+    }
+
+    WorkLane lane() {
+        return lane;
+    }
+
+    /**
+     * Flushes staged writes and closes the log. Calls made afterwards are dropped.
+     */
+    void shutdown() {
+        lane.execute(() -> {
+            flush();
+            if (engine != null) {
+                engine.close();
+                engine = null;
+            }
+        });
+        executor.shutdown();
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private void open() throws IOException {
+        if (engine == null) {
+            StorageEngine opened = new StorageEngine(logFile);
+            opened.open();
+            engine = opened;
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (stagedCalls.isEmpty()) {
+            return;
+        }
+        List<PluginCall> calls = new ArrayList<>(stagedCalls);
+        List<Runnable> done = new ArrayList<>(stagedDone);
+        stagedCalls.clear();
+        stagedDone.clear();
+        try {
+            engine.apply(staged, codecs);
+        } catch (IOException e) {
+            Log.w(TAG, "Storage flush failed", e);
+            for (PluginCall call : calls) {
+                call.reject("Storage operation failed: " + e.getMessage(), e);
+            }
+            runAll(done);
+            return;
+        } finally {
+            staged.reset();
+        }
+        for (PluginCall call : calls) {
+            call.resolve();
+        }
+        runAll(done);
+        try {
+            engine.compactIfNeeded();
+        } catch (IOException e) {
+            Log.w(TAG, "Storage compaction failed", e);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.os.Build;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.os.VibratorManager;
+import android.util.Base64;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.Display;
@@ -13,6 +14,7 @@ import android.view.InputDevice;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.WindowInsets;
 import android.view.WindowManager;
 import android.view.WindowMetrics;
@@ -25,12 +27,16 @@ import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
 import org.json.JSONException;
+import org.json.JSONObject;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @CapacitorPlugin(name = "Strata")
 public class StrataPlugin extends Plugin {
@@ -38,44 +44,232 @@ public class StrataPlugin extends Plugin {
     private static final String TAG = "StrataPlugin";
     private static final int MAX_INPUT_MAPPING_SIZE = 5;
     private static final int MAX_INPUT_ACTION_LENGTH = 32;
-    private static final float GAMEPAD_DEADZONE = 0.15f;
+    private static final int DEFAULT_HISTORY_CAPACITY = 256;
+    private static final int MAX_HISTORY_CAPACITY = 4096;
+    // Processed leftStick x/y, rightStick x/y, triggers left/right
+    private static final int GAMEPAD_HISTORY_CHANNELS = 6;
+    private static final String DEFAULT_STORAGE_NAMESPACE = "strata";
+    private static final String STORAGE_LOG_PATH = "strata/storage.log";
+    private static final String BLOB_DIR = "strata/blobs";
+    // Background lane size: enough to overlap a slow system call with another
+    private static final int BACKGROUND_THREADS = 2;
+    private static final int BACKGROUND_QUEUE_CAPACITY = 64;
+    // Bounds the waveform a single triggerHaptics call can compile
+    private static final int MAX_HAPTIC_PULSES = 64;
+    private static final int MAX_PERFORMANCE_TIERS = 8;
+    // Order defines the bit index of each action in the input buffer button bitfield
+    private static final String[] INPUT_ACTIONS = {
+        "moveForward", "moveBackward", "moveLeft", "moveRight",
+        "jump", "action", "cancel"
+    };
+    // Gamepad buttons bound under every mapping, matching the iOS and web defaults
+    private static final Map<String, Integer> GAMEPAD_BUTTON_DEFAULTS = new HashMap<>();
+    static {
+        GAMEPAD_BUTTON_DEFAULTS.put("jump", KeyEvent.KEYCODE_BUTTON_A);
+        GAMEPAD_BUTTON_DEFAULTS.put("action", KeyEvent.KEYCODE_BUTTON_B);
+        GAMEPAD_BUTTON_DEFAULTS.put("cancel", KeyEvent.KEYCODE_BUTTON_X);
+    }
+    // Indexed by the InputBufferChannel.PHASE_* codes
+    private static final String[] TOUCH_PHASES = { "began", "moved", "ended", "cancelled" };
 
-    /**
-     * Immutable snapshot of gamepad axis values.
-     * By extracting values immediately and storing them in an immutable object,
-     * we avoid race conditions with MotionEvent recycling.
-     */
-    private static final class GamepadState {
-        final float leftStickX;
-        final float leftStickY;
-        final float rightStickX;
-        final float rightStickY;
-        final float leftTrigger;
-        final float rightTrigger;
+    private Map<String, List<String>> inputMapping = new HashMap<>();
+    // inputMapping compiled into a keycode lookup table; replaced wholesale on remap
+    private volatile KeyActionTable keyActions;
+    // Held keys from keyboards and other non-gamepad sources
+    private final KeyActionTable.State keyboardKeys = new KeyActionTable.State();
+    // Per-controller sticks, triggers and buttons keyed by InputDevice id. Axis values
+    // are copied out of the MotionEvent immediately, so event recycling is harmless.
+    private final GamepadSlots gamepads = new GamepadSlots();
+    // Scratch frames: UI thread (publishing to the input buffer) and plugin thread
+    private final InputFrame publishFrame = new InputFrame();
+    private final InputFrame slotFrame = new InputFrame();
+    // Touch events come from the UI thread while plugin methods run on the plugin
+    // thread; the tracker keeps primitive slots and publishes them with a seqlock
+    private final TouchTracker touchTracker = new TouchTracker();
+    // Optional ring buffers of batched MotionEvent samples; null while disabled
+    private volatile SampleHistory touchHistory = null;
+    private volatile SampleHistory gamepadHistory = null;
+    // Read cursors and scratch for "samples since last read", plugin thread only
+    private long touchHistoryCursor = 0;
+    private long gamepadHistoryCursor = 0;
+    private SampleHistory.Batch touchHistoryBatch;
+    private SampleHistory.Batch gamepadHistoryBatch;
+    // UI thread scratch for processing and recording gamepad samples
+    private final float[] gamepadSample = new float[GAMEPAD_HISTORY_CHANNELS];
+    // Deadzones, curves and filters applied to gamepad axes before they are stored
+    private final AxisProcessor axisProcessor = new AxisProcessor(new AxisProcessorHost());
+    // Timeline for all vibration; null until load() finds the vibrator service
+    private HapticScheduler haptics;
+    // Last built device profile, never mutated once published. Rebuilt only when
+    // the configuration, window insets or connected input devices change
+    private volatile JSObject deviceProfile;
+    private final Object deviceProfileLock = new Object();
+    // Fixed for the process lifetime, so resolved once in load()
+    private boolean foldableDevice;
+    private boolean touchScreen;
+    // Empty child of the decor view that only observes inset dispatches, leaving the
+    // decor view's listener slot to the app and the WebView's inset handling intact
+    private View insetsProbe;
+    // Selected controller device ID for multi-controller support; it alone drives
+    // the single-player snapshot. -1 means use the first controller with input
+    private volatile int selectedControllerDeviceId = -1;
+    // Opt-in binary input channel read synchronously by JS, bypassing the bridge
+    private final InputBufferChannel inputBuffer = new InputBufferChannel();
+    // Coalesced push stream for inputChange/inputDelta listeners
+    private final InputEventStream inputStream = new InputEventStream(new InputStreamHost());
+    // Scratch frame for getInputSnapshot; plugin methods run serially on the plugin thread
+    private final InputFrame snapshotFrame = new InputFrame();
+    // Opt-in once-per-vsync copy of the input state that getInputSnapshot reads from
+    private final FrameLatch frameLatch = new FrameLatch(this::captureInputFrame);
+    // Opt-in unbuffered delivery, and arrival latency of every live touch and gamepad event
+    private final LowLatencyDispatch dispatch = new LowLatencyDispatch();
+    // Opt-in tap, pan, swipe and pinch events recognized from every touch sample
+    private final GestureRecognizer gestures = new GestureRecognizer(new GestureHost());
+    // Opt-in extrapolation of pointers and sticks reported next to the measured values
+    private final InputPredictor predictor = new InputPredictor();
+    // Hot responses and events are sent in the WireFormat layout once JS negotiates it
+    private volatile boolean compactWire = false;
+    // Time of the last bound keyboard event, in monotonic nanoseconds
+    private volatile long keyboardTimeNanos = 0;
+    // Opt-in quality tiers from thermal, power-save and battery state
+    private final PerformanceGovernor governor =
+        new PerformanceGovernor(status -> emit(PerformanceGovernor.EVENT_TIER, status));
+    // Per-method plugin thread time and per-event send counts
+    private final PluginMetrics metrics = new PluginMetrics();
+    // Blocking system queries run here so they never hold up input calls on the plugin thread
+    private final WorkLane backgroundLane =
+        WorkLane.bounded("StrataWorker", BACKGROUND_THREADS, BACKGROUND_QUEUE_CAPACITY);
+    // Storage API, backed by a native log and created in load()
+    private StorageService storage;
+    // Binary blobs, one memory-mapped file each
+    private BlobStore blobs;
+    // Handled input streamed to a blob, and blobs fed back through the same handlers
+    private final InputRecorder recorder = new InputRecorder();
+    private final InputReplay replay = new InputReplay(new ReplayHost());
+    // Connected controllers and pointers, updated from InputManager callbacks
+    private final InputDeviceRegistry devices = new InputDeviceRegistry(new DeviceRegistryHost());
+
+    private final class InputStreamHost implements InputEventStream.Host {
+        @Override
+        public boolean hasInputListeners(String eventName) {
+            return hasListeners(eventName);
+        }
+
+        @Override
+        public void captureInputFrame(InputFrame out) {
+            StrataPlugin.this.captureInputFrame(out);
+        }
+
+        @Override
+        public JSObject buildInputSnapshot(InputFrame frame) {
+            return StrataPlugin.this.buildInputSnapshot(frame, 0);
+        }
+
+        @Override
+        public JSObject buildButtons(int buttonMask, int changedMask) {
+            return StrataPlugin.this.buildButtons(buttonMask, changedMask);
+        }
+
+        @Override
+        public JSArray buildTouches(InputFrame frame) {
+            return StrataPlugin.this.buildTouches(frame, predictionTarget(frame, 0), System.nanoTime());
+        }
+
+        @Override
+        public JSArray packTouches(InputFrame frame) {
+            return StrataPlugin.this.packTouches(frame, predictionTarget(frame, 0), System.nanoTime());
+        }
 
-        GamepadState(float leftStickX, float leftStickY, float rightStickX, float rightStickY,
-                     float leftTrigger, float rightTrigger) {
-            this.leftStickX = leftStickX;
-            this.leftStickY = leftStickY;
-            this.rightStickX = rightStickX;
-            this.rightStickY = rightStickY;
-            this.leftTrigger = leftTrigger;
-            this.rightTrigger = rightTrigger;
+        @Override
+        public void emitInputEvent(String eventName, JSObject data) {
+            emit(eventName, data);
         }
     }
 
-    private Map<String, List<String>> inputMapping = new HashMap<>();
-    // Use ConcurrentHashMap for thread safety - touch events come from UI thread,
-    // while plugin methods may run on background threads
-    private Map<Integer, JSObject> activeTouches = new ConcurrentHashMap<>();
-    private Vibrator vibrator;
-    // Store extracted gamepad axis values in an immutable snapshot to avoid
-    // race conditions with MotionEvent recycling. The volatile keyword ensures
-    // visibility of the reference, and immutability ensures safe usage.
-    private volatile GamepadState lastGamepadState = null;
-    // Selected controller device ID for multi-controller support
-    // -1 means use first available controller
-    private int selectedControllerDeviceId = -1;
+    private final class GestureHost implements GestureRecognizer.Host {
+        @Override
+        public boolean hasGestureListeners() {
+            return hasListeners(GestureRecognizer.EVENT_GESTURE);
+        }
+
+        @Override
+        public boolean compactWire() {
+            return compactWire;
+        }
+
+        @Override
+        public void emitGesture(JSObject data) {
+            emit(GestureRecognizer.EVENT_GESTURE, data);
+        }
+    }
+
+    private final class ReplayHost implements InputReplay.Host {
+        @Override
+        public void dispatchTouch(MotionEvent event) {
+            onTouchEvent(event);
+        }
+
+        @Override
+        public void dispatchGamepad(MotionEvent event) {
+            onGamepadMotionEvent(event);
+        }
+
+        @Override
+        public void dispatchKey(KeyEvent event) {
+            onKeyEvent(event);
+        }
+
+        @Override
+        public void onReplayEnded(int[] gamepadDeviceIds) {
+            // Recorded controllers that are not connected now would otherwise stay in their slots
+            for (int deviceId : gamepadDeviceIds) {
+                if (devices.indexOf(deviceId) < 0) {
+                    int slot = gamepads.slotFor(deviceId, false);
+                    if (slot >= 0) {
+                        axisProcessor.release(slot);
+                    }
+                    gamepads.release(deviceId);
+                }
+            }
+            if (inputBuffer.isEnabled()) {
+                publishPrimaryGamepad();
+            }
+            if (hasInputStreamListeners()) {
+                inputStream.markDirty();
+            }
+        }
+    }
+
+    private final class DeviceRegistryHost implements InputDeviceRegistry.Host {
+        @Override
+        public void onGamepadConnected(int index, int deviceId, String name) {
+            notifyGamepadConnected(index, name);
+        }
+
+        @Override
+        public void onGamepadDisconnected(int index, int deviceId) {
+            if (selectedControllerDeviceId == deviceId) {
+                selectedControllerDeviceId = -1;
+            }
+            int slot = gamepads.slotFor(deviceId, false);
+            if (slot >= 0) {
+                axisProcessor.release(slot);
+            }
+            gamepads.release(deviceId);
+            if (inputBuffer.isEnabled()) {
+                publishPrimaryGamepad();
+            }
+            if (hasInputStreamListeners()) {
+                inputStream.markDirty();
+            }
+            notifyGamepadDisconnected(index);
+        }
+
+        @Override
+        public void onInputCapabilitiesChanged() {
+            refreshDeviceProfile();
+        }
+    }
 
     @Override
     public void load() {
@@ -88,8 +282,14 @@ public class StrataPlugin extends Plugin {
         inputMapping.put("jump", createStringList("Space"));
         inputMapping.put("action", createStringList("KeyE", "Enter"));
         inputMapping.put("cancel", createStringList("Escape"));
+        compileInputMapping();
 
         initVibrator();
+        initInputBuffer();
+        devices.start(getContext());
+        initDeviceProfile();
+        storage = new StorageService(new File(getContext().getFilesDir(), STORAGE_LOG_PATH));
+        blobs = new BlobStore(new File(getContext().getFilesDir(), BLOB_DIR));
     }
 
     private List<String> createStringList(String... items) {
@@ -102,6 +302,7 @@ public class StrataPlugin extends Plugin {
 
     private void initVibrator() {
         Context context = getContext();
+        Vibrator vibrator = null;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             VibratorManager vibratorManager = (VibratorManager) context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
             if (vibratorManager != null) {
@@ -110,6 +311,41 @@ public class StrataPlugin extends Plugin {
         } else {
             vibrator = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
         }
+        haptics = new HapticScheduler(vibrator);
+    }
+
+    private void initInputBuffer() {
+        // Plugins load before the WebView loads its page, so the interface is
+        // injected into the first document. It returns null until enabled.
+        com.getcapacitor.Bridge bridge = getBridge();
+        if (bridge != null && bridge.getWebView() != null) {
+            bridge.getWebView().addJavascriptInterface(inputBuffer, InputBufferChannel.JS_INTERFACE_NAME);
+        }
+    }
+
+    private void initDeviceProfile() {
+        foldableDevice = isFoldableDevice();
+        touchScreen = getContext().getPackageManager().hasSystemFeature("android.hardware.touchscreen");
+        deviceProfile = buildDeviceProfile();
+
+        // Inset changes (cutouts, system bars, IME) are dispatched down from the decor view;
+        // configuration and input device changes refresh the profile through their own callbacks
+        com.getcapacitor.Bridge bridge = getBridge();
+        if (bridge != null && bridge.getActivity() != null) {
+            View decorView = bridge.getActivity().getWindow().getDecorView();
+            if (decorView instanceof ViewGroup) {
+                View probe = new View(getContext());
+                probe.setVisibility(View.INVISIBLE);
+                probe.setOnApplyWindowInsetsListener((v, insets) -> {
+                    // Root insets are already the new ones; pass these on unconsumed
+                    refreshDeviceProfile();
+                    return insets;
+                });
+                // First child, so siblings that consume insets on older versions cannot hide them
+                ((ViewGroup) decorView).addView(probe, 0, new ViewGroup.LayoutParams(0, 0));
+                insetsProbe = probe;
+            }
+        }
     }
 
     private String detectDeviceType() {
@@ -119,7 +355,7 @@ public class StrataPlugin extends Plugin {
 
         boolean isTablet = screenLayout >= Configuration.SCREENLAYOUT_SIZE_LARGE;
 
-        if (isFoldableDevice()) {
+        if (foldableDevice) {
             return "foldable";
         } else if (isTablet) {
             return "tablet";
@@ -159,33 +395,15 @@ public class StrataPlugin extends Plugin {
     }
 
     private boolean hasGameController() {
-        int[] deviceIds = InputDevice.getDeviceIds();
-        for (int deviceId : deviceIds) {
-            InputDevice device = InputDevice.getDevice(deviceId);
-            if (device != null) {
-                int sources = device.getSources();
-                if ((sources & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD ||
-                    (sources & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return devices.hasGameController();
     }
 
     private boolean hasTouchScreen() {
-        return getContext().getPackageManager().hasSystemFeature("android.hardware.touchscreen");
+        return touchScreen;
     }
 
     private boolean hasPointerDevice() {
-        int[] deviceIds = InputDevice.getDeviceIds();
-        for (int deviceId : deviceIds) {
-            InputDevice dev = InputDevice.getDevice(deviceId);
-            if (dev != null && (dev.getSources() & InputDevice.SOURCE_MOUSE) == InputDevice.SOURCE_MOUSE) {
-                return true;
-            }
-        }
-        return false;
+        return devices.hasPointerDevice();
     }
 
     private String getOrientation() {
@@ -241,18 +459,24 @@ public class StrataPlugin extends Plugin {
 
     @PluginMethod
     public void getSafeAreaInsets(PluginCall call) {
-        call.resolve(getSafeAreaInsetsInternal());
+        timed(call, "getSafeAreaInsets", () -> {
+            runInBackground(call, "getSafeAreaInsets", () -> call.resolve(getSafeAreaInsetsInternal()));
+        });
     }
 
     @PluginMethod
     public void getDeviceInfo(PluginCall call) {
-        JSObject info = new JSObject();
-        String deviceType = detectDeviceType();
-        info.put("isMobile", deviceType.equals("mobile") || deviceType.equals("tablet") || deviceType.equals("foldable"));
-        info.put("platform", "android");
-        info.put("model", Build.MODEL);
-        info.put("osVersion", Build.VERSION.RELEASE);
-        call.resolve(info);
+        timed(call, "getDeviceInfo", () -> {
+            runInBackground(call, "getDeviceInfo", () -> {
+                JSObject info = new JSObject();
+                String deviceType = detectDeviceType();
+                info.put("isMobile", deviceType.equals("mobile") || deviceType.equals("tablet") || deviceType.equals("foldable"));
+                info.put("platform", "android");
+                info.put("model", Build.MODEL);
+                info.put("osVersion", Build.VERSION.RELEASE);
+                call.resolve(info);
+            });
+        });
     }
 
     @PluginMethod
@@ -262,36 +486,209 @@ public class StrataPlugin extends Plugin {
 
     @PluginMethod
     public void setScreenOrientation(PluginCall call) {
-        String orientation = call.getString("orientation");
-        if (orientation != null) {
-            getActivity().runOnUiThread(() -> {
-                if (orientation.contains("portrait")) {
-                    getActivity().setRequestedOrientation(android.content.pm.ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
-                } else if (orientation.contains("landscape")) {
-                    getActivity().setRequestedOrientation(android.content.pm.ActivityInfo.SCREEN_ORIENTATION_LANDSCAPE);
-                } else if (orientation.equals("any")) {
-                    getActivity().setRequestedOrientation(android.content.pm.ActivityInfo.SCREEN_ORIENTATION_UNSPECIFIED);
+        timed(call, "setScreenOrientation", () -> {
+            String orientation = call.getString("orientation");
+            if (orientation != null) {
+                getActivity().runOnUiThread(() -> {
+                    if (orientation.contains("portrait")) {
+                        getActivity().setRequestedOrientation(android.content.pm.ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
+                    } else if (orientation.contains("landscape")) {
+                        getActivity().setRequestedOrientation(android.content.pm.ActivityInfo.SCREEN_ORIENTATION_LANDSCAPE);
+                    } else if (orientation.equals("any")) {
+                        getActivity().setRequestedOrientation(android.content.pm.ActivityInfo.SCREEN_ORIENTATION_UNSPECIFIED);
+                    }
+                });
+            }
+            call.resolve();
+        });
+    }
+
+    @PluginMethod
+    public void getPerformanceMode(PluginCall call) {
+        timed(call, "getPerformanceMode", () -> {
+            runInBackground(call, "getPerformanceMode", () -> {
+                JSObject result = new JSObject();
+                boolean isPowerSaveMode = false;
+                android.os.PowerManager powerManager = (android.os.PowerManager) getContext().getSystemService(Context.POWER_SERVICE);
+                if (powerManager != null) {
+                    isPowerSaveMode = powerManager.isPowerSaveMode();
+                }
+                result.put("enabled", !isPowerSaveMode);
+                JSObject tier = governor.status();
+                if (tier != null) {
+                    Iterator<String> keys = tier.keys();
+                    while (keys.hasNext()) {
+                        String key = keys.next();
+                        result.put(key, tier.opt(key));
+                    }
                 }
+                call.resolve(result);
             });
-        }
-        call.resolve();
+        });
     }
 
+    /**
+     * Starts or stops the performance governor, which sends performanceTier
+     * events with a recommended frame rate and render scale.
+     */
     @PluginMethod
-    public void getPerformanceMode(PluginCall call) {
-        JSObject result = new JSObject();
-        boolean isPowerSaveMode = false;
-        android.os.PowerManager powerManager = (android.os.PowerManager) getContext().getSystemService(Context.POWER_SERVICE);
-        if (powerManager != null) {
-            isPowerSaveMode = powerManager.isPowerSaveMode();
-        }
-        result.put("enabled", !isPowerSaveMode);
-        call.resolve(result);
+    public void configurePerformanceGovernor(PluginCall call) {
+        timed(call, "configurePerformanceGovernor", () -> {
+            boolean enabled = call.getBoolean("enabled", true);
+            if (!enabled) {
+                governor.stop();
+                JSObject result = new JSObject();
+                result.put("enabled", false);
+                call.resolve(result);
+                return;
+            }
+            PerformanceGovernor.Tier[] tiers = PerformanceGovernor.DEFAULT_TIERS;
+            JSArray tierArray = call.getArray("tiers");
+            if (tierArray != null) {
+                if (tierArray.length() == 0 || tierArray.length() > MAX_PERFORMANCE_TIERS) {
+                    call.reject("tiers must have 1 to " + MAX_PERFORMANCE_TIERS + " entries");
+                    return;
+                }
+                tiers = new PerformanceGovernor.Tier[tierArray.length()];
+                for (int i = 0; i < tiers.length; i++) {
+                    JSONObject item = tierArray.optJSONObject(i);
+                    int targetFps = item != null ? item.optInt("targetFps", 0) : 0;
+                    double renderScale = item != null ? item.optDouble("renderScale", 0) : 0;
+                    if (targetFps <= 0 || !(renderScale > 0 && renderScale <= 1)) {
+                        call.reject("Each tier needs targetFps > 0 and 0 < renderScale <= 1");
+                        return;
+                    }
+                    tiers[i] = new PerformanceGovernor.Tier(targetFps, (float) renderScale);
+                }
+            }
+            long pollMs = call.getInt("pollIntervalMs", (int) PerformanceGovernor.DEFAULT_POLL_MS);
+            long cooldownMs = call.getInt("cooldownMs", (int) PerformanceGovernor.DEFAULT_COOLDOWN_MS);
+            governor.start(getContext(), pollMs, Math.max(0, cooldownMs), tiers);
+
+            JSObject result = new JSObject();
+            result.put("enabled", true);
+            call.resolve(result);
+        });
     }
 
     @PluginMethod
     public void configureTouchHandling(PluginCall call) {
-        call.resolve();
+        timed(call, "configureTouchHandling", () -> {
+            call.resolve();
+        });
+    }
+
+    /**
+     * Queue depth, wait and run times for the background, storage and blob lanes.
+     */
+    @PluginMethod
+    public void getThreadingMetrics(PluginCall call) {
+        timed(call, "getThreadingMetrics", () -> {
+            JSObject result = new JSObject();
+            result.put("lanes", buildLaneMetrics());
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Call counts and plugin thread latency per method, send counts and rates
+     * per event, and the worker lane figures. {@code reset} starts a new window.
+     */
+    @PluginMethod
+    public void getPluginMetrics(PluginCall call) {
+        timed(call, "getPluginMetrics", () -> {
+            JSObject result = buildPluginMetrics();
+            if (call.getBoolean("reset", false)) {
+                metrics.reset();
+                frameLatch.resetMetrics();
+                dispatch.resetMetrics();
+            }
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Sends the getPluginMetrics result as a pluginMetrics event every
+     * {@code intervalMs}; zero stops the reports.
+     */
+    @PluginMethod
+    public void configurePluginMetrics(PluginCall call) {
+        timed(call, "configurePluginMetrics", () -> {
+            long interval = metrics.scheduleReports(call.getLong("intervalMs", 0L), () -> {
+                if (hasListeners("pluginMetrics")) {
+                    emit("pluginMetrics", buildPluginMetrics());
+                }
+            });
+            JSObject result = new JSObject();
+            result.put("intervalMs", interval);
+            call.resolve(result);
+        });
+    }
+
+    private JSObject buildPluginMetrics() {
+        JSObject result = metrics.toJSObject();
+        result.put("lanes", buildLaneMetrics());
+        result.put("frameLatch", frameLatch.metrics());
+        result.put("inputDispatch", dispatch.metrics());
+        return result;
+    }
+
+    private JSArray buildLaneMetrics() {
+        JSArray lanes = new JSArray();
+        lanes.put(backgroundLane.metrics());
+        lanes.put(storage.lane().metrics());
+        lanes.put(blobs.lane().metrics());
+        return lanes;
+    }
+
+    /**
+     * Sends an event to JS listeners, counting it in the plugin metrics.
+     */
+    private void emit(String eventName, JSObject data) {
+        metrics.recordEvent(eventName, data);
+        notifyListeners(eventName, data);
+    }
+
+    /**
+     * Runs a plugin method's body and records how long it held the plugin thread.
+     */
+    private void timed(PluginCall call, String method, Runnable body) {
+        long start = System.nanoTime();
+        try {
+            body.run();
+        } finally {
+            metrics.recordCall(method, start, call);
+        }
+    }
+
+    /**
+     * Completion hook for a call that {@code method} hands to another lane. Run
+     * once the call is settled, it records the time from now to its result.
+     */
+    private Runnable completion(String method) {
+        long start = System.nanoTime();
+        return () -> metrics.recordCompletion(method, start);
+    }
+
+    /**
+     * Runs work that may block (system services, window queries) on the
+     * background lane, keeping the plugin thread free for input calls.
+     */
+    private void runInBackground(PluginCall call, String method, Runnable task) {
+        Runnable done = completion(method);
+        boolean queued = backgroundLane.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Background call failed", e);
+                call.reject("Operation failed: " + e.getMessage(), e);
+            } finally {
+                done.run();
+            }
+        });
+        if (!queued) {
+            call.reject("Background work queue is full", "BUSY");
+        }
     }
 
     private JSObject buildDeviceProfile() {
@@ -322,237 +719,1305 @@ public class StrataPlugin extends Plugin {
 
     @PluginMethod
     public void getDeviceProfile(PluginCall call) {
-        JSObject profile = buildDeviceProfile();
-        call.resolve(profile);
+        timed(call, "getDeviceProfile", () -> {
+            JSObject profile = deviceProfile;
+            if (profile != null) {
+                call.resolve(wireProfile(profile));
+            } else {
+                runInBackground(call, "getDeviceProfile", () -> call.resolve(wireProfile(currentDeviceProfile())));
+            }
+        });
     }
 
-    @PluginMethod
-    public void getControlHints(PluginCall call) {
-        String inputMode = detectInputMode();
-        JSObject hints = new JSObject();
-
-        switch (inputMode) {
-            case "touch":
-                hints.put("movement", "Drag to move");
-                hints.put("action", "Tap to interact");
-                hints.put("camera", "Pinch to zoom");
-                break;
-            case "gamepad":
-                hints.put("movement", "Left stick to move");
-                hints.put("action", "A / X to interact");
-                hints.put("camera", "Right stick to look");
-                break;
-            case "hybrid":
-                hints.put("movement", "Touch or stick to move");
-                hints.put("action", "Tap or A to interact");
-                hints.put("camera", "Swipe or right stick");
-                break;
-            default:
-                hints.put("movement", "Drag to move");
-                hints.put("action", "Tap to interact");
-                hints.put("camera", "Pinch to zoom");
-                break;
-        }
-
-        call.resolve(hints);
+    private JSObject wireProfile(JSObject profile) {
+        return compactWire ? WireFormat.profile(profile, null) : profile;
     }
 
-    @PluginMethod
-    public void getInputSnapshot(PluginCall call) {
-        JSObject snapshot = new JSObject();
-
-        JSObject leftStick = new JSObject();
-        leftStick.put("x", 0.0f);
-        leftStick.put("y", 0.0f);
-
-        JSObject rightStick = new JSObject();
-        rightStick.put("x", 0.0f);
-        rightStick.put("y", 0.0f);
-
-        JSObject buttons = new JSObject();
-        buttons.put("jump", false);
-        buttons.put("action", false);
-        buttons.put("cancel", false);
-
-        JSObject triggers = new JSObject();
-        triggers.put("left", 0.0f);
-        triggers.put("right", 0.0f);
-
-        GamepadState gamepadState = lastGamepadState;
-        if (gamepadState != null) {
-            if (Math.abs(gamepadState.leftStickX) > GAMEPAD_DEADZONE) {
-                leftStick.put("x", gamepadState.leftStickX);
-            }
-            if (Math.abs(gamepadState.leftStickY) > GAMEPAD_DEADZONE) {
-                leftStick.put("y", -gamepadState.leftStickY);
+    private JSObject currentDeviceProfile() {
+        JSObject profile = deviceProfile;
+        if (profile == null) {
+            synchronized (deviceProfileLock) {
+                if (deviceProfile == null) {
+                    deviceProfile = buildDeviceProfile();
+                }
+                profile = deviceProfile;
             }
+        }
+        return profile;
+    }
 
-            if (Math.abs(gamepadState.rightStickX) > GAMEPAD_DEADZONE) {
-                rightStick.put("x", gamepadState.rightStickX);
+    /**
+     * Rebuilds the cached profile and sends deviceChange with the names of the
+     * fields that differ. Nothing is sent when the profile is unchanged.
+     */
+    private void refreshDeviceProfile() {
+        JSArray changed = new JSArray();
+        JSObject next;
+        synchronized (deviceProfileLock) {
+            JSObject previous = deviceProfile;
+            next = buildDeviceProfile();
+            Iterator<String> keys = next.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Object before = previous != null ? previous.opt(key) : null;
+                if (before == null || !before.toString().equals(String.valueOf(next.opt(key)))) {
+                    changed.put(key);
+                }
             }
-            if (Math.abs(gamepadState.rightStickY) > GAMEPAD_DEADZONE) {
-                rightStick.put("y", -gamepadState.rightStickY);
+            if (changed.length() == 0) {
+                return;
             }
-
-            triggers.put("left", gamepadState.leftTrigger);
-            triggers.put("right", gamepadState.rightTrigger);
+            deviceProfile = next;
         }
 
-        JSArray touchesArray = new JSArray();
-        for (Map.Entry<Integer, JSObject> entry : activeTouches.entrySet()) {
-            JSObject touchData = new JSObject();
-            touchData.put("id", entry.getKey());
-            try {
-                touchData.put("position", entry.getValue().get("position"));
-                touchData.put("phase", entry.getValue().getString("phase"));
-            } catch (JSONException e) {
-                Log.w(TAG, "Error reading touch data", e);
-            }
-            touchesArray.put(touchData);
+        if (compactWire) {
+            emit("deviceChange", WireFormat.profile(next, changed));
+            return;
         }
+        JSObject event = new JSObject();
+        Iterator<String> keys = next.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            event.put(key, next.opt(key));
+        }
+        event.put("changed", changed);
+        emit("deviceChange", event);
+    }
 
-        snapshot.put("timestamp", System.currentTimeMillis());
-        snapshot.put("leftStick", leftStick);
-        snapshot.put("rightStick", rightStick);
-        snapshot.put("buttons", buttons);
-        snapshot.put("triggers", triggers);
-        snapshot.put("touches", touchesArray);
-
-        call.resolve(snapshot);
+    @Override
+    protected void handleOnConfigurationChanged(Configuration newConfig) {
+        super.handleOnConfigurationChanged(newConfig);
+        refreshDeviceProfile();
     }
 
     @PluginMethod
-    public void setInputMapping(PluginCall call) {
-        String[] actions = {
-            "moveForward", "moveBackward", "moveLeft", "moveRight",
-            "jump", "action", "cancel"
-        };
-
-        try {
-            for (String action : actions) {
-                JSArray mapping = call.getArray(action);
-                if (mapping != null) {
-                    inputMapping.put(action, jsArrayToStringList(mapping));
-                }
+    public void getControlHints(PluginCall call) {
+        timed(call, "getControlHints", () -> {
+            String inputMode = detectInputMode();
+            JSObject hints = new JSObject();
+
+            switch (inputMode) {
+                case "touch":
+                    hints.put("movement", "Drag to move");
+                    hints.put("action", "Tap to interact");
+                    hints.put("camera", "Pinch to zoom");
+                    break;
+                case "gamepad":
+                    hints.put("movement", "Left stick to move");
+                    hints.put("action", "A / X to interact");
+                    hints.put("camera", "Right stick to look");
+                    break;
+                case "hybrid":
+                    hints.put("movement", "Touch or stick to move");
+                    hints.put("action", "Tap or A to interact");
+                    hints.put("camera", "Swipe or right stick");
+                    break;
+                default:
+                    hints.put("movement", "Drag to move");
+                    hints.put("action", "Tap to interact");
+                    hints.put("camera", "Pinch to zoom");
+                    break;
             }
-        } catch (JSONException e) {
-            Log.w(TAG, "Error setting input mapping", e);
-        }
 
-        call.resolve();
+            call.resolve(hints);
+        });
     }
 
-    private List<String> jsArrayToStringList(JSArray array) throws JSONException {
-        List<String> list = new ArrayList<>();
-        int length = Math.min(array.length(), MAX_INPUT_MAPPING_SIZE);
-        for (int i = 0; i < length; i++) {
-            String val = array.getString(i);
-            if (val != null && val.length() < MAX_INPUT_ACTION_LENGTH) {
-                list.add(val);
+    @PluginMethod
+    public void getInputSnapshot(PluginCall call) {
+        timed(call, "getInputSnapshot", () -> {
+            if (!frameLatch.read(snapshotFrame)) {
+                captureInputFrame(snapshotFrame);
             }
-        }
-        return list;
+            JSObject snapshot = buildInputSnapshot(snapshotFrame, call.getLong("predictionTimeNanos", 0L));
+            if (call.getBoolean("includeHistory", false)) {
+                snapshot.put("history", buildInputHistory());
+            }
+            call.resolve(snapshot);
+        });
     }
 
+    /**
+     * While enabled, input is latched once per display frame and
+     * getInputSnapshot returns the latest frame's state with its frame number
+     * and vsync time, instead of reading the live state mid-frame.
+     */
     @PluginMethod
-    public void selectController(PluginCall call) {
-        int index = call.getInt("index", 0);
-        List<InputDevice> controllers = getGameControllers();
-
-        JSObject result = new JSObject();
-        if (index >= 0 && index < controllers.size()) {
-            InputDevice device = controllers.get(index);
-            selectedControllerDeviceId = device.getId();
-            result.put("success", true);
-            result.put("selectedIndex", index);
-            result.put("controllerId", device.getName());
-        } else if (controllers.isEmpty()) {
-            selectedControllerDeviceId = -1;
-            result.put("success", false);
-            result.put("error", "No controllers connected");
-        } else {
-            result.put("success", false);
-            result.put("error", "Controller index " + index + " out of range. Available: 0-" + (controllers.size() - 1));
-        }
-        call.resolve(result);
+    public void setFrameLatchingEnabled(PluginCall call) {
+        timed(call, "setFrameLatchingEnabled", () -> {
+            boolean enabled = call.getBoolean("enabled", true);
+            frameLatch.setEnabled(enabled);
+
+            JSObject result = new JSObject();
+            result.put("enabled", enabled);
+            call.resolve(result);
+        });
     }
 
+    /**
+     * Asks for touch and gamepad events to be delivered as they arrive rather
+     * than batched to the next vsync. Gamepads need API 30; below that only
+     * touches are unbuffered, one gesture at a time. Resolves with the
+     * sources that are unbuffered.
+     */
     @PluginMethod
-    public void getConnectedControllers(PluginCall call) {
-        List<InputDevice> controllers = getGameControllers();
-        JSArray controllersArray = new JSArray();
+    public void setLowLatencyInput(PluginCall call) {
+        timed(call, "setLowLatencyInput", () -> {
+            boolean enabled = call.getBoolean("enabled", true);
+            boolean touch = call.getBoolean("touch", true);
+            boolean gamepad = call.getBoolean("gamepad", true);
+            com.getcapacitor.Bridge bridge = getBridge();
+            View view = bridge != null ? bridge.getWebView() : null;
+            dispatch.setEnabled(view, enabled, touch, gamepad);
+
+            JSObject result = new JSObject();
+            result.put("enabled", enabled);
+            result.put("touch", dispatch.isTouchUnbuffered());
+            result.put("gamepad", dispatch.isGamepadUnbuffered());
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Starts or stops gesture recognition. Thresholds are in pixels and
+     * default to the platform's usual values at the display density.
+     */
+    @PluginMethod
+    public void setGesturesEnabled(PluginCall call) {
+        timed(call, "setGesturesEnabled", () -> {
+            boolean enabled = call.getBoolean("enabled", true);
+            float density = getContext() != null ? getContext().getResources().getDisplayMetrics().density : 1;
+            float slop = call.getFloat("slop", GestureRecognizer.DEFAULT_SLOP_DP * density);
+            float swipeVelocity = call.getFloat("swipeVelocity", GestureRecognizer.DEFAULT_SWIPE_VELOCITY_DP * density);
+            int tapTimeoutMs = call.getInt("tapTimeoutMs", (int) GestureRecognizer.DEFAULT_TAP_TIMEOUT_MS);
+            gestures.setEnabled(enabled, Math.max(0, slop), Math.max(0, swipeVelocity), Math.max(0, tapTimeoutMs));
+
+            JSObject result = new JSObject();
+            result.put("enabled", enabled);
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * While enabled, snapshots report each touch and stick extrapolated to a
+     * target time next to the measured values.
+     */
+    @PluginMethod
+    public void configureInputPrediction(PluginCall call) {
+        timed(call, "configureInputPrediction", () -> {
+            boolean enabled = call.getBoolean("enabled", true);
+            float lookAheadMs = call.getFloat("lookAheadMs", InputPredictor.DEFAULT_LOOK_AHEAD_MS);
+            float maxPredictionMs = call.getFloat("maxPredictionMs", InputPredictor.DEFAULT_MAX_PREDICTION_MS);
+            float smoothingMs = call.getFloat("smoothingMs", InputPredictor.DEFAULT_SMOOTHING_MS);
+            predictor.configure(enabled, lookAheadMs, Math.max(0, maxPredictionMs), Math.max(0, smoothingMs));
+
+            JSObject result = new JSObject();
+            result.put("enabled", enabled);
+            call.resolve(result);
+        });
+    }
 
-        int selectedIndex = 0;
-        for (int i = 0; i < controllers.size(); i++) {
-            InputDevice device = controllers.get(i);
-            JSObject controller = new JSObject();
-            controller.put("index", i);
-            controller.put("id", device.getName());
-            boolean isSelected = (selectedControllerDeviceId == -1 && i == 0) ||
-                                 (selectedControllerDeviceId == device.getId());
-            controller.put("isSelected", isSelected);
-            controller.put("hasExtendedGamepad", true);
-            controller.put("hasMicroGamepad", false);
-            controllersArray.put(controller);
+    @PluginMethod
+    public void configureInputHistory(PluginCall call) {
+        timed(call, "configureInputHistory", () -> {
+            boolean enabled = call.getBoolean("enabled", true);
+            int capacity = Math.max(16, Math.min(MAX_HISTORY_CAPACITY, call.getInt("capacity", DEFAULT_HISTORY_CAPACITY)));
+
+            if (enabled) {
+                touchHistory = new SampleHistory(capacity, 2);
+                gamepadHistory = new SampleHistory(capacity, GAMEPAD_HISTORY_CHANNELS);
+            } else {
+                touchHistory = null;
+                gamepadHistory = null;
+            }
+            touchHistoryCursor = 0;
+            gamepadHistoryCursor = 0;
+
+            JSObject result = new JSObject();
+            result.put("enabled", enabled);
+            result.put("capacity", enabled ? capacity : 0);
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Drains every sample recorded since the previous read, grouped by pointer or device.
+     * Sample arrays are flat: [time, x, y, time, x, y, ...] for touches and
+     * [time, lx, ly, rx, ry, lt, rt, ...] for gamepads, with times in uptime milliseconds.
+     */
+    private JSObject buildInputHistory() {
+        JSObject history = new JSObject();
+        long dropped = 0;
+
+        SampleHistory touches = touchHistory;
+        if (touches != null) {
+            if (touchHistoryBatch == null || !touchHistoryBatch.fits(touches)) {
+                touchHistoryBatch = new SampleHistory.Batch(touches);
+            }
+            touchHistoryCursor = touches.readSince(touchHistoryCursor, touchHistoryBatch);
+            history.put("touches", groupSamples(touchHistoryBatch, "id"));
+            dropped += touchHistoryBatch.dropped;
+        }
 
-            if (isSelected) {
-                selectedIndex = i;
+        SampleHistory gamepad = gamepadHistory;
+        if (gamepad != null) {
+            if (gamepadHistoryBatch == null || !gamepadHistoryBatch.fits(gamepad)) {
+                gamepadHistoryBatch = new SampleHistory.Batch(gamepad);
             }
+            gamepadHistoryCursor = gamepad.readSince(gamepadHistoryCursor, gamepadHistoryBatch);
+            history.put("gamepads", groupSamples(gamepadHistoryBatch, "deviceId"));
+            dropped += gamepadHistoryBatch.dropped;
         }
 
-        JSObject result = new JSObject();
-        result.put("controllers", controllersArray);
-        result.put("selectedIndex", selectedIndex);
-        call.resolve(result);
+        history.put("enabled", touches != null || gamepad != null);
+        history.put("dropped", dropped);
+        return history;
     }
 
-    private List<InputDevice> getGameControllers() {
-        List<InputDevice> controllers = new ArrayList<>();
-        int[] deviceIds = InputDevice.getDeviceIds();
-        for (int deviceId : deviceIds) {
-            InputDevice device = InputDevice.getDevice(deviceId);
-            if (device != null) {
-                int sources = device.getSources();
-                if ((sources & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD ||
-                    (sources & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK) {
-                    controllers.add(device);
+    private JSArray groupSamples(SampleHistory.Batch batch, String tagName) {
+        JSArray groups = new JSArray();
+        List<Integer> groupTags = new ArrayList<>();
+        List<JSArray> groupSamples = new ArrayList<>();
+        for (int i = 0; i < batch.count; i++) {
+            int tag = batch.tags[i];
+            int group = groupTags.indexOf(tag);
+            if (group < 0) {
+                group = groupTags.size();
+                groupTags.add(tag);
+                groupSamples.add(new JSArray());
+            }
+            JSArray samples = groupSamples.get(group);
+            samples.put(batch.times[i]);
+            try {
+                for (int c = 0; c < batch.channels; c++) {
+                    samples.put((double) batch.values[i * batch.channels + c]);
                 }
+            } catch (JSONException e) {
+                Log.w(TAG, "Error encoding input history sample", e);
             }
         }
-        return controllers;
+        for (int g = 0; g < groupTags.size(); g++) {
+            JSObject entry = new JSObject();
+            entry.put(tagName, groupTags.get(g));
+            entry.put("samples", groupSamples.get(g));
+            groups.put(entry);
+        }
+        return groups;
+    }
+
+    /**
+     * Registers an event listener. Deltas sent before a new {@code inputDelta}
+     * listener was added never reached it, so the next one carries every field.
+     */
+    @Override
+    @PluginMethod(returnType = PluginMethod.RETURN_NONE)
+    public void addListener(PluginCall call) {
+        super.addListener(call);
+        if (InputEventStream.EVENT_DELTA.equals(call.getString("eventName"))) {
+            inputStream.resetBaseline();
+            inputStream.markDirty();
+        }
     }
 
     @PluginMethod
-    public void triggerHaptics(PluginCall call) {
-        if (vibrator == null || !vibrator.hasVibrator()) {
+    public void configureInputEvents(PluginCall call) {
+        timed(call, "configureInputEvents", () -> {
+            long minIntervalMs = call.getInt("minIntervalMs", 0);
+            float axisEpsilon = call.getFloat("axisEpsilon", 0.0f);
+            inputStream.configure(minIntervalMs, axisEpsilon);
+            // Next emission carries every field so new listeners can start from it
+            inputStream.resetBaseline();
+            inputStream.markDirty();
             call.resolve();
-            return;
-        }
+        });
+    }
 
-        JSArray patternArray = call.getArray("pattern");
-        if (patternArray != null && patternArray.length() > 0) {
-            try {
-                long[] pattern = new long[patternArray.length()];
-                for (int i = 0; i < patternArray.length(); i++) {
-                    pattern[i] = patternArray.getLong(i);
-                }
+    /**
+     * Negotiates the encoding of the hot responses and events. Compact is
+     * only used when the caller decodes this native's {@link WireFormat}
+     * version; otherwise everything stays keyed. Resolves with the format in
+     * use and the native version.
+     */
+    @PluginMethod
+    public void setWireFormat(PluginCall call) {
+        timed(call, "setWireFormat", () -> {
+            boolean compact = WireFormat.COMPACT.equals(call.getString("format", WireFormat.KEYED))
+                && call.getInt("version", 0) == WireFormat.VERSION;
+            if (compact != compactWire) {
+                compactWire = compact;
+                inputStream.setCompact(compact);
+                inputStream.markDirty();
+            }
 
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    vibrator.vibrate(VibrationEffect.createWaveform(pattern, -1));
-                } else {
-                    vibrator.vibrate(pattern, -1);
+            JSObject result = new JSObject();
+            result.put("format", compact ? WireFormat.COMPACT : WireFormat.KEYED);
+            result.put("version", WireFormat.VERSION);
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Replaces the deadzone, curve and filter settings of the groups present
+     * in the call. Omitted groups keep their settings.
+     */
+    @PluginMethod
+    public void setAxisProcessing(PluginCall call) {
+        timed(call, "setAxisProcessing", () -> {
+            AxisProcessor.Profile[] parsed = new AxisProcessor.Profile[AxisProcessor.GROUP_NAMES.length];
+            try {
+                for (int group = 0; group < parsed.length; group++) {
+                    String name = AxisProcessor.GROUP_NAMES[group];
+                    JSObject options = call.getObject(name);
+                    if (options != null) {
+                        float deadzone = group == AxisProcessor.GROUP_TRIGGERS
+                            ? 0 : AxisProcessor.DEFAULT_STICK_DEADZONE;
+                        parsed[group] = AxisProcessor.Profile.parse(name, options, deadzone);
+                    }
                 }
-                call.resolve();
+            } catch (IllegalArgumentException e) {
+                call.reject(e.getMessage());
                 return;
-            } catch (JSONException e) {
-                Log.w(TAG, "Error parsing haptic pattern array", e);
             }
-        }
+            // Applied only once every group parsed, so a rejected call changes nothing
+            for (int group = 0; group < parsed.length; group++) {
+                if (parsed[group] != null) {
+                    axisProcessor.setProfile(group, parsed[group]);
+                }
+            }
+            call.resolve();
+        });
+    }
 
-        int amplitude;
-        Double customIntensity = call.getDouble("customIntensity");
+    private boolean hasInputStreamListeners() {
+        return hasListeners(InputEventStream.EVENT_SNAPSHOT) || hasListeners(InputEventStream.EVENT_DELTA);
+    }
 
-        if (customIntensity != null) {
+    private void captureInputFrame(InputFrame out) {
+        out.clear();
+        int slot = primaryGamepadSlot();
+        if (slot >= 0) {
+            gamepads.read(slot, out);
+            out.gamepadSlot = slot;
+        }
+        out.buttonMask |= keyboardKeys.buttonMask();
+        out.inputTimeNanos = Math.max(out.inputTimeNanos, keyboardTimeNanos);
+        touchTracker.read(out);
+    }
+
+    /**
+     * Slot of the selected controller, or of the first controller with input if none is selected.
+     */
+    private int primaryGamepadSlot() {
+        int selected = selectedControllerDeviceId;
+        return selected == -1 ? gamepads.firstOccupied() : gamepads.slotFor(selected, false);
+    }
+
+    /**
+     * Time that predictions in a snapshot of {@code frame} extrapolate to, or 0 while prediction is off.
+     *
+     * @param requestedNanos target asked for by the caller, or 0 for the default
+     */
+    private long predictionTarget(InputFrame frame, long requestedNanos) {
+        if (!predictor.isEnabled()) {
+            return 0;
+        }
+        return requestedNanos > 0 ? requestedNanos : predictor.defaultTarget(frame.frameTimeNanos, System.nanoTime());
+    }
+
+    /**
+     * @param predictionNanos prediction target asked for by the caller, or 0 for the default
+     */
+    private JSObject buildInputSnapshot(InputFrame frame, long predictionNanos) {
+        long target = predictionTarget(frame, predictionNanos);
+        long now = System.nanoTime();
+        if (compactWire) {
+            return WireFormat.snapshot(frame, System.currentTimeMillis(), packTouches(frame, target, now), target,
+                target != 0 ? predictSticks(frame, target, now) : null);
+        }
+        JSObject snapshot = new JSObject();
+
+        JSObject leftStick = new JSObject();
+        leftStick.put("x", frame.leftStickX);
+        leftStick.put("y", frame.leftStickY);
+
+        JSObject rightStick = new JSObject();
+        rightStick.put("x", frame.rightStickX);
+        rightStick.put("y", frame.rightStickY);
+
+        JSObject triggers = new JSObject();
+        triggers.put("left", frame.leftTrigger);
+        triggers.put("right", frame.rightTrigger);
+
+        snapshot.put("timestamp", System.currentTimeMillis());
+        snapshot.put("inputTimeNanos", frame.inputTimeNanos);
+        if (frame.frameNumber > 0) {
+            snapshot.put("frame", frame.frameNumber);
+        }
+        if (frame.frameTimeNanos != 0) {
+            snapshot.put("frameTimeNanos", frame.frameTimeNanos);
+        }
+        snapshot.put("leftStick", leftStick);
+        snapshot.put("rightStick", rightStick);
+        snapshot.put("buttons", buildButtons(frame.buttonMask, -1));
+        snapshot.put("buttonMask", frame.buttonMask);
+        snapshot.put("triggers", triggers);
+        snapshot.put("touches", buildTouches(frame, target, now));
+        if (target != 0) {
+            snapshot.put("predictionTimeNanos", target);
+            float[] sticks = predictSticks(frame, target, now);
+            JSObject predictedLeft = new JSObject();
+            predictedLeft.put("x", sticks[0]);
+            predictedLeft.put("y", sticks[1]);
+            JSObject predictedRight = new JSObject();
+            predictedRight.put("x", sticks[2]);
+            predictedRight.put("y", sticks[3]);
+            snapshot.put("predictedLeftStick", predictedLeft);
+            snapshot.put("predictedRightStick", predictedRight);
+        }
+        return snapshot;
+    }
+
+    /**
+     * The frame's sticks extrapolated to {@code targetNanos}: left x and y, then right x and y.
+     */
+    private float[] predictSticks(InputFrame frame, long targetNanos, long nowNanos) {
+        float[] sticks = { frame.leftStickX, frame.leftStickY, frame.rightStickX, frame.rightStickY };
+        if (frame.gamepadSlot >= 0) {
+            predictor.predictSticks(frame.gamepadSlot, targetNanos, nowNanos, sticks);
+        }
+        return sticks;
+    }
+
+    /**
+     * Builds the buttons object for the actions whose bit is set in {@code changedMask}.
+     */
+    private JSObject buildButtons(int buttonMask, int changedMask) {
+        JSObject buttons = new JSObject();
+        for (int i = 0; i < INPUT_ACTIONS.length; i++) {
+            int bit = 1 << i;
+            if ((changedMask & bit) != 0) {
+                buttons.put(INPUT_ACTIONS[i], (buttonMask & bit) != 0);
+            }
+        }
+        return buttons;
+    }
+
+    /**
+     * @param predictionNanos time to extrapolate each touch to, or 0 for no prediction
+     */
+    private JSArray buildTouches(InputFrame frame, long predictionNanos, long nowNanos) {
+        JSArray touchesArray = new JSArray();
+        float[] predicted = new float[2];
+        for (int i = 0; i < frame.touchCount; i++) {
+            JSObject position = new JSObject();
+            position.put("x", frame.touchX[i]);
+            position.put("y", frame.touchY[i]);
+            JSObject touchData = new JSObject();
+            touchData.put("id", frame.touchIds[i]);
+            touchData.put("position", position);
+            touchData.put("phase", TOUCH_PHASES[frame.touchPhases[i]]);
+            if (predictionNanos != 0) {
+                predicted[0] = frame.touchX[i];
+                predicted[1] = frame.touchY[i];
+                predictor.predictTouch(frame.touchIds[i], predictionNanos, nowNanos, predicted);
+                JSObject predictedPosition = new JSObject();
+                predictedPosition.put("x", predicted[0]);
+                predictedPosition.put("y", predicted[1]);
+                touchData.put("predictedPosition", predictedPosition);
+            }
+            touchesArray.put(touchData);
+        }
+        return touchesArray;
+    }
+
+    /**
+     * Touches as a {@link WireFormat} table, with predicted positions when {@code predictionNanos} is set.
+     */
+    private JSArray packTouches(InputFrame frame, long predictionNanos, long nowNanos) {
+        JSArray table = WireFormat.touchTable(predictionNanos != 0);
+        float[] predicted = new float[2];
+        for (int i = 0; i < frame.touchCount; i++) {
+            WireFormat.addTouch(table, frame.touchIds[i], frame.touchX[i], frame.touchY[i], frame.touchPhases[i]);
+            if (predictionNanos != 0) {
+                predicted[0] = frame.touchX[i];
+                predicted[1] = frame.touchY[i];
+                predictor.predictTouch(frame.touchIds[i], predictionNanos, nowNanos, predicted);
+                WireFormat.putFloat(table, predicted[0]);
+                WireFormat.putFloat(table, predicted[1]);
+            }
+        }
+        return table;
+    }
+
+    @PluginMethod
+    public void setInputBufferEnabled(PluginCall call) {
+        timed(call, "setInputBufferEnabled", () -> {
+            boolean enabled = call.getBoolean("enabled", true);
+            if (enabled && !inputBuffer.isEnabled()) {
+                inputBuffer.reset();
+                captureInputFrame(snapshotFrame);
+                writeFrameAxes(snapshotFrame);
+                inputBuffer.writeButtons(snapshotFrame.buttonMask);
+                inputBuffer.writeTouches(snapshotFrame.touchCount, snapshotFrame.touchIds,
+                    snapshotFrame.touchX, snapshotFrame.touchY, snapshotFrame.touchPhases);
+            }
+            inputBuffer.setEnabled(enabled);
+
+            JSObject result = new JSObject();
+            result.put("enabled", enabled);
+            result.put("version", InputBufferChannel.VERSION);
+            result.put("byteLength", InputBufferChannel.BYTE_LENGTH);
+            result.put("interfaceName", InputBufferChannel.JS_INTERFACE_NAME);
+            call.resolve(result);
+        });
+    }
+
+    private void writeFrameAxes(InputFrame frame) {
+        inputBuffer.writeAxes(frame.leftStickX, frame.leftStickY, frame.rightStickX, frame.rightStickY,
+            frame.leftTrigger, frame.rightTrigger);
+    }
+
+    /**
+     * Publishes the primary controller and keyboard state to the input buffer. UI thread only.
+     */
+    private void publishPrimaryGamepad() {
+        publishFrame.clear();
+        int slot = primaryGamepadSlot();
+        if (slot >= 0) {
+            gamepads.read(slot, publishFrame);
+        }
+        writeFrameAxes(publishFrame);
+        inputBuffer.writeButtons(publishFrame.buttonMask | keyboardKeys.buttonMask());
+    }
+
+    /**
+     * Returns every controller's state in a single call, so local multiplayer
+     * needs one bridge round-trip per frame regardless of player count.
+     */
+    @PluginMethod
+    public void getGamepadStates(PluginCall call) {
+        timed(call, "getGamepadStates", () -> {
+            int primary = primaryGamepadSlot();
+            boolean compact = compactWire;
+            JSArray states = compact ? WireFormat.gamepadTable() : new JSArray();
+            JSArray ids = new JSArray();
+            for (int slot = 0; slot < GamepadSlots.MAX_SLOTS; slot++) {
+                slotFrame.clear();
+                int deviceId = gamepads.read(slot, slotFrame);
+                if (deviceId == -1) {
+                    continue;
+                }
+                InputDeviceRegistry.Controller controller = devices.controller(deviceId);
+                if (compact) {
+                    WireFormat.addGamepad(states, slot, deviceId, slot == primary,
+                        InputClock.toMillis(slotFrame.inputTimeNanos), slotFrame);
+                    ids.put(controller != null ? controller.name : "");
+                    continue;
+                }
+
+                JSObject leftStick = new JSObject();
+                leftStick.put("x", slotFrame.leftStickX);
+                leftStick.put("y", slotFrame.leftStickY);
+                JSObject rightStick = new JSObject();
+                rightStick.put("x", slotFrame.rightStickX);
+                rightStick.put("y", slotFrame.rightStickY);
+                JSObject triggers = new JSObject();
+                triggers.put("left", slotFrame.leftTrigger);
+                triggers.put("right", slotFrame.rightTrigger);
+
+                JSObject state = new JSObject();
+                state.put("index", slot);
+                state.put("deviceId", deviceId);
+                state.put("id", controller != null ? controller.name : "");
+                state.put("isSelected", slot == primary);
+                state.put("timestamp", InputClock.toMillis(slotFrame.inputTimeNanos));
+                state.put("leftStick", leftStick);
+                state.put("rightStick", rightStick);
+                state.put("triggers", triggers);
+                state.put("buttons", buildButtons(slotFrame.buttonMask, -1));
+                state.put("buttonMask", slotFrame.buttonMask);
+                states.put(state);
+            }
+
+            if (compact) {
+                JSArray p = new JSArray();
+                p.put(states);
+                p.put(ids);
+                call.resolve(WireFormat.packed(p));
+                return;
+            }
+            JSObject result = new JSObject();
+            result.put("gamepads", states);
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void setInputMapping(PluginCall call) {
+        timed(call, "setInputMapping", () -> {
+            try {
+                for (String action : INPUT_ACTIONS) {
+                    JSArray mapping = call.getArray(action);
+                    if (mapping != null) {
+                        inputMapping.put(action, jsArrayToStringList(mapping));
+                    }
+                }
+            } catch (JSONException e) {
+                Log.w(TAG, "Error setting input mapping", e);
+            }
+            compileInputMapping();
+
+            call.resolve();
+        });
+    }
+
+    /**
+     * Recompiles the key table. Held keys were counted against the old table,
+     * so the swap and the key state reset happen together on the UI thread,
+     * which owns that state and the input buffer's button mask.
+     */
+    private void compileInputMapping() {
+        KeyActionTable table = KeyActionTable.compile(inputMapping, INPUT_ACTIONS, GAMEPAD_BUTTON_DEFAULTS);
+        getActivity().runOnUiThread(() -> {
+            keyActions = table;
+            keyboardKeys.reset();
+            gamepads.resetKeys();
+            if (inputBuffer.isEnabled()) {
+                publishPrimaryGamepad();
+            }
+            if (hasInputStreamListeners()) {
+                inputStream.markDirty();
+            }
+        });
+    }
+
+    private List<String> jsArrayToStringList(JSArray array) throws JSONException {
+        List<String> list = new ArrayList<>();
+        int length = Math.min(array.length(), MAX_INPUT_MAPPING_SIZE);
+        for (int i = 0; i < length; i++) {
+            String val = array.getString(i);
+            if (val != null && val.length() < MAX_INPUT_ACTION_LENGTH) {
+                list.add(val);
+            }
+        }
+        return list;
+    }
+
+    @PluginMethod
+    public void selectController(PluginCall call) {
+        timed(call, "selectController", () -> {
+            int index = call.getInt("index", 0);
+            List<InputDeviceRegistry.Controller> controllers = devices.controllers();
+
+            JSObject result = new JSObject();
+            if (index >= 0 && index < controllers.size()) {
+                InputDeviceRegistry.Controller controller = controllers.get(index);
+                selectedControllerDeviceId = controller.deviceId;
+                result.put("success", true);
+                result.put("selectedIndex", index);
+                result.put("controllerId", controller.name);
+            } else if (controllers.isEmpty()) {
+                selectedControllerDeviceId = -1;
+                result.put("success", false);
+                result.put("error", "No controllers connected");
+            } else {
+                result.put("success", false);
+                result.put("error", "Controller index " + index + " out of range. Available: 0-" + (controllers.size() - 1));
+            }
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void getConnectedControllers(PluginCall call) {
+        timed(call, "getConnectedControllers", () -> {
+            List<InputDeviceRegistry.Controller> controllers = devices.controllers();
+            boolean compact = compactWire;
+            JSArray controllersArray = new JSArray();
+            JSArray ids = new JSArray();
+            JSArray flags = new JSArray();
+
+            int selectedIndex = 0;
+            for (int i = 0; i < controllers.size(); i++) {
+                InputDeviceRegistry.Controller device = controllers.get(i);
+                boolean isSelected = (selectedControllerDeviceId == -1 && i == 0) ||
+                                     (selectedControllerDeviceId == device.deviceId);
+                if (isSelected) {
+                    selectedIndex = i;
+                }
+                if (compact) {
+                    ids.put(device.name);
+                    flags.put((isSelected ? WireFormat.CONTROLLER_SELECTED : 0) | WireFormat.CONTROLLER_EXTENDED);
+                    continue;
+                }
+                JSObject controller = new JSObject();
+                controller.put("index", i);
+                controller.put("id", device.name);
+                controller.put("isSelected", isSelected);
+                controller.put("hasExtendedGamepad", true);
+                controller.put("hasMicroGamepad", false);
+                controllersArray.put(controller);
+            }
+
+            if (compact) {
+                JSArray p = new JSArray();
+                p.put(selectedIndex);
+                p.put(ids);
+                p.put(flags);
+                call.resolve(WireFormat.packed(p));
+                return;
+            }
+            JSObject result = new JSObject();
+            result.put("controllers", controllersArray);
+            result.put("selectedIndex", selectedIndex);
+            call.resolve(result);
+        });
+    }
+
+    // ============ Storage API ============
+
+    /**
+     * Values arrive already JSON-encoded by the JS layer and are stored as opaque
+     * strings, so multi-megabyte saves are never parsed on the native side.
+     */
+    @PluginMethod
+    public void setItem(PluginCall call) {
+        timed(call, "setItem", () -> {
+            String key = call.getString("key");
+            String value = call.getString("value");
+            if (key == null || value == null) {
+                call.reject("key and value are required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.write(call, completion("setItem"), batch -> batch.put(namespace, key, value));
+        });
+    }
+
+    @PluginMethod
+    public void setItems(PluginCall call) {
+        timed(call, "setItems", () -> {
+            JSObject items = call.getObject("items");
+            if (items == null) {
+                call.reject("items is required");
+                return;
+            }
+            // Validate everything first so a batch is staged whole or not at all
+            List<String> keys = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            Iterator<String> names = items.keys();
+            while (names.hasNext()) {
+                String key = names.next();
+                String value = items.getString(key);
+                if (value == null) {
+                    call.reject("Value for " + key + " must be JSON text");
+                    return;
+                }
+                keys.add(key);
+                values.add(value);
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.write(call, completion("setItems"), batch -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    batch.put(namespace, keys.get(i), values.get(i));
+                }
+            });
+        });
+    }
+
+    @PluginMethod
+    public void getItem(PluginCall call) {
+        timed(call, "getItem", () -> {
+            String key = call.getString("key");
+            if (key == null) {
+                call.reject("key is required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.read(call, completion("getItem"), store -> {
+                String value = store.get(namespace, key);
+                JSObject result = new JSObject();
+                result.put("exists", value != null);
+                result.put("value", value);
+                call.resolve(result);
+            });
+        });
+    }
+
+    @PluginMethod
+    public void getItems(PluginCall call) {
+        timed(call, "getItems", () -> {
+            List<String> keys = readStorageKeys(call);
+            if (keys == null) {
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.read(call, completion("getItems"), store -> {
+                JSObject items = new JSObject();
+                for (String key : keys) {
+                    String value = store.get(namespace, key);
+                    items.put(key, value != null ? value : JSObject.NULL);
+                }
+                JSObject result = new JSObject();
+                result.put("items", items);
+                call.resolve(result);
+            });
+        });
+    }
+
+    @PluginMethod
+    public void removeItem(PluginCall call) {
+        timed(call, "removeItem", () -> {
+            String key = call.getString("key");
+            if (key == null) {
+                call.reject("key is required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.write(call, completion("removeItem"), batch -> batch.remove(namespace, key));
+        });
+    }
+
+    @PluginMethod
+    public void removeItems(PluginCall call) {
+        timed(call, "removeItems", () -> {
+            List<String> keys = readStorageKeys(call);
+            if (keys == null) {
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.write(call, completion("removeItems"), batch -> {
+                for (String key : keys) {
+                    batch.remove(namespace, key);
+                }
+            });
+        });
+    }
+
+    @PluginMethod
+    public void keys(PluginCall call) {
+        timed(call, "keys", () -> {
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.read(call, completion("keys"), store -> {
+                JSArray keys = new JSArray();
+                for (String key : store.keys(namespace)) {
+                    keys.put(key);
+                }
+                JSObject result = new JSObject();
+                result.put("keys", keys);
+                call.resolve(result);
+            });
+        });
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        timed(call, "clear", () -> {
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            storage.write(call, completion("clear"), batch -> batch.clear(namespace));
+        });
+    }
+
+    @PluginMethod
+    public void configureStorage(PluginCall call) {
+        timed(call, "configureStorage", () -> {
+            Long flushWindowMs = call.getLong("flushWindowMs");
+            if (flushWindowMs != null) {
+                storage.setFlushWindowMs(flushWindowMs);
+            }
+            JSObject result = new JSObject();
+            result.put("flushWindowMs", storage.flushWindowMs());
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Chooses how values written to a namespace are encoded. A deflate codec
+     * may carry a preset dictionary of text typical of the namespace's saves;
+     * it is stored alongside the data, so existing values stay readable when
+     * the codec changes.
+     */
+    @PluginMethod
+    public void setStorageCodec(PluginCall call) {
+        timed(call, "setStorageCodec", () -> {
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            String compression = call.getString("compression", "none");
+            StorageCodec codec;
+            if ("deflate".equals(compression)) {
+                String dictionary = call.getString("dictionary");
+                codec = StorageCodec.deflate(call.getInt("level", 6),
+                    dictionary != null ? dictionary.getBytes(StandardCharsets.UTF_8) : null);
+            } else if ("none".equals(compression)) {
+                codec = StorageCodec.NONE;
+            } else {
+                call.reject("Unknown compression: " + compression);
+                return;
+            }
+            storage.setCodec(call, completion("setStorageCodec"), namespace, codec);
+        });
+    }
+
+    /**
+     * Reports raw and stored value bytes for one namespace, or for every
+     * namespace when none is given. Only flushed writes are counted.
+     */
+    @PluginMethod
+    public void getStorageStats(PluginCall call) {
+        timed(call, "getStorageStats", () -> {
+            String requested = call.getString("namespace");
+            storage.read(call, completion("getStorageStats"), store -> {
+                List<String> namespaces = requested != null
+                    ? Collections.singletonList(requested)
+                    : store.namespaces();
+                JSArray list = new JSArray();
+                for (String namespace : namespaces) {
+                    StorageEngine.Stats stats = store.stats(namespace);
+                    JSObject item = new JSObject();
+                    item.put("namespace", namespace);
+                    item.put("compression", store.codec(namespace).name());
+                    item.put("keys", stats.keys);
+                    item.put("rawBytes", stats.rawBytes);
+                    item.put("storedBytes", stats.storedBytes);
+                    list.put(item);
+                }
+                JSObject result = new JSObject();
+                result.put("namespaces", list);
+                call.resolve(result);
+            });
+        });
+    }
+
+    private List<String> readStorageKeys(PluginCall call) {
+        JSArray keys = call.getArray("keys");
+        if (keys == null) {
+            call.reject("keys is required");
+            return null;
+        }
+        List<String> list = new ArrayList<>();
+        try {
+            for (int i = 0; i < keys.length(); i++) {
+                list.add(keys.getString(i));
+            }
+        } catch (JSONException e) {
+            call.reject("keys must be strings", e);
+            return null;
+        }
+        return list;
+    }
+
+    // ============ Blob storage ============
+
+    /**
+     * Writes one chunk of a blob. Data crosses the bridge as base64; callers
+     * stream large blobs as a series of chunks of at most 4 MB.
+     */
+    @PluginMethod
+    public void writeBlob(PluginCall call) {
+        timed(call, "writeBlob", () -> {
+            String key = call.getString("key");
+            String data = call.getString("data");
+            if (key == null || data == null) {
+                call.reject("key and data are required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            long offset = call.getLong("offset", 0L);
+            boolean truncate = call.getBoolean("truncate", false);
+            blobs.run(call, completion("writeBlob"), store -> {
+                byte[] bytes = Base64.decode(data, Base64.DEFAULT);
+                if (bytes.length > BlobStore.MAX_CHUNK_BYTES) {
+                    call.reject("Chunks are limited to " + BlobStore.MAX_CHUNK_BYTES + " bytes");
+                    return;
+                }
+                JSObject result = new JSObject();
+                result.put("size", store.write(namespace, key, offset, bytes, truncate));
+                call.resolve(result);
+            });
+        });
+    }
+
+    @PluginMethod
+    public void readBlob(PluginCall call) {
+        timed(call, "readBlob", () -> {
+            String key = call.getString("key");
+            if (key == null) {
+                call.reject("key is required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            long offset = call.getLong("offset", 0L);
+            int length = Math.min(call.getInt("length", BlobStore.MAX_CHUNK_BYTES), BlobStore.MAX_CHUNK_BYTES);
+            blobs.run(call, completion("readBlob"), store -> {
+                byte[] chunk = store.read(namespace, key, offset, length);
+                if (chunk == null) {
+                    call.reject("Blob " + key + " does not exist", "NOT_FOUND");
+                    return;
+                }
+                JSObject result = new JSObject();
+                result.put("data", Base64.encodeToString(chunk, Base64.NO_WRAP));
+                result.put("offset", offset);
+                result.put("size", store.size(namespace, key));
+                call.resolve(result);
+            });
+        });
+    }
+
+    @PluginMethod
+    public void getBlobInfo(PluginCall call) {
+        timed(call, "getBlobInfo", () -> {
+            String key = call.getString("key");
+            if (key == null) {
+                call.reject("key is required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            blobs.run(call, completion("getBlobInfo"), store -> {
+                long size = store.size(namespace, key);
+                JSObject result = new JSObject();
+                result.put("exists", size >= 0);
+                result.put("size", Math.max(size, 0));
+                call.resolve(result);
+            });
+        });
+    }
+
+    @PluginMethod
+    public void deleteBlob(PluginCall call) {
+        timed(call, "deleteBlob", () -> {
+            String key = call.getString("key");
+            if (key == null) {
+                call.reject("key is required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            blobs.run(call, completion("deleteBlob"), store -> {
+                store.delete(namespace, key);
+                call.resolve();
+            });
+        });
+    }
+
+    @PluginMethod
+    public void listBlobs(PluginCall call) {
+        timed(call, "listBlobs", () -> {
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            blobs.run(call, completion("listBlobs"), store -> {
+                JSArray keys = new JSArray();
+                for (String key : store.keys(namespace)) {
+                    keys.put(key);
+                }
+                JSObject result = new JSObject();
+                result.put("keys", keys);
+                call.resolve(result);
+            });
+        });
+    }
+
+    /**
+     * Streams every handled touch, gamepad and key event to a blob, replacing it.
+     */
+    @PluginMethod
+    public void startInputRecording(PluginCall call) {
+        timed(call, "startInputRecording", () -> {
+            String key = call.getString("key");
+            if (key == null) {
+                call.reject("key is required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            if (!recorder.start(blobs, namespace, key)) {
+                call.reject("Input is already being recorded");
+                return;
+            }
+            call.resolve();
+        });
+    }
+
+    /**
+     * Ends the recording and resolves once the blob is complete.
+     */
+    @PluginMethod
+    public void stopInputRecording(PluginCall call) {
+        timed(call, "stopInputRecording", () -> {
+            if (!recorder.stop(call)) {
+                call.reject("Input is not being recorded");
+            }
+        });
+    }
+
+    /**
+     * Feeds a recording back through the input handlers, resolving when it ends.
+     * Live touch, gamepad and key input is ignored meanwhile.
+     */
+    @PluginMethod
+    public void replayInput(PluginCall call) {
+        timed(call, "replayInput", () -> {
+            String key = call.getString("key");
+            if (key == null) {
+                call.reject("key is required");
+                return;
+            }
+            String namespace = call.getString("namespace", DEFAULT_STORAGE_NAMESPACE);
+            String speed = call.getString("speed", "recorded");
+            if (!"recorded".equals(speed) && !"fast".equals(speed)) {
+                call.reject("speed must be 'recorded' or 'fast'");
+                return;
+            }
+            if (!replay.start(blobs, namespace, key, "recorded".equals(speed), call)) {
+                call.reject("Input is already being replayed");
+            }
+        });
+    }
+
+    @PluginMethod
+    public void stopInputReplay(PluginCall call) {
+        timed(call, "stopInputReplay", () -> {
+            replay.stop();
+            call.resolve();
+        });
+    }
+
+    /**
+     * Parses the options into a cached effect and queues it on the haptics
+     * timeline. {@code count} and {@code interval} describe a burst of pulses
+     * played from this one call.
+     */
+    @PluginMethod
+    public void triggerHaptics(PluginCall call) {
+        timed(call, "triggerHaptics", () -> {
+            if (haptics == null || !haptics.isAvailable()) {
+                call.resolve();
+                return;
+            }
+            int priority = call.getInt("priority", 0);
+
+            JSArray patternArray = call.getArray("pattern");
+            if (patternArray != null && patternArray.length() > 0) {
+                try {
+                    haptics.play(haptics.pattern(readHapticTimings(patternArray)), priority);
+                    call.resolve();
+                    return;
+                } catch (JSONException e) {
+                    Log.w(TAG, "Error parsing haptic pattern array", e);
+                }
+            }
+
+            haptics.play(readHapticPulses(call, true), priority);
+            call.resolve();
+        });
+    }
+
+    /**
+     * Validates and compiles an effect once, returning an id for {@link #playHaptic}.
+     * Takes the triggerHaptics options, optional per-step {@code amplitudes}
+     * for a pattern, and {@code primitives} composed on API 30+ devices that
+     * support them; the other options are the fallback elsewhere.
+     */
+    @PluginMethod
+    public void registerHapticEffect(PluginCall call) {
+        timed(call, "registerHapticEffect", () -> {
+            if (haptics == null) {
+                call.reject("Haptics are not initialized");
+                return;
+            }
+            HapticScheduler.Effect effect;
+            try {
+                JSArray pattern = call.getArray("pattern");
+                if (pattern != null && pattern.length() > 0) {
+                    long[] timings = readHapticTimings(pattern);
+                    JSArray amplitudeArray = call.getArray("amplitudes");
+                    int[] amplitudes = null;
+                    if (amplitudeArray != null) {
+                        if (amplitudeArray.length() != timings.length) {
+                            call.reject("amplitudes must have one entry per pattern step");
+                            return;
+                        }
+                        amplitudes = new int[timings.length];
+                        for (int i = 0; i < amplitudes.length; i++) {
+                            amplitudes[i] = amplitudeArray.getInt(i);
+                        }
+                    }
+                    effect = haptics.waveform(timings, amplitudes);
+                } else {
+                    effect = readHapticPulses(call, false);
+                }
+
+                JSArray primitives = call.getArray("primitives");
+                if (primitives != null && primitives.length() > 0) {
+                    int[] ids = new int[primitives.length()];
+                    float[] scales = new float[ids.length];
+                    int[] delays = new int[ids.length];
+                    for (int i = 0; i < ids.length; i++) {
+                        JSONObject primitive = primitives.getJSONObject(i);
+                        String type = primitive.getString("type");
+                        ids[i] = HapticScheduler.primitiveId(type);
+                        if (ids[i] < 0) {
+                            call.reject("Unknown haptic primitive: " + type);
+                            return;
+                        }
+                        scales[i] = (float) primitive.optDouble("scale", 1.0);
+                        delays[i] = primitive.optInt("delay", 0);
+                    }
+                    effect = haptics.composition(ids, scales, delays, effect);
+                }
+            } catch (JSONException e) {
+                call.reject("Invalid haptic effect", e);
+                return;
+            }
+
+            if (effect.durationMs == 0) {
+                call.reject("Haptic effect has no duration");
+                return;
+            }
+            JSObject result = new JSObject();
+            result.put("id", haptics.register(effect, call.getInt("priority", 0)));
+            call.resolve(result);
+        });
+    }
+
+    /**
+     * Plays a registered effect. Nothing is parsed or allocated beyond reading the id.
+     */
+    @PluginMethod
+    public void playHaptic(PluginCall call) {
+        timed(call, "playHaptic", () -> {
+            if (haptics == null || !haptics.playRegistered(call.getInt("id", -1))) {
+                call.reject("Unknown haptic effect", "NOT_FOUND");
+                return;
+            }
+            call.resolve();
+        });
+    }
+
+    @PluginMethod
+    public void unregisterHapticEffect(PluginCall call) {
+        timed(call, "unregisterHapticEffect", () -> {
+            if (haptics == null || !haptics.unregister(call.getInt("id", -1))) {
+                call.reject("Unknown haptic effect", "NOT_FOUND");
+                return;
+            }
+            call.resolve();
+        });
+    }
+
+    private static long[] readHapticTimings(JSArray pattern) throws JSONException {
+        long[] timings = new long[pattern.length()];
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = pattern.getLong(i);
+        }
+        return timings;
+    }
+
+    /**
+     * Reads intensity, duration and burst options into a pulse effect.
+     *
+     * @param cached take the effect from the scheduler's cache, for one-off calls
+     */
+    private HapticScheduler.Effect readHapticPulses(PluginCall call, boolean cached) {
+        int amplitude;
+        Double customIntensity = call.getDouble("customIntensity");
+
+        if (customIntensity != null) {
             double clampedIntensity = Math.max(0.0, Math.min(1.0, customIntensity));
             amplitude = (int) Math.max(1, Math.min(255, clampedIntensity * 255));
         } else {
@@ -568,119 +2033,280 @@ public class StrataPlugin extends Plugin {
         long vibrationDuration;
 
         if (duration != null) {
-            vibrationDuration = Math.max(0, Math.min(10000, duration));
+            vibrationDuration = Math.max(0, Math.min(HapticScheduler.MAX_DURATION_MS, duration));
         } else {
             if (amplitude <= 50) vibrationDuration = 10;
             else if (amplitude >= 200) vibrationDuration = 50;
             else vibrationDuration = 25;
         }
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            vibrator.vibrate(VibrationEffect.createOneShot(vibrationDuration, amplitude));
-        } else {
-            vibrator.vibrate(vibrationDuration);
+        int count = Math.max(1, Math.min(MAX_HAPTIC_PULSES, call.getInt("count", 1)));
+        // Start to start, so at most one pulse plus the longest gap
+        long interval = Math.max(0, Math.min(HapticScheduler.MAX_DURATION_MS * 2,
+            call.getInt("interval", (int) vibrationDuration * 2)));
+        return haptics.pulses(vibrationDuration, amplitude, count, interval, cached);
+    }
+
+    public void handleTouchEvent(MotionEvent event) {
+        if (replay.isActive()) {
+            // Live input would interleave with the recording
+            return;
         }
+        dispatch.onTouchEvent(event);
+        onTouchEvent(event);
+    }
 
-        call.resolve();
+    private void onTouchEvent(MotionEvent event) {
+        if (recorder.isRecording()) {
+            recorder.recordTouch(event);
+        }
+        touchTracker.onTouchEvent(event);
+        if (predictor.isEnabled()) {
+            predictor.onTouchEvent(event);
+        }
+        if (gestures.isEnabled()) {
+            gestures.onTouchEvent(event);
+        }
+        SampleHistory history = touchHistory;
+        if (history != null) {
+            recordTouchHistory(event, history);
+        }
+
+        if (inputBuffer.isEnabled()) {
+            inputBuffer.writeTouches(touchTracker.count(), touchTracker.ids(), touchTracker.xs(),
+                touchTracker.ys(), touchTracker.phases());
+        }
+        if (hasInputStreamListeners()) {
+            inputStream.markDirty();
+        }
     }
 
-    public void handleTouchEvent(MotionEvent event) {
-        int action = event.getActionMasked();
-        int pointerIndex = event.getActionIndex();
-        int pointerId = event.getPointerId(pointerIndex);
-
-        switch (action) {
-            case MotionEvent.ACTION_DOWN:
-            case MotionEvent.ACTION_POINTER_DOWN:
-                JSObject touchDown = new JSObject();
-                JSObject positionDown = new JSObject();
-                positionDown.put("x", event.getX(pointerIndex));
-                positionDown.put("y", event.getY(pointerIndex));
-                touchDown.put("position", positionDown);
-                touchDown.put("phase", "began");
-                activeTouches.put(pointerId, touchDown);
-                break;
-
-            case MotionEvent.ACTION_MOVE:
-                for (int i = 0; i < event.getPointerCount(); i++) {
-                    int id = event.getPointerId(i);
-                    if (activeTouches.containsKey(id)) {
-                        JSObject touchMove = new JSObject();
-                        JSObject positionMove = new JSObject();
-                        positionMove.put("x", event.getX(i));
-                        positionMove.put("y", event.getY(i));
-                        touchMove.put("position", positionMove);
-                        touchMove.put("phase", "moved");
-                        activeTouches.put(id, touchMove);
-                    }
-                }
-                break;
+    /**
+     * Routes a key or gamepad button event through the compiled input mapping.
+     * Call from the activity's dispatchKeyEvent on the UI thread.
+     *
+     * @return true if the key is bound to an action
+     */
+    public boolean handleKeyEvent(KeyEvent event) {
+        if (event == null || replay.isActive()) return false;
+        return onKeyEvent(event);
+    }
 
-            case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_POINTER_UP:
-                activeTouches.remove(pointerId);
-                break;
+    private boolean onKeyEvent(KeyEvent event) {
+        int action = event.getAction();
+        if (action != KeyEvent.ACTION_DOWN && action != KeyEvent.ACTION_UP) {
+            return false;
+        }
+        if (recorder.isRecording()) {
+            recorder.recordKey(event);
+        }
+        KeyActionTable table = keyActions;
+        if (table == null) {
+            return false;
+        }
+        boolean down = action == KeyEvent.ACTION_DOWN;
+        boolean bound;
+        if (isGamepadSource(event.getSource())) {
+            int slot = gamepads.slotFor(event.getDeviceId(), true);
+            if (slot < 0) {
+                return false;
+            }
+            bound = gamepads.onKey(slot, table, event.getKeyCode(), down, InputClock.eventTimeNanos(event));
+        } else {
+            bound = keyboardKeys.onKey(table, event.getKeyCode(), down);
+            if (bound) {
+                keyboardTimeNanos = InputClock.eventTimeNanos(event);
+            }
+        }
+        if (bound) {
+            if (inputBuffer.isEnabled()) {
+                publishPrimaryGamepad();
+            }
+            if (hasInputStreamListeners()) {
+                inputStream.markDirty();
+            }
+        }
+        return bound;
+    }
 
-            case MotionEvent.ACTION_CANCEL:
-                activeTouches.clear();
-                break;
+    private void recordTouchHistory(MotionEvent event, SampleHistory history) {
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_MOVE) {
+            int pointerCount = event.getPointerCount();
+            int historySize = event.getHistorySize();
+            for (int h = 0; h < historySize; h++) {
+                long time = event.getHistoricalEventTime(h);
+                for (int i = 0; i < pointerCount; i++) {
+                    history.record(time, event.getPointerId(i), event.getHistoricalX(i, h), event.getHistoricalY(i, h));
+                }
+            }
+            for (int i = 0; i < pointerCount; i++) {
+                history.record(event.getEventTime(), event.getPointerId(i), event.getX(i), event.getY(i));
+            }
+        } else if (action != MotionEvent.ACTION_CANCEL) {
+            int index = event.getActionIndex();
+            history.record(event.getEventTime(), event.getPointerId(index), event.getX(index), event.getY(index));
         }
     }
 
+    /**
+     * Re-reads the device profile and sends deviceChange if anything differs.
+     * Configuration, inset and input device changes are picked up automatically.
+     */
     public void notifyDeviceChange() {
-        JSObject profile = buildDeviceProfile();
-        notifyListeners("deviceChange", profile);
+        refreshDeviceProfile();
     }
 
     public void notifyGamepadConnected(int index, String id) {
         JSObject data = new JSObject();
         data.put("index", index);
         data.put("id", id);
-        notifyListeners("gamepadConnected", data);
+        emit("gamepadConnected", data);
     }
 
     public void notifyGamepadDisconnected(int index) {
         JSObject data = new JSObject();
         data.put("index", index);
-        notifyListeners("gamepadDisconnected", data);
+        emit("gamepadDisconnected", data);
     }
 
     public void handleGamepadMotionEvent(MotionEvent event) {
-        if (event == null) return;
+        if (event == null || replay.isActive()) return;
+        if (isGamepadSource(event.getSource())) {
+            dispatch.onGamepadEvent(event);
+        }
+        onGamepadMotionEvent(event);
+    }
+
+    private void onGamepadMotionEvent(MotionEvent event) {
+        if (isGamepadSource(event.getSource())) {
+            if (recorder.isRecording()) {
+                recorder.recordGamepad(event);
+            }
+            int slot = gamepads.slotFor(event.getDeviceId(), true);
+            if (slot < 0) {
+                return;
+            }
+            int deviceId = event.getDeviceId();
+            SampleHistory history = gamepadHistory;
+            if (history != null || axisProcessor.isFiltering() || predictor.isEnabled()) {
+                // Batched samples between frames; filters and prediction need every one to see the true rate
+                for (int h = 0; h < event.getHistorySize(); h++) {
+                    processGamepadSample(slot, deviceId, event, h, InputClock.historicalEventTimeNanos(event, h));
+                    if (history != null) {
+                        history.record(event.getHistoricalEventTime(h), deviceId, gamepadSample);
+                    }
+                }
+            }
+            long timeNanos = InputClock.eventTimeNanos(event);
+            processGamepadSample(slot, deviceId, event, -1, timeNanos);
+            if (history != null) {
+                history.record(event.getEventTime(), deviceId, gamepadSample);
+            }
+            storeGamepadAxes(slot, timeNanos, gamepadSample);
+        }
+    }
 
-        int source = event.getSource();
-        if ((source & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD ||
-            (source & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK) {
-            float leftStickX = event.getAxisValue(MotionEvent.AXIS_X);
-            float leftStickY = event.getAxisValue(MotionEvent.AXIS_Y);
-            float rightStickX = event.getAxisValue(MotionEvent.AXIS_Z);
-            float rightStickY = event.getAxisValue(MotionEvent.AXIS_RZ);
+    private final class AxisProcessorHost implements AxisProcessor.Host {
+        @Override
+        public void onAxesSettled(int slot, int deviceId, long timeNanos, float[] axes) {
+            if (gamepads.slotFor(deviceId, false) == slot) {
+                if (predictor.isEnabled()) {
+                    predictor.onStickSample(slot, timeNanos, axes);
+                }
+                storeGamepadAxes(slot, timeNanos, axes);
+            }
+        }
+    }
 
-            float leftTrigger = event.getAxisValue(MotionEvent.AXIS_LTRIGGER);
-            float rightTrigger = event.getAxisValue(MotionEvent.AXIS_RTRIGGER);
-            if (leftTrigger == 0) leftTrigger = event.getAxisValue(MotionEvent.AXIS_BRAKE);
-            if (rightTrigger == 0) rightTrigger = event.getAxisValue(MotionEvent.AXIS_GAS);
+    private void storeGamepadAxes(int slot, long timeNanos, float[] axes) {
+        gamepads.writeAxes(slot, timeNanos,
+            axes[GamepadSlots.AXIS_LEFT_X], axes[GamepadSlots.AXIS_LEFT_Y],
+            axes[GamepadSlots.AXIS_RIGHT_X], axes[GamepadSlots.AXIS_RIGHT_Y],
+            axes[GamepadSlots.AXIS_LEFT_TRIGGER], axes[GamepadSlots.AXIS_RIGHT_TRIGGER]);
 
-            lastGamepadState = new GamepadState(leftStickX, leftStickY, rightStickX, rightStickY, leftTrigger, rightTrigger);
+        if (slot == primaryGamepadSlot()) {
+            if (inputBuffer.isEnabled()) {
+                publishPrimaryGamepad();
+            }
+            if (hasInputStreamListeners()) {
+                inputStream.markDirty();
+            }
+        }
+    }
+
+    private static boolean isGamepadSource(int source) {
+        return (source & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD ||
+            (source & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK;
+    }
+
+    /**
+     * Reads an axis at a history position, or the current value when {@code pos} is negative.
+     */
+    private static float readAxis(MotionEvent event, int axis, int pos) {
+        return pos < 0 ? event.getAxisValue(axis) : event.getHistoricalAxisValue(axis, pos);
+    }
+
+    private static float readTrigger(MotionEvent event, int axis, int fallbackAxis, int pos) {
+        float value = readAxis(event, axis, pos);
+        return value == 0 ? readAxis(event, fallbackAxis, pos) : value;
+    }
+
+    /**
+     * Reads one sample into {@code gamepadSample} and runs it through the axis processor.
+     */
+    private void processGamepadSample(int slot, int deviceId, MotionEvent event, int pos, long timeNanos) {
+        gamepadSample[GamepadSlots.AXIS_LEFT_X] = readAxis(event, MotionEvent.AXIS_X, pos);
+        gamepadSample[GamepadSlots.AXIS_LEFT_Y] = -readAxis(event, MotionEvent.AXIS_Y, pos);
+        gamepadSample[GamepadSlots.AXIS_RIGHT_X] = readAxis(event, MotionEvent.AXIS_Z, pos);
+        gamepadSample[GamepadSlots.AXIS_RIGHT_Y] = -readAxis(event, MotionEvent.AXIS_RZ, pos);
+        gamepadSample[GamepadSlots.AXIS_LEFT_TRIGGER] =
+            readTrigger(event, MotionEvent.AXIS_LTRIGGER, MotionEvent.AXIS_BRAKE, pos);
+        gamepadSample[GamepadSlots.AXIS_RIGHT_TRIGGER] =
+            readTrigger(event, MotionEvent.AXIS_RTRIGGER, MotionEvent.AXIS_GAS, pos);
+        axisProcessor.process(slot, deviceId, timeNanos, gamepadSample);
+        if (predictor.isEnabled()) {
+            predictor.onStickSample(slot, timeNanos, gamepadSample);
         }
     }
 
     @PluginMethod
     public void vibrate(PluginCall call) {
-        Integer duration = call.getInt("duration", 100);
-        if (vibrator != null && vibrator.hasVibrator()) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                vibrator.vibrate(VibrationEffect.createOneShot(duration, VibrationEffect.DEFAULT_AMPLITUDE));
-            } else {
-                vibrator.vibrate(duration);
+        timed(call, "vibrate", () -> {
+            Integer duration = call.getInt("duration", 100);
+            if (haptics != null && haptics.isAvailable()) {
+                haptics.play(haptics.pulses(duration, VibrationEffect.DEFAULT_AMPLITUDE, 1, 0, true), 0);
             }
-        }
-        call.resolve();
+            call.resolve();
+        });
     }
 
     @Override
     protected void handleOnDestroy() {
         super.handleOnDestroy();
-        lastGamepadState = null;
+        devices.stop();
+        // Both use the blob store; the recorder flushes its last chunk through it
+        recorder.stop(null);
+        replay.stop();
+        storage.shutdown();
+        blobs.shutdown();
+        backgroundLane.shutdown();
+        metrics.shutdown();
+        if (haptics != null) {
+            haptics.shutdown();
+        }
+        if (insetsProbe != null) {
+            if (insetsProbe.getParent() instanceof ViewGroup) {
+                ((ViewGroup) insetsProbe.getParent()).removeView(insetsProbe);
+            }
+            insetsProbe = null;
+        }
+        gamepads.clear();
+        touchTracker.clear();
+        inputBuffer.setEnabled(false);
+        inputStream.stop();
+        frameLatch.setEnabled(false);
+        gestures.setEnabled(false, 0, 0, 0);
+        governor.stop();
     }
 }
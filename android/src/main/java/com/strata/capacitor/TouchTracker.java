@@ -0,0 +1,166 @@
+package com.strata.capacitor;
+
+import android.view.MotionEvent;
+
+/**
+ * Allocation-free touch state.
+ *
+ * Active pointers live in preallocated primitive arrays indexed by slot, so
+ * ingesting a MotionEvent never boxes a pointer id or builds a JSObject.
+ * {@link #onTouchEvent(MotionEvent)} must only be called from a single
+ * thread (the UI thread); readers on any other thread take a consistent
+ * copy with {@link #read(InputFrame)}, which uses a {@link SeqLock} and
+ * retries if it overlapped a write.
+ */
+final class TouchTracker {
+
+    static final int MAX_POINTERS = InputFrame.MAX_TOUCHES;
+    private static final int MAX_READ_ATTEMPTS = 64;
+
+    private final int[] ids = new int[MAX_POINTERS];
+    private final float[] xs = new float[MAX_POINTERS];
+    private final float[] ys = new float[MAX_POINTERS];
+    private final byte[] phases = new byte[MAX_POINTERS];
+    private int count = 0;
+    private long eventTimeNanos = 0;
+    private final SeqLock lock = new SeqLock();
+    // Last consistent copy, reported when a read is starved by the writer
+    private final InputFrame lastGood = new InputFrame();
+
+    void onTouchEvent(MotionEvent event) {
+        int action = event.getActionMasked();
+        int pointerIndex = event.getActionIndex();
+
+        lock.beginWrite();
+        eventTimeNanos = InputClock.eventTimeNanos(event);
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                put(event.getPointerId(pointerIndex), event.getX(pointerIndex), event.getY(pointerIndex),
+                    InputBufferChannel.PHASE_BEGAN);
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                for (int i = 0; i < event.getPointerCount(); i++) {
+                    int slot = find(event.getPointerId(i));
+                    if (slot >= 0) {
+                        xs[slot] = event.getX(i);
+                        ys[slot] = event.getY(i);
+                        phases[slot] = InputBufferChannel.PHASE_MOVED;
+                    }
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_POINTER_UP:
+                remove(event.getPointerId(pointerIndex));
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                count = 0;
+                break;
+        }
+        lock.endWrite();
+    }
+
+    void clear() {
+        lock.beginWrite();
+        count = 0;
+        lock.endWrite();
+    }
+
+    /**
+     * Copies the active touches into {@code out}, replacing its touch section,
+     * and raises its input time to the last touch event's. Safe to call from any thread.
+     */
+    void read(InputFrame out) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            int before = lock.readBegin();
+            if (SeqLock.isWriting(before)) {
+                Thread.yield();
+                continue;
+            }
+            int n = Math.min(count, MAX_POINTERS);
+            System.arraycopy(ids, 0, out.touchIds, 0, n);
+            System.arraycopy(xs, 0, out.touchX, 0, n);
+            System.arraycopy(ys, 0, out.touchY, 0, n);
+            System.arraycopy(phases, 0, out.touchPhases, 0, n);
+            long time = eventTimeNanos;
+            if (lock.validate(before)) {
+                out.touchCount = n;
+                out.inputTimeNanos = Math.max(out.inputTimeNanos, time);
+                synchronized (lastGood) {
+                    lastGood.copyTouchesFrom(out);
+                    lastGood.inputTimeNanos = time;
+                }
+                return;
+            }
+        }
+        // Writer kept us starved; report the last consistent touches rather than a torn frame
+        synchronized (lastGood) {
+            out.copyTouchesFrom(lastGood);
+            out.inputTimeNanos = Math.max(out.inputTimeNanos, lastGood.inputTimeNanos);
+        }
+    }
+
+    /**
+     * Writer-thread view of the active touches, e.g. for publishing to the input buffer.
+     * Must only be called from the thread that calls {@link #onTouchEvent(MotionEvent)}.
+     */
+    int count() {
+        return count;
+    }
+
+    int[] ids() {
+        return ids;
+    }
+
+    float[] xs() {
+        return xs;
+    }
+
+    float[] ys() {
+        return ys;
+    }
+
+    byte[] phases() {
+        return phases;
+    }
+
+    private int find(int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void put(int id, float x, float y, byte phase) {
+        int slot = find(id);
+        if (slot < 0) {
+            if (count >= MAX_POINTERS) {
+                return;
+            }
+            slot = count++;
+        }
+        ids[slot] = id;
+        xs[slot] = x;
+        ys[slot] = y;
+        phases[slot] = phase;
+    }
+
+    private void remove(int id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return;
+        }
+        int last = --count;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            xs[slot] = xs[last];
+            ys[slot] = ys[last];
+            phases[slot] = phases[last];
+        }
+    }
+}
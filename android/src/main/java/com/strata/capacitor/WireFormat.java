@@ -0,0 +1,275 @@
+package com.strata.capacitor;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Compact positional encoding for the hot responses and events.
+ *
+ * A packed payload is {@code {v: VERSION, p: [...]}}: the fields of the keyed
+ * payload in a fixed order, without their names. Enum strings become their
+ * index in a table shared with the TS decoder (src/wireFormat.ts), booleans
+ * become bit flags, and touch and gamepad lists become tables: flat arrays of
+ * numbers whose first element is the row length. Floats are boxed so they
+ * serialize at float precision instead of being widened to a double.
+ *
+ * Layouts, version 1:
+ * <pre>
+ * snapshot: timestamp, inputTimeNanos, frame, frameTimeNanos, [lx, ly, rx, ry],
+ *           [lt, rt], buttonMask, touches, predictionTimeNanos, [predicted sticks]?
+ *           (frame, frameTimeNanos and predictionTimeNanos are 0 when absent)
+ * touches:  [4 or 6, (id, x, y, phase, (predictedX, predictedY)?)*]
+ * delta:    timestamp, frameTimeNanos, inputTimeNanos, sticks|null, triggers|null,
+ *           [buttonMask, changedMask]|null, touches|null
+ * gamepads: [11, (index, deviceId, isSelected, timestamp, lx, ly, rx, ry, lt, rt, buttonMask)*], ids
+ * controllers: selectedIndex, ids, flags (isSelected 1, hasExtendedGamepad 2, hasMicroGamepad 4)
+ * profile:  deviceType, platform, inputMode, orientation, flags, screenWidth,
+ *           screenHeight, pixelRatio, [top, right, bottom, left], changedMask?
+ * gesture:  type, x, y, timeNanos, then by type:
+ *           pan: phase, dx, dy, (vx, vy)?; swipe: vx, vy, direction; pinch: phase, scale, totalScale
+ * </pre>
+ * Fields a keyed payload carries outside these layouts, like snapshot
+ * history, stay keyed next to {@code p}.
+ */
+final class WireFormat {
+
+    static final int VERSION = 1;
+    static final String KEYED = "keyed";
+    static final String COMPACT = "compact";
+
+    static final int TOUCH_STRIDE = 4;
+    static final int PREDICTED_TOUCH_STRIDE = 6;
+    static final int GAMEPAD_STRIDE = 11;
+
+    static final int CONTROLLER_SELECTED = 1;
+    static final int CONTROLLER_EXTENDED = 2;
+    static final int CONTROLLER_MICRO = 4;
+
+    static final String[] DEVICE_TYPES = { "mobile", "tablet", "foldable", "desktop" };
+    static final String[] PLATFORMS = { "ios", "android", "windows", "macos", "linux", "web" };
+    static final String[] INPUT_MODES = { "touch", "keyboard", "gamepad", "hybrid" };
+    static final String[] ORIENTATIONS = { "portrait", "landscape" };
+    // Device profile fields in keyed order; bit n of the changed mask is field n
+    static final String[] PROFILE_FIELDS = {
+        "deviceType", "platform", "inputMode", "orientation", "hasTouch", "hasPointer", "hasGamepad",
+        "isMobile", "isTablet", "isFoldable", "isDesktop", "screenWidth", "screenHeight", "pixelRatio",
+        "safeAreaInsets"
+    };
+    // Boolean profile fields in flag order; bit n is PROFILE_FLAGS[n]
+    static final String[] PROFILE_FLAGS = {
+        "hasTouch", "hasPointer", "hasGamepad", "isMobile", "isTablet", "isFoldable", "isDesktop"
+    };
+    static final String[] GESTURE_TYPES = { "tap", "pan", "swipe", "pinch" };
+    static final String[] GESTURE_PHASES = { "began", "changed", "ended", "cancelled" };
+    static final String[] SWIPE_DIRECTIONS = { "left", "right", "up", "down" };
+
+    private WireFormat() {}
+
+    static JSObject packed(JSArray fields) {
+        JSObject packed = new JSObject();
+        packed.put("v", VERSION);
+        packed.put("p", fields);
+        return packed;
+    }
+
+    /**
+     * Appends a float at float precision; a plain put widens it to a double
+     * and serializes digits the float never had.
+     */
+    static void putFloat(JSONArray array, float value) {
+        array.put(Float.valueOf(value));
+    }
+
+    static JSArray floats(float a, float b) {
+        JSArray array = new JSArray();
+        putFloat(array, a);
+        putFloat(array, b);
+        return array;
+    }
+
+    static JSArray floats(float a, float b, float c, float d) {
+        JSArray array = new JSArray();
+        putFloat(array, a);
+        putFloat(array, b);
+        putFloat(array, c);
+        putFloat(array, d);
+        return array;
+    }
+
+    /**
+     * A string's index in {@code table}, or the string itself if the table does
+     * not have it, so a value added on one side still decodes on the other.
+     */
+    static Object enumValue(String[] table, String value) {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i].equals(value)) {
+                return i;
+            }
+        }
+        return value;
+    }
+
+    static JSObject snapshot(InputFrame frame, long timestamp, JSArray touches, long predictionNanos,
+                             float[] predictedSticks) {
+        JSArray p = new JSArray();
+        p.put(timestamp);
+        p.put(frame.inputTimeNanos);
+        p.put(frame.frameNumber > 0 ? frame.frameNumber : 0);
+        p.put(frame.frameTimeNanos);
+        p.put(floats(frame.leftStickX, frame.leftStickY, frame.rightStickX, frame.rightStickY));
+        p.put(floats(frame.leftTrigger, frame.rightTrigger));
+        p.put(frame.buttonMask);
+        p.put(touches);
+        p.put(predictionNanos);
+        if (predictionNanos != 0) {
+            p.put(floats(predictedSticks[0], predictedSticks[1], predictedSticks[2], predictedSticks[3]));
+        }
+        return packed(p);
+    }
+
+    /**
+     * Starts a touch table; rows are added with {@link #addTouch}.
+     */
+    static JSArray touchTable(boolean predicted) {
+        JSArray table = new JSArray();
+        table.put(predicted ? PREDICTED_TOUCH_STRIDE : TOUCH_STRIDE);
+        return table;
+    }
+
+    static void addTouch(JSArray table, int id, float x, float y, int phase) {
+        table.put(id);
+        putFloat(table, x);
+        putFloat(table, y);
+        table.put(phase);
+    }
+
+    static JSObject delta(InputFrame frame, long timestamp, boolean sticks, boolean triggers,
+                          int changedButtons, JSArray touches) {
+        JSArray p = new JSArray();
+        p.put(timestamp);
+        p.put(frame.frameTimeNanos);
+        p.put(frame.inputTimeNanos);
+        p.put(sticks ? floats(frame.leftStickX, frame.leftStickY, frame.rightStickX, frame.rightStickY) : JSONObject.NULL);
+        p.put(triggers ? floats(frame.leftTrigger, frame.rightTrigger) : JSONObject.NULL);
+        if (changedButtons != 0) {
+            JSArray buttons = new JSArray();
+            buttons.put(frame.buttonMask);
+            buttons.put(changedButtons);
+            p.put(buttons);
+        } else {
+            p.put(JSONObject.NULL);
+        }
+        p.put(touches != null ? touches : JSONObject.NULL);
+        return packed(p);
+    }
+
+    static JSArray gamepadTable() {
+        JSArray table = new JSArray();
+        table.put(GAMEPAD_STRIDE);
+        return table;
+    }
+
+    static void addGamepad(JSArray table, int slot, int deviceId, boolean selected, long timestamp, InputFrame frame) {
+        table.put(slot);
+        table.put(deviceId);
+        table.put(selected ? 1 : 0);
+        table.put(timestamp);
+        putFloat(table, frame.leftStickX);
+        putFloat(table, frame.leftStickY);
+        putFloat(table, frame.rightStickX);
+        putFloat(table, frame.rightStickY);
+        putFloat(table, frame.leftTrigger);
+        putFloat(table, frame.rightTrigger);
+        table.put(frame.buttonMask);
+    }
+
+    /**
+     * Packs a keyed device profile, with the changed field names as a mask when {@code changed} is given.
+     */
+    static JSObject profile(JSONObject profile, JSONArray changed) {
+        JSArray p = new JSArray();
+        p.put(enumValue(DEVICE_TYPES, profile.optString("deviceType")));
+        p.put(enumValue(PLATFORMS, profile.optString("platform")));
+        p.put(enumValue(INPUT_MODES, profile.optString("inputMode")));
+        p.put(enumValue(ORIENTATIONS, profile.optString("orientation")));
+        int flags = 0;
+        for (int i = 0; i < PROFILE_FLAGS.length; i++) {
+            if (profile.optBoolean(PROFILE_FLAGS[i], false)) {
+                flags |= 1 << i;
+            }
+        }
+        p.put(flags);
+        putFloat(p, (float) profile.optDouble("screenWidth", 0));
+        putFloat(p, (float) profile.optDouble("screenHeight", 0));
+        putFloat(p, (float) profile.optDouble("pixelRatio", 1));
+        JSONObject insets = profile.optJSONObject("safeAreaInsets");
+        JSArray packedInsets = new JSArray();
+        for (String side : new String[] { "top", "right", "bottom", "left" }) {
+            putFloat(packedInsets, insets != null ? (float) insets.optDouble(side, 0) : 0);
+        }
+        p.put(packedInsets);
+        if (changed != null) {
+            int mask = 0;
+            for (int i = 0; i < changed.length(); i++) {
+                Object field = enumValue(PROFILE_FIELDS, changed.optString(i));
+                if (field instanceof Integer) {
+                    mask |= 1 << (Integer) field;
+                }
+            }
+            p.put(mask);
+        }
+        return packed(p);
+    }
+
+    /**
+     * Packs a tap. The gesture methods write the packed fields directly, so
+     * compact mode never builds the keyed event.
+     */
+    static JSObject tap(float x, float y, long timeNanos) {
+        return packed(gestureFields("tap", x, y, timeNanos));
+    }
+
+    /**
+     * Packs a pan step; the release velocity is only sent when {@code released}.
+     */
+    static JSObject pan(float x, float y, long timeNanos, String phase, float dx, float dy,
+                        boolean released, float vx, float vy) {
+        JSArray p = gestureFields("pan", x, y, timeNanos);
+        p.put(enumValue(GESTURE_PHASES, phase));
+        putFloat(p, dx);
+        putFloat(p, dy);
+        if (released) {
+            putFloat(p, vx);
+            putFloat(p, vy);
+        }
+        return packed(p);
+    }
+
+    static JSObject swipe(float x, float y, long timeNanos, float vx, float vy, String direction) {
+        JSArray p = gestureFields("swipe", x, y, timeNanos);
+        putFloat(p, vx);
+        putFloat(p, vy);
+        p.put(enumValue(SWIPE_DIRECTIONS, direction));
+        return packed(p);
+    }
+
+    static JSObject pinch(float x, float y, long timeNanos, String phase, float scale, float totalScale) {
+        JSArray p = gestureFields("pinch", x, y, timeNanos);
+        p.put(enumValue(GESTURE_PHASES, phase));
+        putFloat(p, scale);
+        putFloat(p, totalScale);
+        return packed(p);
+    }
+
+    private static JSArray gestureFields(String type, float x, float y, long timeNanos) {
+        JSArray p = new JSArray();
+        p.put(enumValue(GESTURE_TYPES, type));
+        putFloat(p, x);
+        putFloat(p, y);
+        p.put(timeNanos);
+        return p;
+    }
+}
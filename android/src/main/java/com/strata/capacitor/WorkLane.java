@@ -0,0 +1,141 @@
+package com.strata.capacitor;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An executor that reports how deep its queue gets and how long work waits.
+ *
+ * The plugin's threading model is built from lanes: Capacitor's plugin thread
+ * is kept for input and haptics calls, which must answer within a frame, and
+ * anything that can block (system services, window queries, file I/O) runs
+ * on a lane of its own. A bounded lane rejects work instead of queueing it
+ * without limit, so a stalled lane fails fast rather than growing a backlog.
+ */
+final class WorkLane {
+
+    private static final String TAG = "StrataWorkLane";
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final String name;
+    private final ExecutorService executor;
+    private final int threads;
+    // -1 for unbounded
+    private final int capacity;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    private WorkLane(String name, ExecutorService executor, int threads, int capacity) {
+        this.name = name;
+        this.executor = executor;
+        this.threads = threads;
+        this.capacity = capacity;
+    }
+
+    /**
+     * A lane with its own fixed pool of threads and a queue of at most {@code capacity} tasks.
+     */
+    static WorkLane bounded(String name, int threads, int capacity) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacity),
+            runnable -> new Thread(runnable, name + "-" + count.incrementAndGet()));
+        executor.allowCoreThreadTimeOut(true);
+        return new WorkLane(name, executor, threads, capacity);
+    }
+
+    /**
+     * Meters an executor owned by someone else; tasks submitted to it
+     * directly are not counted.
+     */
+    static WorkLane wrap(String name, ExecutorService executor, int threads) {
+        return new WorkLane(name, executor, threads, -1);
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * Queues a task. Exceptions it throws are logged and do not kill the thread.
+     *
+     * @return false if the lane is full or shut down
+     */
+    boolean execute(Runnable task) {
+        long enqueued = System.nanoTime();
+        updateMax(peakQueued, queued.incrementAndGet());
+        try {
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                queued.decrementAndGet();
+                record(totalWaitNanos, maxWaitNanos, started - enqueued);
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Task failed on " + name, e);
+                } finally {
+                    record(totalRunNanos, maxRunNanos, System.nanoTime() - started);
+                    completed.incrementAndGet();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    JSObject metrics() {
+        long done = completed.get();
+        JSObject metrics = new JSObject();
+        metrics.put("name", name);
+        metrics.put("threads", threads);
+        if (capacity >= 0) {
+            metrics.put("capacity", capacity);
+        }
+        metrics.put("queued", queued.get());
+        metrics.put("peakQueued", peakQueued.get());
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.get());
+        metrics.put("meanWaitMs", done > 0 ? totalWaitNanos.get() / NANOS_PER_MS / done : 0);
+        metrics.put("maxWaitMs", maxWaitNanos.get() / NANOS_PER_MS);
+        metrics.put("meanRunMs", done > 0 ? totalRunNanos.get() / NANOS_PER_MS / done : 0);
+        metrics.put("maxRunMs", maxRunNanos.get() / NANOS_PER_MS);
+        return metrics;
+    }
+
+    private static void record(AtomicLong total, AtomicLong max, long nanos) {
+        total.addAndGet(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+}
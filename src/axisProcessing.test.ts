@@ -0,0 +1,29 @@
+import { describe, it, expect } from 'vitest';
+import { processStick, processTrigger } from './axisProcessing';
+
+describe('axis processing', () => {
+  it('should keep the original axial deadzone by default', () => {
+    expect(processStick(0.1, -0.5)).toEqual({ x: 0, y: -0.5 });
+    expect(processStick(-0.1, 0.1)).toEqual({ x: 0, y: 0 });
+    expect(processTrigger(0.05)).toBe(0.05);
+  });
+
+  it('should keep the direction of diagonals with a radial deadzone', () => {
+    const stick = processStick(0.12, 0.12, { deadzoneShape: 'radial' });
+    expect(stick.x).toBeCloseTo(0.12);
+    expect(stick.y).toBeCloseTo(0.12);
+    expect(processStick(0.1, 0.1, { deadzoneShape: 'radial' })).toEqual({ x: 0, y: 0 });
+  });
+
+  it('should rescale between the deadzones and apply the curve', () => {
+    const options = { deadzone: 0.2, outerDeadzone: 0.9, rescale: true, curve: 'quadratic' as const };
+    expect(processTrigger(0.2, options)).toBe(0);
+    expect(processTrigger(0.55, options)).toBeCloseTo(0.25);
+    expect(processTrigger(0.95, options)).toBe(1);
+    expect(processStick(-0.55, 0, options).x).toBeCloseTo(-0.25);
+  });
+
+  it('should use the exponent for power curves', () => {
+    expect(processTrigger(0.25, { curve: 'power', exponent: 0.5 })).toBeCloseTo(0.5);
+  });
+});
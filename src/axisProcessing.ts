@@ -0,0 +1,56 @@
+import type { AxisProcessingOptions, Vector2 } from './definitions';
+
+const DEFAULT_STICK_DEADZONE = 0.15;
+
+const CURVE_EXPONENTS: Record<NonNullable<AxisProcessingOptions['curve']>, number> = {
+    linear: 1,
+    quadratic: 2,
+    cubic: 3,
+    power: 2,
+};
+
+/**
+ * Maps a magnitude through the deadzones and response curve, mirroring the
+ * native axis processor without its filters.
+ */
+function shapeMagnitude(magnitude: number, options: AxisProcessingOptions, defaultDeadzone: number): number {
+    const deadzone = options.deadzone ?? defaultDeadzone;
+    const outer = options.outerDeadzone ?? 1;
+    if (magnitude <= deadzone) return 0;
+    const t = options.rescale ? (magnitude - deadzone) / (outer - deadzone) : magnitude / outer;
+    if (t >= 1) return 1;
+    const curve = options.curve ?? 'linear';
+    const exponent = curve === 'power' ? (options.exponent ?? 2) : CURVE_EXPONENTS[curve];
+    return exponent === 1 ? t : Math.pow(t, exponent);
+}
+
+function shapeAxis(value: number, options: AxisProcessingOptions, defaultDeadzone: number): number {
+    const shaped = shapeMagnitude(Math.abs(value), options, defaultDeadzone);
+    // Never -0, so a centered axis compares equal to 0
+    return value < 0 && shaped !== 0 ? -shaped : shaped;
+}
+
+/**
+ * Applies a stick's deadzones and curve to raw x/y values.
+ */
+export function processStick(x: number, y: number, options: AxisProcessingOptions = {}): Vector2 {
+    if (options.deadzoneShape !== 'radial') {
+        return {
+            x: shapeAxis(x, options, DEFAULT_STICK_DEADZONE),
+            y: shapeAxis(y, options, DEFAULT_STICK_DEADZONE),
+        };
+    }
+    const magnitude = Math.hypot(x, y);
+    const shaped = shapeMagnitude(magnitude, options, DEFAULT_STICK_DEADZONE);
+    if (shaped === 0) return { x: 0, y: 0 };
+    // Scaling both axes by one factor keeps the stick's direction
+    const scale = shaped / magnitude;
+    return { x: x * scale, y: y * scale };
+}
+
+/**
+ * Applies the trigger deadzones and curve to a raw 0..1 value.
+ */
+export function processTrigger(value: number, options: AxisProcessingOptions = {}): number {
+    return shapeAxis(value, options, 0);
+}
@@ -0,0 +1,56 @@
+import { describe, it, expect, vi } from 'vitest';
+import { BLOB_MAX_CHUNK_BYTES, base64ToBytes, bytesToBase64, readBlobChunks, writeBlobChunks } from './blobs';
+import type { BlobReadOptions, BlobWriteOptions } from './definitions';
+
+function memoryBlobs() {
+  let stored = new Uint8Array(0);
+  return {
+    writeBlob: vi.fn(async ({ data, offset = 0, truncate = false }: BlobWriteOptions) => {
+      const end = offset + data.length;
+      const next = new Uint8Array(truncate ? end : Math.max(end, stored.length));
+      next.set(stored.subarray(0, next.length));
+      next.set(data, offset);
+      stored = next;
+      return { size: stored.length };
+    }),
+    readBlob: vi.fn(async ({ offset = 0, length = BLOB_MAX_CHUNK_BYTES }: BlobReadOptions) => ({
+      data: stored.slice(offset, offset + length),
+      offset,
+      size: stored.length,
+    })),
+  };
+}
+
+describe('blob helpers', () => {
+  it('should round-trip bytes through base64', () => {
+    const bytes = new Uint8Array(100_000).map((_, i) => i % 256);
+    expect(base64ToBytes(bytesToBase64(bytes))).toEqual(bytes);
+    expect(bytesToBase64(new Uint8Array([104, 105]))).toBe('aGk=');
+  });
+
+  it('should stream a blob in chunks', async () => {
+    const blobs = memoryBlobs();
+    await blobs.writeBlob({ key: 'world', data: new Uint8Array(10).map((_, i) => i) });
+
+    const chunks = [];
+    for await (const chunk of readBlobChunks(blobs, 'world', { chunkSize: 4 })) {
+      chunks.push(Array.from(chunk.data));
+    }
+    expect(chunks).toEqual([[0, 1, 2, 3], [4, 5, 6, 7], [8, 9]]);
+  });
+
+  it('should replace a blob when writing chunks', async () => {
+    const blobs = memoryBlobs();
+    await blobs.writeBlob({ key: 'world', data: new Uint8Array(10) });
+
+    const size = await writeBlobChunks(blobs, 'world', [new Uint8Array([1, 2]), new Uint8Array([3])]);
+    expect(size).toBe(3);
+    expect(blobs.writeBlob).toHaveBeenLastCalledWith(expect.objectContaining({ offset: 2, truncate: true }));
+  });
+
+  it('should empty a blob when given no chunks', async () => {
+    const blobs = memoryBlobs();
+    await blobs.writeBlob({ key: 'world', data: new Uint8Array(10) });
+    expect(await writeBlobChunks(blobs, 'world', [])).toBe(0);
+  });
+});
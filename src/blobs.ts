@@ -0,0 +1,87 @@
+import type { BlobChunk, StorageOptions, StrataPlugin } from './definitions';
+
+// btoa takes a binary string; building it in slices keeps argument lists short
+const ENCODE_SLICE = 0x8000;
+
+export function bytesToBase64(bytes: Uint8Array): string {
+    let binary = '';
+    for (let i = 0; i < bytes.length; i += ENCODE_SLICE) {
+        binary += String.fromCharCode(...bytes.subarray(i, i + ENCODE_SLICE));
+    }
+    return btoa(binary);
+}
+
+export function base64ToBytes(encoded: string): Uint8Array {
+    const binary = atob(encoded);
+    const bytes = new Uint8Array(binary.length);
+    for (let i = 0; i < binary.length; i++) {
+        bytes[i] = binary.charCodeAt(i);
+    }
+    return bytes;
+}
+
+/**
+ * Largest chunk a single readBlob or writeBlob call accepts.
+ */
+export const BLOB_MAX_CHUNK_BYTES = 4 * 1024 * 1024;
+
+/**
+ * Streams a blob in chunks so neither side holds all of it at once.
+ *
+ * @example
+ * ```typescript
+ * for await (const chunk of readBlobChunks(Strata, 'world')) {
+ *   world.load(chunk.offset, chunk.data);
+ * }
+ * ```
+ */
+export async function* readBlobChunks(
+    plugin: Pick<StrataPlugin, 'readBlob'>,
+    key: string,
+    options: StorageOptions & { chunkSize?: number } = {}
+): AsyncGenerator<BlobChunk> {
+    const length = Math.min(options.chunkSize ?? 1024 * 1024, BLOB_MAX_CHUNK_BYTES);
+    let offset = 0;
+    for (;;) {
+        const chunk = await plugin.readBlob({ key, namespace: options.namespace, offset, length });
+        if (chunk.data.length === 0) return;
+        yield chunk;
+        offset += chunk.data.length;
+        if (offset >= chunk.size) return;
+    }
+}
+
+/**
+ * Writes a blob from a sequence of chunks, replacing any previous content.
+ *
+ * @returns The blob's final size in bytes
+ */
+export async function writeBlobChunks(
+    plugin: Pick<StrataPlugin, 'writeBlob'>,
+    key: string,
+    chunks: Iterable<Uint8Array> | AsyncIterable<Uint8Array>,
+    options: StorageOptions = {}
+): Promise<number> {
+    let offset = 0;
+    let size = 0;
+    let written = false;
+    // Each write truncates after itself, so sequential chunks drop any old tail
+    for await (const chunk of chunks) {
+        for (let start = 0; start < chunk.length; start += BLOB_MAX_CHUNK_BYTES) {
+            const data = chunk.subarray(start, start + BLOB_MAX_CHUNK_BYTES);
+            ({ size } = await plugin.writeBlob({ key, namespace: options.namespace, data, offset, truncate: true }));
+            offset += data.length;
+            written = true;
+        }
+    }
+    if (!written) {
+        ({ size } = await plugin.writeBlob({
+            key,
+            namespace: options.namespace,
+            data: new Uint8Array(0),
+            offset: 0,
+            truncate: true,
+        }));
+    }
+    return size;
+}
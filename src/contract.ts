@@ -1,6 +1,7 @@
 import type {
   DeviceProfile,
   InputSnapshot,
+  InputDelta,
   InputMapping,
   HapticsOptions,
   ControlHints,
@@ -19,6 +20,7 @@ export interface StrataPlatformAdapter {
 
   addListener(eventName: 'deviceChange', callback: (profile: DeviceProfile) => void): Promise<{ remove: () => Promise<void> }>;
   addListener(eventName: 'inputChange', callback: (snapshot: InputSnapshot) => void): Promise<{ remove: () => Promise<void> }>;
+  addListener(eventName: 'inputDelta', callback: (delta: InputDelta) => void): Promise<{ remove: () => Promise<void> }>;
   addListener(eventName: 'gamepadConnected', callback: (info: { index: number; id: string }) => void): Promise<{ remove: () => Promise<void> }>;
   addListener(eventName: 'gamepadDisconnected', callback: (info: { index: number }) => void): Promise<{ remove: () => Promise<void> }>;
 }
@@ -26,6 +28,7 @@ export interface StrataPlatformAdapter {
 export type {
   DeviceProfile,
   InputSnapshot,
+  InputDelta,
   InputMapping,
   HapticsOptions,
   ControlHints,
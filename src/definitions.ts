@@ -26,6 +26,13 @@ export interface DeviceProfile {
     };
 }
 
+/**
+ * Payload of the deviceChange event: the new profile plus the fields that changed.
+ */
+export interface DeviceProfileChange extends DeviceProfile {
+    changed: Array<keyof DeviceProfile>;
+}
+
 export interface Vector2 {
     x: number;
     y: number;
@@ -33,9 +40,25 @@ export interface Vector2 {
 
 export interface InputSnapshot {
     timestamp: number;
+    /**
+     * Time of the newest input event in this snapshot, in nanoseconds of the
+     * device's monotonic uptime clock (Android only).
+     */
+    inputTimeNanos?: number;
+    /**
+     * Number of the display frame this state was latched on. Present while
+     * frame latching is enabled (Android only).
+     */
+    frame?: number;
+    /** Vsync time of that frame, on the same clock as inputTimeNanos (Android only). */
+    frameTimeNanos?: number;
     leftStick: Vector2;
     rightStick: Vector2;
     buttons: Record<string, boolean>;
+    /**
+     * Pressed mapped actions packed as a bitfield; bit n is INPUT_ACTIONS[n].
+     */
+    buttonMask?: number;
     triggers: {
         left: number;
         right: number;
@@ -44,9 +67,282 @@ export interface InputSnapshot {
         id: number;
         position: Vector2;
         phase: 'began' | 'moved' | 'ended' | 'cancelled';
+        /** Position extrapolated to predictionTimeNanos, while prediction is enabled (Android only). */
+        predictedPosition?: Vector2;
     }>;
+    /**
+     * Time the predicted values extrapolate to, on the same clock as
+     * inputTimeNanos. Present while prediction is enabled (Android only).
+     */
+    predictionTimeNanos?: number;
+    /** leftStick extrapolated to predictionTimeNanos (Android only). */
+    predictedLeftStick?: Vector2;
+    /** rightStick extrapolated to predictionTimeNanos (Android only). */
+    predictedRightStick?: Vector2;
+    /**
+     * Samples recorded since the previous snapshot that requested history.
+     * Only present when requested with includeHistory (Android only).
+     */
+    history?: InputHistory;
+}
+
+/**
+ * State of one connected controller, as returned by getGamepadStates().
+ * Sticks and triggers are processed as set by setAxisProcessing(), with Y
+ * pointing up, as in InputSnapshot.
+ */
+export interface GamepadState {
+    /** Player slot, stable while the controller stays connected. */
+    index: number;
+    deviceId: number;
+    id: string;
+    /** Whether this controller drives getInputSnapshot() and inputChange. */
+    isSelected: boolean;
+    leftStick: Vector2;
+    rightStick: Vector2;
+    triggers: {
+        left: number;
+        right: number;
+    };
+    buttons: Record<string, boolean>;
+    /** Pressed mapped actions packed as a bitfield; bit n is INPUT_ACTIONS[n]. */
+    buttonMask: number;
+    /** Time of the controller's last input. */
+    timestamp: number;
+}
+
+/**
+ * Full-rate input samples, including the historical samples Android batches
+ * between frames. Sample arrays are flat with times in uptime milliseconds:
+ * touches are [time, x, y, ...] and gamepads are
+ * [time, leftX, leftY, rightX, rightY, leftTrigger, rightTrigger, ...].
+ */
+export interface InputHistory {
+    enabled: boolean;
+    /** Samples overwritten before they were read; raise the capacity if non-zero. */
+    dropped: number;
+    touches?: Array<{ id: number; samples: number[] }>;
+    gamepads?: Array<{ deviceId: number; samples: number[] }>;
+}
+
+export interface InputHistoryOptions {
+    enabled: boolean;
+    /**
+     * Ring buffer size in samples, per source.
+     * @default 256
+     */
+    capacity?: number;
+}
+
+/**
+ * Partial input update pushed with the 'inputDelta' event.
+ * Only groups that changed since the previous event are present; 'touches'
+ * always carries the complete current touch list when present.
+ */
+export interface InputDelta {
+    timestamp: number;
+    inputTimeNanos?: number;
+    /** Vsync time of the frame the event was sent on (Android only). */
+    frameTimeNanos?: number;
+    leftStick?: Vector2;
+    rightStick?: Vector2;
+    buttons?: Record<string, boolean>;
+    triggers?: InputSnapshot['triggers'];
+    touches?: InputSnapshot['touches'];
+}
+
+/**
+ * Coalescing options for the pushed 'inputChange' and 'inputDelta' events.
+ */
+export interface InputEventOptions {
+    /**
+     * Minimum time between events in milliseconds. 0 emits at most once per display frame.
+     * @default 0
+     */
+    minIntervalMs?: number;
+    /**
+     * Stick and trigger changes at or below this magnitude do not trigger an event.
+     * Returning to zero is always reported.
+     * @default 0
+     */
+    axisEpsilon?: number;
+}
+
+/**
+ * Smoothing applied to raw axis values before the deadzone (Android only).
+ * 'lowPass' is a fixed one-pole filter. 'oneEuro' raises its cutoff with
+ * speed, so slow aiming is smoothed while fast flicks keep little lag.
+ */
+export type AxisFilterOptions =
+    | { type: 'none' }
+    | {
+          type: 'lowPass';
+          /** @default 10 */
+          cutoffHz?: number;
+      }
+    | {
+          type: 'oneEuro';
+          /** Cutoff while the axis is still. @default 1 */
+          minCutoffHz?: number;
+          /** How fast the cutoff rises with speed; raise it if fast moves lag. @default 0.5 */
+          beta?: number;
+          /** @default 1 */
+          derivativeCutoffHz?: number;
+      };
+
+/**
+ * Deadzone, response curve and filter for one stick or for both triggers.
+ * Omitted fields take their defaults, which match the original processing.
+ */
+export interface AxisProcessingOptions {
+    /**
+     * Magnitudes at or below this read as zero.
+     * @default 0.15 for sticks, 0 for triggers
+     */
+    deadzone?: number;
+    /**
+     * Magnitudes at or above this read as full.
+     * @default 1
+     */
+    outerDeadzone?: number;
+    /**
+     * 'axial' applies the deadzone to each axis, which snaps diagonals to the axes.
+     * 'radial' applies it to the stick's distance from center and keeps its direction.
+     * Ignored for triggers.
+     * @default 'axial'
+     */
+    deadzoneShape?: 'axial' | 'radial';
+    /**
+     * Remap the range between the deadzones to 0..1, so output starts at zero
+     * at the deadzone edge instead of jumping to the deadzone value.
+     * @default false
+     */
+    rescale?: boolean;
+    /**
+     * Response curve applied after the deadzones. 'quadratic' and 'cubic' give
+     * finer control near center; 'power' uses `exponent`.
+     * @default 'linear'
+     */
+    curve?: 'linear' | 'quadratic' | 'cubic' | 'power';
+    /** @default 2 */
+    exponent?: number;
+    /** @default { type: 'none' } */
+    filter?: AxisFilterOptions;
+}
+
+export interface AxisProcessingConfig {
+    leftStick?: AxisProcessingOptions;
+    rightStick?: AxisProcessingOptions;
+    triggers?: AxisProcessingOptions;
+}
+
+export type TouchPhase = InputSnapshot['touches'][number]['phase'];
+
+export interface InputPredictionOptions {
+  enabled: boolean;
+  /**
+   * Default prediction target, counted from the latched frame time or from
+   * the time of the call.
+   * @default 16
+   */
+  lookAheadMs?: number;
+  /**
+   * Longest time past the newest sample that a prediction reaches.
+   * @default 32
+   */
+  maxPredictionMs?: number;
+  /**
+   * Time constant for smoothing velocity and acceleration. Higher values
+   * reduce jitter but respond more slowly.
+   * @default 12
+   */
+  smoothingMs?: number;
+}
+
+export interface LowLatencyInputOptions {
+  enabled: boolean;
+  /**
+   * Deliver touch events unbuffered.
+   * @default true
+   */
+  touch?: boolean;
+  /**
+   * Deliver gamepad stick and trigger events unbuffered. Needs Android 11 (API 30).
+   * @default true
+   */
+  gamepad?: boolean;
+}
+
+/**
+ * Thresholds for setGesturesEnabled(), in the same pixels as touch positions.
+ */
+export interface GestureOptions {
+    enabled: boolean;
+    /**
+     * Distance a finger must move before a press becomes a pan instead of a tap.
+     * @default 8 dp in pixels
+     */
+    slop?: number;
+    /**
+     * Release speed in pixels per second at which a pan also reports a swipe.
+     * @default 600 dp per second in pixels
+     */
+    swipeVelocity?: number;
+    /**
+     * Longest press that still counts as a tap.
+     * @default 300
+     */
+    tapTimeoutMs?: number;
 }
 
+export type GesturePhase = 'began' | 'changed' | 'ended' | 'cancelled';
+
+/**
+ * Payload of the 'gesture' event. x/y is the touch point, or the midpoint
+ * between the fingers for a pinch. timeNanos is the time of the newest
+ * touch sample on the monotonic clock used by InputSnapshot.inputTimeNanos.
+ */
+export type GestureEvent =
+    | { type: 'tap'; x: number; y: number; timeNanos: number }
+    | {
+          type: 'pan';
+          phase: GesturePhase;
+          x: number;
+          y: number;
+          /** Movement since the previous pan event. */
+          dx: number;
+          dy: number;
+          /** Release velocity in pixels per second, on 'ended' after the finger lifts. */
+          vx?: number;
+          vy?: number;
+          timeNanos: number;
+      }
+    | {
+          type: 'swipe';
+          x: number;
+          y: number;
+          vx: number;
+          vy: number;
+          direction: 'left' | 'right' | 'up' | 'down';
+          timeNanos: number;
+      }
+    | {
+          type: 'pinch';
+          phase: GesturePhase;
+          x: number;
+          y: number;
+          /** Scale factor since the previous pinch event. */
+          scale: number;
+          /** Scale factor since the pinch began. */
+          totalScale: number;
+          timeNanos: number;
+      };
+
+/**
+ * Touch phases in wire order; native encodes a phase as its index in this array.
+ */
+export const TOUCH_PHASES: readonly TouchPhase[] = ['began', 'moved', 'ended', 'cancelled'];
+
 export interface InputMapping {
     moveForward: string[];
     moveBackward: string[];
@@ -57,6 +353,43 @@ export interface InputMapping {
     cancel: string[];
 }
 
+/**
+ * Mapped actions in wire order; native encodes action n as bit n of a button bitfield.
+ */
+export const INPUT_ACTIONS: readonly (keyof InputMapping)[] = [
+    'moveForward',
+    'moveBackward',
+    'moveLeft',
+    'moveRight',
+    'jump',
+    'action',
+    'cancel',
+];
+
+/**
+ * Result of enabling or disabling the binary input buffer.
+ */
+export interface InputBufferInfo {
+    /** Whether native is writing input state into the buffer. */
+    enabled: boolean;
+    /** Layout version of the buffer; see INPUT_BUFFER_VERSION. */
+    version: number;
+    /** Size of the buffer in bytes (0 when unsupported). */
+    byteLength: number;
+    /** Name of the global JS interface the buffer is read through. */
+    interfaceName?: string;
+}
+
+/**
+ * Encoding of the hot responses and events, as negotiated with setWireFormat().
+ */
+export interface WireFormatInfo {
+    /** 'compact' sends positional arrays that the plugin decodes back into the usual objects. */
+    format: 'keyed' | 'compact';
+    /** Compact layout version native supports; see WIRE_FORMAT_VERSION (0 when unsupported). */
+    version: number;
+}
+
 /**
  * Unified haptics options supporting multiple vibration modes.
  *
@@ -106,6 +439,24 @@ export interface HapticsOptions {
      * @example [100, 50, 100] // vibrate 100ms, pause 50ms, vibrate 100ms
      */
     pattern?: number[];
+    /**
+     * Number of pulses to play from this one call, e.g. a burst of shots.
+     * @default 1
+     */
+    count?: number;
+    /**
+     * Time in milliseconds from the start of one pulse to the next when
+     * `count` is above 1.
+     * @default twice the duration
+     */
+    interval?: number;
+    /**
+     * Ranks overlapping effects on Android: a request with a higher priority
+     * (or the same priority and a stronger intensity) replaces the playing
+     * effect, while weaker ones merge into it or wait until it ends.
+     * @default 0
+     */
+    priority?: number;
     /**
      * Legacy type for backward compatibility with initial implementation.
      */
@@ -116,6 +467,143 @@ export interface HapticsOptions {
     style?: 'light' | 'medium' | 'heavy';
 }
 
+/**
+ * One step of a haptic composition, played on Android 11+ devices that
+ * support it.
+ */
+export interface HapticPrimitive {
+    type: 'click' | 'thud' | 'spin' | 'quickRise' | 'slowRise' | 'quickFall' | 'tick' | 'lowTick';
+    /**
+     * Strength from 0 to 1.
+     * @default 1
+     */
+    scale?: number;
+    /**
+     * Pause in milliseconds before this primitive.
+     * @default 0
+     */
+    delay?: number;
+}
+
+/**
+ * An effect compiled once by registerHapticEffect and played by id.
+ */
+export interface HapticEffectOptions extends HapticsOptions {
+    /**
+     * Amplitude (0-255) for each step of `pattern` (Android only).
+     */
+    amplitudes?: number[];
+    /**
+     * Composition played instead of the other options where supported
+     * (Android 11+). The other options are the fallback.
+     */
+    primitives?: HapticPrimitive[];
+}
+
+/**
+ * Load on one native worker lane.
+ */
+export interface WorkLaneMetrics {
+    name: string;
+    threads: number;
+    /** Queue limit; absent for unbounded lanes */
+    capacity?: number;
+    /** Tasks waiting to start */
+    queued: number;
+    peakQueued: number;
+    completed: number;
+    /** Tasks refused because the queue was full */
+    rejected: number;
+    meanWaitMs: number;
+    maxWaitMs: number;
+    meanRunMs: number;
+    maxRunMs: number;
+}
+
+export interface ThreadingMetrics {
+    lanes: WorkLaneMetrics[];
+}
+
+/**
+ * Latency distribution, accurate to within 12.5%.
+ */
+export interface LatencyDistribution {
+    count: number;
+    meanMs: number;
+    p50Ms: number;
+    p90Ms: number;
+    p99Ms: number;
+    p999Ms: number;
+    maxMs: number;
+}
+
+/**
+ * Latency of one plugin method: how long each call held the native plugin thread.
+ */
+export interface MethodMetrics extends LatencyDistribution {
+    /** For methods that finish on another lane: time from the call to its result */
+    completion?: LatencyDistribution;
+    /** Request size in JSON characters, sampled on 1 call in 64 */
+    meanPayloadChars: number;
+    maxPayloadChars: number;
+}
+
+export interface EventMetrics {
+    count: number;
+    perSecond: number;
+    /** Event size in JSON characters, sampled on 1 event in 64 */
+    meanPayloadChars: number;
+    maxPayloadChars: number;
+}
+
+export interface FrameLatchMetrics {
+    enabled: boolean;
+    /** Number of the latest latched frame */
+    frame: number;
+    /** Age of new input when the next frame latched it */
+    inputLatency: LatencyDistribution;
+}
+
+/**
+ * Delivery of one input source in one dispatch mode.
+ */
+export interface DispatchLatency extends LatencyDistribution {
+    /** Events received per second while in this mode */
+    eventsPerSecond: number;
+    /** Mean samples per event; batched delivery packs several into one event */
+    samplesPerEvent: number;
+}
+
+/**
+ * Age of each touch or gamepad event's newest sample when it reached the
+ * plugin, split by whether it was delivered batched or unbuffered.
+ */
+export interface InputDispatchMetrics {
+    /** Whether setLowLatencyInput is on */
+    enabled: boolean;
+    touch: InputSourceDispatch;
+    gamepad: InputSourceDispatch;
+}
+
+export interface InputSourceDispatch {
+    /** Current delivery of this source */
+    mode: 'buffered' | 'unbuffered';
+    buffered: DispatchLatency;
+    unbuffered: DispatchLatency;
+}
+
+export interface PluginMetrics extends ThreadingMetrics {
+    /** Start of the measurement window, in epoch milliseconds */
+    since: number;
+    elapsedMs: number;
+    methods: Record<string, MethodMetrics>;
+    events: Record<string, EventMetrics>;
+    /** Present on Android */
+    frameLatch?: FrameLatchMetrics;
+    /** Present on Android */
+    inputDispatch?: InputDispatchMetrics;
+}
+
 export interface ControlHints {
     movement: string;
     action: string;
@@ -140,8 +628,53 @@ export interface SafeAreaInsets {
   left: number;
 }
 
-export interface PerformanceMode {
+/**
+ * Quality tier chosen by the performance governor, with the readings behind it.
+ */
+export interface PerformanceTier {
+  /** 0 is full quality; higher tiers ask for less work. */
+  tier: number;
+  targetFps: number;
+  /** Fraction of the native resolution to render at. */
+  renderScale: number;
+  /** What set the tier. 'cooldown' means pressure has eased but the tier is still stepping down. */
+  reason: 'none' | 'thermal' | 'headroom' | 'powerSave' | 'battery' | 'cooldown';
+  thermalStatus: 'none' | 'light' | 'moderate' | 'severe' | 'critical' | 'emergency' | 'shutdown';
+  /** Forecast thermal headroom 10 s ahead; 1 is where severe throttling starts (Android 11+). */
+  thermalHeadroom?: number;
+  powerSave: boolean;
+  /** Battery charge from 0 to 1, when known. */
+  batteryLevel?: number;
+  charging: boolean;
+}
+
+/**
+ * enabled is false while power saving is on. The tier fields are present
+ * while the performance governor runs.
+ */
+export interface PerformanceMode extends Partial<PerformanceTier> {
+  enabled: boolean;
+}
+
+export interface PerformanceGovernorOptions {
   enabled: boolean;
+  /**
+   * How often thermal headroom and the battery are read. Thermal status and
+   * power-save changes are handled as they happen.
+   * @default 2000
+   */
+  pollIntervalMs?: number;
+  /**
+   * How long pressure must stay lower before the tier drops by one.
+   * Rising tiers apply at once.
+   * @default 10000
+   */
+  cooldownMs?: number;
+  /**
+   * Settings per tier, from full quality down.
+   * @default [{60, 1}, {60, 0.85}, {45, 0.75}, {30, 0.6}]
+   */
+  tiers?: Array<{ targetFps: number; renderScale: number }>;
 }
 
 export interface TouchOptions {
@@ -169,6 +702,133 @@ export interface StorageResult<T = unknown> {
   exists: boolean;
 }
 
+/**
+ * Result of a batched get, keyed by the requested keys.
+ */
+export interface StorageItemsResult<T = unknown> {
+  items: Record<string, StorageResult<T>>;
+}
+
+/**
+ * Native storage tuning (Android only).
+ */
+export interface StorageConfig {
+  /**
+   * How long writes are collected before being flushed to disk together.
+   * Repeated writes to a key within the window are written once.
+   * @default 8
+   */
+  flushWindowMs?: number;
+}
+
+/**
+ * How values written to a storage namespace are encoded (Android only).
+ */
+export interface StorageCodecOptions extends StorageOptions {
+  /**
+   * `deflate` compresses each value; values that would not shrink are kept
+   * as-is. Every stored value carries a CRC32 checksum either way.
+   * @default 'none'
+   */
+  compression: 'none' | 'deflate';
+  /**
+   * Deflate level from 1 (fastest) to 9 (smallest).
+   * @default 6
+   */
+  level?: number;
+  /**
+   * Preset dictionary: text typical of the namespace's values, such as a
+   * sample save. Helps most with small values. Stored with the data, so
+   * values remain readable if the codec is changed later.
+   */
+  dictionary?: string;
+}
+
+/**
+ * Stored size of one storage namespace. Counts only values flushed to disk.
+ */
+export interface StorageNamespaceStats {
+  namespace: string;
+  compression: 'none' | 'deflate';
+  keys: number;
+  /** Size of the values before encoding */
+  rawBytes: number;
+  /** Size of the values as stored */
+  storedBytes: number;
+}
+
+export interface StorageStatsResult {
+  namespaces: StorageNamespaceStats[];
+}
+
+/**
+ * Identifies a binary blob (Android only).
+ */
+export interface BlobOptions extends StorageOptions {
+  key: string;
+}
+
+export interface BlobWriteOptions extends BlobOptions {
+  /** Bytes to write; at most 4 MB per call. */
+  data: Uint8Array;
+  /**
+   * Byte position to write at; the blob grows as needed.
+   * @default 0
+   */
+  offset?: number;
+  /**
+   * Cut the blob off after the written range.
+   * @default false
+   */
+  truncate?: boolean;
+}
+
+export interface BlobReadOptions extends BlobOptions {
+  /** @default 0 */
+  offset?: number;
+  /**
+   * Maximum bytes to return, capped at 4 MB.
+   * @default 4194304
+   */
+  length?: number;
+}
+
+export interface BlobChunk {
+  data: Uint8Array;
+  offset: number;
+  /** Total size of the blob in bytes. */
+  size: number;
+}
+
+export interface InputRecording {
+  key: string;
+  namespace: string;
+  /** Touch, gamepad and key events recorded. */
+  events: number;
+  /** Time from the first event to the last. */
+  durationMs: number;
+  /** Size of the recording blob. */
+  bytes: number;
+}
+
+export interface InputReplayOptions extends BlobOptions {
+  /**
+   * 'recorded' sends each event at its recorded time. 'fast' sends events as
+   * soon as the previous ones are handled. Event times keep their recorded
+   * spacing in both modes.
+   * @default 'recorded'
+   */
+  speed?: 'recorded' | 'fast';
+}
+
+export interface InputReplayResult {
+  events: number;
+  /** Wall-clock time the replay took. */
+  durationMs: number;
+  /** false if stopInputReplay() ended it early. */
+  completed: boolean;
+}
+
 /**
  * Keys listing result.
  */
@@ -179,8 +839,102 @@ export interface StorageKeysResult {
 export interface StrataPlugin {
     getDeviceProfile(): Promise<DeviceProfile>;
     getControlHints(): Promise<ControlHints>;
-    getInputSnapshot(): Promise<InputSnapshot>;
+    /**
+     * @param options Pass includeHistory to drain the samples recorded since
+     * the last such call. Pass predictionTimeNanos to choose when predictions
+     * extrapolate to, on the inputTimeNanos clock.
+     */
+    getInputSnapshot(options?: { includeHistory?: boolean; predictionTimeNanos?: number }): Promise<InputSnapshot>;
+    /**
+     * Every connected controller's state in one call, for local multiplayer.
+     * Each controller keeps its own sticks and buttons; only the selected one
+     * (or the first, if none is selected) feeds getInputSnapshot().
+     */
+    getGamepadStates(): Promise<{ gamepads: GamepadState[] }>;
+    /**
+     * Latch input once per display frame (Android only).
+     * While enabled, getInputSnapshot() returns the state captured at the
+     * latest vsync, stamped with its frame number and frame time, so every
+     * read within a frame agrees. Resolves with enabled: false where unsupported.
+     *
+     * @param options Whether input should be latched per frame
+     */
+    setFrameLatchingEnabled(options: { enabled: boolean }): Promise<{ enabled: boolean }>;
+    /**
+     * Start or stop recording every batched touch and stick sample (Android only).
+     * Recorded samples are returned by getInputSnapshot({ includeHistory: true }).
+     *
+     * @param options Whether to record and how many samples to keep
+     */
+    configureInputHistory(options: InputHistoryOptions): Promise<{ enabled: boolean; capacity: number }>;
+    /**
+     * Start or stop input prediction (Android only). While enabled,
+     * snapshots and inputChange events report every touch and both sticks
+     * extrapolated from their recent velocity and acceleration, next to the
+     * measured values. Resolves with enabled: false where unsupported.
+     *
+     * @param options Whether to predict, and how far ahead
+     */
+    configureInputPrediction(options: InputPredictionOptions): Promise<{ enabled: boolean }>;
+    /**
+     * Ask for touch and gamepad events as soon as they arrive instead of
+     * batched to the next display frame (Android only). This saves up to a
+     * frame of latency, but delivers more events per second, which costs
+     * power. Gamepads need Android 11; on older versions only touches are
+     * unbuffered. Compare both modes with getPluginMetrics().inputDispatch.
+     * Resolves with the sources that are unbuffered.
+     *
+     * @param options Whether to enable the mode, and for which sources
+     */
+    setLowLatencyInput(options: LowLatencyInputOptions): Promise<{ enabled: boolean; touch: boolean; gamepad: boolean }>;
     setInputMapping(mapping: Partial<InputMapping>): Promise<void>;
+    /**
+     * Opt in to the binary input buffer (Android only).
+     * While enabled, native writes stick, trigger, button and touch state into a
+     * fixed-layout buffer that InputBufferReader reads each frame without a
+     * bridge call or JSON encoding. Resolves with enabled: false where unsupported.
+     *
+     * @param options Whether the buffer should be written
+     */
+    setInputBufferEnabled(options: { enabled: boolean }): Promise<InputBufferInfo>;
+    /**
+     * Configure coalescing of the pushed input events. Changes within one display
+     * frame are merged and unchanged frames are dropped, so idle input sends nothing.
+     * The next 'inputDelta' after this call carries every field.
+     *
+     * @param options Rate limit and change threshold
+     */
+    configureInputEvents(options: InputEventOptions): Promise<void>;
+    /**
+     * Choose how input snapshots, gamepad states, controllers, the device
+     * profile and the input, deviceChange and gesture events cross the bridge
+     * (Android only). 'compact' drops field names and sends enums as small
+     * integers; results and events are decoded back into the same objects, so
+     * callers see no difference. Native stays keyed unless it supports this
+     * build's layout version. Resolves with the format in use.
+     *
+     * @param options The format to use
+     */
+    setWireFormat(options: { format: WireFormatInfo['format'] }): Promise<WireFormatInfo>;
+    /**
+     * Start or stop native gesture recognition (Android only).
+     * While enabled, taps, pans, swipes and pinches are recognized from every
+     * touch sample and sent as 'gesture' events. Pan and pinch movement is sent
+     * at most once per display frame. Resolves with enabled: false where unsupported.
+     *
+     * @param options Whether to recognize gestures, and optional thresholds
+     */
+    setGesturesEnabled(options: GestureOptions): Promise<{ enabled: boolean }>;
+    /**
+     * Configure how stick and trigger values are processed before they are
+     * reported, by getInputSnapshot(), getGamepadStates(), input events and the
+     * input buffer alike. Groups left out of the call keep their settings.
+     * Filters run natively on every batched sample and apply on Android only;
+     * the web applies the deadzones and curves.
+     *
+     * @param config Settings per stick and for the triggers
+     */
+    setAxisProcessing(config: AxisProcessingConfig): Promise<void>;
     /**
      * Triggers haptic feedback with unified API.
      *
@@ -199,6 +953,22 @@ export interface StrataPlugin {
      * Legacy haptics method for backward compatibility.
      */
     haptics(options: HapticsOptions): Promise<void>;
+    /**
+     * Validate and compile a haptic effect once. Playing it by id skips
+     * option parsing, which suits effects fired every frame. Effects with a
+     * total duration of zero are rejected.
+     *
+     * @returns The id to pass to playHaptic
+     */
+    registerHapticEffect(options: HapticEffectOptions): Promise<{ id: number }>;
+    /**
+     * Play an effect registered with registerHapticEffect.
+     */
+    playHaptic(options: { id: number }): Promise<void>;
+    /**
+     * Release a registered effect. Its id may be reused.
+     */
+    unregisterHapticEffect(options: { id: number }): Promise<void>;
     /**
      * Get device information relevant to Strata 3D.
      */
@@ -215,17 +985,46 @@ export interface StrataPlugin {
      * Check if performance mode is enabled or suggest it.
      */
     getPerformanceMode(): Promise<PerformanceMode>;
+    /**
+     * Start or stop the performance governor (Android only). While it runs,
+     * 'performanceTier' events recommend a frame rate and render scale from
+     * thermal status, the thermal headroom forecast, power saving and battery
+     * level, and the current tier is sent straight away. Resolves with
+     * enabled: false where unsupported.
+     *
+     * @param options Whether to run the governor, and optional tuning
+     */
+    configurePerformanceGovernor(options: PerformanceGovernorOptions): Promise<{ enabled: boolean }>;
     /**
      * Configure touch handling for games (e.g. prevent scrolling/zooming).
      */
     configureTouchHandling(options: TouchOptions): Promise<void>;
+    /**
+     * Queue and timing figures for the native worker lanes (Android only;
+     * empty elsewhere). Input and haptics calls stay on the plugin thread,
+     * while blocking work runs on these lanes.
+     */
+    getThreadingMetrics(): Promise<ThreadingMetrics>;
+    /**
+     * Per-method call counts and latency, per-event send rates and worker
+     * lane figures (Android only; empty elsewhere).
+     *
+     * @param options `reset` starts a new measurement window after reading
+     */
+    getPluginMetrics(options?: { reset?: boolean }): Promise<PluginMetrics>;
+    /**
+     * Send the getPluginMetrics result as a `pluginMetrics` event every
+     * `intervalMs` (at least 250). Zero stops the reports.
+     */
+    configurePluginMetrics(options: { intervalMs: number }): Promise<{ intervalMs: number }>;
     
     // ============ Storage API ============
     
     /**
      * Save game data to persistent storage.
      * On web: Uses localStorage with optional namespace prefix.
-     * On native: Uses native platform storage.
+     * On Android: Uses an append-only file log written off the main thread,
+     * so large saves don't block rendering.
      * 
      * @param key The key to store data under
      * @param value The value to store (will be JSON serialized)
@@ -242,6 +1041,24 @@ export interface StrataPlugin {
      */
     getItem<T = unknown>(key: string, options?: StorageOptions): Promise<StorageResult<T>>;
     
+    /**
+     * Save several values in one call. The batch is written atomically:
+     * after a crash either all of it or none of it is stored.
+     *
+     * @param items Values to store, keyed by storage key
+     * @param options Optional storage configuration
+     */
+    setItems(items: Record<string, unknown>, options?: StorageOptions): Promise<void>;
+
+    /**
+     * Retrieve several values in one call.
+     *
+     * @param keys The keys to retrieve
+     * @param options Optional storage configuration
+     * @returns A result for every requested key
+     */
+    getItems<T = unknown>(keys: string[], options?: StorageOptions): Promise<StorageItemsResult<T>>;
+
     /**
      * Remove a specific key from storage.
      * 
@@ -250,6 +1067,32 @@ export interface StrataPlugin {
      */
     removeItem(key: string, options?: StorageOptions): Promise<void>;
     
+    /**
+     * Remove several keys in one call, atomically.
+     *
+     * @param keys The keys to remove
+     * @param options Optional storage configuration
+     */
+    removeItems(keys: string[], options?: StorageOptions): Promise<void>;
+
+    /**
+     * Tune native write coalescing (Android only; resolves unchanged elsewhere).
+     */
+    configureStorage(config: StorageConfig): Promise<StorageConfig>;
+
+    /**
+     * Choose compression for values written to a namespace from now on
+     * (Android only). Call it at startup; the choice is not persisted.
+     */
+    setStorageCodec(options: StorageCodecOptions): Promise<void>;
+
+    /**
+     * Raw and stored byte counts per namespace (Android only; empty elsewhere).
+     *
+     * @param options Limit the report to one namespace
+     */
+    getStorageStats(options?: StorageOptions): Promise<StorageStatsResult>;
+
     /**
      * List all keys in storage (within the namespace if specified).
      * 
@@ -265,6 +1108,54 @@ export interface StrataPlugin {
      */
     clear(options?: StorageOptions): Promise<void>;
     
+    // ============ Blob storage (Android only) ============
+
+    /**
+     * Write a range of a binary blob. Blobs live in memory-mapped files, so
+     * large data can be streamed in chunks without holding it all in memory.
+     * See writeBlobChunks() for streaming a whole blob.
+     *
+     * @returns The blob's size after the write
+     */
+    writeBlob(options: BlobWriteOptions): Promise<{ size: number }>;
+
+    /**
+     * Read a range of a binary blob. Rejects if the blob does not exist.
+     * See readBlobChunks() for streaming a whole blob.
+     */
+    readBlob(options: BlobReadOptions): Promise<BlobChunk>;
+
+    getBlobInfo(options: BlobOptions): Promise<{ exists: boolean; size: number }>;
+
+    deleteBlob(options: BlobOptions): Promise<void>;
+
+    listBlobs(options?: StorageOptions): Promise<StorageKeysResult>;
+
+    /**
+     * Record every touch, gamepad and key event the plugin handles into a
+     * binary blob, replacing it (Android only). Events are written in chunks
+     * off the UI thread while recording runs.
+     */
+    startInputRecording(options: BlobOptions): Promise<void>;
+
+    /**
+     * End the recording. Resolves once the blob is completely written.
+     */
+    stopInputRecording(): Promise<InputRecording>;
+
+    /**
+     * Feed a recording back through the same native input paths, for
+     * repeatable benchmarks and soak tests (Android only). Live touch, gamepad
+     * and key input is ignored until it ends. Touches, keys and sticks left
+     * held at the end are released. Resolves when the replay ends.
+     */
+    replayInput(options: InputReplayOptions): Promise<InputReplayResult>;
+
+    /**
+     * End a running replay early.
+     */
+    stopInputReplay(): Promise<void>;
+
     /**
      * Select which controller to use for input (iOS only, 0-based index).
      * Use getConnectedControllers() to see available controllers.
@@ -295,12 +1186,27 @@ export interface StrataPlugin {
     }>;
     addListener(
         eventName: 'deviceChange',
-        callback: (profile: DeviceProfile) => void
+        callback: (profile: DeviceProfileChange) => void
     ): Promise<{ remove: () => Promise<void> }>;
     addListener(
         eventName: 'inputChange',
         callback: (snapshot: InputSnapshot) => void
     ): Promise<{ remove: () => Promise<void> }>;
+    /**
+     * Changed input fields only; merge into a snapshot with applyInputDelta().
+     */
+    addListener(
+        eventName: 'inputDelta',
+        callback: (delta: InputDelta) => void
+    ): Promise<{ remove: () => Promise<void> }>;
+    addListener(
+        eventName: 'performanceTier',
+        callback: (tier: PerformanceTier) => void
+    ): Promise<{ remove: () => Promise<void> }>;
+    addListener(
+        eventName: 'gesture',
+        callback: (gesture: GestureEvent) => void
+    ): Promise<{ remove: () => Promise<void> }>;
     addListener(
         eventName: 'gamepadConnected',
         callback: (info: { index: number; id: string }) => void
@@ -309,6 +1215,13 @@ export interface StrataPlugin {
         eventName: 'gamepadDisconnected',
         callback: (info: { index: number }) => void
     ): Promise<{ remove: () => Promise<void> }>;
+    /**
+     * Periodic metrics, enabled with configurePluginMetrics (Android only).
+     */
+    addListener(
+        eventName: 'pluginMetrics',
+        callback: (metrics: PluginMetrics) => void
+    ): Promise<{ remove: () => Promise<void> }>;
 }
 
 export const DEFAULT_INPUT_MAPPING: InputMapping = {
@@ -0,0 +1,45 @@
+import { describe, it, expect } from 'vitest';
+import { diffDeviceProfiles } from './deviceProfile';
+import type { DeviceProfile } from './definitions';
+
+function profile(overrides: Partial<DeviceProfile> = {}): DeviceProfile {
+  return {
+    deviceType: 'mobile',
+    platform: 'android',
+    inputMode: 'touch',
+    orientation: 'portrait',
+    hasTouch: true,
+    hasPointer: false,
+    hasGamepad: false,
+    isMobile: true,
+    isTablet: false,
+    isFoldable: false,
+    isDesktop: false,
+    screenWidth: 390,
+    screenHeight: 844,
+    pixelRatio: 3,
+    safeAreaInsets: { top: 47, right: 0, bottom: 34, left: 0 },
+    ...overrides,
+  };
+}
+
+describe('device profile diffs', () => {
+  it('should report nothing for equal profiles', () => {
+    expect(diffDeviceProfiles(profile(), profile())).toEqual([]);
+  });
+
+  it('should report every field without a previous profile', () => {
+    expect(diffDeviceProfiles(null, profile())).toHaveLength(Object.keys(profile()).length);
+  });
+
+  it('should list changed fields', () => {
+    const next = profile({ orientation: 'landscape', screenWidth: 844, screenHeight: 390 });
+    expect(diffDeviceProfiles(profile(), next)).toEqual(['orientation', 'screenWidth', 'screenHeight']);
+  });
+
+  it('should compare insets by value', () => {
+    const next = profile({ safeAreaInsets: { top: 0, right: 47, bottom: 21, left: 47 } });
+    expect(diffDeviceProfiles(profile(), next)).toEqual(['safeAreaInsets']);
+    expect(diffDeviceProfiles(profile(), profile({ safeAreaInsets: { top: 47, right: 0, bottom: 34, left: 0 } }))).toEqual([]);
+  });
+});
@@ -0,0 +1,25 @@
+import type { DeviceProfile } from './definitions';
+
+function valueEqual(a: unknown, b: unknown): boolean {
+    if (a === b) return true;
+    if (typeof a !== 'object' || typeof b !== 'object' || a === null || b === null) return false;
+    const keysA = Object.keys(a);
+    if (keysA.length !== Object.keys(b).length) return false;
+    return keysA.every((key) =>
+        valueEqual((a as Record<string, unknown>)[key], (b as Record<string, unknown>)[key])
+    );
+}
+
+/**
+ * Names of the profile fields that differ between `previous` and `next`,
+ * mirroring the native deviceChange `changed` list. A null `previous`
+ * reports every field.
+ */
+export function diffDeviceProfiles(
+    previous: DeviceProfile | null,
+    next: DeviceProfile
+): Array<keyof DeviceProfile> {
+    const keys = Object.keys(next) as Array<keyof DeviceProfile>;
+    if (!previous) return keys;
+    return keys.filter((key) => !valueEqual(previous[key], next[key]));
+}
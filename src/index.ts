@@ -1,9 +1,18 @@
-import { registerPlugin } from '@capacitor/core';
+import { Capacitor, registerPlugin } from '@capacitor/core';
 import type { StrataPlugin } from './definitions';
+import { adaptNativeStorage } from './storage';
+import { adaptWireFormat } from './wireFormat';
 
-const Strata = registerPlugin<StrataPlugin>('Strata', {
-  web: () => import('./web').then(m => new m.StrataWeb()),
-});
+const isNative = Capacitor.isNativePlatform();
+const Strata = adaptWireFormat(
+  adaptNativeStorage(
+    registerPlugin<StrataPlugin>('Strata', {
+      web: () => import('./web').then(m => new m.StrataWeb()),
+    }),
+    isNative
+  ),
+  isNative
+);
 
 export const version = '0.0.1';
 export function hello() {
@@ -11,4 +20,10 @@ export function hello() {
 }
 
 export * from './definitions';
+export * from './inputBuffer';
+export * from './inputEvents';
+export * from './axisProcessing';
+export * from './deviceProfile';
+export * from './blobs';
+export * from './wireFormat';
 export { Strata };
@@ -0,0 +1,63 @@
+import { describe, it, expect } from 'vitest';
+import { InputBufferReader, INPUT_BUFFER_VERSION } from './inputBuffer';
+
+function encodeFrame(sequence: number): string {
+  const bytes = new Uint8Array(208);
+  const view = new DataView(bytes.buffer);
+  view.setUint16(0, INPUT_BUFFER_VERSION, true);
+  view.setUint16(2, bytes.length, true);
+  view.setInt32(4, sequence, true);
+  view.setFloat64(8, 1234, true);
+  view.setFloat32(16, 0.5, true);
+  view.setFloat32(20, -0.25, true);
+  view.setFloat32(36, 1, true);
+  view.setUint32(40, (1 << 4) | (1 << 6), true);
+  view.setUint16(44, 1, true);
+  view.setInt32(48, 7, true);
+  view.setFloat32(52, 100, true);
+  view.setFloat32(56, 200, true);
+  view.setUint8(60, 1);
+  return btoa(String.fromCharCode(...bytes));
+}
+
+describe('InputBufferReader', () => {
+  it('should decode a native frame', () => {
+    const reader = new InputBufferReader(null);
+    const frame = reader.decode(encodeFrame(3));
+
+    expect(frame.sequence).toBe(3);
+    expect(frame.timestamp).toBe(1234);
+    expect(frame.leftStick).toEqual({ x: 0.5, y: -0.25 });
+    expect(frame.triggers.right).toBe(1);
+    expect(frame.touchCount).toBe(1);
+    expect(frame.touches[0]).toEqual({ id: 7, position: { x: 100, y: 200 }, phase: 'moved' });
+    expect(reader.isPressed('jump')).toBe(true);
+    expect(reader.isPressed('action')).toBe(false);
+    expect(reader.toSnapshot().buttons.cancel).toBe(true);
+  });
+
+  it('should only decode when the sequence advances', () => {
+    let sequence = 1;
+    const reads: number[] = [];
+    const reader = new InputBufferReader({
+      read: () => encodeFrame(sequence),
+      readIfNewer: (last) => {
+        reads.push(last);
+        return last === sequence ? null : encodeFrame(sequence);
+      },
+      getSequence: () => sequence,
+    });
+
+    expect(reader.poll()?.sequence).toBe(1);
+    expect(reader.poll()?.sequence).toBe(1);
+    sequence = 2;
+    expect(reader.poll()?.sequence).toBe(2);
+    expect(reads).toEqual([0, 1, 1]);
+  });
+
+  it('should return null when the native buffer is unavailable', () => {
+    const reader = new InputBufferReader(null);
+    expect(reader.isAvailable).toBe(false);
+    expect(reader.poll()).toBeNull();
+  });
+});
@@ -0,0 +1,182 @@
+import type { InputMapping, InputSnapshot, TouchPhase, Vector2 } from './definitions';
+import { INPUT_ACTIONS, TOUCH_PHASES } from './definitions';
+
+/**
+ * Binary input buffer layout. Must stay in sync with InputBufferChannel.java.
+ */
+export const INPUT_BUFFER_VERSION = 1;
+export const INPUT_BUFFER_MAX_TOUCHES = 10;
+export const INPUT_BUFFER_INTERFACE = 'StrataInputBuffer';
+
+const OFFSET_VERSION = 0;
+const OFFSET_BYTE_LENGTH = 2;
+const OFFSET_SEQUENCE = 4;
+const OFFSET_TIMESTAMP = 8;
+const OFFSET_AXES = 16;
+const OFFSET_BUTTONS = 40;
+const OFFSET_TOUCH_COUNT = 44;
+const OFFSET_TOUCHES = 48;
+const TOUCH_STRIDE = 16;
+const BYTE_LENGTH = OFFSET_TOUCHES + INPUT_BUFFER_MAX_TOUCHES * TOUCH_STRIDE;
+
+interface NativeInputBuffer {
+    read(): string | null;
+    readIfNewer(lastSequence: number): string | null;
+    getSequence(): number;
+}
+
+export interface InputBufferTouch {
+    id: number;
+    position: Vector2;
+    phase: TouchPhase;
+}
+
+/**
+ * Decoded view of the binary input buffer. The reader mutates a single
+ * instance in place, so consumers must copy anything they keep across frames.
+ */
+export interface InputBufferFrame {
+    sequence: number;
+    timestamp: number;
+    leftStick: Vector2;
+    rightStick: Vector2;
+    triggers: { left: number; right: number };
+    /** Bit n is set while INPUT_ACTIONS[n] is pressed. */
+    buttonMask: number;
+    touchCount: number;
+    /** Preallocated touch slots; only the first touchCount entries are valid. */
+    touches: InputBufferTouch[];
+}
+
+/**
+ * Reads the native binary input buffer without going through the Capacitor
+ * bridge. Enable it first with Strata.setInputBufferEnabled({ enabled: true }).
+ *
+ * @example
+ * const reader = new InputBufferReader();
+ * function frame() {
+ *   const input = reader.poll();
+ *   if (input) player.move(input.leftStick.x, input.leftStick.y);
+ *   requestAnimationFrame(frame);
+ * }
+ */
+export class InputBufferReader {
+    private readonly bytes = new Uint8Array(BYTE_LENGTH);
+    private readonly view = new DataView(this.bytes.buffer);
+    private readonly frame: InputBufferFrame = {
+        sequence: 0,
+        timestamp: 0,
+        leftStick: { x: 0, y: 0 },
+        rightStick: { x: 0, y: 0 },
+        triggers: { left: 0, right: 0 },
+        buttonMask: 0,
+        touchCount: 0,
+        touches: Array.from({ length: INPUT_BUFFER_MAX_TOUCHES }, () => ({
+            id: 0,
+            position: { x: 0, y: 0 },
+            phase: 'began' as TouchPhase,
+        })),
+    };
+    private hasFrame = false;
+
+    constructor(private readonly source: NativeInputBuffer | null = InputBufferReader.findNative()) {}
+
+    private static findNative(): NativeInputBuffer | null {
+        if (typeof window === 'undefined') return null;
+        const native = (window as unknown as Record<string, unknown>)[INPUT_BUFFER_INTERFACE];
+        return (native as NativeInputBuffer | undefined) ?? null;
+    }
+
+    /**
+     * Whether the native buffer interface is present in this WebView.
+     */
+    get isAvailable(): boolean {
+        return this.source !== null;
+    }
+
+    /**
+     * Returns the latest frame, decoding only when native has written since the
+     * last poll. Returns null until the first frame has been read.
+     */
+    poll(): InputBufferFrame | null {
+        if (!this.source) return null;
+        const encoded = this.source.readIfNewer(this.frame.sequence);
+        if (encoded !== null) {
+            this.decode(encoded);
+        }
+        return this.hasFrame ? this.frame : null;
+    }
+
+    /**
+     * Decodes a base64-encoded buffer into the reader's frame.
+     */
+    decode(encoded: string): InputBufferFrame {
+        const binary = atob(encoded);
+        const length = Math.min(binary.length, BYTE_LENGTH);
+        for (let i = 0; i < length; i++) {
+            this.bytes[i] = binary.charCodeAt(i);
+        }
+
+        const view = this.view;
+        const version = view.getUint16(OFFSET_VERSION, true);
+        if (version !== INPUT_BUFFER_VERSION) {
+            throw new Error(`Unsupported input buffer version ${version}`);
+        }
+        if (view.getUint16(OFFSET_BYTE_LENGTH, true) !== BYTE_LENGTH) {
+            throw new Error('Input buffer length mismatch');
+        }
+
+        const frame = this.frame;
+        frame.sequence = view.getInt32(OFFSET_SEQUENCE, true);
+        frame.timestamp = view.getFloat64(OFFSET_TIMESTAMP, true);
+        frame.leftStick.x = view.getFloat32(OFFSET_AXES, true);
+        frame.leftStick.y = view.getFloat32(OFFSET_AXES + 4, true);
+        frame.rightStick.x = view.getFloat32(OFFSET_AXES + 8, true);
+        frame.rightStick.y = view.getFloat32(OFFSET_AXES + 12, true);
+        frame.triggers.left = view.getFloat32(OFFSET_AXES + 16, true);
+        frame.triggers.right = view.getFloat32(OFFSET_AXES + 20, true);
+        frame.buttonMask = view.getUint32(OFFSET_BUTTONS, true);
+        frame.touchCount = Math.min(view.getUint16(OFFSET_TOUCH_COUNT, true), INPUT_BUFFER_MAX_TOUCHES);
+        for (let i = 0; i < frame.touchCount; i++) {
+            const offset = OFFSET_TOUCHES + i * TOUCH_STRIDE;
+            const touch = frame.touches[i];
+            touch.id = view.getInt32(offset, true);
+            touch.position.x = view.getFloat32(offset + 4, true);
+            touch.position.y = view.getFloat32(offset + 8, true);
+            touch.phase = TOUCH_PHASES[view.getUint8(offset + 12)] ?? 'moved';
+        }
+        this.hasFrame = true;
+        return frame;
+    }
+
+    /**
+     * Whether the given mapped action is pressed in the current frame.
+     */
+    isPressed(action: keyof InputMapping): boolean {
+        const bit = INPUT_ACTIONS.indexOf(action);
+        return bit >= 0 && (this.frame.buttonMask & (1 << bit)) !== 0;
+    }
+
+    /**
+     * Copies the current frame into a regular InputSnapshot (allocates).
+     */
+    toSnapshot(): InputSnapshot {
+        const frame = this.frame;
+        const buttons: Record<string, boolean> = {};
+        INPUT_ACTIONS.forEach((action, bit) => {
+            buttons[action] = (frame.buttonMask & (1 << bit)) !== 0;
+        });
+        return {
+            timestamp: frame.timestamp,
+            leftStick: { ...frame.leftStick },
+            rightStick: { ...frame.rightStick },
+            buttons,
+            triggers: { ...frame.triggers },
+            touches: frame.touches.slice(0, frame.touchCount).map((touch) => ({
+                id: touch.id,
+                position: { ...touch.position },
+                phase: touch.phase,
+            })),
+        };
+    }
+}
@@ -0,0 +1,59 @@
+import { describe, it, expect } from 'vitest';
+import { applyInputDelta, diffInputSnapshots } from './inputEvents';
+import type { InputSnapshot } from './definitions';
+
+function snapshot(overrides: Partial<InputSnapshot> = {}): InputSnapshot {
+  return {
+    timestamp: 0,
+    leftStick: { x: 0, y: 0 },
+    rightStick: { x: 0, y: 0 },
+    buttons: { jump: false, action: false, cancel: false },
+    triggers: { left: 0, right: 0 },
+    touches: [],
+    ...overrides,
+  };
+}
+
+describe('input deltas', () => {
+  it('should return null when nothing changed', () => {
+    expect(diffInputSnapshots(snapshot(), snapshot({ timestamp: 16 }))).toBeNull();
+  });
+
+  it('should send every field for the first event', () => {
+    const delta = diffInputSnapshots(null, snapshot());
+    expect(delta).toMatchObject({ leftStick: { x: 0, y: 0 }, triggers: { left: 0, right: 0 }, touches: [] });
+    expect(delta?.buttons).toEqual({ jump: false, action: false, cancel: false });
+  });
+
+  it('should only include changed groups', () => {
+    const previous = snapshot();
+    const next = snapshot({ timestamp: 16, buttons: { jump: true, action: false, cancel: false } });
+    const delta = diffInputSnapshots(previous, next);
+
+    expect(delta).toEqual({ timestamp: 16, buttons: { jump: true } });
+    expect(applyInputDelta(previous, delta!)).toEqual(next);
+  });
+
+  it('should carry native frame and input times into the merged snapshot', () => {
+    const previous = snapshot({ inputTimeNanos: 1_000, frameTimeNanos: 2_000 });
+    const merged = applyInputDelta(previous, {
+      timestamp: 16,
+      inputTimeNanos: 15_000_000,
+      frameTimeNanos: 16_000_000,
+      leftStick: { x: 1, y: 0 },
+    });
+
+    expect(merged.inputTimeNanos).toBe(15_000_000);
+    expect(merged.frameTimeNanos).toBe(16_000_000);
+    expect(applyInputDelta(merged, { timestamp: 32 }).inputTimeNanos).toBe(15_000_000);
+  });
+
+  it('should ignore axis noise below the epsilon but always report returning to rest', () => {
+    const previous = snapshot({ leftStick: { x: 0.5, y: 0 } });
+    expect(diffInputSnapshots(previous, snapshot({ leftStick: { x: 0.52, y: 0 } }), 0.05)).toBeNull();
+    expect(diffInputSnapshots(previous, snapshot({ leftStick: { x: 0, y: 0 } }), 0.9)?.leftStick).toEqual({
+      x: 0,
+      y: 0,
+    });
+  });
+});
@@ -0,0 +1,102 @@
+import type { InputDelta, InputSnapshot, Vector2 } from './definitions';
+
+function axisChanged(a: number, b: number, epsilon: number): boolean {
+    // Returning to rest is always reported so consumers never keep a stale non-zero value
+    return a !== b && (Math.abs(a - b) > epsilon || a === 0 || b === 0);
+}
+
+function vectorChanged(a: Vector2, b: Vector2, epsilon: number): boolean {
+    return axisChanged(a.x, b.x, epsilon) || axisChanged(a.y, b.y, epsilon);
+}
+
+function touchesEqual(a: InputSnapshot['touches'], b: InputSnapshot['touches']): boolean {
+    if (a.length !== b.length) return false;
+    for (let i = 0; i < a.length; i++) {
+        const ta = a[i];
+        const tb = b[i];
+        if (
+            ta.id !== tb.id ||
+            ta.phase !== tb.phase ||
+            ta.position.x !== tb.position.x ||
+            ta.position.y !== tb.position.y
+        ) {
+            return false;
+        }
+    }
+    return true;
+}
+
+/**
+ * Computes the delta that turns `previous` into `next`, mirroring the native
+ * inputDelta event. Returns null when nothing changed. Passing a null
+ * `previous` yields a delta carrying every field.
+ */
+export function diffInputSnapshots(
+    previous: InputSnapshot | null,
+    next: InputSnapshot,
+    axisEpsilon = 0
+): InputDelta | null {
+    const delta: InputDelta = { timestamp: next.timestamp };
+    let changed = false;
+
+    if (
+        !previous ||
+        vectorChanged(next.leftStick, previous.leftStick, axisEpsilon) ||
+        vectorChanged(next.rightStick, previous.rightStick, axisEpsilon)
+    ) {
+        delta.leftStick = { ...next.leftStick };
+        delta.rightStick = { ...next.rightStick };
+        changed = true;
+    }
+
+    if (
+        !previous ||
+        axisChanged(next.triggers.left, previous.triggers.left, axisEpsilon) ||
+        axisChanged(next.triggers.right, previous.triggers.right, axisEpsilon)
+    ) {
+        delta.triggers = { ...next.triggers };
+        changed = true;
+    }
+
+    const buttons: Record<string, boolean> = {};
+    let buttonsChanged = false;
+    for (const key of Object.keys(next.buttons)) {
+        if (!previous || previous.buttons[key] !== next.buttons[key]) {
+            buttons[key] = next.buttons[key];
+            buttonsChanged = true;
+        }
+    }
+    if (buttonsChanged) {
+        delta.buttons = buttons;
+        changed = true;
+    }
+
+    if (!previous || !touchesEqual(next.touches, previous.touches)) {
+        delta.touches = next.touches.map((touch) => ({ ...touch, position: { ...touch.position } }));
+        changed = true;
+    }
+
+    return changed ? delta : null;
+}
+
+/**
+ * Merges an inputDelta event into a snapshot, returning a new snapshot.
+ *
+ * @example
+ * let input = await Strata.getInputSnapshot();
+ * await Strata.addListener('inputDelta', (delta) => {
+ *   input = applyInputDelta(input, delta);
+ * });
+ */
+export function applyInputDelta(snapshot: InputSnapshot, delta: InputDelta): InputSnapshot {
+    return {
+        timestamp: delta.timestamp,
+        inputTimeNanos: delta.inputTimeNanos ?? snapshot.inputTimeNanos,
+        frameTimeNanos: delta.frameTimeNanos ?? snapshot.frameTimeNanos,
+        leftStick: delta.leftStick ?? snapshot.leftStick,
+        rightStick: delta.rightStick ?? snapshot.rightStick,
+        buttons: delta.buttons ? { ...snapshot.buttons, ...delta.buttons } : snapshot.buttons,
+        triggers: delta.triggers ?? snapshot.triggers,
+        touches: delta.touches ?? snapshot.touches,
+    };
+}
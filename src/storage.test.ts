@@ -0,0 +1,77 @@
+import { describe, it, expect, vi } from 'vitest';
+import { adaptNativeStorage } from './storage';
+import type { StrataPlugin } from './definitions';
+
+function nativePlugin() {
+  const store = new Map<string, string>();
+  const plugin = {
+    setItem: vi.fn(async ({ key, value, namespace }: { key: string; value: string; namespace?: string }) => {
+      store.set(`${namespace ?? 'strata'}:${key}`, value);
+    }),
+    getItem: vi.fn(async ({ key, namespace }: { key: string; namespace?: string }) => {
+      const value = store.get(`${namespace ?? 'strata'}:${key}`) ?? null;
+      return { value, exists: value !== null };
+    }),
+    setItems: vi.fn(async ({ items, namespace }: { items: Record<string, string>; namespace?: string }) => {
+      for (const [key, value] of Object.entries(items)) {
+        store.set(`${namespace ?? 'strata'}:${key}`, value);
+      }
+    }),
+    getItems: vi.fn(async ({ keys, namespace }: { keys: string[]; namespace?: string }) => {
+      const items: Record<string, string | null> = {};
+      for (const key of keys) {
+        items[key] = store.get(`${namespace ?? 'strata'}:${key}`) ?? null;
+      }
+      return { items };
+    }),
+    removeItem: vi.fn(async () => undefined),
+    keys: vi.fn(async () => ({ keys: ['a'] })),
+  };
+  return plugin;
+}
+
+describe('native storage adapter', () => {
+  it('should leave web plugins untouched', () => {
+    const plugin = nativePlugin() as unknown as StrataPlugin;
+    expect(adaptNativeStorage(plugin, false)).toBe(plugin);
+  });
+
+  it('should send options objects with JSON-encoded values', async () => {
+    const raw = nativePlugin();
+    const plugin = adaptNativeStorage(raw as unknown as StrataPlugin, true);
+    await plugin.setItem('progress', { level: 5 }, { namespace: 'mygame' });
+    expect(raw.setItem).toHaveBeenCalledWith({ key: 'progress', value: '{"level":5}', namespace: 'mygame' });
+  });
+
+  it('should decode stored values', async () => {
+    const plugin = adaptNativeStorage(nativePlugin() as unknown as StrataPlugin, true);
+    await plugin.setItem('progress', { level: 5 });
+    expect(await plugin.getItem('progress')).toEqual({ value: { level: 5 }, exists: true });
+    expect(await plugin.getItem('missing')).toEqual({ value: null, exists: false });
+  });
+
+  it('should pass other methods through', async () => {
+    const raw = nativePlugin();
+    const plugin = adaptNativeStorage(raw as unknown as StrataPlugin, true);
+    await plugin.removeItem('a', { namespace: 'mygame' });
+    expect(raw.removeItem).toHaveBeenCalledWith({ key: 'a', namespace: 'mygame' });
+    expect(await plugin.keys()).toEqual({ keys: ['a'] });
+  });
+
+  it('should encode and decode batches', async () => {
+    const raw = nativePlugin();
+    const plugin = adaptNativeStorage(raw as unknown as StrataPlugin, true);
+    await plugin.setItems({ level: 5, inventory: ['sword'] }, { namespace: 'mygame' });
+    expect(raw.setItems).toHaveBeenCalledWith({
+      items: { level: '5', inventory: '["sword"]' },
+      namespace: 'mygame',
+    });
+
+    const { items } = await plugin.getItems(['level', 'inventory', 'missing'], { namespace: 'mygame' });
+    expect(items).toEqual({
+      level: { value: 5, exists: true },
+      inventory: { value: ['sword'], exists: true },
+      missing: { value: null, exists: false },
+    });
+  });
+});
@@ -0,0 +1,91 @@
+import { base64ToBytes, bytesToBase64 } from './blobs';
+import type {
+    BlobChunk,
+    BlobReadOptions,
+    BlobWriteOptions,
+    StorageItemsResult,
+    StorageKeysResult,
+    StorageOptions,
+    StorageResult,
+    StrataPlugin,
+} from './definitions';
+
+/**
+ * Shape of the storage methods on the native side. Capacitor forwards a
+ * single options object to native code; values cross the bridge as JSON
+ * text that native storage keeps as-is, and blob bytes as base64.
+ */
+interface NativeStorageMethods {
+    setItem(options: { key: string; value: string; namespace?: string }): Promise<void>;
+    getItem(options: { key: string; namespace?: string }): Promise<{ value: string | null; exists: boolean }>;
+    setItems(options: { items: Record<string, string>; namespace?: string }): Promise<void>;
+    getItems(options: { keys: string[]; namespace?: string }): Promise<{ items: Record<string, string | null> }>;
+    removeItem(options: { key: string; namespace?: string }): Promise<void>;
+    removeItems(options: { keys: string[]; namespace?: string }): Promise<void>;
+    keys(options?: StorageOptions): Promise<StorageKeysResult>;
+    clear(options?: StorageOptions): Promise<void>;
+    writeBlob(options: Omit<BlobWriteOptions, 'data'> & { data: string }): Promise<{ size: number }>;
+    readBlob(options: BlobReadOptions): Promise<{ data: string; offset: number; size: number }>;
+}
+
+function decode<T>(raw: string | null): StorageResult<T> {
+    if (raw === null) return { value: null, exists: true };
+    try {
+        return { value: JSON.parse(raw) as T, exists: true };
+    } catch {
+        return { value: null, exists: true };
+    }
+}
+
+/**
+ * Adapts the positional Storage API to the options-object calls native
+ * platforms receive, and encodes blob bytes for the bridge. Web implementations get the plugin back unchanged.
+ */
+export function adaptNativeStorage(plugin: StrataPlugin, isNative: boolean): StrataPlugin {
+    if (!isNative) return plugin;
+    const native = plugin as unknown as NativeStorageMethods;
+
+    const overrides: Partial<StrataPlugin> = {
+        setItem: <T>(key: string, value: T, options?: StorageOptions): Promise<void> =>
+            native.setItem({ key, value: JSON.stringify(value), namespace: options?.namespace }),
+        setItems: (items: Record<string, unknown>, options?: StorageOptions): Promise<void> => {
+            const encoded: Record<string, string> = {};
+            for (const [key, value] of Object.entries(items)) {
+                encoded[key] = JSON.stringify(value);
+            }
+            return native.setItems({ items: encoded, namespace: options?.namespace });
+        },
+        getItem: async <T>(key: string, options?: StorageOptions): Promise<StorageResult<T>> => {
+            const result = await native.getItem({ key, namespace: options?.namespace });
+            return result.exists ? decode<T>(result.value) : { value: null, exists: false };
+        },
+        getItems: async <T>(keys: string[], options?: StorageOptions): Promise<StorageItemsResult<T>> => {
+            const result = await native.getItems({ keys, namespace: options?.namespace });
+            const items: Record<string, StorageResult<T>> = {};
+            for (const key of keys) {
+                const raw = result.items[key] ?? null;
+                items[key] = raw === null ? { value: null, exists: false } : decode<T>(raw);
+            }
+            return { items };
+        },
+        removeItem: (key: string, options?: StorageOptions): Promise<void> =>
+            native.removeItem({ key, namespace: options?.namespace }),
+        removeItems: (keys: string[], options?: StorageOptions): Promise<void> =>
+            native.removeItems({ keys, namespace: options?.namespace }),
+        writeBlob: (options: BlobWriteOptions): Promise<{ size: number }> =>
+            native.writeBlob({ ...options, data: bytesToBase64(options.data) }),
+        readBlob: async (options: BlobReadOptions): Promise<BlobChunk> => {
+            const chunk = await native.readBlob(options);
+            return { ...chunk, data: base64ToBytes(chunk.data) };
+        },
+    };
+
+    return new Proxy(plugin, {
+        get(target, prop, receiver) {
+            if (typeof prop === 'string' && Object.prototype.hasOwnProperty.call(overrides, prop)) {
+                return overrides[prop as keyof StrataPlugin];
+            }
+            return Reflect.get(target, prop, receiver);
+        },
+    });
+}
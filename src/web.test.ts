@@ -41,6 +41,35 @@ describe('StrataWeb', () => {
     expect(vibrateSpy).toHaveBeenCalledWith(10);
   });
 
+  it('should play haptic bursts as one vibration pattern', async () => {
+    const plugin = new StrataWeb();
+    const vibrateSpy = vi.fn();
+    global.navigator.vibrate = vibrateSpy;
+
+    await plugin.triggerHaptics({ duration: 20, count: 3, interval: 50 });
+    expect(vibrateSpy).toHaveBeenCalledWith([20, 30, 20, 30, 20]);
+  });
+
+  it('should play registered haptic effects by id', async () => {
+    const plugin = new StrataWeb();
+    const vibrateSpy = vi.fn();
+    global.navigator.vibrate = vibrateSpy;
+
+    const { id } = await plugin.registerHapticEffect({ intensity: 'light' });
+    await plugin.playHaptic({ id });
+    expect(vibrateSpy).toHaveBeenCalledWith(10);
+
+    await plugin.unregisterHapticEffect({ id });
+    await expect(plugin.playHaptic({ id })).rejects.toThrow();
+  });
+
+  it('should reject haptic effects with no duration', async () => {
+    const plugin = new StrataWeb();
+
+    await expect(plugin.registerHapticEffect({ duration: 0 })).rejects.toThrow();
+    await expect(plugin.registerHapticEffect({ pattern: [0, 0] })).rejects.toThrow();
+  });
+
   it('should return default safe area insets', async () => {
     const plugin = new StrataWeb();
     const insets = await plugin.getSafeAreaInsets();
@@ -2,10 +2,13 @@ import { WebPlugin } from '@capacitor/core';
 import type {
     StrataPlugin,
     DeviceProfile,
+    DeviceProfileChange,
     ControlHints,
     InputSnapshot,
+    GamepadState,
     InputMapping,
     HapticsOptions,
+    HapticEffectOptions,
     Vector2,
     DeviceType,
     Platform,
@@ -14,12 +17,40 @@ import type {
     OrientationOptions,
     SafeAreaInsets,
     PerformanceMode,
+    ThreadingMetrics,
+    PluginMetrics,
     TouchOptions,
     StorageOptions,
     StorageResult,
     StorageKeysResult,
+    StorageItemsResult,
+    StorageConfig,
+    StorageCodecOptions,
+    StorageStatsResult,
+    BlobOptions,
+    BlobReadOptions,
+    BlobWriteOptions,
+    BlobChunk,
+    InputRecording,
+    InputPredictionOptions,
+    InputReplayOptions,
+    InputReplayResult,
+    InputBufferInfo,
+    WireFormatInfo,
+    InputDelta,
+    InputEventOptions,
+    InputHistoryOptions,
+    LowLatencyInputOptions,
+    AxisProcessingConfig,
+    GestureOptions,
+    GestureEvent,
+    PerformanceGovernorOptions,
+    PerformanceTier,
 } from './definitions';
-import { DEFAULT_INPUT_MAPPING as DEFAULT_MAPPING } from './definitions';
+import { DEFAULT_INPUT_MAPPING as DEFAULT_MAPPING, INPUT_ACTIONS } from './definitions';
+import { applyInputDelta, diffInputSnapshots } from './inputEvents';
+import { processStick, processTrigger } from './axisProcessing';
+import { diffDeviceProfiles } from './deviceProfile';
 import type { StrataPlatformAdapter } from './contract';
 
 type ListenerCallback<T> = (data: T) => void;
@@ -36,13 +67,19 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
         number,
         { position: Vector2; phase: 'began' | 'moved' | 'ended' | 'cancelled' }
     > = new Map();
-    private deviceListeners: ListenerCallback<DeviceProfile>[] = [];
+    private deviceListeners: ListenerCallback<DeviceProfileChange>[] = [];
+    private lastDeviceProfile: DeviceProfile | null = null;
     private inputListeners: ListenerCallback<InputSnapshot>[] = [];
+    private inputDeltaListeners: ListenerCallback<InputDelta>[] = [];
+    private inputEventOptions: Required<InputEventOptions> = { minIntervalMs: 0, axisEpsilon: 0 };
+    private lastInputEventTime = 0;
+    private axisProcessing: AxisProcessingConfig = {};
     private gamepadConnectedListeners: ListenerCallback<{ index: number; id: string }>[] = [];
     private gamepadDisconnectedListeners: ListenerCallback<{ index: number }>[] = [];
     private animationFrameId: number | null = null;
     private lastInputSnapshot: InputSnapshot | null = null;
     private orientationMediaQuery: MediaQueryList | null = null;
+    private hapticEffects = new Map<number, HapticEffectOptions>();
 
     constructor() {
         super();
@@ -144,8 +181,12 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
 
     private notifyDeviceChange(): void {
         this.getDeviceProfile().then((profile) => {
+            // resize fires continuously while dragging, but most steps change nothing we report
+            const changed = diffDeviceProfiles(this.lastDeviceProfile, profile);
+            this.lastDeviceProfile = profile;
+            if (changed.length === 0) return;
             this.deviceListeners.forEach((cb) => {
-                cb(profile);
+                cb({ ...profile, changed });
             });
         });
     }
@@ -154,18 +195,13 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
         const loop = (): void => {
             this.gamepads = navigator.getGamepads ? Array.from(navigator.getGamepads()) : [];
 
-            if (this.inputListeners.length > 0) {
+            if (this.hasInputListeners()) {
                 this.getInputSnapshot().then((snapshot) => {
-                    if (this.hasInputChanged(snapshot)) {
-                        this.lastInputSnapshot = snapshot;
-                        this.inputListeners.forEach((cb) => {
-                            cb(snapshot);
-                        });
-                    }
+                    this.emitInputEvents(snapshot);
                 });
             }
 
-            if (this.inputListeners.length === 0 && this.deviceListeners.length === 0) {
+            if (!this.hasInputListeners() && this.deviceListeners.length === 0) {
                 if (this.animationFrameId) {
                     cancelAnimationFrame(this.animationFrameId);
                     this.animationFrameId = null;
@@ -178,45 +214,30 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
         loop();
     }
 
-    private hasInputChanged(current: InputSnapshot): boolean {
-        if (!this.lastInputSnapshot) return true;
-        const last = this.lastInputSnapshot;
-
-        if (current.leftStick.x !== last.leftStick.x || current.leftStick.y !== last.leftStick.y)
-            return true;
-        if (
-            current.rightStick.x !== last.rightStick.x ||
-            current.rightStick.y !== last.rightStick.y
-        )
-            return true;
-
-        if (
-            current.triggers.left !== last.triggers.left ||
-            current.triggers.right !== last.triggers.right
-        )
-            return true;
+    private hasInputListeners(): boolean {
+        return this.inputListeners.length > 0 || this.inputDeltaListeners.length > 0;
+    }
 
-        const currentButtons = Object.keys(current.buttons);
-        const lastButtons = Object.keys(last.buttons);
-        if (currentButtons.length !== lastButtons.length) return true;
-        for (const key of currentButtons) {
-            if (current.buttons[key] !== last.buttons[key]) return true;
+    private emitInputEvents(snapshot: InputSnapshot): void {
+        const { minIntervalMs, axisEpsilon } = this.inputEventOptions;
+        if (this.lastInputSnapshot && snapshot.timestamp - this.lastInputEventTime < minIntervalMs) {
+            return;
         }
 
-        if (current.touches.length !== last.touches.length) return true;
-        for (let i = 0; i < current.touches.length; i++) {
-            const currTouch = current.touches[i];
-            const lastTouch = last.touches.find((t) => t.id === currTouch.id);
-            if (!lastTouch) return true;
-            if (currTouch.phase !== lastTouch.phase) return true;
-            if (
-                currTouch.position.x !== lastTouch.position.x ||
-                currTouch.position.y !== lastTouch.position.y
-            )
-                return true;
-        }
+        const delta = diffInputSnapshots(this.lastInputSnapshot, snapshot, axisEpsilon);
+        if (!delta) return;
 
-        return false;
+        // Only advance the baseline for the groups that were actually sent
+        this.lastInputSnapshot = this.lastInputSnapshot
+            ? applyInputDelta(this.lastInputSnapshot, delta)
+            : snapshot;
+        this.lastInputEventTime = snapshot.timestamp;
+        this.inputDeltaListeners.forEach((cb) => {
+            cb(delta);
+        });
+        this.inputListeners.forEach((cb) => {
+            cb(snapshot);
+        });
     }
 
     private detectPlatform(): Platform {
@@ -366,24 +387,29 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
 
         const gamepad = this.gamepads.find((gp) => gp !== null);
         if (gamepad) {
-            const deadzone = 0.15;
+            const left = this.readStick(gamepad, 0, 'leftStick');
+            const right = this.readStick(gamepad, 2, 'rightStick');
 
-            if (Math.abs(gamepad.axes[0]) > deadzone) leftStick.x = gamepad.axes[0];
-            if (Math.abs(gamepad.axes[1]) > deadzone) leftStick.y = -gamepad.axes[1];
-            
-            if (gamepad.axes.length > 2 && Math.abs(gamepad.axes[2]) > deadzone)
-                rightStick.x = gamepad.axes[2];
-            if (gamepad.axes.length > 3 && Math.abs(gamepad.axes[3]) > deadzone)
-                rightStick.y = -gamepad.axes[3];
+            if (left.x !== 0) leftStick.x = left.x;
+            if (left.y !== 0) leftStick.y = left.y;
+            rightStick.x = right.x;
+            rightStick.y = right.y;
 
             buttons.jump = buttons.jump || (gamepad.buttons[0]?.pressed ?? false);
             buttons.action = buttons.action || (gamepad.buttons[1]?.pressed ?? false);
             buttons.cancel = buttons.cancel || (gamepad.buttons[2]?.pressed ?? false);
 
-            if (gamepad.buttons.length > 6) triggers.left = gamepad.buttons[6].value;
-            if (gamepad.buttons.length > 7) triggers.right = gamepad.buttons[7].value;
+            triggers.left = this.readTrigger(gamepad, 6);
+            triggers.right = this.readTrigger(gamepad, 7);
         }
 
+        let buttonMask = 0;
+        INPUT_ACTIONS.forEach((action, bit) => {
+            if (buttons[action] ?? this.isKeyPressed(this.inputMapping[action])) {
+                buttonMask |= 1 << bit;
+            }
+        });
+
         const touchArray = Array.from(this.touches.entries()).map(([id, data]) => ({
             id,
             position: data.position,
@@ -395,15 +421,109 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
             leftStick,
             rightStick,
             buttons,
+            buttonMask,
             triggers,
             touches: touchArray,
         };
     }
 
+    async getGamepadStates(): Promise<{ gamepads: GamepadState[] }> {
+        const pressed = (gamepad: Gamepad, index: number): boolean => gamepad.buttons[index]?.pressed ?? false;
+        const selected = this.gamepads.find((gp) => gp !== null);
+
+        const gamepads: GamepadState[] = [];
+        this.gamepads.forEach((gamepad, index) => {
+            if (!gamepad) return;
+            const buttons: Record<string, boolean> = {
+                jump: pressed(gamepad, 0),
+                action: pressed(gamepad, 1),
+                cancel: pressed(gamepad, 2),
+            };
+            let buttonMask = 0;
+            INPUT_ACTIONS.forEach((action, bit) => {
+                if (buttons[action]) buttonMask |= 1 << bit;
+            });
+            gamepads.push({
+                index,
+                deviceId: gamepad.index,
+                id: gamepad.id,
+                isSelected: gamepad === selected,
+                leftStick: this.readStick(gamepad, 0, 'leftStick'),
+                rightStick: this.readStick(gamepad, 2, 'rightStick'),
+                triggers: {
+                    left: this.readTrigger(gamepad, 6),
+                    right: this.readTrigger(gamepad, 7),
+                },
+                buttons,
+                buttonMask,
+                timestamp: gamepad.timestamp,
+            });
+        });
+        return { gamepads };
+    }
+
+    /**
+     * Reads a stick from an axis pair with Y pointing up, processed as configured.
+     */
+    private readStick(gamepad: Gamepad, firstAxis: number, group: 'leftStick' | 'rightStick'): Vector2 {
+        const x = gamepad.axes[firstAxis] ?? 0;
+        const y = -(gamepad.axes[firstAxis + 1] ?? 0);
+        return processStick(x, y, this.axisProcessing[group]);
+    }
+
+    private readTrigger(gamepad: Gamepad, button: number): number {
+        return processTrigger(gamepad.buttons[button]?.value ?? 0, this.axisProcessing.triggers);
+    }
+
+    async setAxisProcessing(config: AxisProcessingConfig): Promise<void> {
+        // Filters need every raw sample, which the Gamepad API does not expose, so only the deadzones and curves apply
+        this.axisProcessing = { ...this.axisProcessing, ...config };
+    }
+
     async setInputMapping(mapping: Partial<InputMapping>): Promise<void> {
         this.inputMapping = { ...this.inputMapping, ...mapping };
     }
 
+    async setInputBufferEnabled(_options: { enabled: boolean }): Promise<InputBufferInfo> {
+        return { enabled: false, version: 0, byteLength: 0 };
+    }
+
+    async setFrameLatchingEnabled(_options: { enabled: boolean }): Promise<{ enabled: boolean }> {
+        return { enabled: false };
+    }
+
+    async setGesturesEnabled(_options: GestureOptions): Promise<{ enabled: boolean }> {
+        return { enabled: false };
+    }
+
+    async configureInputHistory(
+        _options: InputHistoryOptions
+    ): Promise<{ enabled: boolean; capacity: number }> {
+        return { enabled: false, capacity: 0 };
+    }
+
+    async configureInputPrediction(_options: InputPredictionOptions): Promise<{ enabled: boolean }> {
+        return { enabled: false };
+    }
+
+    async setLowLatencyInput(
+        _options: LowLatencyInputOptions
+    ): Promise<{ enabled: boolean; touch: boolean; gamepad: boolean }> {
+        return { enabled: false, touch: false, gamepad: false };
+    }
+
+    async configureInputEvents(options: InputEventOptions): Promise<void> {
+        this.inputEventOptions = {
+            minIntervalMs: Math.max(0, options.minIntervalMs ?? 0),
+            axisEpsilon: Math.max(0, options.axisEpsilon ?? 0),
+        };
+        this.lastInputSnapshot = null;
+    }
+
+    async setWireFormat(_options: { format: WireFormatInfo['format'] }): Promise<WireFormatInfo> {
+        return { format: 'keyed', version: 0 };
+    }
+
     async haptics(options: HapticsOptions): Promise<void> {
       // Legacy haptics mapping
       if (options.type) {
@@ -446,7 +566,19 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
 
         if ('vibrate' in navigator) {
             const durations = { light: 10, medium: 25, heavy: 50 };
-            navigator.vibrate(options.duration ?? durations[intensity]);
+            const duration = options.duration ?? durations[intensity];
+            const count = Math.max(1, Math.floor(options.count ?? 1));
+            if (count > 1) {
+                const gap = Math.max(0, (options.interval ?? duration * 2) - duration);
+                const pattern: number[] = [];
+                for (let i = 0; i < count; i++) {
+                    if (i > 0) pattern.push(gap);
+                    pattern.push(duration);
+                }
+                navigator.vibrate(pattern);
+            } else {
+                navigator.vibrate(duration);
+            }
         }
 
         const gamepad = this.gamepads.find((gp) => gp !== null && 'vibrationActuator' in gp) as any;
@@ -466,6 +598,29 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
         }
     }
 
+    async registerHapticEffect(options: HapticEffectOptions): Promise<{ id: number }> {
+        const silent = options.pattern?.length
+            ? options.pattern.every((step) => step <= 0)
+            : options.duration !== undefined && options.duration <= 0;
+        if (silent) throw new Error('Haptic effect has no duration');
+        let id = 0;
+        while (this.hapticEffects.has(id)) id++;
+        this.hapticEffects.set(id, { ...options });
+        return { id };
+    }
+
+    async playHaptic(options: { id: number }): Promise<void> {
+        const effect = this.hapticEffects.get(options.id);
+        if (!effect) throw new Error(`Unknown haptic effect ${options.id}`);
+        await this.triggerHaptics(effect);
+    }
+
+    async unregisterHapticEffect(options: { id: number }): Promise<void> {
+        if (!this.hapticEffects.delete(options.id)) {
+            throw new Error(`Unknown haptic effect ${options.id}`);
+        }
+    }
+
     async vibrate(options?: { duration?: number }): Promise<void> {
         await this.triggerHaptics({ duration: options?.duration });
     }
@@ -529,6 +684,24 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
       };
     }
 
+    async configurePerformanceGovernor(
+        _options: PerformanceGovernorOptions
+    ): Promise<{ enabled: boolean }> {
+        return { enabled: false };
+    }
+
+    async getThreadingMetrics(): Promise<ThreadingMetrics> {
+        return { lanes: [] };
+    }
+
+    async getPluginMetrics(_options?: { reset?: boolean }): Promise<PluginMetrics> {
+        return { since: Date.now(), elapsedMs: 0, methods: {}, events: {}, lanes: [] };
+    }
+
+    async configurePluginMetrics(_options: { intervalMs: number }): Promise<{ intervalMs: number }> {
+        return { intervalMs: 0 };
+    }
+
     async configureTouchHandling(options: TouchOptions): Promise<void> {
       if (options.preventScrolling) {
         document.body.style.overflow = 'hidden';
@@ -589,6 +762,91 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
         }
     }
 
+    async setItems(items: Record<string, unknown>, options?: StorageOptions): Promise<void> {
+        if (typeof localStorage === 'undefined') return;
+        // Encode everything before writing anything, so a bad value leaves storage untouched
+        const encoded = Object.entries(items).map(
+            ([key, value]) => [this.getStorageKey(key, options), JSON.stringify(value)] as const
+        );
+        const previous: Array<[string, string | null]> = [];
+        try {
+            for (const [storageKey, raw] of encoded) {
+                previous.push([storageKey, localStorage.getItem(storageKey)]);
+                localStorage.setItem(storageKey, raw);
+            }
+        } catch (e) {
+            // Quota errors can stop a batch midway; put back what it overwrote
+            for (const [storageKey, raw] of previous.reverse()) {
+                if (raw === null) localStorage.removeItem(storageKey);
+                else localStorage.setItem(storageKey, raw);
+            }
+            console.warn('Strata: Failed to save batch to localStorage', { error: e });
+            throw e;
+        }
+    }
+
+    async getItems<T = unknown>(keys: string[], options?: StorageOptions): Promise<StorageItemsResult<T>> {
+        const items: Record<string, StorageResult<T>> = {};
+        for (const key of keys) {
+            items[key] = await this.getItem<T>(key, options);
+        }
+        return { items };
+    }
+
+    async removeItems(keys: string[], options?: StorageOptions): Promise<void> {
+        for (const key of keys) {
+            await this.removeItem(key, options);
+        }
+    }
+
+    async writeBlob(_options: BlobWriteOptions): Promise<{ size: number }> {
+        throw this.unavailable('Blob storage is only available on Android');
+    }
+
+    async readBlob(_options: BlobReadOptions): Promise<BlobChunk> {
+        throw this.unavailable('Blob storage is only available on Android');
+    }
+
+    async getBlobInfo(_options: BlobOptions): Promise<{ exists: boolean; size: number }> {
+        return { exists: false, size: 0 };
+    }
+
+    async deleteBlob(_options: BlobOptions): Promise<void> {
+        throw this.unavailable('Blob storage is only available on Android');
+    }
+
+    async listBlobs(_options?: StorageOptions): Promise<StorageKeysResult> {
+        return { keys: [] };
+    }
+
+    async startInputRecording(_options: BlobOptions): Promise<void> {
+        throw this.unavailable('Input recording is only available on Android');
+    }
+
+    async stopInputRecording(): Promise<InputRecording> {
+        throw this.unavailable('Input recording is only available on Android');
+    }
+
+    async replayInput(_options: InputReplayOptions): Promise<InputReplayResult> {
+        throw this.unavailable('Input replay is only available on Android');
+    }
+
+    async stopInputReplay(): Promise<void> {
+        // Nothing can be replaying on the web
+    }
+
+    async configureStorage(_config: StorageConfig): Promise<StorageConfig> {
+        return {};
+    }
+
+    async setStorageCodec(_options: StorageCodecOptions): Promise<void> {
+        // localStorage has no codec stage; values are stored as plain JSON
+    }
+
+    async getStorageStats(_options?: StorageOptions): Promise<StorageStatsResult> {
+        return { namespaces: [] };
+    }
+
     async removeItem(key: string, options?: StorageOptions): Promise<void> {
         if (typeof localStorage === 'undefined') return;
         const storageKey = this.getStorageKey(key, options);
@@ -629,12 +887,24 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
 
     addListener(
         eventName: 'deviceChange',
-        callback: (profile: DeviceProfile) => void
+        callback: (profile: DeviceProfileChange) => void
     ): Promise<{ remove: () => Promise<void> }>;
     addListener(
         eventName: 'inputChange',
         callback: (snapshot: InputSnapshot) => void
     ): Promise<{ remove: () => Promise<void> }>;
+    addListener(
+        eventName: 'inputDelta',
+        callback: (delta: InputDelta) => void
+    ): Promise<{ remove: () => Promise<void> }>;
+    addListener(
+        eventName: 'performanceTier',
+        callback: (tier: PerformanceTier) => void
+    ): Promise<{ remove: () => Promise<void> }>;
+    addListener(
+        eventName: 'gesture',
+        callback: (gesture: GestureEvent) => void
+    ): Promise<{ remove: () => Promise<void> }>;
     addListener(
         eventName: 'gamepadConnected',
         callback: (info: { index: number; id: string }) => void
@@ -643,8 +913,20 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
         eventName: 'gamepadDisconnected',
         callback: (info: { index: number }) => void
     ): Promise<{ remove: () => Promise<void> }>;
+    addListener(
+        eventName: 'pluginMetrics',
+        callback: (metrics: PluginMetrics) => void
+    ): Promise<{ remove: () => Promise<void> }>;
     async addListener(
-        eventName: 'deviceChange' | 'inputChange' | 'gamepadConnected' | 'gamepadDisconnected',
+        eventName:
+            | 'deviceChange'
+            | 'inputChange'
+            | 'inputDelta'
+            | 'gesture'
+            | 'performanceTier'
+            | 'gamepadConnected'
+            | 'gamepadDisconnected'
+            | 'pluginMetrics',
         callback: (data: any) => void
     ): Promise<{ remove: () => Promise<void> }> {
         const removeFromArray = <T>(arr: T[], item: T): void => {
@@ -660,7 +942,14 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
                 return { remove: async () => removeFromArray(this.deviceListeners, callback) };
             case 'inputChange':
                 this.inputListeners.push(callback);
+                this.ensureInputLoop();
                 return { remove: async () => removeFromArray(this.inputListeners, callback) };
+            case 'inputDelta':
+                this.inputDeltaListeners.push(callback);
+                // A new delta subscriber needs a full first event
+                this.lastInputSnapshot = null;
+                this.ensureInputLoop();
+                return { remove: async () => removeFromArray(this.inputDeltaListeners, callback) };
             case 'gamepadConnected':
                 this.gamepadConnectedListeners.push(callback);
                 return {
@@ -672,6 +961,17 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
                     remove: async () =>
                         removeFromArray(this.gamepadDisconnectedListeners, callback),
                 };
+            case 'gesture':
+            case 'performanceTier':
+            case 'pluginMetrics':
+                // Gestures and tiers come from native code, and the web has no native calls to measure
+                return { remove: async () => undefined };
+        }
+    }
+
+    private ensureInputLoop(): void {
+        if (this.animationFrameId === null && typeof requestAnimationFrame !== 'undefined') {
+            this.startInputLoop();
         }
     }
 
@@ -696,6 +996,7 @@ export class StrataWeb extends WebPlugin implements StrataPlugin, StrataPlatform
 
         this.deviceListeners = [];
         this.inputListeners = [];
+        this.inputDeltaListeners = [];
         this.gamepadConnectedListeners = [];
         this.gamepadDisconnectedListeners = [];
     }
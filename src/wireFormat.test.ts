@@ -0,0 +1,205 @@
+import { describe, it, expect, vi } from 'vitest';
+import {
+  WIRE_FORMAT_VERSION,
+  adaptWireFormat,
+  decodeConnectedControllers,
+  decodeDeviceProfile,
+  decodeGamepadStates,
+  decodeGesture,
+  decodeInputDelta,
+  decodeInputSnapshot,
+} from './wireFormat';
+import type { StrataPlugin } from './definitions';
+
+// Captured from the Android encoder
+const SNAPSHOT = JSON.parse(
+  '{"v":1,"p":[1760000000000,123456789012345,4211,123456790000000,[0.3137,-0.7213,0.05,0.91],[0.2,0],17,[4,0,512.37,830.1,1,1,612.37,780.1,1],0]}'
+);
+
+describe('wire format decoding', () => {
+  it('should decode a snapshot into its keyed shape', () => {
+    expect(decodeInputSnapshot(SNAPSHOT)).toEqual({
+      timestamp: 1760000000000,
+      inputTimeNanos: 123456789012345,
+      frame: 4211,
+      frameTimeNanos: 123456790000000,
+      leftStick: { x: 0.3137, y: -0.7213 },
+      rightStick: { x: 0.05, y: 0.91 },
+      buttons: {
+        moveForward: true,
+        moveBackward: false,
+        moveLeft: false,
+        moveRight: false,
+        jump: true,
+        action: false,
+        cancel: false,
+      },
+      buttonMask: 17,
+      triggers: { left: 0.2, right: 0 },
+      touches: [
+        { id: 0, position: { x: 512.37, y: 830.1 }, phase: 'moved' },
+        { id: 1, position: { x: 612.37, y: 780.1 }, phase: 'moved' },
+      ],
+    });
+  });
+
+  it('should decode predictions and keep keyed history', () => {
+    const snapshot = decodeInputSnapshot({
+      v: 1,
+      p: [1, 2, 0, 0, [0, 0, 0, 0], [0, 0], 0, [6, 3, 10, 20, 0, 14, 26], 99, [0.1, 0.2, 0.3, 0.4]],
+      history: { enabled: true, dropped: 0 },
+    });
+    expect(snapshot.frame).toBeUndefined();
+    expect(snapshot.touches).toEqual([
+      { id: 3, position: { x: 10, y: 20 }, phase: 'began', predictedPosition: { x: 14, y: 26 } },
+    ]);
+    expect(snapshot.predictionTimeNanos).toBe(99);
+    expect(snapshot.predictedLeftStick).toEqual({ x: 0.1, y: 0.2 });
+    expect(snapshot.predictedRightStick).toEqual({ x: 0.3, y: 0.4 });
+    expect(snapshot.history).toEqual({ enabled: true, dropped: 0 });
+  });
+
+  it('should decode only the groups a delta carries', () => {
+    expect(decodeInputDelta({ v: 1, p: [5, 6, 7, null, [1, 0.5], [16, 17], null] })).toEqual({
+      timestamp: 5,
+      frameTimeNanos: 6,
+      inputTimeNanos: 7,
+      triggers: { left: 1, right: 0.5 },
+      buttons: { moveForward: false, jump: true },
+    });
+    expect(decodeInputDelta({ v: 1, p: [5, 6, 7, null, null, null, [4]] }).touches).toEqual([]);
+  });
+
+  it('should decode gamepad tables', () => {
+    const { gamepads } = decodeGamepadStates({
+      v: 1,
+      p: [[11, 0, 12, 1, 1000, 0.5, 0, 0, -1, 0, 1, 1, 2, 14, 0, 2000, 0, 0, 0, 0, 0, 0, 0], ['Pad A', 'Pad B']],
+    });
+    expect(gamepads).toHaveLength(2);
+    expect(gamepads[0]).toMatchObject({
+      index: 0,
+      deviceId: 12,
+      id: 'Pad A',
+      isSelected: true,
+      timestamp: 1000,
+      leftStick: { x: 0.5, y: 0 },
+      rightStick: { x: 0, y: -1 },
+      triggers: { left: 0, right: 1 },
+      buttonMask: 1,
+    });
+    expect(gamepads[0].buttons.moveForward).toBe(true);
+    expect(gamepads[1]).toMatchObject({ index: 2, deviceId: 14, id: 'Pad B', isSelected: false });
+  });
+
+  it('should decode controller flags', () => {
+    expect(decodeConnectedControllers({ v: 1, p: [1, ['A', 'B'], [2, 3]] })).toEqual({
+      controllers: [
+        { index: 0, id: 'A', isSelected: false, hasExtendedGamepad: true, hasMicroGamepad: false },
+        { index: 1, id: 'B', isSelected: true, hasExtendedGamepad: true, hasMicroGamepad: false },
+      ],
+      selectedIndex: 1,
+    });
+  });
+
+  it('should decode profiles and deviceChange masks', () => {
+    const insets = [24, 0, 16, 0];
+    const profile = decodeDeviceProfile({ v: 1, p: [1, 1, 3, 'square', 0b0010101, 800, 1280, 2, insets] });
+    expect(profile).toEqual({
+      deviceType: 'tablet',
+      platform: 'android',
+      inputMode: 'hybrid',
+      orientation: 'square',
+      hasTouch: true,
+      hasPointer: false,
+      hasGamepad: true,
+      isMobile: false,
+      isTablet: true,
+      isFoldable: false,
+      isDesktop: false,
+      screenWidth: 800,
+      screenHeight: 1280,
+      pixelRatio: 2,
+      safeAreaInsets: { top: 24, right: 0, bottom: 16, left: 0 },
+    });
+    const change = decodeDeviceProfile({ v: 1, p: [1, 1, 3, 1, 0b0010101, 800, 1280, 2, insets, (1 << 3) | (1 << 14)] });
+    expect(change).toMatchObject({ orientation: 'landscape', changed: ['orientation', 'safeAreaInsets'] });
+  });
+
+  it('should decode each gesture type', () => {
+    expect(decodeGesture({ v: 1, p: [0, 1, 2, 3] })).toEqual({ type: 'tap', x: 1, y: 2, timeNanos: 3 });
+    expect(decodeGesture({ v: 1, p: [1, 1, 2, 3, 2, 4, 5, 60, 70] })).toEqual({
+      type: 'pan', phase: 'ended', x: 1, y: 2, timeNanos: 3, dx: 4, dy: 5, vx: 60, vy: 70,
+    });
+    expect(decodeGesture({ v: 1, p: [2, 1, 2, 3, -900, 10, 0] })).toEqual({
+      type: 'swipe', x: 1, y: 2, timeNanos: 3, vx: -900, vy: 10, direction: 'left',
+    });
+    expect(decodeGesture({ v: 1, p: [3, 1, 2, 3, 1, 1.1, 1.5] })).toEqual({
+      type: 'pinch', phase: 'changed', x: 1, y: 2, timeNanos: 3, scale: 1.1, totalScale: 1.5,
+    });
+  });
+
+  it('should reject layouts from another version', () => {
+    expect(() => decodeInputSnapshot({ v: WIRE_FORMAT_VERSION + 1, p: [] })).toThrow(/version/);
+  });
+});
+
+function nativePlugin(packed: boolean) {
+  const listeners = new Map<string, (data: unknown) => void>();
+  const plugin = {
+    setWireFormat: vi.fn(async ({ format, version }: { format: string; version: number }) => ({ format, version })),
+    getInputSnapshot: vi.fn(async () => (packed ? SNAPSHOT : { timestamp: 1 })),
+    addListener: vi.fn(async (eventName: string, callback: (data: unknown) => void) => {
+      listeners.set(eventName, callback);
+      return { remove: async () => undefined };
+    }),
+    getPlatform: vi.fn(async () => ({ platform: 'android' })),
+  };
+  return { plugin, listeners };
+}
+
+describe('wire format adapter', () => {
+  it('should leave web plugins untouched', () => {
+    const { plugin } = nativePlugin(false);
+    expect(adaptWireFormat(plugin as unknown as StrataPlugin, false)).toBe(plugin);
+  });
+
+  it('should negotiate with its own layout version', async () => {
+    const { plugin } = nativePlugin(true);
+    const adapted = adaptWireFormat(plugin as unknown as StrataPlugin, true);
+    await adapted.setWireFormat({ format: 'compact' });
+    expect(plugin.setWireFormat).toHaveBeenCalledWith({ format: 'compact', version: WIRE_FORMAT_VERSION });
+  });
+
+  it('should decode packed responses and pass keyed ones through', async () => {
+    const packed = adaptWireFormat(nativePlugin(true).plugin as unknown as StrataPlugin, true);
+    expect((await packed.getInputSnapshot()).leftStick).toEqual({ x: 0.3137, y: -0.7213 });
+    const keyed = adaptWireFormat(nativePlugin(false).plugin as unknown as StrataPlugin, true);
+    expect(await keyed.getInputSnapshot()).toEqual({ timestamp: 1 });
+  });
+
+  it('should decode packed events for their listeners', async () => {
+    const { plugin, listeners } = nativePlugin(true);
+    const adapted = adaptWireFormat(plugin as unknown as StrataPlugin, true);
+    const onDelta = vi.fn();
+    const onConnected = vi.fn();
+    await adapted.addListener('inputDelta', onDelta);
+    await adapted.addListener('gamepadConnected', onConnected);
+
+    listeners.get('inputDelta')?.({ v: 1, p: [5, 6, 7, [1, 0, 0, 0], null, null, null] });
+    expect(onDelta).toHaveBeenCalledWith({
+      timestamp: 5,
+      frameTimeNanos: 6,
+      inputTimeNanos: 7,
+      leftStick: { x: 1, y: 0 },
+      rightStick: { x: 0, y: 0 },
+    });
+    expect(listeners.get('gamepadConnected')).toBe(onConnected);
+  });
+
+  it('should forward other methods unchanged', async () => {
+    const { plugin } = nativePlugin(true);
+    const adapted = adaptWireFormat(plugin as unknown as StrataPlugin, true) as unknown as typeof plugin;
+    await adapted.getPlatform();
+    expect(plugin.getPlatform).toHaveBeenCalled();
+  });
+});
@@ -0,0 +1,323 @@
+import { INPUT_ACTIONS, TOUCH_PHASES } from './definitions';
+import type {
+    DeviceProfile,
+    DeviceProfileChange,
+    GamepadState,
+    GestureEvent,
+    InputDelta,
+    InputSnapshot,
+    StrataPlugin,
+    Vector2,
+    WireFormatInfo,
+} from './definitions';
+
+/**
+ * Version of the compact layout this decoder reads. Native only sends
+ * compact payloads when asked for exactly this version.
+ */
+export const WIRE_FORMAT_VERSION = 1;
+
+/*
+ * Enum tables in wire order; native encodes a value as its index here, or
+ * sends the string itself when its table has no entry for it.
+ */
+export const DEVICE_TYPES: readonly DeviceProfile['deviceType'][] = ['mobile', 'tablet', 'foldable', 'desktop'];
+export const PLATFORMS: readonly DeviceProfile['platform'][] = ['ios', 'android', 'windows', 'macos', 'linux', 'web'];
+export const INPUT_MODES: readonly DeviceProfile['inputMode'][] = ['touch', 'keyboard', 'gamepad', 'hybrid'];
+export const ORIENTATIONS: readonly DeviceProfile['orientation'][] = ['portrait', 'landscape'];
+/** Device profile fields in wire order; bit n of a deviceChange mask is field n. */
+export const PROFILE_FIELDS: readonly (keyof DeviceProfile)[] = [
+    'deviceType',
+    'platform',
+    'inputMode',
+    'orientation',
+    'hasTouch',
+    'hasPointer',
+    'hasGamepad',
+    'isMobile',
+    'isTablet',
+    'isFoldable',
+    'isDesktop',
+    'screenWidth',
+    'screenHeight',
+    'pixelRatio',
+    'safeAreaInsets',
+];
+const PROFILE_FLAGS = ['hasTouch', 'hasPointer', 'hasGamepad', 'isMobile', 'isTablet', 'isFoldable', 'isDesktop'] as const;
+const GESTURE_TYPES = ['tap', 'pan', 'swipe', 'pinch'] as const;
+const GESTURE_PHASES = ['began', 'changed', 'ended', 'cancelled'] as const;
+const SWIPE_DIRECTIONS = ['left', 'right', 'up', 'down'] as const;
+
+const CONTROLLER_SELECTED = 1;
+const CONTROLLER_EXTENDED = 2;
+const CONTROLLER_MICRO = 4;
+
+/**
+ * A compact payload: the fields of the keyed payload in a fixed order. Lists
+ * of touches and gamepads are tables, flat number arrays whose first element
+ * is the row length. Fields outside the layout stay keyed next to `p`.
+ */
+export interface PackedPayload {
+    v: number;
+    p: unknown[];
+    [key: string]: unknown;
+}
+
+type ConnectedControllers = Awaited<ReturnType<StrataPlugin['getConnectedControllers']>>;
+
+export function isPacked(value: unknown): value is PackedPayload {
+    return (
+        typeof value === 'object' &&
+        value !== null &&
+        typeof (value as PackedPayload).v === 'number' &&
+        Array.isArray((value as PackedPayload).p)
+    );
+}
+
+function fields(packed: PackedPayload): unknown[] {
+    if (packed.v !== WIRE_FORMAT_VERSION) {
+        throw new Error(`Unsupported wire format version ${packed.v}`);
+    }
+    return packed.p;
+}
+
+function enumValue<T extends string>(table: readonly T[], value: unknown): T {
+    return (typeof value === 'number' ? table[value] : value) as T;
+}
+
+function vector(values: number[], offset: number): Vector2 {
+    return { x: values[offset], y: values[offset + 1] };
+}
+
+/**
+ * Expands a button bitfield into the named buttons whose bit is set in `changedMask`.
+ */
+export function decodeButtons(buttonMask: number, changedMask = -1): Record<string, boolean> {
+    const buttons: Record<string, boolean> = {};
+    for (let i = 0; i < INPUT_ACTIONS.length; i++) {
+        const bit = 1 << i;
+        if ((changedMask & bit) !== 0) {
+            buttons[INPUT_ACTIONS[i]] = (buttonMask & bit) !== 0;
+        }
+    }
+    return buttons;
+}
+
+function decodeTouches(table: number[]): InputSnapshot['touches'] {
+    const stride = table[0];
+    const touches: InputSnapshot['touches'] = [];
+    for (let i = 1; i + stride <= table.length; i += stride) {
+        const touch: InputSnapshot['touches'][number] = {
+            id: table[i],
+            position: vector(table, i + 1),
+            phase: TOUCH_PHASES[table[i + 3]],
+        };
+        if (stride >= 6) {
+            touch.predictedPosition = vector(table, i + 4);
+        }
+        touches.push(touch);
+    }
+    return touches;
+}
+
+export function decodeInputSnapshot(packed: PackedPayload): InputSnapshot {
+    const p = fields(packed);
+    const sticks = p[4] as number[];
+    const triggers = p[5] as number[];
+    const buttonMask = p[6] as number;
+    const snapshot: InputSnapshot = {
+        timestamp: p[0] as number,
+        inputTimeNanos: p[1] as number,
+        leftStick: vector(sticks, 0),
+        rightStick: vector(sticks, 2),
+        buttons: decodeButtons(buttonMask),
+        buttonMask,
+        triggers: { left: triggers[0], right: triggers[1] },
+        touches: decodeTouches(p[7] as number[]),
+    };
+    if (p[2]) snapshot.frame = p[2] as number;
+    if (p[3]) snapshot.frameTimeNanos = p[3] as number;
+    if (p[8]) {
+        const predicted = p[9] as number[];
+        snapshot.predictionTimeNanos = p[8] as number;
+        snapshot.predictedLeftStick = vector(predicted, 0);
+        snapshot.predictedRightStick = vector(predicted, 2);
+    }
+    if (packed.history !== undefined) snapshot.history = packed.history as InputSnapshot['history'];
+    return snapshot;
+}
+
+export function decodeInputDelta(packed: PackedPayload): InputDelta {
+    const p = fields(packed);
+    const delta: InputDelta = {
+        timestamp: p[0] as number,
+        frameTimeNanos: p[1] as number,
+        inputTimeNanos: p[2] as number,
+    };
+    const sticks = p[3] as number[] | null;
+    if (sticks) {
+        delta.leftStick = vector(sticks, 0);
+        delta.rightStick = vector(sticks, 2);
+    }
+    const triggers = p[4] as number[] | null;
+    if (triggers) delta.triggers = { left: triggers[0], right: triggers[1] };
+    const buttons = p[5] as number[] | null;
+    if (buttons) delta.buttons = decodeButtons(buttons[0], buttons[1]);
+    const touches = p[6] as number[] | null;
+    if (touches) delta.touches = decodeTouches(touches);
+    return delta;
+}
+
+export function decodeGamepadStates(packed: PackedPayload): { gamepads: GamepadState[] } {
+    const p = fields(packed);
+    const table = p[0] as number[];
+    const ids = p[1] as string[];
+    const stride = table[0];
+    const gamepads: GamepadState[] = [];
+    for (let i = 1, row = 0; i + stride <= table.length; i += stride, row++) {
+        gamepads.push({
+            index: table[i],
+            deviceId: table[i + 1],
+            id: ids[row],
+            isSelected: table[i + 2] !== 0,
+            timestamp: table[i + 3],
+            leftStick: vector(table, i + 4),
+            rightStick: vector(table, i + 6),
+            triggers: { left: table[i + 8], right: table[i + 9] },
+            buttons: decodeButtons(table[i + 10]),
+            buttonMask: table[i + 10],
+        });
+    }
+    return { gamepads };
+}
+
+export function decodeConnectedControllers(packed: PackedPayload): ConnectedControllers {
+    const p = fields(packed);
+    const ids = p[1] as string[];
+    const flags = p[2] as number[];
+    return {
+        controllers: ids.map((id, index) => ({
+            index,
+            id,
+            isSelected: (flags[index] & CONTROLLER_SELECTED) !== 0,
+            hasExtendedGamepad: (flags[index] & CONTROLLER_EXTENDED) !== 0,
+            hasMicroGamepad: (flags[index] & CONTROLLER_MICRO) !== 0,
+        })),
+        selectedIndex: p[0] as number,
+    };
+}
+
+/**
+ * Decodes a device profile, or a deviceChange payload when it carries a changed mask.
+ */
+export function decodeDeviceProfile(packed: PackedPayload): DeviceProfile | DeviceProfileChange {
+    const p = fields(packed);
+    const flags = p[4] as number;
+    const insets = p[8] as number[];
+    const profile = {
+        deviceType: enumValue(DEVICE_TYPES, p[0]),
+        platform: enumValue(PLATFORMS, p[1]),
+        inputMode: enumValue(INPUT_MODES, p[2]),
+        orientation: enumValue(ORIENTATIONS, p[3]),
+    } as DeviceProfile;
+    PROFILE_FLAGS.forEach((name, bit) => {
+        profile[name] = (flags & (1 << bit)) !== 0;
+    });
+    profile.screenWidth = p[5] as number;
+    profile.screenHeight = p[6] as number;
+    profile.pixelRatio = p[7] as number;
+    profile.safeAreaInsets = { top: insets[0], right: insets[1], bottom: insets[2], left: insets[3] };
+    if (typeof p[9] !== 'number') return profile;
+    const mask = p[9];
+    return { ...profile, changed: PROFILE_FIELDS.filter((_, bit) => (mask & (1 << bit)) !== 0) };
+}
+
+export function decodeGesture(packed: PackedPayload): GestureEvent {
+    const p = fields(packed);
+    const type = enumValue(GESTURE_TYPES, p[0]);
+    const base = { x: p[1] as number, y: p[2] as number, timeNanos: p[3] as number };
+    switch (type) {
+        case 'pan': {
+            const pan: Extract<GestureEvent, { type: 'pan' }> = {
+                type,
+                phase: enumValue(GESTURE_PHASES, p[4]),
+                ...base,
+                dx: p[5] as number,
+                dy: p[6] as number,
+            };
+            if (p.length > 7) {
+                pan.vx = p[7] as number;
+                pan.vy = p[8] as number;
+            }
+            return pan;
+        }
+        case 'swipe':
+            return {
+                type,
+                ...base,
+                vx: p[4] as number,
+                vy: p[5] as number,
+                direction: enumValue(SWIPE_DIRECTIONS, p[6]),
+            };
+        case 'pinch':
+            return {
+                type,
+                phase: enumValue(GESTURE_PHASES, p[4]),
+                ...base,
+                scale: p[5] as number,
+                totalScale: p[6] as number,
+            };
+        default:
+            return { type: 'tap', ...base };
+    }
+}
+
+const EVENT_DECODERS: Record<string, (packed: PackedPayload) => unknown> = {
+    inputChange: decodeInputSnapshot,
+    inputDelta: decodeInputDelta,
+    deviceChange: decodeDeviceProfile,
+    gesture: decodeGesture,
+};
+
+/**
+ * Decodes `value` with `decoder` if it is packed, and passes keyed payloads through.
+ */
+function decoded<T>(value: unknown, decoder: (packed: PackedPayload) => T): T {
+    return isPacked(value) ? decoder(value) : (value as T);
+}
+
+/**
+ * Adds the compact wire format to a native plugin: setWireFormat negotiates
+ * the layout version, and responses and events that arrive packed are decoded
+ * back into their keyed shape, so callers see the same objects in either
+ * format. Web implementations get the plugin back unchanged.
+ */
+export function adaptWireFormat(plugin: StrataPlugin, isNative: boolean): StrataPlugin {
+    if (!isNative) return plugin;
+    const native = plugin as unknown as {
+        setWireFormat(options: { format: WireFormatInfo['format']; version: number }): Promise<WireFormatInfo>;
+        addListener(eventName: string, callback: (data: unknown) => void): Promise<{ remove: () => Promise<void> }>;
+    };
+
+    const overrides: Partial<StrataPlugin> = {
+        setWireFormat: (options) => native.setWireFormat({ format: options.format, version: WIRE_FORMAT_VERSION }),
+        getInputSnapshot: async (options) => decoded(await plugin.getInputSnapshot(options), decodeInputSnapshot),
+        getGamepadStates: async () => decoded(await plugin.getGamepadStates(), decodeGamepadStates),
+        getConnectedControllers: async () => decoded(await plugin.getConnectedControllers(), decodeConnectedControllers),
+        getDeviceProfile: async () => decoded(await plugin.getDeviceProfile(), decodeDeviceProfile),
+        addListener: ((eventName: string, callback: (data: unknown) => void) => {
+            const decoder = EVENT_DECODERS[eventName];
+            if (!decoder) return native.addListener(eventName, callback);
+            return native.addListener(eventName, (data) => callback(decoded(data, decoder)));
+        }) as StrataPlugin['addListener'],
+    };
+
+    return new Proxy(plugin, {
+        get(target, prop, receiver) {
+            if (typeof prop === 'string' && Object.prototype.hasOwnProperty.call(overrides, prop)) {
+                return overrides[prop as keyof StrataPlugin];
+            }
+            return Reflect.get(target, prop, receiver);
+        },
+    });
+}